@@ -0,0 +1,87 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations applied to a single attack.
+ * <p>
+ * Each invocation picks the next attack of a fixed, seeded population, so
+ * every movement pattern and modifier is represented in the result.
+ * </p>
+ *
+ * @see GenerationEngine
+ * @see NecromancerAttackTemplate
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttackBenchmark {
+
+    private static final int POPULATION = 1024;
+
+    private final NecromancerAttackTemplate[] attacks = new NecromancerAttackTemplate[POPULATION];
+    private SplittableRandom random;
+    private int next;
+    private final StringBuilder code = new StringBuilder(1024);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom population = new SplittableRandom(42L);
+        for (int i = 0; i < POPULATION; i++) {
+            attacks[i] = GenerationEngine.createRandomAttack(population);
+        }
+        random = new SplittableRandom(42L);
+    }
+
+    private NecromancerAttackTemplate nextAttack() {
+        next = (next + 1) & (POPULATION - 1);
+        return attacks[next];
+    }
+
+    @Benchmark
+    public NecromancerAttackTemplate createRandomAttack() {
+        return GenerationEngine.createRandomAttack(random);
+    }
+
+    @Benchmark
+    public NecromancerAttackTemplate cloneAttack() {
+        return GenerationEngine.cloneAttack(nextAttack());
+    }
+
+    @Benchmark
+    public String getMovementLogicCode() {
+        return nextAttack().getMovementLogicCode();
+    }
+
+    /**
+     * Renders the movement and modifier code into a reused builder, as the
+     * exporter does.
+     */
+    @Benchmark
+    public int appendLogicCode() {
+        NecromancerAttackTemplate attack = nextAttack();
+        code.setLength(0);
+        attack.appendMovementLogicCode(code);
+        attack.appendModifierLogicCode(code);
+        return code.length();
+    }
+}
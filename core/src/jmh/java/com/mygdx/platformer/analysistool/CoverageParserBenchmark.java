@@ -0,0 +1,104 @@
+package com.mygdx.platformer.analysistool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of {@link CoverageParser} on synthetic JaCoCo reports with the
+ * layout of a real report: five attack classes per compound package, each
+ * with method and class counters.
+ *
+ * @see CoverageParser
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoverageParserBenchmark {
+
+    private static final String[] COUNTERS = {"INSTRUCTION", "BRANCH", "LINE", "COMPLEXITY", "METHOD"};
+
+    @Param({"1000", "20000"})
+    private int classes;
+
+    private Path directory;
+    private Path report;
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("coverage-benchmark");
+        report = directory.resolve("jacocoTestReport.xml");
+        csv = directory.resolve("coverage_report.csv");
+
+        SplittableRandom random = new SplittableRandom(42L);
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">\n"
+                + "<report name=\"core\">\n");
+            for (int i = 0; i < classes; i++) {
+                String packageName = "generated/rcg/gen" + (i / 100) + "/compound_" + (i / 5 % 20);
+                if (i % 5 == 0) {
+                    writer.write("<package name=\"" + packageName + "\">\n");
+                }
+                writer.write("<class name=\"" + packageName + "/NecromancerAttack_" + (i % 5) + "\">\n");
+                writer.write("<method name=\"execute\" desc=\"()V\" line=\"11\">");
+                writeCounters(writer, random);
+                writer.write("</method>\n");
+                writeCounters(writer, random);
+                writer.write("</class>\n");
+                if (i % 5 == 4 || i == classes - 1) {
+                    writer.write("</package>\n");
+                }
+            }
+            writer.write("</report>\n");
+        }
+    }
+
+    private static void writeCounters(BufferedWriter writer, SplittableRandom random) throws IOException {
+        for (String type : COUNTERS) {
+            writer.write("<counter type=\"" + type + "\" missed=\"" + random.nextInt(50) + "\" covered=\""
+                + random.nextInt(50) + "\"/>");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int extractCoverageToCSV() throws IOException, XMLStreamException {
+        return CoverageParser.extractCoverageToCSV(report, csv);
+    }
+}
@@ -0,0 +1,57 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the conversion of a generation to Java source code, the
+ * per-class cost of the export before anything is written to disk.
+ *
+ * @see AttackExporter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"20", "2000"})
+    private int compounds;
+
+    private List<List<NecromancerAttackTemplate>> generation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (GenerationEngine engine = new GenerationEngine(42L, compounds, 5, 1)) {
+            generation = engine.generatePCG(0);
+        }
+    }
+
+    /**
+     * Runs {@code AttackExporter.convertAttackToJavaClass} for every attack of
+     * the generation.
+     */
+    @Benchmark
+    public Map<String, String> toSources() {
+        return AttackExporter.toSources(generation, 1, GenerationEngine.RCG);
+    }
+}
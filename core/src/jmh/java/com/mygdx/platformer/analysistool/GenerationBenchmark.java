@@ -0,0 +1,80 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of whole PCG and RCG generations at several population sizes.
+ * <p>
+ * The engine runs on a single thread, so the results measure the cost per
+ * core and can be compared between machines with different core counts.
+ * The {@code Packed} variants create the same generations as packed genomes
+ * in an {@link AttackPopulation}, without creating templates.
+ * </p>
+ *
+ * @see GenerationEngine
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"20", "2000", "20000"})
+    private int compounds;
+
+    private GenerationEngine engine;
+    private List<List<NecromancerAttackTemplate>> previousGeneration;
+    private AttackPopulation previousPopulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new GenerationEngine(42L, compounds, 5, 1);
+        previousGeneration = engine.generatePCG(0);
+        previousPopulation = engine.populatePCG(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public List<List<NecromancerAttackTemplate>> generatePCG() {
+        return engine.generatePCG(1);
+    }
+
+    @Benchmark
+    public List<List<NecromancerAttackTemplate>> generateRCG() {
+        return engine.generateRCG(previousGeneration, 1);
+    }
+
+    @Benchmark
+    public AttackPopulation generatePCGPacked() {
+        return engine.populatePCG(1);
+    }
+
+    @Benchmark
+    public AttackPopulation generateRCGPacked() {
+        return engine.generateRCG(previousPopulation, 1);
+    }
+}
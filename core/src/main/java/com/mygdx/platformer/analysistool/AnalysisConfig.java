@@ -0,0 +1,412 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Configuration of an analysis run of {@link AttackGenerationExporter}.
+ * <p>
+ * Every setting has a default, can be set in a properties file and can be
+ * overridden on the command line. Command line options take the form
+ * {@code --key=value}; {@code --config=file} loads a properties file, and a
+ * bare number is taken as the seed.
+ * </p>
+ *
+ * <h2>Settings</h2>
+ * <ul>
+ * <li>{@code seed} &ndash; the run seed (default: random).</li>
+ * <li>{@code compounds} &ndash; compounds per generation (default: 20).</li>
+ * <li>{@code attacksPerCompound} &ndash; attacks per compound (default: 5).</li>
+ * <li>{@code generations} &ndash; generations per strategy after generation 0 (default: 10).</li>
+ * <li>{@code methods} &ndash; comma separated {@link GenerationStrategy
+ * strategies} to run concurrently, {@code PCG}, {@code RCG} or any other
+ * registered strategy (default: PCG,RCG).</li>
+ * <li>{@code chunkSize} &ndash; compounds generated and exported at a time
+ * (default: 1024).</li>
+ * <li>{@code parallelism} &ndash; generation threads (default: all processors).</li>
+ * <li>{@code selection} &ndash; how RCG picks hosts and donors, {@code uniform},
+ * {@code tournament} or {@code roulette} (default: uniform).</li>
+ * <li>{@code output} &ndash; the export directory (default: out/generated/).</li>
+ * <li>{@code deduplicate}, {@code incremental}, {@code analyze},
+ * {@code coverage}, {@code trajectories}, {@code bytecode}, {@code similarity}
+ * &ndash; export and analysis switches (default: false, true, true, false,
+ * false, false, false).</li>
+ * <li>{@code resume} &ndash; continue the interrupted run in the export
+ * directory from its {@link RunCheckpoint}, with the configuration stored
+ * there (default: false).</li>
+ * <li>{@code workers} &ndash; worker JVMs that compute the metrics and
+ * coverage in shards, see {@link ShardCoordinator}, or 0 to analyse in this
+ * JVM (default: 0).</li>
+ * <li>{@code workerHeap} &ndash; the maximum heap of every worker JVM, as
+ * for {@code -Xmx} (default: 1g).</li>
+ * </ul>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * AttackGenerationExporter 42 --compounds=2000000 --generations=3 --methods=RCG
+ * AttackGenerationExporter --config=run.properties --seed=42
+ * AttackGenerationExporter --output=out/generated/ --resume=true
+ * AttackGenerationExporter --coverage=true --workers=8 --workerHeap=2g
+ * </pre>
+ *
+ * @see AttackGenerationExporter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class AnalysisConfig {
+
+    private static final Set<String> KEYS = Set.of("seed", "compounds", "attacksPerCompound", "generations",
+        "methods", "chunkSize", "parallelism", "output", "deduplicate", "incremental", "analyze", "coverage", "selection",
+        "trajectories", "bytecode", "similarity", "resume", "workers", "workerHeap");
+
+    private final long seed;
+    private final int compoundCount;
+    private final int attacksPerCompound;
+    private final int generations;
+    private final Set<String> methods;
+    private final int chunkSize;
+    private final int parallelism;
+    private final GenerationEngine.Selection selection;
+    private final Path outputDirectory;
+    private final boolean deduplicate;
+    private final boolean incremental;
+    private final boolean analyze;
+    private final boolean coverage;
+    private final boolean trajectories;
+    private final boolean bytecode;
+    private final boolean similarity;
+    private final boolean resume;
+    private final int workers;
+    private final String workerHeap;
+
+    private AnalysisConfig(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown setting: " + key);
+            }
+        }
+        String seedValue = properties.getProperty("seed");
+        this.seed = seedValue != null ? Long.parseLong(seedValue.trim()) : ThreadLocalRandom.current().nextLong();
+        this.compoundCount = positive(properties, "compounds", 20);
+        this.attacksPerCompound = positive(properties, "attacksPerCompound", 5);
+        this.generations = positive(properties, "generations", 10);
+        this.chunkSize = positive(properties, "chunkSize", 1024);
+        this.parallelism = positive(properties, "parallelism", Runtime.getRuntime().availableProcessors());
+        String selectionValue = properties.getProperty("selection", "uniform").trim().toUpperCase(Locale.ROOT);
+        try {
+            this.selection = GenerationEngine.Selection.valueOf(selectionValue);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown selection mode: " + properties.getProperty("selection"));
+        }
+        this.outputDirectory = Path.of(properties.getProperty("output", AttackExporter.OUTPUT_DIR).trim());
+        this.deduplicate = Boolean.parseBoolean(properties.getProperty("deduplicate", "false").trim());
+        this.incremental = Boolean.parseBoolean(properties.getProperty("incremental", "true").trim());
+        this.analyze = Boolean.parseBoolean(properties.getProperty("analyze", "true").trim());
+        this.coverage = Boolean.parseBoolean(properties.getProperty("coverage", "false").trim());
+        this.trajectories = Boolean.parseBoolean(properties.getProperty("trajectories", "false").trim());
+        this.bytecode = Boolean.parseBoolean(properties.getProperty("bytecode", "false").trim());
+        this.similarity = Boolean.parseBoolean(properties.getProperty("similarity", "false").trim());
+        this.resume = Boolean.parseBoolean(properties.getProperty("resume", "false").trim());
+        this.workers = Integer.parseInt(properties.getProperty("workers", "0").trim());
+        if (workers < 0) {
+            throw new IllegalArgumentException("workers must not be negative, was " + workers);
+        }
+        this.workerHeap = properties.getProperty("workerHeap", "1g").trim();
+        if (!workerHeap.matches("\\d+[kKmMgG]?")) {
+            throw new IllegalArgumentException("Invalid workerHeap: " + workerHeap + ", expected e.g. 512m or 2g");
+        }
+
+        Set<String> strategies = GenerationStrategy.available().keySet();
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String method : properties.getProperty("methods", "PCG,RCG").split(",")) {
+            String name = method.trim().toUpperCase(Locale.ROOT);
+            if (!strategies.contains(name)) {
+                throw new IllegalArgumentException("Unknown generation method: " + method);
+            }
+            parsed.add(name);
+        }
+        this.methods = Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * Parses a configuration from command line arguments.
+     *
+     * @param args The command line arguments.
+     * @return The configuration.
+     * @throws IOException              If a properties file cannot be read.
+     * @throws IllegalArgumentException If an argument or setting is invalid.
+     */
+    public static AnalysisConfig fromArgs(String[] args) throws IOException {
+        Properties properties = new Properties();
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            if (arg.startsWith("--config=")) {
+                try (Reader reader = Files.newBufferedReader(Path.of(arg.substring("--config=".length())),
+                        StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+            } else if (arg.startsWith("--") && arg.indexOf('=') > 2) {
+                overrides.setProperty(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.matches("-?\\d+")) {
+                overrides.setProperty("seed", arg);
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg
+                    + ", expected a seed, --config=file or --key=value");
+            }
+        }
+        properties.putAll(overrides);
+        return new AnalysisConfig(properties);
+    }
+
+    /**
+     * Creates a configuration from a set of properties. Missing settings
+     * take their defaults.
+     *
+     * @param properties The settings.
+     * @return The configuration.
+     * @throws IllegalArgumentException If a setting is invalid.
+     */
+    public static AnalysisConfig fromProperties(Properties properties) {
+        return new AnalysisConfig(properties);
+    }
+
+    private static int positive(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed = Integer.parseInt(value.trim());
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(key + " must be positive, was " + parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Accessor for the run seed.
+     *
+     * @return The seed all random streams are derived from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Accessor for the number of compounds per generation.
+     *
+     * @return The compound count.
+     */
+    public int getCompoundCount() {
+        return compoundCount;
+    }
+
+    /**
+     * Accessor for the number of attacks per compound.
+     *
+     * @return The attacks per compound.
+     */
+    public int getAttacksPerCompound() {
+        return attacksPerCompound;
+    }
+
+    /**
+     * Accessor for the number of generations per strategy.
+     *
+     * @return The generation count.
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Accessor for the generation methods to run.
+     *
+     * @return The names of the strategies (e.g., {@code PCG} and {@code RCG}).
+     */
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Accessor for the number of compounds generated and exported at a time.
+     *
+     * @return The chunk size.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Accessor for the number of generation threads.
+     *
+     * @return The parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Accessor for the RCG selection mode.
+     *
+     * @return How RCG picks hosts and donors.
+     */
+    public GenerationEngine.Selection getSelection() {
+        return selection;
+    }
+
+    /**
+     * Accessor for the export directory.
+     *
+     * @return The root directory of the export.
+     */
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Whether to store each unique class body once instead of writing a
+     * source tree.
+     *
+     * @return {@code true} for a deduplicated export.
+     */
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    /**
+     * Whether to write only the files that changed since the last run.
+     *
+     * @return {@code true} for an incremental export.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Whether to compute code metrics after the export.
+     *
+     * @return {@code true} if the export is analysed.
+     */
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
+    /**
+     * Whether to collect the coverage of the generated attacks after the
+     * export.
+     *
+     * @return {@code true} if coverage is collected.
+     */
+    public boolean isCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Whether to simulate the generated attacks and record their
+     * trajectory metrics during the export.
+     *
+     * @return {@code true} if trajectories are profiled.
+     */
+    public boolean isTrajectories() {
+        return trajectories;
+    }
+
+    /**
+     * Whether to also export the class file of every generated attack, which
+     * the coverage collection then loads instead of compiling the source.
+     *
+     * @return {@code true} if class files are exported.
+     */
+    public boolean isBytecode() {
+        return bytecode;
+    }
+
+    /**
+     * Whether to compute the code similarity distribution of every
+     * generation after the export.
+     *
+     * @return {@code true} if similarity is analysed.
+     */
+    public boolean isSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * Whether to resume the interrupted run in the export directory.
+     *
+     * @return {@code true} if the run continues from its checkpoint.
+     */
+    public boolean isResume() {
+        return resume;
+    }
+
+    /**
+     * Accessor for the number of worker JVMs of the analysis.
+     *
+     * @return The worker count, or 0 if the export is analysed in this JVM.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Accessor for the maximum heap of every worker JVM.
+     *
+     * @return The heap size in the format of {@code -Xmx} (e.g., {@code 2g}).
+     */
+    public String getWorkerHeap() {
+        return workerHeap;
+    }
+
+    /**
+     * Converts the configuration back to properties, from which
+     * {@link #fromProperties(Properties)} creates an equal configuration.
+     *
+     * @return Every setting, including the seed.
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("seed", Long.toString(seed));
+        properties.setProperty("compounds", Integer.toString(compoundCount));
+        properties.setProperty("attacksPerCompound", Integer.toString(attacksPerCompound));
+        properties.setProperty("generations", Integer.toString(generations));
+        properties.setProperty("methods", String.join(",", methods));
+        properties.setProperty("chunkSize", Integer.toString(chunkSize));
+        properties.setProperty("parallelism", Integer.toString(parallelism));
+        properties.setProperty("selection", selection.name().toLowerCase(Locale.ROOT));
+        properties.setProperty("output", outputDirectory.toString());
+        properties.setProperty("deduplicate", Boolean.toString(deduplicate));
+        properties.setProperty("incremental", Boolean.toString(incremental));
+        properties.setProperty("analyze", Boolean.toString(analyze));
+        properties.setProperty("coverage", Boolean.toString(coverage));
+        properties.setProperty("trajectories", Boolean.toString(trajectories));
+        properties.setProperty("bytecode", Boolean.toString(bytecode));
+        properties.setProperty("similarity", Boolean.toString(similarity));
+        properties.setProperty("resume", Boolean.toString(resume));
+        properties.setProperty("workers", Integer.toString(workers));
+        properties.setProperty("workerHeap", workerHeap);
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "seed=" + seed + ", compounds=" + compoundCount + ", attacksPerCompound=" + attacksPerCompound
+            + ", generations=" + generations + ", methods=" + String.join(",", methods) + ", chunkSize=" + chunkSize
+            + ", parallelism=" + parallelism + ", selection=" + selection.name().toLowerCase(Locale.ROOT)
+            + ", output=" + outputDirectory + ", deduplicate=" + deduplicate
+            + ", incremental=" + incremental + ", analyze=" + analyze + ", coverage=" + coverage
+            + ", trajectories=" + trajectories + ", bytecode=" + bytecode
+            + ", similarity=" + similarity + ", resume=" + resume + ", workers=" + workers
+            + ", workerHeap=" + workerHeap;
+    }
+}
@@ -0,0 +1,293 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Export sink that writes files on dedicated writer threads.
+ * <p>
+ * Callers only enqueue the path and content of a file; the bounded queue is
+ * drained in batches by the writer threads, which create every directory
+ * once and write each file with a single {@link FileChannel} write. The queue
+ * bound applies back pressure when the disk cannot keep up, so memory use
+ * stays bounded.
+ * </p>
+ * <p>
+ * Write failures do not interrupt the export. They are collected and
+ * reported together when the writer is closed.
+ * </p>
+ * <p>
+ * {@link #flush()} waits for the files queued so far without stopping the
+ * writer, which lets a checkpoint record a generation only once its files
+ * are on disk.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (AsyncFileWriter writer = new AsyncFileWriter(2, 4096)) {
+ *     writer.write(Path.of("out/generated/a.java"), source);
+ * } // waits for all files and throws if any of them failed
+ * </pre>
+ *
+ * @see AttackExporter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class AsyncFileWriter implements Flushable, AutoCloseable {
+
+    /** The maximum number of failures attached to the aggregate exception. */
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private static final int BATCH_SIZE = 256;
+
+    private static final FileTask POISON = new FileTask(null, null, 0);
+
+    private final BlockingQueue<FileTask> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private final Map<Path, Path> createdDirectories = new ConcurrentHashMap<>();
+    private final Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    /** The sequence numbers of the queued files that are not written yet. */
+    private final ConcurrentSkipListSet<Long> unwritten = new ConcurrentSkipListSet<>();
+    private final AtomicInteger flushing = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Creates a writer and starts its writer threads.
+     *
+     * @param writerThreads The number of writer threads.
+     * @param queueCapacity The maximum number of files waiting to be written.
+     */
+    public AsyncFileWriter(int writerThreads, int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::drain, "export-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /**
+     * Enqueues a file to be written. Parent directories are created as needed.
+     * <p>
+     * Blocks only if the queue is full.
+     * </p>
+     *
+     * @param file    The file to write; an existing file is overwritten.
+     * @param content The content of the file.
+     */
+    public void write(Path file, String content) {
+        write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Enqueues a binary file to be written. Parent directories are created as
+     * needed.
+     * <p>
+     * Blocks only if the queue is full. The array must not be changed
+     * afterwards.
+     * </p>
+     *
+     * @param file    The file to write; an existing file is overwritten.
+     * @param content The content of the file.
+     */
+    public void write(Path file, byte[] content) {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        long id = sequence.incrementAndGet();
+        unwritten.add(id);
+        try {
+            queue.put(new FileTask(file, content, id));
+        } catch (InterruptedException e) {
+            unwritten.remove(id);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing " + file, e);
+        }
+    }
+
+    /**
+     * Accessor for the number of files written so far.
+     *
+     * @return The number of files written successfully.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Waits until every file queued before the call has been written. Files
+     * queued concurrently by other threads are not waited for, and the writer
+     * stays open.
+     *
+     * @throws IOException If any file written so far has failed; the
+     *                     individual failures are reported by
+     *                     {@link #close()}.
+     */
+    @Override
+    public void flush() throws IOException {
+        long last = sequence.get();
+        synchronized (unwritten) {
+            flushing.incrementAndGet();
+            try {
+                while (!unwritten.isEmpty() && unwritten.first() <= last) {
+                    unwritten.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for writers");
+            } finally {
+                flushing.decrementAndGet();
+            }
+        }
+        if (failureCount.get() > 0) {
+            throw new IOException(failureCount.get() + " files could not be written");
+        }
+    }
+
+    /**
+     * Waits until every queued file has been written and stops the writer
+     * threads.
+     *
+     * @throws IOException If any file could not be written. The exception
+     *                     carries the individual failures as suppressed
+     *                     exceptions.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (int i = 0; i < writers.size(); i++) {
+                queue.put(POISON);
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for writers", e);
+        }
+
+        if (failureCount.get() > 0) {
+            IOException aggregate = new IOException(failureCount.get() + " of "
+                + (failureCount.get() + writtenCount.get()) + " files could not be written");
+            failures.forEach(aggregate::addSuppressed);
+            throw aggregate;
+        }
+    }
+
+    /**
+     * Writer thread loop.
+     */
+    private void drain() {
+        List<FileTask> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i) == POISON) {
+                    // every file precedes the poison pills, but the pills of
+                    // the other writers must be handed back
+                    for (int j = i + 1; j < batch.size(); j++) {
+                        queue.offer(POISON);
+                    }
+                    return;
+                }
+                writeFile(batch.get(i));
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeFile(FileTask task) {
+        try {
+            Path parent = task.file.getParent();
+            if (parent != null) {
+                createDirectoryOnce(parent);
+            }
+            try (FileChannel channel = FileChannel.open(task.file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(task.content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            writtenCount.incrementAndGet();
+        } catch (IOException e) {
+            if (failureCount.incrementAndGet() <= MAX_REPORTED_FAILURES) {
+                failures.add(e);
+            }
+        } finally {
+            unwritten.remove(task.id);
+            if (flushing.get() > 0) {
+                synchronized (unwritten) {
+                    unwritten.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a directory the first time it is requested. Concurrent requests
+     * for the same directory wait until it exists.
+     */
+    private void createDirectoryOnce(Path directory) throws IOException {
+        try {
+            createdDirectories.computeIfAbsent(directory, d -> {
+                try {
+                    return Files.createDirectories(d);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A file waiting to be written.
+     */
+    private static final class FileTask {
+        final Path file;
+        final byte[] content;
+        final long id;
+
+        FileTask(Path file, byte[] content, long id) {
+            this.file = file;
+            this.content = content;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.AttackModifier;
+import com.mygdx.platformer.attacks.movement.MovementPatternBehavior;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the bytecode of attack classes directly, without a Java compiler.
+ * <p>
+ * {@link AttackExporter} writes every attack as a Java source file, which
+ * {@link InMemoryCompiler} then compiles before the class can be executed or
+ * its coverage collected. Compiling dominates the cost of those steps. This
+ * class emits the class file of the same source with ASM instead: the
+ * {@code execute} method is assembled from the bytecode
+ * {@link InlineBytecode} holds for the movement pattern and modifier of the
+ * attack.
+ * </p>
+ * <p>
+ * The emitted instructions and line numbers match those javac produces for
+ * the source of {@link AttackExporter#toSources(List, int, String)}, so an
+ * emitted class behaves like the compiled one and has the same line and
+ * branch coverage counters. Only the constant pool layout, local variable
+ * slots and stack map frames may differ.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * byte[] classFile = AttackClassEmitter.emit(new AttackKey("PCG", 0, 0, 0), template);
+ * CompiledClasses classes = AttackClassEmitter.toClasses(compounds, 0, "PCG");
+ * </pre>
+ *
+ * @see AttackExporter
+ * @see InlineBytecode
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class AttackClassEmitter {
+
+    /** The source line of the class declaration in a generated source file. */
+    private static final int CLASS_LINE = 9;
+    /** The source line of the damage declaration, the first of {@code execute}. */
+    private static final int DAMAGE_LINE = 12;
+
+    private static final Type OBJECT = Type.getType(Object.class);
+    private static final Type MATH = Type.getType(Math.class);
+    private static final Type NECROMANCER_ATTACK =
+        Type.getObjectType("com/mygdx/platformer/attacks/NecromancerAttack");
+
+    private static final Method CONSTRUCTOR = Method.getMethod("void <init>()");
+    private static final Method EXECUTE = Method.getMethod("com.mygdx.platformer.attacks.BaseAttack execute("
+        + "com.badlogic.gdx.physics.box2d.World, com.badlogic.gdx.math.Vector2, int, float)");
+    private static final Method ROUND = Method.getMethod("int round(float)");
+    private static final Method ATTACK_CONSTRUCTOR =
+        Method.getMethod("void <init>(com.badlogic.gdx.physics.box2d.World, int, float, float, float, int)");
+
+    private AttackClassEmitter() {
+    }
+
+    /**
+     * Emits the class file of an attack.
+     *
+     * @param key    The attack, which fixes the package and class name.
+     * @param attack The attack template.
+     * @return The class file.
+     */
+    public static byte[] emit(AttackKey key, NecromancerAttackTemplate attack) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // only attacks and vectors are live across branches, and never
+                // merged with another type, so the engine classes need not be loaded
+                return OBJECT.getInternalName();
+            }
+        };
+        String simpleName = "NecromancerAttack_" + key.getAttack();
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+            key.toClassName().replace('.', '/'), null, OBJECT.getInternalName(), null);
+        writer.visitSource(simpleName + ".java", null);
+
+        GeneratorAdapter constructor = new GeneratorAdapter(Opcodes.ACC_PUBLIC, CONSTRUCTOR, null, null, writer);
+        constructor.visitCode();
+        InlineBytecode.line(constructor, CLASS_LINE);
+        constructor.loadThis();
+        constructor.invokeConstructor(OBJECT, CONSTRUCTOR);
+        constructor.returnValue();
+        constructor.endMethod();
+
+        emitExecute(new GeneratorAdapter(Opcodes.ACC_PUBLIC, EXECUTE, null, null, writer), attack);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void emitExecute(GeneratorAdapter code, NecromancerAttackTemplate attack) {
+        code.visitCode();
+        int damage = code.newLocal(Type.INT_TYPE);
+        int speed = code.newLocal(Type.FLOAT_TYPE);
+        int baseAttack = code.newLocal(InlineBytecode.BASE_ATTACK);
+
+        int line = DAMAGE_LINE;
+        InlineBytecode.line(code, line++);
+        code.push(attack.getDamage());
+        code.storeLocal(damage);
+        InlineBytecode.line(code, line++);
+        code.push(attack.getSpeed());
+        code.storeLocal(speed);
+
+        // new NecromancerAttack(world, Math.round(damage * multiplier), speed, initialPos.x, initialPos.y,
+        //     directionModifier)
+        InlineBytecode.line(code, line++);
+        code.newInstance(NECROMANCER_ATTACK);
+        code.dup();
+        code.loadArg(0);
+        code.loadLocal(damage);
+        code.cast(Type.INT_TYPE, Type.FLOAT_TYPE);
+        code.loadArg(3);
+        code.math(GeneratorAdapter.MUL, Type.FLOAT_TYPE);
+        code.invokeStatic(MATH, ROUND);
+        code.loadLocal(speed);
+        code.loadArg(1);
+        InlineBytecode.getVectorField(code, "x");
+        code.loadArg(1);
+        InlineBytecode.getVectorField(code, "y");
+        code.loadArg(2);
+        code.invokeConstructor(NECROMANCER_ATTACK, ATTACK_CONSTRUCTOR);
+        code.storeLocal(baseAttack);
+
+        // an absent behaviour leaves an empty line in the source
+        MovementPatternBehavior movement = attack.getMovementPattern();
+        line += movement != null
+            ? InlineBytecode.emitMovement(code, movement, baseAttack, attack.getSpeed(), line) : 1;
+        AttackModifier modifier = attack.getModifier();
+        line += modifier != null ? InlineBytecode.emitModifier(code, modifier, baseAttack, line) : 1;
+
+        InlineBytecode.line(code, line);
+        code.loadLocal(baseAttack);
+        code.returnValue();
+        code.endMethod();
+    }
+
+    /**
+     * Emits every attack of a generation into a set of loadable classes.
+     * <p>
+     * This is the bytecode counterpart of compiling
+     * {@link AttackExporter#toSources(List, int, String)} with the
+     * {@link InMemoryCompiler}, at a fraction of the cost.
+     * </p>
+     *
+     * @param compounds  The list of attack compounds to emit.
+     * @param generation The generation number.
+     * @param method     The generation method name (e.g., "PCG" or "RCG").
+     * @return The emitted classes, indexed by fully qualified class name.
+     */
+    public static CompiledClasses toClasses(List<List<NecromancerAttackTemplate>> compounds, int generation,
+                                            String method) {
+        Map<String, byte[]> classBytes = new LinkedHashMap<>();
+        for (int compoundId = 0; compoundId < compounds.size(); compoundId++) {
+            List<NecromancerAttackTemplate> compound = compounds.get(compoundId);
+            for (int attackId = 0; attackId < compound.size(); attackId++) {
+                AttackKey key = new AttackKey(method, generation, compoundId, attackId);
+                classBytes.put(key.toClassName(), emit(key, compound.get(attackId)));
+            }
+        }
+        return new CompiledClasses(classBytes, new ArrayList<>(), AttackClassEmitter.class.getClassLoader());
+    }
+}
@@ -1,10 +1,20 @@
 package com.mygdx.platformer.analysistool;
 
+import com.mygdx.platformer.attacks.CodeTemplate;
 import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
-import java.io.File;
-import java.io.FileWriter;
+
+import java.io.Flushable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Utility class for exporting procedurally or recombinantly generated attack
@@ -33,14 +43,69 @@ import java.util.List;
  *
  * <pre>
  * List&lt;List&lt;NecromancerAttackTemplate&gt;&gt; compounds = ...; // generated attacks
- * int generation = 0;
- * String method = "PCG";
- * AttackExporter.exportCompounds(compounds, generation, method);
+ * try (AttackExporter exporter = new AttackExporter()) {
+ *     exporter.export(compounds, 0, "PCG");
+ *     exporter.finish();
+ * }
  * </pre>
+ * <p>
+ * Files are written asynchronously by an {@link AsyncFileWriter}, so
+ * {@link #export(List, int, String)} returns as soon as the sources have been
+ * generated. Write failures are reported together by {@link #finish()} or
+ * {@link #close()}.
+ * </p>
+ *
+ * <p>
+ * Sources are rendered from a {@link CodeTemplate} of the class, into a
+ * builder that every exporting thread reuses. The normalized body the
+ * manifest hashes is rendered directly rather than derived from the source,
+ * and the source of an unchanged file in an incremental export is not
+ * rendered at all.
+ * </p>
+ *
+ * <p>
+ * Every export also writes an {@link ExportManifest} that maps each attack to
+ * the hash of its normalized class body. A deduplicating exporter writes no
+ * source tree at all: each unique body is stored once in the
+ * {@link ContentStore}, and the sources can be restored from the manifest
+ * with {@link ContentStore#readSources(Path)}. Since recombination copies most
+ * attacks of a generation unchanged, this stores roughly one body per
+ * replaced attack instead of one class per attack.
+ * </p>
+ *
+ * <p>
+ * An incremental exporter keeps an {@link ExportIndex} of the files it
+ * wrote. Re-running an export only writes the files that changed, and
+ * {@link #finish()} removes the files that are no longer produced, so that
+ * downstream builds only see the delta. An export that is closed without
+ * being finished, because generation failed or was interrupted, removes
+ * nothing: the files of the generations it never reached stay in place and
+ * in the index.
+ * </p>
+ *
+ * <p>
+ * A run resumed from a {@link RunCheckpoint} does not export the generations
+ * the interrupted run completed again. {@link #retain(int, String)} adds
+ * them to the index, so they are not removed as stale.
+ * </p>
+ *
+ * <p>
+ * A source tree export can also write the class file of every attack next to
+ * its source, emitted by {@link AttackClassEmitter} without running a
+ * compiler. {@link CoverageCollector} executes these class files directly
+ * instead of compiling the sources. Deduplicating exports write no class
+ * files, since a class file embeds the name of its attack.
+ * </p>
  *
  * <h2>Output Structure</h2>
  * <ul>
  * <li>out/generated/{method}/gen{generation}/compound_{compoundId}/NecromancerAttack_{attackId}.java</li>
+ * <li>out/generated/{method}/gen{generation}/compound_{compoundId}/NecromancerAttack_{attackId}.class
+ * (bytecode exports only)</li>
+ * <li>out/generated/manifest/{method}_gen{generation}_{firstCompound}.csv</li>
+ * <li>out/generated/cas/{first two hash characters}/{hash}.src (deduplicating
+ * exports only)</li>
+ * <li>out/generated/.export-index (incremental exports only)</li>
  * </ul>
  *
  * @see NecromancerAttackTemplate
@@ -48,20 +113,133 @@ import java.util.List;
  * @author Daniel Jönsson
  * @author Robert Kullman
  */
-public class AttackExporter {
+public class AttackExporter implements Flushable, AutoCloseable {
 
-    private static final String OUTPUT_DIR = "out/generated/";
+    /** Root directory of the export, relative to the working directory. */
+    public static final String OUTPUT_DIR = "out/generated/";
+
+    private static final int WRITER_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 8192;
+
+    /**
+     * The source of a generated class after its package declaration. An
+     * empty suffix gives the normalized body of {@link ContentStore}.
+     */
+    private static final CodeTemplate CLASS_BODY = CodeTemplate.compile(
+        "\n" +
+        "import com.badlogic.gdx.math.Vector2;\n" +
+        "import com.badlogic.gdx.physics.box2d.World;\n" +
+        "import com.mygdx.platformer.attacks.BaseAttack;\n" +
+        "import com.mygdx.platformer.attacks.NecromancerAttack;\n" +
+        "import com.badlogic.gdx.physics.box2d.Body;\n\n" +
+        "public class NecromancerAttack${suffix} {\n\n" +
+        "    public BaseAttack execute(World world, Vector2 initialPos, int directionModifier, float multiplier) {\n" +
+        "        int damage = ${damage};\n" +
+        "        float speed = ${speed}f;\n" +
+        "        BaseAttack attack = new NecromancerAttack(world, Math.round(damage * multiplier), speed, initialPos.x, initialPos.y, directionModifier);\n" +
+        "${movement}\n" +
+        "${modifier}\n" +
+        "        return attack;\n" +
+        "    }\n" +
+        "}\n",
+        "suffix", "damage", "speed", "movement", "modifier");
+
+    private static final ThreadLocal<SourceRenderer> RENDERER = ThreadLocal.withInitial(SourceRenderer::new);
+
+    private final Path outputDirectory;
+    private final AsyncFileWriter writer;
+    private final ContentStore store;
+    private final ExportIndex index;
+    private final boolean bytecode;
+    private final AtomicLong exportedCount = new AtomicLong();
+    private final AtomicLong storedCount = new AtomicLong();
+    private boolean finished;
+
+    /**
+     * Creates an exporter that writes to {@link #OUTPUT_DIR}.
+     */
+    public AttackExporter() {
+        this(Path.of(OUTPUT_DIR));
+    }
+
+    /**
+     * Creates an exporter that writes to the given directory.
+     *
+     * @param outputDirectory The root directory of the export.
+     */
+    public AttackExporter(Path outputDirectory) {
+        this(outputDirectory, false);
+    }
+
+    /**
+     * Creates an exporter that writes to the given directory.
+     *
+     * @param outputDirectory The root directory of the export.
+     * @param deduplicate     Whether to store each unique class body once in a
+     *                        {@link ContentStore} instead of writing a source
+     *                        tree.
+     */
+    public AttackExporter(Path outputDirectory, boolean deduplicate) {
+        this(outputDirectory, deduplicate, null, false);
+    }
+
+    /**
+     * Creates an exporter that writes to the given directory.
+     *
+     * @param outputDirectory The root directory of the export.
+     * @param deduplicate     Whether to store each unique class body once in a
+     *                        {@link ContentStore} instead of writing a source
+     *                        tree.
+     * @param incremental     Whether to write only files that changed since
+     *                        the last incremental export, and remove the files
+     *                        it no longer produces.
+     * @throws IOException If the {@link ExportIndex} of the last export cannot
+     *                     be read.
+     */
+    public AttackExporter(Path outputDirectory, boolean deduplicate, boolean incremental) throws IOException {
+        this(outputDirectory, deduplicate, incremental, false);
+    }
+
+    /**
+     * Creates an exporter that writes to the given directory.
+     *
+     * @param outputDirectory The root directory of the export.
+     * @param deduplicate     Whether to store each unique class body once in a
+     *                        {@link ContentStore} instead of writing a source
+     *                        tree.
+     * @param incremental     Whether to write only files that changed since
+     *                        the last incremental export, and remove the files
+     *                        it no longer produces.
+     * @param bytecode        Whether to also write the class file of every
+     *                        attack of a source tree export.
+     * @throws IOException If the {@link ExportIndex} of the last export cannot
+     *                     be read.
+     */
+    public AttackExporter(Path outputDirectory, boolean deduplicate, boolean incremental, boolean bytecode)
+            throws IOException {
+        this(outputDirectory, deduplicate, incremental ? ExportIndex.load(outputDirectory) : null, bytecode);
+    }
+
+    private AttackExporter(Path outputDirectory, boolean deduplicate, ExportIndex index, boolean bytecode) {
+        this.outputDirectory = outputDirectory;
+        this.writer = new AsyncFileWriter(WRITER_THREADS, QUEUE_CAPACITY);
+        this.store = deduplicate ? new ContentStore(outputDirectory) : null;
+        this.index = index;
+        this.bytecode = bytecode && !deduplicate;
+    }
 
     /**
      * Exports a list of attack compounds to Java source files for analysis.
      * <p>
      * Each compound (a list of {@link NecromancerAttackTemplate}) is written to its
-     * own
-     * subdirectory, and each attack within a compound is serialized as a separate
-     * Java class.
-     * The generated classes include executable logic for the attack, suitable for
-     * static
-     * analysis tools.
+     * own subdirectory, and each attack within a compound is serialized as a
+     * separate Java class. The generated classes include executable logic for
+     * the attack, suitable for static analysis tools.
+     * </p>
+     * <p>
+     * The sources are generated on the calling thread and handed to the
+     * writer threads; this method may be called concurrently for different
+     * generations.
      * </p>
      *
      * @param compounds  The list of attack compounds to export.
@@ -69,26 +247,252 @@ public class AttackExporter {
      *                   structure).
      * @param method     The generation method name (e.g., "PCG" or "RCG").
      */
-    public static void exportCompounds(List<List<NecromancerAttackTemplate>> compounds, int generation, String method) {
-        String baseFolderPath = OUTPUT_DIR + method.toLowerCase() + "/gen" + generation;
-        new File(baseFolderPath).mkdirs();
+    public void export(List<List<NecromancerAttackTemplate>> compounds, int generation, String method) {
+        export(compounds, 0, generation, method);
+    }
 
-        for (int compoundId = 0; compoundId < compounds.size(); compoundId++) {
-            List<NecromancerAttackTemplate> compound = compounds.get(compoundId);
-            String compoundFolder = baseFolderPath + "/compound_" + compoundId;
-            new File(compoundFolder).mkdirs();
+    /**
+     * Exports a chunk of consecutive compounds of a generation.
+     * <p>
+     * Behaves like {@link #export(List, int, String)}, with compound IDs
+     * starting at {@code firstCompound}. Each chunk gets its own manifest file,
+     * so chunks of the same generation may be exported concurrently.
+     * </p>
+     *
+     * @param compounds     The compounds of the chunk.
+     * @param firstCompound The compound ID of the first compound in the chunk.
+     * @param generation    The generation number.
+     * @param method        The generation method name (e.g., "PCG" or "RCG").
+     */
+    public void export(List<List<NecromancerAttackTemplate>> compounds, int firstCompound, int generation,
+                       String method) {
+        Path baseFolder = outputDirectory.resolve(method.toLowerCase()).resolve("gen" + generation);
+        StringBuilder manifest = new StringBuilder(ExportManifest.HEADER).append('\n');
+        SourceRenderer renderer = RENDERER.get();
+
+        for (int i = 0; i < compounds.size(); i++) {
+            List<NecromancerAttackTemplate> compound = compounds.get(i);
+            int compoundId = firstCompound + i;
+            Path compoundFolder = baseFolder.resolve("compound_" + compoundId);
+            String packageName = packageName(generation, compoundId, method);
 
             for (int attackId = 0; attackId < compound.size(); attackId++) {
                 NecromancerAttackTemplate attack = compound.get(attackId);
-                String filename = compoundFolder + "/NecromancerAttack_" + attackId + ".java";
+                String body = renderer.renderBody(attack);
+                String hash = ContentStore.hash(body);
+                AttackKey key = new AttackKey(method, generation, compoundId, attackId);
+                ExportManifest.appendLine(manifest, key, hash);
+
+                if (store == null) {
+                    // the path fixes the package and class name, so the body
+                    // hash identifies the whole file
+                    Path file = compoundFolder.resolve("NecromancerAttack_" + attackId + ".java");
+                    if (index == null || index.update(file, hash)) {
+                        writer.write(file, renderer.renderSource(attack, attackId, packageName));
+                    }
+                    if (bytecode) {
+                        // and the class file, which is only emitted if it changed
+                        Path classFile = outputDirectory.resolve(key.toClassFilePath());
+                        if (index == null || index.update(classFile, hash)) {
+                            writer.write(classFile, AttackClassEmitter.emit(key, attack));
+                        }
+                    }
+                } else if (index == null ? store.claim(hash) : index.update(store.pathOf(hash), hash)) {
+                    writer.write(store.pathOf(hash), body);
+                    storedCount.incrementAndGet();
+                }
+                exportedCount.incrementAndGet();
+            }
+        }
+        String manifestContent = manifest.toString();
+        writeIfChanged(ExportManifest.fileOf(outputDirectory, generation, method, firstCompound), manifestContent,
+            ContentStore.hash(manifestContent));
+        if (firstCompound == 0) {
+            System.out.println("Exporting " + method + " generation " + generation);
+        }
+    }
 
-                try (FileWriter writer = new FileWriter(filename)) {
-                    writer.write(convertAttackToJavaClass(attack, attackId, generation, compoundId, method));
-                } catch (IOException e) {
-                    e.printStackTrace();
+    private void writeIfChanged(Path file, String content, String hash) {
+        if (index == null || index.update(file, hash)) {
+            writer.write(file, content);
+        }
+    }
+
+    /**
+     * Keeps a generation that an interrupted run exported as part of this
+     * export, without writing it again.
+     * <p>
+     * The files are looked up in the manifest of the generation. Only an
+     * incremental export keeps track of the files it produces, so for other
+     * exports this only counts the generation's classes.
+     * </p>
+     *
+     * @param generation The generation number.
+     * @param method     The generation method name (e.g., "PCG" or "RCG").
+     * @throws IOException If the manifest of the generation cannot be read.
+     */
+    public void retain(int generation, String method) throws IOException {
+        Path manifestDirectory = outputDirectory.resolve(ExportManifest.DIRECTORY);
+        String prefix = method.toLowerCase() + "_gen" + generation + "_";
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(manifestDirectory)) {
+            files = stream.filter(p -> p.getFileName().toString().startsWith(prefix)).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            String[] lines = content.split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                if (lines[i].isEmpty()) {
+                    continue;
+                }
+                exportedCount.incrementAndGet();
+                if (index == null) {
+                    continue;
+                }
+                String[] values = lines[i].split(";");
+                String hash = values[4];
+                if (store != null) {
+                    index.update(store.pathOf(hash), hash);
+                    continue;
+                }
+                AttackKey key = new AttackKey(values[0], Integer.parseInt(values[1]), Integer.parseInt(values[2]),
+                    Integer.parseInt(values[3]));
+                index.update(outputDirectory.resolve(key.toPath()), hash);
+                if (bytecode) {
+                    index.update(outputDirectory.resolve(key.toClassFilePath()), hash);
                 }
             }
+            if (index != null) {
+                index.update(file, ContentStore.hash(content));
+            }
+        }
+        System.out.println("Retained " + method + " generation " + generation);
+    }
+
+    /**
+     * Waits until every file exported so far has been written.
+     *
+     * @throws IOException If any file could not be written.
+     * @see AsyncFileWriter#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Completes a successful export: waits until every exported file has been
+     * written, and an incremental export then removes stale files and saves
+     * its index. Call it once the last generation has been exported, before
+     * {@link #close()}.
+     *
+     * @throws IOException If any file could not be written or a stale file
+     *                     cannot be removed.
+     */
+    public void finish() throws IOException {
+        flush();
+        if (store == null) {
+            System.out.println("Exported " + exportedCount.get() + " classes to " + outputDirectory);
+        } else {
+            System.out.println("Exported " + exportedCount.get() + " classes as " + storedCount.get()
+                + " unique bodies to " + outputDirectory);
+        }
+        if (index != null) {
+            index.removeStale();
+            index.save();
+            System.out.println("Export delta: " + index);
         }
+        finished = true;
+    }
+
+    /**
+     * Waits until every exported file has been written and stops the writer
+     * threads. An incremental export that was not {@link #finish() finished}
+     * removes nothing and saves an index that keeps the files it did not
+     * reach, see {@link ExportIndex#savePartial()}.
+     *
+     * @throws IOException If any file could not be written; the individual
+     *                     failures are attached as suppressed exceptions.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (index != null) {
+                // the index no longer matches the disk, start over next time
+                ExportIndex.invalidate(outputDirectory);
+            }
+            throw e;
+        }
+        if (index != null && !finished) {
+            index.savePartial();
+        }
+    }
+
+    /**
+     * Exports a list of attack compounds to {@link #OUTPUT_DIR} and waits for
+     * the files to be written.
+     *
+     * @param compounds  The list of attack compounds to export.
+     * @param generation The generation number (used for output directory
+     *                   structure).
+     * @param method     The generation method name (e.g., "PCG" or "RCG").
+     * @throws UncheckedIOException If any file could not be written.
+     * @see #export(List, int, String)
+     */
+    public static void exportCompounds(List<List<NecromancerAttackTemplate>> compounds, int generation, String method) {
+        try (AttackExporter exporter = new AttackExporter()) {
+            exporter.export(compounds, generation, method);
+            exporter.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converts a list of attack compounds to Java source code held in memory.
+     * <p>
+     * The sources are identical to those written by
+     * {@link #export(List, int, String)}, which makes it possible to
+     * feed a generation straight into the {@link InMemoryCompiler} without a
+     * round trip through the file system.
+     * </p>
+     *
+     * @param compounds  The list of attack compounds to convert.
+     * @param generation The generation number.
+     * @param method     The generation method name (e.g., "PCG" or "RCG").
+     * @return The source code of every attack, indexed by fully qualified class
+     *         name.
+     */
+    public static Map<String, String> toSources(List<List<NecromancerAttackTemplate>> compounds, int generation,
+                                                String method) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int compoundId = 0; compoundId < compounds.size(); compoundId++) {
+            List<NecromancerAttackTemplate> compound = compounds.get(compoundId);
+            for (int attackId = 0; attackId < compound.size(); attackId++) {
+                sources.put(className(attackId, generation, compoundId, method),
+                    convertAttackToJavaClass(compound.get(attackId), attackId, generation, compoundId, method));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the fully qualified name of a generated attack class.
+     *
+     * @param attackId   The index of the attack within its compound.
+     * @param generation The generation number.
+     * @param compoundId The compound ID.
+     * @param method     The generation method (e.g., "PCG" or "RCG").
+     * @return The fully qualified class name.
+     */
+    public static String className(int attackId, int generation, int compoundId, String method) {
+        return packageName(generation, compoundId, method) + ".NecromancerAttack_" + attackId;
+    }
+
+    private static String packageName(int generation, int compoundId, String method) {
+        return "generated." + method.toLowerCase() + ".gen" + generation + ".compound_" + compoundId;
     }
 
     /**
@@ -101,7 +505,7 @@ public class AttackExporter {
      * that reflects
      * the generation method, generation number, and compound ID. This method is
      * used internally
-     * by {@link #exportCompounds(List, int, String)} to serialize each attack for
+     * by {@link #export(List, int, String)} to serialize each attack for
      * later static
      * analysis (e.g., code complexity, coverage).
      * </p>
@@ -115,26 +519,57 @@ public class AttackExporter {
      */
     private static String convertAttackToJavaClass(NecromancerAttackTemplate attack, int attackId, int generation,
             int compoundId, String method) {
-        String packageName = "generated." + method.toLowerCase() + ".gen" + generation + ".compound_" + compoundId
-                + ";";
-        System.out.println(packageName);
-        return "package " + packageName + "\n\n" +
-                "import com.badlogic.gdx.math.Vector2;\n" +
-                "import com.badlogic.gdx.physics.box2d.World;\n" +
-                "import com.mygdx.platformer.attacks.BaseAttack;\n" +
-                "import com.mygdx.platformer.attacks.NecromancerAttack;\n" +
-                "import com.badlogic.gdx.physics.box2d.Body;\n\n" +
-                "public class NecromancerAttack_" + attackId + " {\n\n" +
-                "    public BaseAttack execute(World world, Vector2 initialPos, int directionModifier, float multiplier) {\n"
-                +
-                "        int damage = " + attack.getDamage() + ";\n" +
-                "        float speed = " + attack.getSpeed() + "f;\n" +
-                "        BaseAttack attack = new NecromancerAttack(world, Math.round(damage * multiplier), speed, initialPos.x, initialPos.y, directionModifier);\n"
-                +
-                attack.getMovementLogicCode() + "\n" +
-                attack.getModifierLogicCode() + "\n" +
-                "        return attack;\n" +
-                "    }\n" +
-                "}\n";
+        return RENDERER.get().renderSource(attack, attackId, packageName(generation, compoundId, method));
+    }
+
+    /**
+     * Renders the sources of one thread into a reused builder.
+     */
+    private static final class SourceRenderer implements CodeTemplate.Arguments {
+        private static final int SUFFIX = 0;
+        private static final int DAMAGE = 1;
+        private static final int SPEED = 2;
+        private static final int MOVEMENT = 3;
+        private static final int MODIFIER = 4;
+
+        private final StringBuilder out = new StringBuilder(2048);
+        private NecromancerAttackTemplate attack;
+        private int attackId;
+
+        String renderSource(NecromancerAttackTemplate attack, int attackId, String packageName) {
+            out.setLength(0);
+            out.append("package ").append(packageName).append(";\n");
+            return render(attack, attackId);
+        }
+
+        /** Renders the body {@link ContentStore#normalize(String, int)} derives from the source. */
+        String renderBody(NecromancerAttackTemplate attack) {
+            out.setLength(0);
+            return render(attack, -1);
+        }
+
+        private String render(NecromancerAttackTemplate attack, int attackId) {
+            this.attack = attack;
+            this.attackId = attackId;
+            CLASS_BODY.appendTo(out, this);
+            this.attack = null;
+            return out.toString();
+        }
+
+        @Override
+        public void appendTo(StringBuilder out, int parameter) {
+            switch (parameter) {
+                case SUFFIX -> {
+                    if (attackId >= 0) {
+                        out.append('_').append(attackId);
+                    }
+                }
+                case DAMAGE -> out.append(attack.getDamage());
+                case SPEED -> out.append(attack.getSpeed());
+                case MOVEMENT -> attack.appendMovementLogicCode(out);
+                case MODIFIER -> attack.appendModifierLogicCode(out);
+                default -> throw new IllegalArgumentException("Unknown parameter " + parameter);
+            }
+        }
     }
 }
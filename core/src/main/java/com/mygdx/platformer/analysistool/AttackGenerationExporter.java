@@ -1,15 +1,11 @@
 package com.mygdx.platformer.analysistool;
 
 import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
-import com.mygdx.platformer.attacks.modifiers.AttackModifier;
-import com.mygdx.platformer.attacks.modifiers.PulseModifier;
-import com.mygdx.platformer.attacks.movement.*;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SortedSet;
 
 /**
  * Entry point and utility for generating, exporting, and analyzing procedurally
@@ -31,17 +27,43 @@ import java.util.Random;
  * <h2>Workflow</h2>
  * <ol>
  * <li>Generates an initial set of PCG compounds and exports them.</li>
- * <li>Iteratively generates new RCG generations from previous ones, exporting
- * each generation.</li>
- * <li>Optionally generates additional standalone PCG generations for
- * comparison.</li>
- * <li>Runs static analysis tools (e.g., SonarQube) on the generated
- * codebase.</li>
+ * <li>Runs the selected {@link GenerationStrategy generation strategies}
+ * concurrently on them: RCG generations recombined from the previous ones
+ * and standalone PCG generations for comparison by default, exporting each
+ * generation.</li>
+ * <li>Computes code metrics for the generated codebase in-process with
+ * {@link CodeMetricsAnalyzer}. SonarQube is not run by the tool; run
+ * SonarScanner on the same output externally to compare with it.</li>
+ * <li>Optionally collects the line and branch coverage of the generated
+ * attacks in-process with {@link CoverageCollector}.</li>
+ * <li>With {@code --workers=n}, runs the code metrics and coverage in
+ * {@code n} worker JVMs instead, see {@link ShardCoordinator}.</li>
+ * <li>Optionally simulates every generated attack while it is exported and
+ * records its trajectory metrics with {@link TrajectoryProfiler}.</li>
+ * <li>Optionally measures how similar the attacks of every generation are
+ * with {@link SimilarityAnalyzer}.</li>
  * </ol>
+ * <p>
+ * Every completed generation and stage is recorded in a
+ * {@link RunCheckpoint}. After a crash or interrupt, {@code --resume=true}
+ * continues the run with the stored configuration: the export picks up after
+ * the last completed generation of every strategy, and only the stages that
+ * did not complete run again.
+ * </p>
  *
  * <h2>Output Structure</h2>
  * <ul>
  * <li>out/generated/{method}/gen{generation}/compound_{compoundId}/NecromancerAttack_{attackId}.java</li>
+ * <li>out/generated/{method}/gen{generation}/compound_{compoundId}/NecromancerAttack_{attackId}.class
+ * &ndash; with {@code --bytecode=true}</li>
+ * <li>out/generated/lineage.bin &ndash; the parent pointers of every RCG
+ * generation, see {@link LineageIndex}</li>
+ * <li>out/generated/trajectory_metrics.csv &ndash; the behaviour of every
+ * attack, with {@code --trajectories=true}</li>
+ * <li>out/generated/checkpoint/ &ndash; the configuration, stage status and
+ * generation populations of the run</li>
+ * <li>out/generated/shards/logs/ &ndash; the output of the worker JVMs, with
+ * {@code --workers=n}</li>
  * </ul>
  *
  * <h2>Usage</h2>
@@ -54,19 +76,12 @@ import java.util.Random;
  *
  * @see NecromancerAttackTemplate
  * @see AttackExporter
- * @see com.mygdx.platformer.analysistool.CoverageParser
+ * @see CoverageCollector
  * @author Daniel Jönsson
  * @author Robert Kullman
  */
 public class AttackGenerationExporter {
 
-    private static final int COMPOUND_COUNT = 20;
-    private static final int ATTACKS_PER_COMPOUND = 5;
-    private static final int GENERATIONS = 10;
-    private static final Random random = new Random();
-
-    private static final String SONAR_SCANNER_PATH = "C:\\sonarscanner\\sonar-scanner-7.1.0.4889-windows-x64\\bin\\sonar-scanner.bat";
-
     /**
      * Main entry point for generating, exporting, and analyzing attack compounds.
      * <p>
@@ -75,233 +90,156 @@ public class AttackGenerationExporter {
      * RCG generations from previous ones, exporting each generation using
      * {@link AttackExporter}.
      * It also generates additional standalone PCG generations for comparison, and
-     * runs
-     * static analysis tools (e.g., SonarQube) on the generated codebase.
+     * computes code metrics for the generated codebase with
+     * {@link CodeMetricsAnalyzer}.
+     * <p>
+     * Coverage of the generated attacks is collected with
+     * {@link CoverageCollector} when enabled with {@code --coverage=true}.
+     * </p>
      * <p>
-     * Code coverage analysis and coverage export are available but commented out by
-     * default.
+     * Generation is delegated to a {@link GenerationEngine}, which streams
+     * every generation to the exporter in chunks, so heap use does not depend
+     * on the size of the run. A run is fully determined by its seed, which is
+     * printed at start-up and can be passed as the first argument to reproduce
+     * it.
+     * </p>
+     * <p>
+     * With {@code --resume=true} the run stored in the {@link RunCheckpoint}
+     * of the export directory is continued instead, skipping every
+     * generation and stage it completed.
      * </p>
      *
-     * @param args Command-line arguments (not used).
+     * @param args Command-line arguments; an optional run seed followed by
+     *             {@code --key=value} settings or {@code --config=file}, see
+     *             {@link AnalysisConfig}.
      */
     public static void main(String[] args) {
-        List<List<NecromancerAttackTemplate>> pcgGen0 = generatePCG();
-        AttackExporter.exportCompounds(pcgGen0, 0, "PCG");
-
-        List<List<NecromancerAttackTemplate>> rcgPrevGen = pcgGen0;
-        for (int gen = 1; gen <= GENERATIONS; gen++) {
-            rcgPrevGen = generateRCG(rcgPrevGen);
-            AttackExporter.exportCompounds(rcgPrevGen, gen, "RCG");
+        AnalysisConfig config;
+        try {
+            config = AnalysisConfig.fromArgs(args);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return;
         }
-
-        for (int gen = 1; gen <= GENERATIONS; gen++) {
-            List<List<NecromancerAttackTemplate>> standalonePCG = generatePCG();
-            AttackExporter.exportCompounds(standalonePCG, gen, "PCG");
+        RunCheckpoint checkpoint;
+        try {
+            checkpoint = config.isResume() ? RunCheckpoint.resume(config) : RunCheckpoint.create(config);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return;
         }
-
-        runSonarScanner();
-
-        // runJacocoReport();
-
-        // CoverageParser.extractCoverageToCSV();
-
-    }
-
-    /**
-     * Generates a list of attack compounds using Procedural Content Generation
-     * (PCG).
-     * <p>
-     * Each compound is a list of randomly created {@link NecromancerAttackTemplate}
-     * objects,
-     * representing a unique attack pattern.
-     * </p>
-     *
-     * @return A list of PCG-generated attack compounds.
-     */
-    private static List<List<NecromancerAttackTemplate>> generatePCG() {
-        List<List<NecromancerAttackTemplate>> compounds = new ArrayList<>();
-
-        for (int i = 0; i < COMPOUND_COUNT; i++) {
-            List<NecromancerAttackTemplate> attacks = new ArrayList<>();
-            for (int j = 0; j < ATTACKS_PER_COMPOUND; j++) {
-                attacks.add(createRandomAttack());
+        config = checkpoint.getConfig();
+        System.out.println((config.isResume() ? "Resuming the run with seed " : "Generating attacks with seed ")
+            + config.getSeed());
+        System.out.println("Run configuration: " + config);
+
+        Path outputDirectory = config.getOutputDirectory();
+        if (checkpoint.isComplete(RunCheckpoint.EXPORT)) {
+            System.out.println("Export already complete in: " + outputDirectory);
+        } else {
+            try (AttackExporter exporter = new AttackExporter(outputDirectory, config.isDeduplicate(),
+                    config.isIncremental(), config.isBytecode())) {
+                try (LineageWriter lineage = openLineage(config, checkpoint);
+                     TrajectoryProfiler profiler = config.isTrajectories()
+                         ? new TrajectoryProfiler(outputDirectory, TrajectorySimulator.DEFAULT_STEPS)
+                         : null;
+                     GenerationEngine engine = new GenerationEngine(config)) {
+                    for (Map.Entry<String, SortedSet<Integer>> method
+                            : checkpoint.getCompletedGenerations().entrySet()) {
+                        for (int generation : method.getValue()) {
+                            exporter.retain(generation, method.getKey());
+                        }
+                    }
+                    checkpoint.setOutput(exporter);
+                    // the profiler only writes its results when closed, so it gets the skipped generations again
+                    checkpoint.setReplay(profiler);
+                    GenerationSink sink = exporter::export;
+                    if (profiler != null) {
+                        sink = (compounds, firstCompound, generation, method) -> {
+                            exporter.export(compounds, firstCompound, generation, method);
+                            profiler.accept(compounds, firstCompound, generation, method);
+                        };
+                    }
+                    long start = System.nanoTime();
+                    engine.run(config.getGenerations(), config.getMethods(), sink, lineage, checkpoint);
+                    if (profiler != null) {
+                        System.out.println("Simulated " + profiler.getSimulatedCount() + " distinct trajectories, "
+                            + profiler.getSimulatedFrames() + " frames, during a "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms export");
+                    }
+                }
+                // stale files are only removed once the checkpoint no longer needs any of them
+                exporter.flush();
+                checkpoint.complete(RunCheckpoint.EXPORT);
+                exporter.finish();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
             }
-            compounds.add(attacks);
         }
-        return compounds;
-    }
-
-    /**
-     * Generates a new generation of attack compounds using Reuse-based
-     * Content Generation (RCG).
-     * <p>
-     * Each new compound is created by copying a host compound from the previous
-     * generation and
-     * replacing one of its attacks with a randomly selected attack from a donor
-     * compound.
-     * </p>
-     *
-     * @param previousGeneration The previous generation of attack compounds to
-     *                           recombine.
-     * @return A new list of RCG-generated attack compounds.
-     */
-    private static List<List<NecromancerAttackTemplate>> generateRCG(List<List<NecromancerAttackTemplate>> previousGeneration) {
-        List<List<NecromancerAttackTemplate>> newGeneration = new ArrayList<>();
-
-        for (int i = 0; i < COMPOUND_COUNT; i++) {
-            // select the host
-            List<NecromancerAttackTemplate> host = previousGeneration.get(i);
-
-            // make a copy of the attack list
-            List<NecromancerAttackTemplate> newCompound = new ArrayList<>(host);
 
-            // Choose which attack to replace with a new attack from the donor
-            int indexToReplace = random.nextInt(ATTACKS_PER_COMPOUND);
-
-            // select random donor and random attack from that donor
-            List<NecromancerAttackTemplate> donorCompound = previousGeneration.get(random.nextInt(previousGeneration.size()));
-            NecromancerAttackTemplate donorAttack = donorCompound.get(random.nextInt(donorCompound.size()));
-
-            // replace the old attack with the new one
-            newCompound.set(indexToReplace, cloneAttack(donorAttack));
+        boolean analyze = config.isAnalyze() && !checkpoint.isComplete(RunCheckpoint.ANALYZE);
+        boolean coverage = config.isCoverage() && !checkpoint.isComplete(RunCheckpoint.COVERAGE);
+        if (config.getWorkers() > 0 && (analyze || coverage)) {
+            try {
+                new ShardCoordinator(outputDirectory, config.getWorkers(), config.getWorkerHeap(),
+                    ShardCoordinator.DEFAULT_SHARD_SIZE).analyzeExport(analyze, coverage);
+                System.out.println("Code metrics and coverage written to: " + outputDirectory);
+                if (analyze) {
+                    checkpoint.complete(RunCheckpoint.ANALYZE);
+                }
+                if (coverage) {
+                    checkpoint.complete(RunCheckpoint.COVERAGE);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            if (analyze) {
+                try {
+                    CodeMetricsAnalyzer.analyzeExport(outputDirectory);
+                    System.out.println("Code metrics written to: " + outputDirectory);
+                    checkpoint.complete(RunCheckpoint.ANALYZE);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
 
-            newGeneration.add(newCompound);
+            if (coverage) {
+                try {
+                    CoverageCollector.collectExport(outputDirectory);
+                    System.out.println("Coverage written to: " + outputDirectory);
+                    checkpoint.complete(RunCheckpoint.COVERAGE);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
 
-        return newGeneration;
-    }
-
-
-    /**
-     * Creates a single {@link NecromancerAttackTemplate} with randomized
-     * parameters.
-     * <p>
-     * The attack's damage, speed, movement pattern, and modifier are randomly
-     * selected.
-     * </p>
-     *
-     * @return A randomly generated attack template.
-     */
-    private static NecromancerAttackTemplate createRandomAttack() {
-        int damage = random.nextInt(10, 30);
-        float speed = random.nextFloat(1.0f, 5.0f);
-        MovementPatternBehavior pattern = createRandomMovement();
-        AttackModifier modifier = createRandomAttackModifier();
-        return new NecromancerAttackTemplate(45, speed, damage, 5, pattern, modifier);
-    }
-
-    /**
-     * Randomly selects and creates a movement pattern for an attack.
-     *
-     * @return A randomly chosen {@link MovementPatternBehavior} instance.
-     */
-    private static MovementPatternBehavior createRandomMovement() {
-        return switch (random.nextInt(4)) {
-            case 0 -> new StraightMovement();
-            case 1 -> new ZigZagMovement();
-            case 2 -> new AccelerateMovement();
-            case 3 -> new MixedMovement();
-            default -> new StraightMovement();
-        };
-    }
-
-    /**
-     * Randomly selects and creates an attack modifier.
-     * <p>
-     * May return {@code null} if no modifier is selected.
-     * </p>
-     *
-     * @return A randomly chosen {@link AttackModifier}, or {@code null}.
-     */
-    private static AttackModifier createRandomAttackModifier() {
-        return switch (random.nextInt(2)) {
-            case 0 -> new PulseModifier(2f, 0.5f);
-            case 1 -> null;
-            default -> null;
-        };
-    }
-
-    /**
-     * Creates a deep copy of a given {@link NecromancerAttackTemplate}.
-     *
-     * @param original The attack template to clone.
-     * @return A new {@link NecromancerAttackTemplate} with the same properties as
-     *         the original.
-     */
-    private static NecromancerAttackTemplate cloneAttack(NecromancerAttackTemplate original) {
-        // clone the instance
-        return new NecromancerAttackTemplate(
-            45,
-            original.getSpeed(),
-            original.getDamage(),
-            5,
-            original.getMovementPattern(), original.getModifier()
-        );
-    }
-
-
-    /**
-     * Runs the SonarScanner static analysis tool on the generated attack source
-     * files.
-     * <p>
-     * This method executes SonarScanner as an external process, using the output
-     * directory
-     * as the working directory. It prints the result to the console.
-     * </p>
-     */
-    private static void runSonarScanner() {
-        System.out.println("Starting SonarScanner analysis...");
-
-        try {
-            ProcessBuilder processBuilder = new ProcessBuilder(SONAR_SCANNER_PATH);
-            processBuilder.directory(new File("out/generated")); // Run from the generation folder
-            processBuilder.inheritIO(); // show information in terminal
-            Process process = processBuilder.start();
-
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                System.out.println("SonarScanner completed successfully!");
-            } else {
-                System.err.println("SonarScanner failed with exit code: " + exitCode);
+        if (config.isSimilarity() && !checkpoint.isComplete(RunCheckpoint.SIMILARITY)) {
+            try {
+                SimilarityAnalyzer.analyzeExport(outputDirectory);
+                System.out.println("Similarity written to: " + outputDirectory);
+                checkpoint.complete(RunCheckpoint.SIMILARITY);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
         }
     }
 
     /**
-     * Runs the JaCoCo code coverage report task using Gradle.
-     * <p>
-     * This method executes the Gradle JaCoCo report task as an external process and
-     * prints
-     * the result to the console.
-     * </p>
+     * Opens the RCG lineage file of a run. A resumed run keeps the
+     * generations its checkpoint records and appends after them.
      */
-    private static void runJacocoReport() {
-        System.out.println("Running JaCoCo report task...");
-
-        try {
-            ProcessBuilder pb = new ProcessBuilder("gradlew.bat", ":core:jacocoTestReport");
-            pb.directory(new File(System.getProperty("user.dir")));
-            pb.inheritIO(); // send output to console
-
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode == 0) {
-                System.out.println("JaCoCo report completed successfully.");
-            } else {
-                System.err.println("JaCoCo report failed with exit code: " + exitCode);
-            }
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+    private static LineageWriter openLineage(AnalysisConfig config, RunCheckpoint checkpoint) throws IOException {
+        if (!config.getMethods().contains(GenerationEngine.RCG)) {
+            return null;
+        }
+        Path file = config.getOutputDirectory().resolve(LineageIndex.FILE);
+        int completed = checkpoint.getResumeGeneration(GenerationEngine.RCG);
+        if (completed > 0) {
+            return LineageWriter.resume(file, config.getCompoundCount(), config.getAttacksPerCompound(), completed);
         }
+        return new LineageWriter(file, config.getCompoundCount(), config.getAttacksPerCompound());
     }
-
-
-
-
-
-
 }
@@ -0,0 +1,207 @@
+package com.mygdx.platformer.analysistool;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Identifies a single exported attack class by generation method,
+ * generation, compound and attack index.
+ * <p>
+ * Keys can be recovered from the path of an exported source file (relative
+ * to the export root) or from the fully qualified name of a generated class,
+ * so results never have to be matched up by regular expressions over folder
+ * names.
+ * </p>
+ *
+ * @see AttackExporter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class AttackKey implements Comparable<AttackKey> {
+
+    private static final String GENERATION_PREFIX = "gen";
+    private static final String COMPOUND_PREFIX = "compound_";
+    private static final String ATTACK_PREFIX = "NecromancerAttack_";
+
+    private final String method;
+    private final int generation;
+    private final int compound;
+    private final int attack;
+
+    /**
+     * Creates a key.
+     *
+     * @param method     The generation method (e.g., "PCG" or "RCG").
+     * @param generation The generation number.
+     * @param compound   The compound ID.
+     * @param attack     The index of the attack within its compound.
+     */
+    public AttackKey(String method, int generation, int compound, int attack) {
+        this.method = method.toUpperCase();
+        this.generation = generation;
+        this.compound = compound;
+        this.attack = attack;
+    }
+
+    /**
+     * Parses a key from an export path such as
+     * {@code rcg/gen3/compound_2/NecromancerAttack_1.java}.
+     *
+     * @param relativePath The path of the source file relative to the export
+     *                     root.
+     * @return The key of the attack.
+     * @throws IllegalArgumentException If the path does not follow the export
+     *                                  layout.
+     */
+    public static AttackKey fromPath(Path relativePath) {
+        int count = relativePath.getNameCount();
+        if (count < 4) {
+            throw new IllegalArgumentException("Not an exported attack: " + relativePath);
+        }
+        String file = relativePath.getName(count - 1).toString();
+        int extension = file.lastIndexOf('.');
+        return parse(relativePath.getName(count - 4).toString(), relativePath.getName(count - 3).toString(),
+            relativePath.getName(count - 2).toString(), extension < 0 ? file : file.substring(0, extension),
+            relativePath);
+    }
+
+    /**
+     * Parses a key from a generated class name such as
+     * {@code generated.rcg.gen3.compound_2.NecromancerAttack_1}.
+     *
+     * @param className The fully qualified (or slash separated) class name.
+     * @return The key of the attack.
+     * @throws IllegalArgumentException If the name does not follow the export
+     *                                  layout.
+     */
+    public static AttackKey fromClassName(String className) {
+        String[] parts = className.split("[./]");
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Not a generated attack class: " + className);
+        }
+        int n = parts.length;
+        return parse(parts[n - 4], parts[n - 3], parts[n - 2], parts[n - 1], className);
+    }
+
+    private static AttackKey parse(String method, String generation, String compound, String attack,
+                                   Object source) {
+        if (!generation.startsWith(GENERATION_PREFIX) || !compound.startsWith(COMPOUND_PREFIX)
+                || !attack.startsWith(ATTACK_PREFIX)) {
+            throw new IllegalArgumentException("Not an exported attack: " + source);
+        }
+        try {
+            return new AttackKey(method,
+                Integer.parseInt(generation.substring(GENERATION_PREFIX.length())),
+                Integer.parseInt(compound.substring(COMPOUND_PREFIX.length())),
+                Integer.parseInt(attack.substring(ATTACK_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an exported attack: " + source, e);
+        }
+    }
+
+    /**
+     * Accessor for the generation method.
+     *
+     * @return The generation method in upper case (e.g., "PCG" or "RCG").
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Accessor for the generation number.
+     *
+     * @return The generation number.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Accessor for the compound ID.
+     *
+     * @return The compound ID.
+     */
+    public int getCompound() {
+        return compound;
+    }
+
+    /**
+     * Accessor for the attack index within the compound.
+     *
+     * @return The attack index.
+     */
+    public int getAttack() {
+        return attack;
+    }
+
+    /**
+     * Returns the fully qualified name of the generated class.
+     *
+     * @return The class name.
+     */
+    public String toClassName() {
+        return AttackExporter.className(attack, generation, compound, method);
+    }
+
+    /**
+     * Returns the path of the exported source file relative to the export
+     * root, the inverse of {@link #fromPath(Path)}.
+     *
+     * @return The relative path of the source file.
+     */
+    public Path toPath() {
+        return Path.of(method.toLowerCase(), GENERATION_PREFIX + generation, COMPOUND_PREFIX + compound,
+            ATTACK_PREFIX + attack + ".java");
+    }
+
+    /**
+     * Returns the path of the class file written next to the exported
+     * source file, relative to the export root.
+     *
+     * @return The relative path of the class file.
+     * @see AttackClassEmitter
+     */
+    public Path toClassFilePath() {
+        return Path.of(method.toLowerCase(), GENERATION_PREFIX + generation, COMPOUND_PREFIX + compound,
+            ATTACK_PREFIX + attack + ".class");
+    }
+
+    @Override
+    public int compareTo(AttackKey other) {
+        int result = method.compareTo(other.method);
+        if (result == 0) {
+            result = Integer.compare(generation, other.generation);
+        }
+        if (result == 0) {
+            result = Integer.compare(compound, other.compound);
+        }
+        if (result == 0) {
+            result = Integer.compare(attack, other.attack);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AttackKey)) {
+            return false;
+        }
+        AttackKey other = (AttackKey) o;
+        return generation == other.generation && compound == other.compound && attack == other.attack
+            && method.equals(other.method);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, generation, compound, attack);
+    }
+
+    @Override
+    public String toString() {
+        return method + ";" + generation + ";" + compound + ";" + attack;
+    }
+}
@@ -0,0 +1,168 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.AttackGenome;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A generation of attacks stored as packed genomes in one flat array.
+ * <p>
+ * Attack {@code j} of compound {@code i} is the {@link AttackGenome} at index
+ * {@code i * attacksPerCompound + j}, so a compound is a contiguous range and
+ * RCG copies a host compound with a single {@link System#arraycopy}. At
+ * eight bytes per attack, a generation of tens of millions of attacks takes
+ * a few hundred megabytes. Templates are created from a range of compounds
+ * when a chunk is handed to a {@link GenerationSink}.
+ * </p>
+ * <p>
+ * A population is written by the {@link GenerationEngine} while a generation
+ * is created, each compound by one thread, and only read afterwards.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * AttackPopulation population = engine.populatePCG(0);
+ * long genome = population.get(compoundId, attackId);
+ * List&lt;List&lt;NecromancerAttackTemplate&gt;&gt; chunk = population.toTemplates(0, 1024);
+ * </pre>
+ *
+ * @see AttackGenome
+ * @see GenerationEngine
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class AttackPopulation {
+
+    private final int compoundCount;
+    private final int attacksPerCompound;
+    private final long[] genomes;
+
+    /**
+     * Creates a population of empty genomes.
+     *
+     * @param compoundCount      The number of compounds.
+     * @param attacksPerCompound The number of attacks per compound.
+     */
+    public AttackPopulation(int compoundCount, int attacksPerCompound) {
+        if ((long) compoundCount * attacksPerCompound > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many attacks per generation: " + compoundCount + " x "
+                + attacksPerCompound);
+        }
+        this.compoundCount = compoundCount;
+        this.attacksPerCompound = attacksPerCompound;
+        this.genomes = new long[compoundCount * attacksPerCompound];
+    }
+
+    /**
+     * Encodes a generation of templates.
+     *
+     * @param compounds The compounds, all of the same size.
+     * @return The population.
+     * @throws IllegalArgumentException If the compounds differ in size or an
+     *                                  attack cannot be encoded.
+     */
+    public static AttackPopulation of(List<List<NecromancerAttackTemplate>> compounds) {
+        int attacksPerCompound = compounds.isEmpty() ? 0 : compounds.get(0).size();
+        AttackPopulation population = new AttackPopulation(compounds.size(), attacksPerCompound);
+        for (int i = 0; i < compounds.size(); i++) {
+            List<NecromancerAttackTemplate> compound = compounds.get(i);
+            if (compound.size() != attacksPerCompound) {
+                throw new IllegalArgumentException("Compound " + i + " has " + compound.size() + " attacks, not "
+                    + attacksPerCompound);
+            }
+            for (int j = 0; j < attacksPerCompound; j++) {
+                population.set(i, j, AttackGenome.encode(compound.get(j)));
+            }
+        }
+        return population;
+    }
+
+    /**
+     * Accessor for the genome of an attack.
+     *
+     * @param compound The compound index.
+     * @param attack   The attack index within the compound.
+     * @return The genome.
+     */
+    public long get(int compound, int attack) {
+        return genomes[compound * attacksPerCompound + attack];
+    }
+
+    /**
+     * Replaces the genome of an attack.
+     *
+     * @param compound The compound index.
+     * @param attack   The attack index within the compound.
+     * @param genome   The new genome.
+     */
+    public void set(int compound, int attack, long genome) {
+        genomes[compound * attacksPerCompound + attack] = genome;
+    }
+
+    /**
+     * Gives the engine direct access to the genomes, by flat attack index.
+     */
+    long[] genomes() {
+        return genomes;
+    }
+
+    /**
+     * Creates the templates of one compound.
+     *
+     * @param compound The compound index.
+     * @return The templates, in attack order.
+     */
+    public List<NecromancerAttackTemplate> toCompound(int compound) {
+        List<NecromancerAttackTemplate> attacks = new ArrayList<>(attacksPerCompound);
+        int base = compound * attacksPerCompound;
+        for (int j = 0; j < attacksPerCompound; j++) {
+            attacks.add(AttackGenome.toTemplate(genomes[base + j]));
+        }
+        return attacks;
+    }
+
+    /**
+     * Creates the templates of a range of compounds.
+     *
+     * @param from The first compound, inclusive.
+     * @param to   The last compound, exclusive.
+     * @return The compounds, in index order.
+     */
+    public List<List<NecromancerAttackTemplate>> toTemplates(int from, int to) {
+        List<List<NecromancerAttackTemplate>> compounds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            compounds.add(toCompound(i));
+        }
+        return compounds;
+    }
+
+    /**
+     * Accessor for the number of compounds.
+     *
+     * @return The compound count.
+     */
+    public int getCompoundCount() {
+        return compoundCount;
+    }
+
+    /**
+     * Accessor for the number of attacks per compound.
+     *
+     * @return The attacks per compound.
+     */
+    public int getAttacksPerCompound() {
+        return attacksPerCompound;
+    }
+
+    /**
+     * Accessor for the number of attacks in the population.
+     *
+     * @return The attack count.
+     */
+    public int size() {
+        return genomes.length;
+    }
+}
@@ -0,0 +1,73 @@
+package com.mygdx.platformer.analysistool;
+
+/**
+ * Static code metrics of a single source file, as computed by
+ * {@link CodeMetricsAnalyzer}.
+ *
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class CodeMetrics {
+
+    private final int linesOfCode;
+    private final int complexity;
+    private final int cognitiveComplexity;
+    private final int nestingDepth;
+
+    /**
+     * Creates a set of metrics.
+     *
+     * @param linesOfCode         The number of lines containing code.
+     * @param complexity          The cyclomatic complexity.
+     * @param cognitiveComplexity The cognitive complexity.
+     * @param nestingDepth        The deepest nesting of control structures.
+     */
+    public CodeMetrics(int linesOfCode, int complexity, int cognitiveComplexity, int nestingDepth) {
+        this.linesOfCode = linesOfCode;
+        this.complexity = complexity;
+        this.cognitiveComplexity = cognitiveComplexity;
+        this.nestingDepth = nestingDepth;
+    }
+
+    /**
+     * Accessor for the number of lines containing code, excluding blank lines
+     * and comments.
+     *
+     * @return The lines of code.
+     */
+    public int getLinesOfCode() {
+        return linesOfCode;
+    }
+
+    /**
+     * Accessor for the cyclomatic complexity.
+     *
+     * @return The cyclomatic complexity.
+     */
+    public int getComplexity() {
+        return complexity;
+    }
+
+    /**
+     * Accessor for the cognitive complexity.
+     *
+     * @return The cognitive complexity.
+     */
+    public int getCognitiveComplexity() {
+        return cognitiveComplexity;
+    }
+
+    /**
+     * Accessor for the deepest nesting of control structures.
+     *
+     * @return The nesting depth.
+     */
+    public int getNestingDepth() {
+        return nestingDepth;
+    }
+
+    @Override
+    public String toString() {
+        return linesOfCode + ";" + complexity + ";" + cognitiveComplexity + ";" + nestingDepth;
+    }
+}
@@ -0,0 +1,572 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.analysistool.JavaLexer.Kind;
+import com.mygdx.platformer.analysistool.JavaLexer.Token;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process code metrics engine for exported attack classes.
+ * <p>
+ * This replaces the SonarScanner round trip: instead of uploading the
+ * generated sources to a SonarQube server and exporting the measures again,
+ * the metrics are computed directly from the output of
+ * {@link AttackExporter}. The following metrics are computed per class:
+ * </p>
+ * <ul>
+ * <li><b>LOC</b> &ndash; lines containing code, excluding blank lines and
+ * comments.</li>
+ * <li><b>Cyclomatic complexity</b> &ndash; one per method, plus one for every
+ * {@code if}, {@code for}, {@code while}, {@code do}, {@code case}, ternary
+ * operator, {@code &&} and {@code ||}, following SonarQube's definition.</li>
+ * <li><b>Cognitive complexity</b> &ndash; following the SonarSource
+ * specification: structural increments for control flow, weighted by
+ * nesting, hybrid increments for {@code else}, and one increment per
+ * sequence of like logical operators.</li>
+ * <li><b>Nesting depth</b> &ndash; the deepest nesting of control
+ * structures.</li>
+ * </ul>
+ * <p>
+ * Files are analysed in parallel. If the export has an
+ * {@link ExportManifest}, each unique class body is analysed only once. The
+ * results are written as
+ * {@code metrics.csv} (one row per class) and {@code compound_metrics.csv}
+ * (one row per compound, the unit reported by SonarQube) into the export
+ * directory, and per class as {@code metrics.col} in the columnar format of
+ * {@link ColumnarResultWriter}.
+ * </p>
+ * <p>
+ * The mean, variance and percentiles of every metric per method and
+ * generation are summarized by a {@link MetricsAggregator} while the classes
+ * are analysed, each worker thread into its own, and written as
+ * {@code metrics_summary.csv}.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * CodeMetricsAnalyzer.analyzeExport(Path.of("out/generated"));
+ * </pre>
+ *
+ * @see CodeMetrics
+ * @see AttackExporter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class CodeMetricsAnalyzer {
+
+    /** Name of the per-class metrics file written into the export directory. */
+    public static final String METRICS_FILE = "metrics.csv";
+
+    /** Name of the per-compound metrics file written into the export directory. */
+    public static final String COMPOUND_METRICS_FILE = "compound_metrics.csv";
+
+    /**
+     * Name of the per-class metrics file in the columnar format of
+     * {@link ColumnarResultWriter}, written next to {@link #METRICS_FILE}.
+     */
+    public static final String METRICS_COLUMNS_FILE = "metrics.col";
+
+    /**
+     * Name of the per-generation summary file, written next to
+     * {@link #METRICS_FILE} by {@link MetricsAggregator#write(Path)}.
+     */
+    public static final String METRICS_SUMMARY_FILE = "metrics_summary.csv";
+
+    private static final String[] METRIC_NAMES = {"LOC", "Complexity", "CognitiveComplexity", "NestingDepth"};
+
+    /**
+     * Name of the per-hash metrics cache. The version suffix must be raised
+     * whenever the analysis changes, so that stale results are not reused.
+     */
+    private static final String METRICS_CACHE_FILE = ".metrics-cache-v1";
+
+    private CodeMetricsAnalyzer() {
+    }
+
+    /**
+     * Analyses every exported attack class below an export directory and
+     * writes the results next to the export.
+     *
+     * @param exportDirectory The export root (e.g., {@code out/generated}).
+     * @return The metrics of every class, ordered by key.
+     * @throws IOException If the export cannot be read or the results cannot be
+     *                     written.
+     */
+    public static SortedMap<AttackKey, CodeMetrics> analyzeExport(Path exportDirectory) throws IOException {
+        MetricsAggregator summary = new MetricsAggregator(METRIC_NAMES);
+        SortedMap<AttackKey, CodeMetrics> results = ExportManifest.exists(exportDirectory)
+            ? analyzeManifest(exportDirectory, summary)
+            : analyzeTree(exportDirectory, summary);
+        summary.write(exportDirectory.resolve(METRICS_SUMMARY_FILE));
+        writeResults(exportDirectory, results);
+        return results;
+    }
+
+    /**
+     * Analyses every source file of an export tree.
+     */
+    private static SortedMap<AttackKey, CodeMetrics> analyzeTree(Path exportDirectory, MetricsAggregator summary)
+            throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(exportDirectory)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+        }
+
+        SortedMap<AttackKey, CodeMetrics> results = new ConcurrentSkipListMap<>();
+        try {
+            summary.merge(files.parallelStream().collect(() -> new MetricsAggregator(METRIC_NAMES),
+                (aggregator, file) -> {
+                    AttackKey key = AttackKey.fromPath(exportDirectory.relativize(file));
+                    try {
+                        CodeMetrics metrics = analyze(Files.readString(file, StandardCharsets.UTF_8));
+                        results.put(key, metrics);
+                        summarize(aggregator, key.getMethod(), key.getGeneration(), 1, metrics);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, MetricsAggregator::merge));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return results;
+    }
+
+    /**
+     * Analyses each unique class body of an export once and assigns the
+     * result to every attack that shares the body. Classes that share a hash
+     * differ only in their package and class name, which do not affect any
+     * metric.
+     * <p>
+     * The metrics of every hash are kept in a cache next to the export, so a
+     * re-run only analyses bodies it has not seen before.
+     * </p>
+     */
+    private static SortedMap<AttackKey, CodeMetrics> analyzeManifest(Path exportDirectory,
+                                                                     MetricsAggregator summary) throws IOException {
+        Map<String, List<AttackKey>> keysByHash = ExportManifest.read(exportDirectory).entrySet().stream()
+            .collect(Collectors.groupingBy(Map.Entry::getValue, LinkedHashMap::new,
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        ContentStore store = new ContentStore(exportDirectory);
+        Map<String, CodeMetrics> cache = readCache(exportDirectory);
+        Map<String, CodeMetrics> byHash = new ConcurrentHashMap<>();
+
+        SortedMap<AttackKey, CodeMetrics> results = new ConcurrentSkipListMap<>();
+        try {
+            summary.merge(keysByHash.entrySet().parallelStream().collect(() -> new MetricsAggregator(METRIC_NAMES),
+                (aggregator, entry) -> {
+                    String hash = entry.getKey();
+                    AttackKey first = entry.getValue().get(0);
+                    try {
+                        CodeMetrics metrics = cache.get(hash);
+                        if (metrics == null) {
+                            String source = Files.exists(store.pathOf(hash))
+                                ? store.readSource(hash, first)
+                                : Files.readString(exportDirectory.resolve(first.toPath()), StandardCharsets.UTF_8);
+                            metrics = analyze(source);
+                        }
+                        byHash.put(hash, metrics);
+                        // the classes that share a body, counted per method and generation
+                        Map<AttackKey, Integer> groups = new HashMap<>();
+                        for (AttackKey key : entry.getValue()) {
+                            results.put(key, metrics);
+                            groups.merge(new AttackKey(key.getMethod(), key.getGeneration(), 0, 0), 1, Integer::sum);
+                        }
+                        for (Map.Entry<AttackKey, Integer> group : groups.entrySet()) {
+                            summarize(aggregator, group.getKey().getMethod(), group.getKey().getGeneration(),
+                                group.getValue(), metrics);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, MetricsAggregator::merge));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writeCache(exportDirectory, byHash);
+        int analysed = (int) byHash.keySet().stream().filter(hash -> !cache.containsKey(hash)).count();
+        System.out.println("Analysed " + analysed + " of " + byHash.size() + " unique class bodies");
+        return results;
+    }
+
+    private static void summarize(MetricsAggregator aggregator, String method, int generation, int classes,
+                                  CodeMetrics metrics) {
+        aggregator.add(method, generation, classes, metrics.getLinesOfCode(), metrics.getComplexity(),
+            metrics.getCognitiveComplexity(), metrics.getNestingDepth());
+    }
+
+    /**
+     * Reads the metrics cache of an export.
+     *
+     * @param exportDirectory The export root.
+     * @return The metrics of every cached class body, by hash.
+     * @throws IOException If the cache cannot be read.
+     */
+    static Map<String, CodeMetrics> readCache(Path exportDirectory) throws IOException {
+        Map<String, CodeMetrics> cache = new HashMap<>();
+        Path file = exportDirectory.resolve(METRICS_CACHE_FILE);
+        if (!Files.exists(file)) {
+            return cache;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(";");
+                if (values.length == 5) {
+                    cache.put(values[0], new CodeMetrics(Integer.parseInt(values[1]), Integer.parseInt(values[2]),
+                        Integer.parseInt(values[3]), Integer.parseInt(values[4])));
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Adds metrics computed elsewhere, e.g. by the workers of a
+     * {@link ShardCoordinator}, to the metrics cache of an export, so that
+     * {@link #analyzeExport(Path)} only has to assign them to the attacks.
+     *
+     * @param exportDirectory The export root.
+     * @param byHash          The metrics of class bodies, by hash.
+     * @throws IOException If the cache cannot be read or written.
+     */
+    static void addToCache(Path exportDirectory, Map<String, CodeMetrics> byHash) throws IOException {
+        Map<String, CodeMetrics> cache = readCache(exportDirectory);
+        cache.putAll(byHash);
+        writeCache(exportDirectory, cache);
+    }
+
+    private static void writeCache(Path exportDirectory, Map<String, CodeMetrics> byHash) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(METRICS_CACHE_FILE),
+                StandardCharsets.UTF_8)) {
+            writer.write("Hash;LOC;Complexity;CognitiveComplexity;NestingDepth\n");
+            for (Map.Entry<String, CodeMetrics> entry : new TreeMap<>(byHash).entrySet()) {
+                writer.write(entry.getKey() + ";" + entry.getValue() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Computes the metrics of a single source file.
+     *
+     * @param source The Java source code.
+     * @return The metrics of the file.
+     */
+    public static CodeMetrics analyze(CharSequence source) {
+        List<Token> tokens = JavaLexer.tokenize(source);
+
+        int linesOfCode = 0;
+        int lastLine = -1;
+        for (Token token : tokens) {
+            if (token.line != lastLine) {
+                linesOfCode++;
+                lastLine = token.line;
+            }
+        }
+
+        Deque<Block> blocks = new ArrayDeque<>();
+        Block lastClosed = null;
+        int nesting = 0;
+        int controlDepth = 0;
+        int maxControlDepth = 0;
+        int complexity = 0;
+        int cognitive = 0;
+        String lastLogicalOperator = null;
+        boolean inCaseLabel = false;
+        boolean caseArrow = false;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            String text = token.text;
+
+            switch (text) {
+                case "{" -> {
+                    Block block = classify(tokens, i, blocks.peek(), caseArrow);
+                    blocks.push(block);
+                    nesting += block.nests ? 1 : 0;
+                    controlDepth += block.control ? 1 : 0;
+                    maxControlDepth = Math.max(maxControlDepth, controlDepth);
+                    if (block.method) {
+                        complexity++;
+                    }
+                    lastLogicalOperator = null;
+                    inCaseLabel = false;
+                }
+                case "}" -> {
+                    if (!blocks.isEmpty()) {
+                        lastClosed = blocks.pop();
+                        nesting -= lastClosed.nests ? 1 : 0;
+                        controlDepth -= lastClosed.control ? 1 : 0;
+                    }
+                    lastLogicalOperator = null;
+                    inCaseLabel = false;
+                }
+                case ";", ",", ":" -> {
+                    lastLogicalOperator = null;
+                    inCaseLabel = false;
+                }
+                case "->" -> {
+                    caseArrow = inCaseLabel;
+                    inCaseLabel = false;
+                }
+                case "&&", "||" -> {
+                    complexity++;
+                    if (!text.equals(lastLogicalOperator)) {
+                        cognitive++;
+                    }
+                    lastLogicalOperator = text;
+                }
+                case "?" -> {
+                    if (!isWildcard(tokens, i)) {
+                        complexity++;
+                        cognitive += 1 + nesting;
+                    }
+                }
+                case "if" -> {
+                    complexity++;
+                    // an else if is already counted by its else
+                    if (!previousIs(tokens, i, "else")) {
+                        cognitive += 1 + nesting;
+                    }
+                }
+                case "else" -> cognitive++;
+                case "while" -> {
+                    boolean doWhileCondition = previousIs(tokens, i, "}") && lastClosed != null
+                        && "do".equals(lastClosed.keyword);
+                    if (!doWhileCondition) {
+                        complexity++;
+                        cognitive += 1 + nesting;
+                    }
+                }
+                case "for", "do" -> {
+                    complexity++;
+                    cognitive += 1 + nesting;
+                }
+                case "switch", "catch" -> cognitive += 1 + nesting;
+                case "case" -> {
+                    complexity++;
+                    inCaseLabel = true;
+                }
+                case "default" -> inCaseLabel = true;
+                case "break", "continue" -> {
+                    if (i + 1 < tokens.size() && tokens.get(i + 1).kind == Kind.IDENTIFIER) {
+                        cognitive++;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        return new CodeMetrics(linesOfCode, complexity, cognitive, maxControlDepth);
+    }
+
+    /**
+     * Determines what kind of block an opening brace starts by looking at the
+     * tokens in front of it.
+     */
+    private static Block classify(List<Token> tokens, int brace, Block enclosing, boolean caseArrow) {
+        if (brace == 0) {
+            return Block.PLAIN;
+        }
+        Token previous = tokens.get(brace - 1);
+        boolean inType = enclosing == null || enclosing.type;
+
+        switch (previous.text) {
+            case "->":
+                return caseArrow ? Block.PLAIN : new Block(true, false, false, false, "->");
+            case "else":
+            case "do":
+                return new Block(true, true, false, false, previous.text);
+            case "try":
+            case "finally":
+                return new Block(false, true, false, false, previous.text);
+            case ")":
+                int open = matchingParenthesis(tokens, brace - 1);
+                if (open <= 0) {
+                    return Block.PLAIN;
+                }
+                Token before = tokens.get(open - 1);
+                switch (before.text) {
+                    case "if":
+                    case "for":
+                    case "while":
+                    case "switch":
+                    case "catch":
+                        return new Block(true, true, false, false, before.text);
+                    case "try":
+                        return new Block(false, true, false, false, before.text);
+                    default:
+                        break;
+                }
+                if (before.kind == Kind.IDENTIFIER) {
+                    if (isInstantiation(tokens, open - 1)) {
+                        // anonymous class
+                        return new Block(!inType, false, true, false, "new");
+                    }
+                    if (open >= 2 && tokens.get(open - 2).is("record")) {
+                        return new Block(false, false, true, false, "record");
+                    }
+                    if (inType) {
+                        return Block.METHOD;
+                    }
+                }
+                return Block.PLAIN;
+            default:
+                break;
+        }
+
+        for (int j = brace - 1; j >= 0; j--) {
+            Token token = tokens.get(j);
+            if (token.is(";") || token.is("{") || token.is("}")) {
+                break;
+            }
+            if (token.is("class") || token.is("interface") || token.is("enum")
+                    || (token.is("record") && token.kind == Kind.IDENTIFIER && j + 2 < brace)) {
+                if (j > 0 && tokens.get(j - 1).is(".")) {
+                    continue;
+                }
+                return new Block(!inType, false, true, false, token.text);
+            }
+            if (token.is("throws") && inType) {
+                return Block.METHOD;
+            }
+        }
+        return Block.PLAIN;
+    }
+
+    /**
+     * Checks whether the identifier at {@code index} is the (possibly
+     * qualified) type of a {@code new} expression.
+     */
+    private static boolean isInstantiation(List<Token> tokens, int index) {
+        int j = index;
+        while (j >= 2 && tokens.get(j - 1).is(".") && tokens.get(j - 2).kind == Kind.IDENTIFIER) {
+            j -= 2;
+        }
+        return j >= 1 && tokens.get(j - 1).is("new");
+    }
+
+    private static int matchingParenthesis(List<Token> tokens, int close) {
+        int depth = 0;
+        for (int j = close; j >= 0; j--) {
+            String text = tokens.get(j).text;
+            if (text.equals(")")) {
+                depth++;
+            } else if (text.equals("(")) {
+                depth--;
+                if (depth == 0) {
+                    return j;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWildcard(List<Token> tokens, int index) {
+        if (index > 0 && tokens.get(index - 1).is("<")) {
+            return true;
+        }
+        if (index + 1 < tokens.size()) {
+            String next = tokens.get(index + 1).text;
+            return next.equals(">") || next.equals(">>") || next.equals(">>>") || next.equals(",")
+                || next.equals("extends") || next.equals("super");
+        }
+        return false;
+    }
+
+    private static boolean previousIs(List<Token> tokens, int index, String text) {
+        return index > 0 && tokens.get(index - 1).is(text);
+    }
+
+    /**
+     * Writes the per-class and per-compound CSV files.
+     */
+    private static void writeResults(Path exportDirectory, SortedMap<AttackKey, CodeMetrics> results)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(METRICS_FILE),
+                StandardCharsets.UTF_8)) {
+            writer.write("Method;Generation;Compound;Attack;LOC;Complexity;CognitiveComplexity;NestingDepth\n");
+            for (Map.Entry<AttackKey, CodeMetrics> entry : results.entrySet()) {
+                writer.write(entry.getKey() + ";" + entry.getValue() + "\n");
+            }
+        }
+
+        try (ColumnarResultWriter writer = new ColumnarResultWriter(exportDirectory.resolve(METRICS_COLUMNS_FILE),
+                METRIC_NAMES)) {
+            for (Map.Entry<AttackKey, CodeMetrics> entry : results.entrySet()) {
+                CodeMetrics metrics = entry.getValue();
+                writer.addRow(entry.getKey(), metrics.getLinesOfCode(), metrics.getComplexity(),
+                    metrics.getCognitiveComplexity(), metrics.getNestingDepth());
+            }
+        }
+
+        // results are ordered by key, so the rows of a compound are adjacent
+        Map<String, int[]> compounds = new LinkedHashMap<>();
+        for (Map.Entry<AttackKey, CodeMetrics> entry : results.entrySet()) {
+            AttackKey key = entry.getKey();
+            CodeMetrics metrics = entry.getValue();
+            int[] totals = compounds.computeIfAbsent(
+                key.getMethod() + ";" + key.getGeneration() + ";" + key.getCompound(), k -> new int[4]);
+            totals[0] += metrics.getLinesOfCode();
+            totals[1] += metrics.getComplexity();
+            totals[2] += metrics.getCognitiveComplexity();
+            totals[3] = Math.max(totals[3], metrics.getNestingDepth());
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(COMPOUND_METRICS_FILE),
+                StandardCharsets.UTF_8)) {
+            writer.write("Method;Generation;Compound;LOC;Complexity;CognitiveComplexity;NestingDepth\n");
+            for (Map.Entry<String, int[]> entry : compounds.entrySet()) {
+                int[] t = entry.getValue();
+                writer.write(entry.getKey() + ";" + t[0] + ";" + t[1] + ";" + t[2] + ";" + t[3] + "\n");
+            }
+        }
+    }
+
+    /**
+     * A block opened by a curly brace, and how it contributes to nesting.
+     */
+    private static final class Block {
+        static final Block PLAIN = new Block(false, false, false, false, null);
+        static final Block METHOD = new Block(false, false, false, true, null);
+
+        /** Whether the block increases the cognitive complexity nesting level. */
+        final boolean nests;
+        /** Whether the block is the body of a control structure. */
+        final boolean control;
+        /** Whether the block is the body of a type declaration. */
+        final boolean type;
+        /** Whether the block is the body of a method or constructor. */
+        final boolean method;
+        /** The keyword that introduced the block, if any. */
+        final String keyword;
+
+        Block(boolean nests, boolean control, boolean type, boolean method, String keyword) {
+            this.nests = nests;
+            this.control = control;
+            this.type = type;
+            this.method = method;
+            this.keyword = keyword;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a result file written by {@link ColumnarResultWriter} through
+ * memory-mapped I/O.
+ * <p>
+ * Each column is mapped separately, so only the columns that are scanned are
+ * paged in, and the heap holds nothing but the header. Aggregations scan the
+ * mapped columns in parallel blocks of rows.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (ColumnarResultReader reader = ColumnarResultReader.open(file)) {
+ *     Map&lt;String, SortedMap&lt;Integer, ColumnStats&gt;&gt; complexity = reader.aggregate("Complexity");
+ *     double mean = complexity.get("RCG").get(3).getMean();
+ * }
+ * </pre>
+ *
+ * @see ColumnarResultWriter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class ColumnarResultReader implements AutoCloseable {
+
+    /** Rows scanned by one task of a parallel aggregation. */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int rowCount;
+    private final List<String> methods;
+    private final Map<String, ByteBuffer> columns = new LinkedHashMap<>();
+
+    private ColumnarResultReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        readFully(lengthBuffer, 0);
+        int headerLength = lengthBuffer.getInt(0);
+        ByteBuffer headerBuffer = ByteBuffer.allocate(headerLength);
+        readFully(headerBuffer, 4);
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBuffer.array()));
+
+        if (header.readInt() != ColumnarResultWriter.MAGIC) {
+            throw new IOException("Not a columnar result file");
+        }
+        int version = header.readInt();
+        if (version != ColumnarResultWriter.VERSION) {
+            throw new IOException("Unsupported columnar result version " + version);
+        }
+        this.rowCount = header.readInt();
+        List<String> dictionary = new ArrayList<>();
+        for (int i = header.readInt(); i > 0; i--) {
+            dictionary.add(header.readUTF());
+        }
+        this.methods = Collections.unmodifiableList(dictionary);
+
+        long dataStart = ColumnarResultWriter.align(4L + headerLength);
+        for (int i = header.readInt(); i > 0; i--) {
+            String name = header.readUTF();
+            int width = header.readByte();
+            long offset = header.readLong();
+            columns.put(name, channel.map(FileChannel.MapMode.READ_ONLY, dataStart + offset, (long) width * rowCount));
+        }
+    }
+
+    /**
+     * Opens a result file.
+     *
+     * @param file The file written by {@link ColumnarResultWriter}.
+     * @return The reader.
+     * @throws IOException If the file cannot be read or is not a result file.
+     */
+    public static ColumnarResultReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarResultReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated columnar result file");
+            }
+        }
+    }
+
+    /**
+     * Accessor for the number of rows.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Accessor for the method dictionary, indexed by method code.
+     *
+     * @return The generation methods in the file.
+     */
+    public List<String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Accessor for the column names, the four key columns followed by the
+     * metric columns.
+     *
+     * @return The column names.
+     */
+    public List<String> getColumns() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    /**
+     * Returns the generation method of a row.
+     *
+     * @param row The row index.
+     * @return The generation method.
+     */
+    public String getMethod(int row) {
+        return methods.get(Byte.toUnsignedInt(columns.get(ColumnarResultWriter.METHOD).get(row)));
+    }
+
+    /**
+     * Returns a read-only view of an integer column. Reading from the buffer
+     * reads directly from the mapped file.
+     *
+     * @param name The name of a key or metric column.
+     * @return The values of the column, one per row.
+     * @throws IllegalArgumentException If there is no such integer column.
+     */
+    public IntBuffer getIntColumn(String name) {
+        ByteBuffer column = columns.get(name);
+        if (column == null || name.equals(ColumnarResultWriter.METHOD)) {
+            throw new IllegalArgumentException("No integer column " + name);
+        }
+        return column.duplicate().asIntBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Aggregates a column by generation method and generation.
+     *
+     * @param name The name of a metric column.
+     * @return The statistics of the column, by method and then by generation.
+     */
+    public Map<String, SortedMap<Integer, ColumnStats>> aggregate(String name) {
+        IntBuffer values = getIntColumn(name);
+        IntBuffer generations = getIntColumn(ColumnarResultWriter.GENERATION);
+        ByteBuffer methodCodes = columns.get(ColumnarResultWriter.METHOD);
+        int maxGeneration = IntStream.range(0, blockCount()).parallel()
+            .map(block -> {
+                int max = 0;
+                for (int row = blockStart(block); row < blockEnd(block); row++) {
+                    max = Math.max(max, generations.get(row));
+                }
+                return max;
+            }).max().orElse(0);
+
+        int groups = methods.size() * (maxGeneration + 1);
+        ColumnStats[] totals = IntStream.range(0, blockCount()).parallel()
+            .mapToObj(block -> {
+                ColumnStats[] stats = newStats(groups);
+                for (int row = blockStart(block); row < blockEnd(block); row++) {
+                    int group = Byte.toUnsignedInt(methodCodes.get(row)) * (maxGeneration + 1) + generations.get(row);
+                    stats[group].add(values.get(row));
+                }
+                return stats;
+            })
+            .reduce((a, b) -> {
+                for (int i = 0; i < groups; i++) {
+                    a[i].merge(b[i]);
+                }
+                return a;
+            })
+            .orElseGet(() -> newStats(groups));
+
+        Map<String, SortedMap<Integer, ColumnStats>> result = new LinkedHashMap<>();
+        for (int method = 0; method < methods.size(); method++) {
+            SortedMap<Integer, ColumnStats> byGeneration = new TreeMap<>();
+            for (int generation = 0; generation <= maxGeneration; generation++) {
+                ColumnStats stats = totals[method * (maxGeneration + 1) + generation];
+                if (stats.getCount() > 0) {
+                    byGeneration.put(generation, stats);
+                }
+            }
+            result.put(methods.get(method), byGeneration);
+        }
+        return result;
+    }
+
+    private static ColumnStats[] newStats(int groups) {
+        ColumnStats[] stats = new ColumnStats[groups];
+        for (int i = 0; i < groups; i++) {
+            stats[i] = new ColumnStats();
+        }
+        return stats;
+    }
+
+    private int blockCount() {
+        return (rowCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private static int blockStart(int block) {
+        return block * BLOCK_SIZE;
+    }
+
+    private int blockEnd(int block) {
+        return (int) Math.min(rowCount, (long) (block + 1) * BLOCK_SIZE);
+    }
+
+    /**
+     * Closes the file. The mapped columns stay readable until they are
+     * garbage collected.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Count, sum, minimum and maximum of a group of values.
+     */
+    public static final class ColumnStats {
+        private long count;
+        private long sum;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        void add(int value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void merge(ColumnStats other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * Accessor for the number of values.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Accessor for the sum of the values.
+         *
+         * @return The sum.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Accessor for the smallest value.
+         *
+         * @return The minimum.
+         */
+        public int getMin() {
+            return min;
+        }
+
+        /**
+         * Accessor for the largest value.
+         *
+         * @return The maximum.
+         */
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * Accessor for the mean of the values.
+         *
+         * @return The mean, or {@code NaN} if there are no values.
+         */
+        public double getMean() {
+            return count == 0 ? Double.NaN : (double) sum / count;
+        }
+
+        @Override
+        public String toString() {
+            return count + ";" + sum + ";" + min + ";" + max;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes per-attack results in a compact columnar binary format.
+ * <p>
+ * Every column is stored as one contiguous array, so a reader can scan a
+ * single metric over tens of millions of rows without touching the others.
+ * The generation method is dictionary encoded as one byte per row; the
+ * generation, compound and attack keys and every metric are stored as 32 bit
+ * integers. Rows are streamed to one temporary file per column and assembled
+ * into the result file on {@link #close()}, so memory use does not depend on
+ * the number of rows.
+ * </p>
+ *
+ * <h2>File Layout</h2>
+ * <ol>
+ * <li>Header length (int), followed by the header: magic, version, row
+ * count, method dictionary and the column directory (name, width and data
+ * offset of every column).</li>
+ * <li>Column data, each column aligned to 8 bytes. All values are big
+ * endian.</li>
+ * </ol>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (ColumnarResultWriter writer = new ColumnarResultWriter(file, "LOC", "Complexity")) {
+ *     writer.addRow("RCG", 3, 2, 1, 24, 4);
+ * }
+ * </pre>
+ *
+ * @see ColumnarResultReader
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class ColumnarResultWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x50434743; // "PCGC"
+    static final int VERSION = 1;
+
+    static final String METHOD = "Method";
+    static final String GENERATION = "Generation";
+    static final String COMPOUND = "Compound";
+    static final String ATTACK = "Attack";
+
+    /** The most methods the one byte dictionary code can address. */
+    private static final int MAX_METHODS = 256;
+
+    private final Path file;
+    private final List<String> columns = new ArrayList<>();
+    private final List<Path> columnFiles = new ArrayList<>();
+    private final List<DataOutputStream> outputs = new ArrayList<>();
+    private final Map<String, Integer> methods = new LinkedHashMap<>();
+    private int rowCount;
+    private boolean closed;
+
+    /**
+     * Creates a writer.
+     *
+     * @param file          The result file to write.
+     * @param metricColumns The names of the metric columns, in the order their
+     *                      values are passed to {@link #addRow}.
+     * @throws IOException If the temporary column files cannot be created.
+     */
+    public ColumnarResultWriter(Path file, String... metricColumns) throws IOException {
+        this.file = file;
+        columns.add(METHOD);
+        columns.add(GENERATION);
+        columns.add(COMPOUND);
+        columns.add(ATTACK);
+        columns.addAll(List.of(metricColumns));
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        try {
+            for (String column : columns) {
+                Path columnFile = Files.createTempFile(directory, file.getFileName() + "." + column, ".tmp");
+                columnFiles.add(columnFile);
+                outputs.add(new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columnFile), 1 << 16)));
+            }
+        } catch (IOException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param method     The generation method (e.g., "PCG" or "RCG").
+     * @param generation The generation number.
+     * @param compound   The compound ID.
+     * @param attack     The index of the attack within its compound.
+     * @param metrics    One value per metric column.
+     * @throws IOException If the row cannot be written.
+     */
+    public void addRow(String method, int generation, int compound, int attack, int... metrics) throws IOException {
+        if (metrics.length != columns.size() - 4) {
+            throw new IllegalArgumentException("Expected " + (columns.size() - 4) + " metrics, got " + metrics.length);
+        }
+        Integer code = methods.get(method);
+        if (code == null) {
+            if (methods.size() == MAX_METHODS) {
+                throw new IllegalArgumentException("Too many methods, at most " + MAX_METHODS + " are supported");
+            }
+            code = methods.size();
+            methods.put(method, code);
+        }
+        outputs.get(0).writeByte(code);
+        outputs.get(1).writeInt(generation);
+        outputs.get(2).writeInt(compound);
+        outputs.get(3).writeInt(attack);
+        for (int i = 0; i < metrics.length; i++) {
+            outputs.get(4 + i).writeInt(metrics[i]);
+        }
+        rowCount++;
+    }
+
+    /**
+     * Appends the row of an attack.
+     *
+     * @param key     The key of the attack.
+     * @param metrics One value per metric column.
+     * @throws IOException If the row cannot be written.
+     */
+    public void addRow(AttackKey key, int... metrics) throws IOException {
+        addRow(key.getMethod(), key.getGeneration(), key.getCompound(), key.getAttack(), metrics);
+    }
+
+    /**
+     * Assembles the result file from the column files.
+     *
+     * @throws IOException If the result file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (DataOutputStream output : outputs) {
+                output.close();
+            }
+
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(rowCount);
+            header.writeInt(methods.size());
+            for (String method : methods.keySet()) {
+                header.writeUTF(method);
+            }
+            header.writeInt(columns.size());
+            // offsets are relative to the start of the column data
+            long offset = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                int width = i == 0 ? 1 : 4;
+                header.writeUTF(columns.get(i));
+                header.writeByte(width);
+                header.writeLong(offset);
+                offset = align((long) width * rowCount + offset);
+            }
+            header.flush();
+
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+                DataOutputStream prefixData = new DataOutputStream(prefix);
+                prefixData.writeInt(headerBytes.size());
+                headerBytes.writeTo(prefixData);
+                prefixData.write(new byte[(int) (align(prefix.size()) - prefix.size())]);
+                writeFully(out, ByteBuffer.wrap(prefix.toByteArray()));
+
+                for (Path columnFile : columnFiles) {
+                    try (FileChannel in = FileChannel.open(columnFile, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        for (long position = 0; position < size; ) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                        writeFully(out, ByteBuffer.allocate((int) (align(size) - size)));
+                    }
+                }
+            }
+        } finally {
+            discard();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void discard() throws IOException {
+        for (DataOutputStream output : outputs) {
+            output.close();
+        }
+        for (Path columnFile : columnFiles) {
+            Files.deleteIfExists(columnFile);
+        }
+    }
+
+    /**
+     * Rounds a position up to the next multiple of 8.
+     */
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mygdx.platformer.analysistool;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of an {@link InMemoryCompiler} run: the bytecode of every
+ * compiled class, the compiler's error messages, and an isolated class loader
+ * for the compiled classes.
+ *
+ * @see InMemoryCompiler
+ * @see GeneratedClassLoader
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class CompiledClasses {
+
+    private final Map<String, byte[]> classBytes;
+    private final List<String> errors;
+    private final GeneratedClassLoader classLoader;
+
+    /**
+     * Creates a compilation result.
+     *
+     * @param classBytes Bytecode indexed by binary class name.
+     * @param errors     The compiler's error messages.
+     * @param parent     The parent of the class loader for the compiled classes.
+     */
+    CompiledClasses(Map<String, byte[]> classBytes, List<String> errors, ClassLoader parent) {
+        this.classBytes = Collections.unmodifiableMap(classBytes);
+        this.errors = Collections.unmodifiableList(errors);
+        this.classLoader = new GeneratedClassLoader(this.classBytes, parent);
+    }
+
+    /**
+     * Checks whether every source compiled without errors.
+     *
+     * @return {@code true} if there were no compilation errors.
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * Accessor for the compiler's error messages.
+     *
+     * @return The error messages, empty if compilation succeeded.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Accessor for the compiled bytecode.
+     *
+     * @return Bytecode indexed by binary class name.
+     */
+    public Map<String, byte[]> getClassBytes() {
+        return classBytes;
+    }
+
+    /**
+     * Accessor for the class loader of the compiled classes.
+     *
+     * @return The isolated class loader.
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Loads one of the compiled classes.
+     *
+     * @param className The binary name of the class.
+     * @return The loaded class.
+     * @throws ClassNotFoundException If the class was not compiled.
+     */
+    public Class<?> loadClass(String className) throws ClassNotFoundException {
+        return Class.forName(className, true, classLoader);
+    }
+}
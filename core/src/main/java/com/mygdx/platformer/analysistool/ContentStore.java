@@ -0,0 +1,178 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed store for the bodies of exported attack classes.
+ * <p>
+ * Most classes of an RCG generation are copies of classes from the previous
+ * generation, and differ from them only in their package declaration. The
+ * store therefore keeps a <em>normalized</em> body of each class, without the
+ * package line and with a neutral class name, under the SHA-256 hash of that
+ * body. Each unique body is stored exactly once; the {@link ExportManifest}
+ * maps every (method, generation, compound, attack) to its hash.
+ * </p>
+ *
+ * <h2>Store Structure</h2>
+ * <ul>
+ * <li>out/generated/cas/{first two hash characters}/{hash}.src</li>
+ * </ul>
+ *
+ * @see AttackExporter
+ * @see ExportManifest
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class ContentStore {
+
+    /** Name of the store directory within the export root. */
+    public static final String DIRECTORY = "cas";
+
+    private static final String EXTENSION = ".src";
+    private static final String CLASS_PREFIX = "class NecromancerAttack_";
+    private static final String NORMALIZED_CLASS = "class NecromancerAttack {";
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Path root;
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a store inside an export directory.
+     *
+     * @param exportDirectory The root directory of the export.
+     */
+    public ContentStore(Path exportDirectory) {
+        this.root = exportDirectory.resolve(DIRECTORY);
+    }
+
+    /**
+     * Claims a hash for storage.
+     * <p>
+     * Returns {@code true} exactly once per hash that is not yet on disk, so
+     * that only the first of several identical bodies is written.
+     * </p>
+     *
+     * @param hash The hash of a normalized body.
+     * @return {@code true} if the caller should store the body.
+     */
+    public boolean claim(String hash) {
+        return stored.add(hash) && !Files.exists(pathOf(hash));
+    }
+
+    /**
+     * Returns the file holding the body with the given hash.
+     *
+     * @param hash The hash of a normalized body.
+     * @return The path of the body within the store.
+     */
+    public Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + EXTENSION);
+    }
+
+    /**
+     * Reads a stored body.
+     *
+     * @param hash The hash of a normalized body.
+     * @return The normalized body.
+     * @throws IOException If the body is not in the store.
+     */
+    public String read(String hash) throws IOException {
+        return Files.readString(pathOf(hash), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the complete source of an exported class, as it would have been
+     * written into the export tree.
+     *
+     * @param hash The hash of the class's normalized body.
+     * @param key  The key of the class.
+     * @return The source of the class.
+     * @throws IOException If the body is not in the store.
+     */
+    public String readSource(String hash, AttackKey key) throws IOException {
+        return denormalize(read(hash), key);
+    }
+
+    /**
+     * Reads the sources of every class in the manifest of an export whose
+     * body is held in the store. Each body is read only once, however many
+     * classes share it.
+     *
+     * @param exportDirectory The root directory of the export.
+     * @return The sources, indexed by fully qualified class name. Empty if the
+     *         export was not deduplicated.
+     * @throws IOException If the manifest or a body cannot be read.
+     */
+    public static Map<String, String> readSources(Path exportDirectory) throws IOException {
+        ContentStore store = new ContentStore(exportDirectory);
+        Map<String, String> bodies = new HashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Map.Entry<AttackKey, String> entry : ExportManifest.read(exportDirectory).entrySet()) {
+            String hash = entry.getValue();
+            if (!bodies.containsKey(hash)) {
+                if (!Files.exists(store.pathOf(hash))) {
+                    continue;
+                }
+                bodies.put(hash, store.read(hash));
+            }
+            sources.put(entry.getKey().toClassName(), denormalize(bodies.get(hash), entry.getKey()));
+        }
+        return sources;
+    }
+
+    /**
+     * Normalizes the source of an exported class by removing its package
+     * declaration and replacing its class name.
+     *
+     * @param source   The source produced by {@link AttackExporter}.
+     * @param attackId The index of the attack within its compound.
+     * @return The normalized body.
+     */
+    public static String normalize(String source, int attackId) {
+        String body = source.startsWith("package ") ? source.substring(source.indexOf('\n') + 1) : source;
+        return body.replace(CLASS_PREFIX + attackId + " {", NORMALIZED_CLASS);
+    }
+
+    /**
+     * Restores the source of an exported class from its normalized body.
+     *
+     * @param body The normalized body.
+     * @param key  The key of the class.
+     * @return The source of the class.
+     */
+    public static String denormalize(String body, AttackKey key) {
+        String className = key.toClassName();
+        String packageName = className.substring(0, className.lastIndexOf('.'));
+        return "package " + packageName + ";\n"
+            + body.replace(NORMALIZED_CLASS, CLASS_PREFIX + key.getAttack() + " {");
+    }
+
+    /**
+     * Computes the hash of a normalized body.
+     *
+     * @param body The normalized body.
+     * @return The SHA-256 hash as a lower-case hexadecimal string.
+     */
+    public static String hash(String body) {
+        MessageDigest digest = DIGEST.get();
+        return HexFormat.of().formatHex(digest.digest(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,386 @@
+package com.mygdx.platformer.analysistool;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process line and branch coverage of exported attack classes.
+ * <p>
+ * This replaces running {@code gradlew :core:jacocoTestReport} and parsing
+ * the XML report with {@link CoverageParser}: the generated classes are
+ * compiled with {@link InMemoryCompiler}, instrumented with the JaCoCo core
+ * API, loaded in a {@link GeneratedClassLoader} and the {@code execute}
+ * method of every class is called once in a {@link HeadlessAttackRunner}.
+ * The execution data is then analysed against the original class bytes,
+ * without writing an exec file or a report.
+ * </p>
+ * <p>
+ * If the export has an {@link ExportManifest}, each unique class body is
+ * executed only once, as classes that share a body only differ in their
+ * package and class name.
+ * </p>
+ * <p>
+ * Classes whose class file was exported next to their source, see
+ * {@link AttackClassEmitter}, are loaded from it; only the other sources are
+ * compiled.
+ * </p>
+ * <p>
+ * The results are written as {@code coverage_report.csv}, in the format of
+ * {@link CoverageParser}, and as {@code coverage.col} in the columnar format
+ * of {@link ColumnarResultWriter}, both into the export directory. The
+ * mean, variance and percentiles of the line and branch coverage per method
+ * and generation are summarized by a {@link MetricsAggregator} as the
+ * results are assigned to the attacks, and written as
+ * {@code coverage_summary.csv}. Classes without branches are left out of the
+ * branch coverage summary.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * CoverageCollector.collectExport(Path.of("out/generated"));
+ * </pre>
+ *
+ * @see CoverageParser
+ * @see InMemoryCompiler
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class CoverageCollector {
+
+    /** Name of the per-class coverage file written into the export directory. */
+    public static final String COVERAGE_FILE = "coverage_report.csv";
+
+    /**
+     * Name of the per-class coverage file in the columnar format of
+     * {@link ColumnarResultWriter}, written next to {@link #COVERAGE_FILE}.
+     */
+    public static final String COVERAGE_COLUMNS_FILE = "coverage.col";
+
+    /**
+     * Name of the per-generation summary file, written next to
+     * {@link #COVERAGE_FILE} by {@link MetricsAggregator#write(Path)}.
+     */
+    public static final String COVERAGE_SUMMARY_FILE = "coverage_summary.csv";
+
+    private CoverageCollector() {
+    }
+
+    /**
+     * Collects the coverage of every exported attack class below an export
+     * directory and writes the results next to the export.
+     *
+     * @param exportDirectory The export root (e.g., {@code out/generated}).
+     * @return The coverage of every class, ordered by key.
+     * @throws IOException If the export cannot be read, does not compile or
+     *                     the results cannot be written.
+     */
+    public static SortedMap<AttackKey, ClassCoverage> collectExport(Path exportDirectory) throws IOException {
+        return collectExport(exportDirectory, Map.of());
+    }
+
+    /**
+     * Collects the coverage of every exported attack class, reusing the
+     * coverage of class bodies that was collected elsewhere, e.g. by the
+     * workers of a {@link ShardCoordinator}. Only the other bodies are
+     * compiled and executed.
+     *
+     * @param exportDirectory The export root.
+     * @param known           The coverage of class bodies, by hash. Only used
+     *                        if the export has a manifest.
+     * @return The coverage of every class, ordered by key.
+     * @throws IOException If the export cannot be read, does not compile or
+     *                     the results cannot be written.
+     */
+    static SortedMap<AttackKey, ClassCoverage> collectExport(Path exportDirectory, Map<String, ClassCoverage> known)
+            throws IOException {
+        Map<AttackKey, List<AttackKey>> keysByRepresentative = new LinkedHashMap<>();
+        Map<String, byte[]> classBytes = new HashMap<>();
+        Map<String, ClassCoverage> coverage = new HashMap<>();
+        Map<String, String> sources = readSources(exportDirectory, known, keysByRepresentative, classBytes, coverage);
+
+        int emitted = classBytes.size();
+        if (!sources.isEmpty()) {
+            CompiledClasses compiled = new InMemoryCompiler().compile(sources);
+            if (!compiled.isSuccess()) {
+                throw new IOException("Generated attacks do not compile:\n"
+                    + String.join("\n", compiled.getErrors()));
+            }
+            classBytes.putAll(compiled.getClassBytes());
+        }
+        if (!classBytes.isEmpty()) {
+            coverage.putAll(collect(classBytes));
+        }
+
+        SortedMap<AttackKey, ClassCoverage> results = new TreeMap<>();
+        MetricsAggregator summary = new MetricsAggregator("LineCoverage", "BranchCoverage");
+        for (Map.Entry<AttackKey, List<AttackKey>> entry : keysByRepresentative.entrySet()) {
+            ClassCoverage classCoverage = coverage.get(entry.getKey().toClassName());
+            double lineCoverage = percentage(classCoverage.getCoveredLines(), classCoverage.getMissedLines());
+            double branchCoverage = percentage(classCoverage.getCoveredBranches(),
+                classCoverage.getMissedBranches());
+            for (AttackKey key : entry.getValue()) {
+                results.put(key, classCoverage);
+                summary.add(key, lineCoverage, branchCoverage);
+            }
+        }
+        summary.write(exportDirectory.resolve(COVERAGE_SUMMARY_FILE));
+        writeResults(exportDirectory, results);
+        System.out.println("Executed " + classBytes.size() + " unique classes (" + emitted + " from class files) for "
+            + results.size() + " attacks" + (known.isEmpty() ? "" : ", " + known.size() + " executed by workers"));
+        return results;
+    }
+
+    /**
+     * Reads the source of one class per unique body, or of every class if the
+     * export has no manifest. Classes with an exported class file are read
+     * into {@code classBytes} instead, and the known coverage of a body is
+     * put into {@code coverage} without reading it.
+     */
+    private static Map<String, String> readSources(Path exportDirectory, Map<String, ClassCoverage> known,
+                                                   Map<AttackKey, List<AttackKey>> keysByRepresentative,
+                                                   Map<String, byte[]> classBytes,
+                                                   Map<String, ClassCoverage> coverage)
+            throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        if (ExportManifest.exists(exportDirectory)) {
+            ContentStore store = new ContentStore(exportDirectory);
+            Map<String, List<AttackKey>> keysByHash = ExportManifest.read(exportDirectory).entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, LinkedHashMap::new,
+                    Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+            for (Map.Entry<String, List<AttackKey>> entry : keysByHash.entrySet()) {
+                AttackKey first = entry.getValue().get(0);
+                keysByRepresentative.put(first, entry.getValue());
+                ClassCoverage knownCoverage = known.get(entry.getKey());
+                if (knownCoverage != null) {
+                    coverage.put(first.toClassName(), knownCoverage);
+                    continue;
+                }
+                if (readClassFile(exportDirectory, first, classBytes)) {
+                    continue;
+                }
+                String source = Files.exists(store.pathOf(entry.getKey()))
+                    ? store.readSource(entry.getKey(), first)
+                    : Files.readString(exportDirectory.resolve(first.toPath()), StandardCharsets.UTF_8);
+                sources.put(first.toClassName(), source);
+            }
+        } else {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(exportDirectory)) {
+                files = walk.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                AttackKey key = AttackKey.fromPath(exportDirectory.relativize(file));
+                keysByRepresentative.put(key, List.of(key));
+                if (!readClassFile(exportDirectory, key, classBytes)) {
+                    sources.put(key.toClassName(), Files.readString(file, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Reads the class file exported next to the source of an attack, if
+     * there is one.
+     *
+     * @param exportDirectory The export root.
+     * @param key             The attack.
+     * @param classBytes      Bytecode by binary class name, to add the class to.
+     * @return {@code true} if the class file was read.
+     * @throws IOException If the class file cannot be read.
+     */
+    static boolean readClassFile(Path exportDirectory, AttackKey key, Map<String, byte[]> classBytes)
+            throws IOException {
+        Path classFile = exportDirectory.resolve(key.toClassFilePath());
+        if (!Files.exists(classFile)) {
+            return false;
+        }
+        classBytes.put(key.toClassName(), Files.readAllBytes(classFile));
+        return true;
+    }
+
+    /**
+     * Instruments and executes a set of compiled attack classes and analyses
+     * their coverage.
+     *
+     * @param classBytes Bytecode indexed by binary class name, as produced by
+     *                   {@link InMemoryCompiler} or {@link AttackClassEmitter}.
+     * @return The coverage of every class, indexed by binary class name.
+     * @throws IOException If a class cannot be instrumented or analysed.
+     */
+    public static Map<String, ClassCoverage> collect(Map<String, byte[]> classBytes) throws IOException {
+        IRuntime runtime = new LoggerRuntime();
+        RuntimeData data = new RuntimeData();
+        ExecutionDataStore executionData = new ExecutionDataStore();
+        try {
+            runtime.startup(data);
+        } catch (Exception e) {
+            throw new IOException("Could not start the coverage runtime", e);
+        }
+        try {
+            Instrumenter instrumenter = new Instrumenter(runtime);
+            Map<String, byte[]> instrumented = new HashMap<>();
+            for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+                instrumented.put(entry.getKey(), instrumenter.instrument(entry.getValue(), entry.getKey()));
+            }
+            int failures = execute(new GeneratedClassLoader(instrumented, CoverageCollector.class.getClassLoader()),
+                classBytes.keySet().stream().sorted().collect(Collectors.toList()));
+            if (failures > 0) {
+                System.err.println(failures + " generated attacks failed while executing");
+            }
+            data.collect(executionData, new SessionInfoStore(), false);
+        } finally {
+            runtime.shutdown();
+        }
+
+        CoverageBuilder builder = new CoverageBuilder();
+        Analyzer analyzer = new Analyzer(executionData, builder);
+        for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+            analyzer.analyzeClass(entry.getValue(), entry.getKey());
+        }
+        Map<String, ClassCoverage> coverage = new HashMap<>();
+        for (IClassCoverage classCoverage : builder.getClasses()) {
+            coverage.put(classCoverage.getName().replace('/', '.'), new ClassCoverage(
+                classCoverage.getLineCounter().getCoveredCount(), classCoverage.getLineCounter().getMissedCount(),
+                classCoverage.getBranchCounter().getCoveredCount(), classCoverage.getBranchCounter().getMissedCount()));
+        }
+        return coverage;
+    }
+
+    /**
+     * Calls the {@code execute} method of every class once in a
+     * {@link HeadlessAttackRunner}.
+     *
+     * @return The number of classes that could not be executed.
+     */
+    private static int execute(ClassLoader loader, List<String> classNames) {
+        int failures = 0;
+        try (HeadlessAttackRunner runner = new HeadlessAttackRunner()) {
+            for (String className : classNames) {
+                try {
+                    runner.run(Class.forName(className, true, loader), 0);
+                } catch (ReflectiveOperationException | IllegalStateException e) {
+                    failures++;
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Converts counters to a percentage, or {@code NaN} if there is nothing to
+     * cover.
+     */
+    private static double percentage(int covered, int missed) {
+        int total = covered + missed;
+        return total == 0 ? Double.NaN : 100.0 * covered / total;
+    }
+
+    private static void writeResults(Path exportDirectory, SortedMap<AttackKey, ClassCoverage> results)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(COVERAGE_FILE),
+                StandardCharsets.UTF_8)) {
+            writer.write("Class;LineCoverage;BranchCoverage\n");
+            StringBuilder row = new StringBuilder(128);
+            for (Map.Entry<AttackKey, ClassCoverage> entry : results.entrySet()) {
+                ClassCoverage coverage = entry.getValue();
+                row.setLength(0);
+                row.append(entry.getKey().toClassName().replace('.', '/')).append(';');
+                CoverageParser.appendPercentage(row, coverage.getCoveredLines(), coverage.getMissedLines());
+                row.append(';');
+                CoverageParser.appendPercentage(row, coverage.getCoveredBranches(), coverage.getMissedBranches());
+                row.append('\n');
+                writer.append(row);
+            }
+        }
+
+        try (ColumnarResultWriter writer = new ColumnarResultWriter(exportDirectory.resolve(COVERAGE_COLUMNS_FILE),
+                "CoveredLines", "MissedLines", "CoveredBranches", "MissedBranches")) {
+            for (Map.Entry<AttackKey, ClassCoverage> entry : results.entrySet()) {
+                ClassCoverage coverage = entry.getValue();
+                writer.addRow(entry.getKey(), coverage.getCoveredLines(), coverage.getMissedLines(),
+                    coverage.getCoveredBranches(), coverage.getMissedBranches());
+            }
+        }
+    }
+
+    /**
+     * Line and branch counters of one class.
+     */
+    public static final class ClassCoverage {
+        private final int coveredLines;
+        private final int missedLines;
+        private final int coveredBranches;
+        private final int missedBranches;
+
+        ClassCoverage(int coveredLines, int missedLines, int coveredBranches, int missedBranches) {
+            this.coveredLines = coveredLines;
+            this.missedLines = missedLines;
+            this.coveredBranches = coveredBranches;
+            this.missedBranches = missedBranches;
+        }
+
+        /**
+         * Accessor for the number of executed lines.
+         *
+         * @return The covered line count.
+         */
+        public int getCoveredLines() {
+            return coveredLines;
+        }
+
+        /**
+         * Accessor for the number of lines that were not executed.
+         *
+         * @return The missed line count.
+         */
+        public int getMissedLines() {
+            return missedLines;
+        }
+
+        /**
+         * Accessor for the number of executed branches.
+         *
+         * @return The covered branch count.
+         */
+        public int getCoveredBranches() {
+            return coveredBranches;
+        }
+
+        /**
+         * Accessor for the number of branches that were not executed.
+         *
+         * @return The missed branch count.
+         */
+        public int getMissedBranches() {
+            return missedBranches;
+        }
+
+        @Override
+        public String toString() {
+            return coveredLines + ";" + missedLines + ";" + coveredBranches + ";" + missedBranches;
+        }
+    }
+}
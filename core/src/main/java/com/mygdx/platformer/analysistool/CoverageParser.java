@@ -1,97 +1,153 @@
 package com.mygdx.platformer.analysistool;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.File;
-import java.io.FileWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Utility class used for extracting coverage from a Jacoco report, and export
  * it to a csv file. Only generated attack classes are included in the
  * export. Line and branch coverage is included.
+ * <p>
+ * The report is read in a single pass with a StAX stream reader and the rows
+ * are streamed to the csv file as each class ends, so memory use does not
+ * grow with the size of the report.
+ * </p>
  * @author Daniel Jönsson
  * @author Robert Kullman
  */
 public class CoverageParser {
 
+    private static final String XML_PATH = "core/build/reports/jacoco/test/jacocoTestReport.xml";
+    private static final String OUTPUT_CSV_PATH = "core/build/reports/jacoco/coverage_report.csv";
+
     /**
      * Extracts coverage data from jacoco XML and writes it to a csv file.
      */
     public static void extractCoverageToCSV() {
-        String xmlPath = "core/build/reports/jacoco/test/jacocoTestReport.xml";
-        String outputCsvPath = "core/build/reports/jacoco/coverage_report.csv";
-
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            // set to false to avoid trying to upload the dtd file (will result in a file not found exception)
-            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            factory.setValidating(false);
-
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new File(xmlPath));
-            doc.getDocumentElement().normalize();
-
-            FileWriter csvWriter = new FileWriter(outputCsvPath);
-            csvWriter.append("Class;LineCoverage;BranchCoverage\n");
-
-            NodeList packageNodes = doc.getElementsByTagName("package");
-            for (int i = 0; i < packageNodes.getLength(); i++) {
-                Element packageElement = (Element) packageNodes.item(i);
-                String packageName = packageElement.getAttribute("name");
-
-                if (!packageName.startsWith("generated/")) continue;
-
-                NodeList classNodes = packageElement.getElementsByTagName("class");
-                for (int j = 0; j < classNodes.getLength(); j++) {
-                    Element classElement = (Element) classNodes.item(j);
-                    String className = classElement.getAttribute("name");
-
-                    int coveredLines = 0, missedLines = 0;
-                    int coveredBranches = 0, missedBranches = 0;
+            extractCoverageToCSV(Path.of(XML_PATH), Path.of(OUTPUT_CSV_PATH));
+            System.out.println("Coverage report written to: " + OUTPUT_CSV_PATH);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-                    NodeList counterNodes = classElement.getElementsByTagName("counter");
-                    for (int k = 0; k < counterNodes.getLength(); k++) {
-                        Element counter = (Element) counterNodes.item(k);
-                        String type = counter.getAttribute("type");
+    /**
+     * Extracts coverage data from a jacoco XML report and writes it to a csv
+     * file.
+     * @param xmlPath The jacoco XML report.
+     * @param outputCsvPath The csv file to write.
+     * @return The number of classes written.
+     * @throws IOException If the report cannot be read or the csv file cannot
+     * be written.
+     * @throws XMLStreamException If the report is not well-formed.
+     */
+    public static int extractCoverageToCSV(Path xmlPath, Path outputCsvPath) throws IOException, XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // do not try to load the report dtd (will result in a file not found exception)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (InputStream in = Files.newInputStream(xmlPath);
+             BufferedWriter csvWriter = Files.newBufferedWriter(outputCsvPath, StandardCharsets.UTF_8)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                return writeRows(reader, csvWriter);
+            } finally {
+                reader.close();
+            }
+        }
+    }
 
-                        if (type.equals("LINE")) {
-                            coveredLines = Integer.parseInt(counter.getAttribute("covered"));
-                            missedLines = Integer.parseInt(counter.getAttribute("missed"));
-                        } else if (type.equals("BRANCH")) {
-                            coveredBranches = Integer.parseInt(counter.getAttribute("covered"));
-                            missedBranches = Integer.parseInt(counter.getAttribute("missed"));
-                        }
+    /**
+     * Streams the rows of all generated classes in a report.
+     * <p>
+     * Counters are reported for methods as well as for the class itself; only
+     * the counters that are direct children of a class element are used.
+     * </p>
+     */
+    private static int writeRows(XMLStreamReader reader, Writer csvWriter) throws IOException, XMLStreamException {
+        csvWriter.write("Class;LineCoverage;BranchCoverage\n");
+        StringBuilder row = new StringBuilder(128);
+
+        int depth = 0;
+        int classDepth = -1;
+        boolean inGeneratedPackage = false;
+        String className = null;
+        int coveredLines = 0, missedLines = 0;
+        int coveredBranches = 0, missedBranches = 0;
+        int rows = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String element = reader.getLocalName();
+                if (element.equals("package")) {
+                    inGeneratedPackage = reader.getAttributeValue(null, "name").startsWith("generated/");
+                } else if (inGeneratedPackage && className == null && element.equals("class")) {
+                    className = reader.getAttributeValue(null, "name");
+                    classDepth = depth;
+                    coveredLines = missedLines = coveredBranches = missedBranches = 0;
+                } else if (className != null && depth == classDepth + 1 && element.equals("counter")) {
+                    String type = reader.getAttributeValue(null, "type");
+                    if (type.equals("LINE")) {
+                        coveredLines = Integer.parseInt(reader.getAttributeValue(null, "covered"));
+                        missedLines = Integer.parseInt(reader.getAttributeValue(null, "missed"));
+                    } else if (type.equals("BRANCH")) {
+                        coveredBranches = Integer.parseInt(reader.getAttributeValue(null, "covered"));
+                        missedBranches = Integer.parseInt(reader.getAttributeValue(null, "missed"));
                     }
-
-                    double lineCoverage = percentage(coveredLines, missedLines);
-                    double branchCoverage = percentage(coveredBranches, missedBranches);
-
-                    csvWriter.append(String.format("%s;%.2f;%.2f\n",
-                        className, lineCoverage, branchCoverage));
                 }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == classDepth) {
+                    row.setLength(0);
+                    row.append(className).append(';');
+                    appendPercentage(row, coveredLines, missedLines);
+                    row.append(';');
+                    appendPercentage(row, coveredBranches, missedBranches);
+                    row.append('\n');
+                    csvWriter.append(row);
+                    className = null;
+                    classDepth = -1;
+                    rows++;
+                } else if (reader.getLocalName().equals("package")) {
+                    inGeneratedPackage = false;
+                }
+                depth--;
             }
-
-            csvWriter.flush();
-            csvWriter.close();
-            System.out.println("Coverage report written to: " + outputCsvPath);
-
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+        return rows;
     }
 
     /**
-     * Helper method for calculating coverage percentage.
+     * Helper method for appending a coverage percentage with two decimals.
+     * <p>
+     * Rounds half up in integer arithmetic, which gives the same result as
+     * {@code String.format("%.2f", percentage)} without creating a formatter
+     * per row.
+     * </p>
+     * @param row The row to append to.
      * @param covered the number of covered lines.
      * @param missed The number of missed lines.
-     * @return Coverage percentage.
      */
-    private static double percentage(int covered, int missed) {
-        int total = covered + missed;
-        return total == 0 ? 0 : (100.0 * covered) / total;
+    static void appendPercentage(StringBuilder row, int covered, int missed) {
+        long total = (long) covered + missed;
+        long hundredths = total == 0 ? 0 : (20000L * covered + total) / (2 * total);
+        long fraction = hundredths % 100;
+        row.append(hundredths / 100).append('.');
+        if (fraction < 10) {
+            row.append('0');
+        }
+        row.append(fraction);
     }
 }
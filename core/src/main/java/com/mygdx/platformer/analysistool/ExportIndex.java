@@ -0,0 +1,239 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hash index of the files written by the last export, used to re-export
+ * incrementally.
+ * <p>
+ * For every file the index records a hash that identifies its content given
+ * its path. An incremental export consults the index before writing a file
+ * and skips files whose hash is unchanged, so unchanged sources keep their
+ * timestamps and downstream builds do not see them as modified. Files of the
+ * previous export that were not produced again are removed when the export
+ * is finished. An export that fails keeps them, see
+ * {@link #savePartial()}.
+ * </p>
+ * <p>
+ * The index only knows files it has written itself. Files left over from an
+ * export without an index are overwritten when they are produced again, but
+ * never removed.
+ * </p>
+ *
+ * <h2>Output Structure</h2>
+ * <ul>
+ * <li>out/generated/.export-index</li>
+ * </ul>
+ *
+ * @see AttackExporter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class ExportIndex {
+
+    /** Name of the index file within the export root. */
+    public static final String FILE = ".export-index";
+
+    private static final String HEADER = "Path;Hash";
+
+    private final Path root;
+    private final Map<String, String> previous;
+    private final Map<String, String> current = new ConcurrentHashMap<>();
+    private final AtomicInteger added = new AtomicInteger();
+    private final AtomicInteger changed = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private int removed;
+
+    private ExportIndex(Path root, Map<String, String> previous) {
+        this.root = root;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the index of an export directory. A missing index is treated as
+     * an empty one.
+     *
+     * @param exportDirectory The root directory of the export.
+     * @return The index of the last export.
+     * @throws IOException If the index exists but cannot be read.
+     */
+    public static ExportIndex load(Path exportDirectory) throws IOException {
+        Map<String, String> previous = new HashMap<>();
+        Path file = exportDirectory.resolve(FILE);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (!HEADER.equals(line)) {
+                    throw new IOException("Not an export index: " + file);
+                }
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.lastIndexOf(';');
+                    if (separator > 0) {
+                        previous.put(line.substring(0, separator), line.substring(separator + 1));
+                    }
+                }
+            }
+        }
+        return new ExportIndex(exportDirectory, previous);
+    }
+
+    /**
+     * Records a file of the current export and decides whether it has to be
+     * written.
+     * <p>
+     * Safe to call concurrently. Only the first call for a path within an
+     * export is counted; later calls return {@code false}.
+     * </p>
+     *
+     * @param file The file, inside the export directory.
+     * @param hash The hash identifying the content of the file.
+     * @return {@code true} if the file is new, changed or missing on disk.
+     */
+    public boolean update(Path file, String hash) {
+        String path = relative(file);
+        if (current.putIfAbsent(path, hash) != null) {
+            return false;
+        }
+        String old = previous.get(path);
+        if (old == null) {
+            added.incrementAndGet();
+            return true;
+        }
+        if (!old.equals(hash) || !Files.exists(file)) {
+            changed.incrementAndGet();
+            return true;
+        }
+        unchanged.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Removes every file of the previous export that was not part of the
+     * current one, together with directories left empty.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    public void removeStale() throws IOException {
+        for (String path : previous.keySet()) {
+            if (current.containsKey(path)) {
+                continue;
+            }
+            Path file = root.resolve(path);
+            if (Files.deleteIfExists(file)) {
+                removed++;
+            }
+            for (Path dir = file.getParent(); dir != null && !dir.equals(root); dir = dir.getParent()) {
+                try {
+                    Files.delete(dir);
+                } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the index of the current export, replacing the previous one.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    public void save() throws IOException {
+        write(new TreeMap<>(current));
+    }
+
+    /**
+     * Writes the index after an export that did not finish, without removing
+     * anything. The files the export reached replace their previous entries
+     * and every other file of the previous export keeps its entry, so the
+     * index matches the disk and the files the export never reached are
+     * still known when the next export removes stale files.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    public void savePartial() throws IOException {
+        Map<String, String> entries = new TreeMap<>(previous);
+        entries.putAll(current);
+        write(entries);
+    }
+
+    private void write(Map<String, String> entries) throws IOException {
+        Files.createDirectories(root);
+        try (BufferedWriter writer = Files.newBufferedWriter(root.resolve(FILE), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + ";" + entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Removes the index of an export, so that its next export writes every
+     * file again.
+     *
+     * @param exportDirectory The root directory of the export.
+     * @throws IOException If the index cannot be deleted.
+     */
+    public static void invalidate(Path exportDirectory) throws IOException {
+        Files.deleteIfExists(exportDirectory.resolve(FILE));
+    }
+
+    /**
+     * Accessor for the number of files written because they were new.
+     *
+     * @return The number of added files.
+     */
+    public int getAddedCount() {
+        return added.get();
+    }
+
+    /**
+     * Accessor for the number of files rewritten because they changed.
+     *
+     * @return The number of changed files.
+     */
+    public int getChangedCount() {
+        return changed.get();
+    }
+
+    /**
+     * Accessor for the number of files skipped because they were unchanged.
+     *
+     * @return The number of unchanged files.
+     */
+    public int getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    /**
+     * Accessor for the number of stale files removed by
+     * {@link #removeStale()}.
+     *
+     * @return The number of removed files.
+     */
+    public int getRemovedCount() {
+        return removed;
+    }
+
+    private String relative(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    @Override
+    public String toString() {
+        return added + " added, " + changed + " changed, " + unchanged + " unchanged, " + removed + " removed";
+    }
+}
@@ -0,0 +1,121 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Manifest of an export, mapping every exported attack to the hash of its
+ * normalized class body in the {@link ContentStore}.
+ * <p>
+ * The exporter writes one manifest file per exported chunk of a generation,
+ * so that chunks exported concurrently never share a file and every manifest
+ * file is reproducible for a given seed and chunk size.
+ * </p>
+ *
+ * <h2>Output Structure</h2>
+ * <ul>
+ * <li>out/generated/manifest/{method}_gen{generation}_{firstCompound}.csv</li>
+ * </ul>
+ * Each file has the header {@code Method;Generation;Compound;Attack;Hash}.
+ *
+ * @see AttackExporter
+ * @see ContentStore
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class ExportManifest {
+
+    /** Name of the manifest directory within the export root. */
+    public static final String DIRECTORY = "manifest";
+
+    /** Header line of every manifest file. */
+    public static final String HEADER = "Method;Generation;Compound;Attack;Hash";
+
+    private ExportManifest() {
+    }
+
+    /**
+     * Returns the manifest file of a chunk of a generation.
+     *
+     * @param exportDirectory The root directory of the export.
+     * @param generation      The generation number.
+     * @param method          The generation method (e.g., "PCG" or "RCG").
+     * @param firstCompound   The compound ID of the first compound in the chunk.
+     * @return The path of the manifest file.
+     */
+    public static Path fileOf(Path exportDirectory, int generation, String method, int firstCompound) {
+        return exportDirectory.resolve(DIRECTORY)
+            .resolve(method.toLowerCase() + "_gen" + generation + "_" + firstCompound + ".csv");
+    }
+
+    /**
+     * Checks whether an export has a manifest.
+     *
+     * @param exportDirectory The root directory of the export.
+     * @return {@code true} if the manifest directory exists.
+     */
+    public static boolean exists(Path exportDirectory) {
+        return Files.isDirectory(exportDirectory.resolve(DIRECTORY));
+    }
+
+    /**
+     * Reads every manifest file of an export.
+     *
+     * @param exportDirectory The root directory of the export.
+     * @return The hash of every exported attack, ordered by key.
+     * @throws IOException If a manifest file cannot be read or is malformed.
+     */
+    public static SortedMap<AttackKey, String> read(Path exportDirectory) throws IOException {
+        SortedMap<AttackKey, String> entries = new TreeMap<>();
+        if (!exists(exportDirectory)) {
+            return entries;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(exportDirectory.resolve(DIRECTORY))) {
+            files = stream.filter(p -> p.toString().endsWith(".csv")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (!HEADER.equals(line)) {
+                    throw new IOException("Not a manifest file: " + file);
+                }
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    String[] values = line.split(";");
+                    if (values.length != 5) {
+                        throw new IOException("Malformed manifest line in " + file + ": " + line);
+                    }
+                    try {
+                        entries.put(new AttackKey(values[0], Integer.parseInt(values[1]),
+                            Integer.parseInt(values[2]), Integer.parseInt(values[3])), values[4]);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Malformed manifest line in " + file + ": " + line, e);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Appends a manifest line to a builder.
+     *
+     * @param manifest The manifest content of a generation.
+     * @param key      The key of the attack.
+     * @param hash     The hash of its normalized body.
+     */
+    static void appendLine(StringBuilder manifest, AttackKey key, String hash) {
+        manifest.append(key).append(';').append(hash).append('\n');
+    }
+}
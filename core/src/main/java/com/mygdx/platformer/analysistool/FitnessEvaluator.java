@@ -0,0 +1,131 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Scores attack templates by simulating them in a headless Box2D world.
+ * <p>
+ * Every template is cast once from the origin and its trajectory recorded
+ * with a {@link TrajectorySimulator}. The fitness rewards attacks that are
+ * hard to avoid:
+ * </p>
+ * <pre>
+ * fitness = damage * (frames on screen / frames simulated) * (1 + vertical spread)
+ * </pre>
+ * <p>
+ * Trajectories are cached by the parameters that shape them, so templates
+ * that only differ in damage are simulated once. Every thread simulates on
+ * its own world, so templates can be scored in parallel.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (FitnessEvaluator evaluator = new FitnessEvaluator(FitnessEvaluator.DEFAULT_STEPS)) {
+ *     float fitness = evaluator.evaluate(template);
+ * }
+ * </pre>
+ *
+ * @see GenerationEngine.Selection
+ * @see TrajectorySimulator
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class FitnessEvaluator implements AutoCloseable {
+
+    /** The default number of frames simulated per template, three seconds. */
+    public static final int DEFAULT_STEPS = TrajectorySimulator.DEFAULT_STEPS;
+
+    /** Stands in for the trajectory of a template the physics engine rejects. */
+    private static final TrajectorySimulator.Metrics REJECTED = new TrajectorySimulator.Metrics(0, 0f, 0f, 0f, 1f, 1f,
+        new float[TrajectorySimulator.DESCRIPTOR_LENGTH]);
+
+    private final int steps;
+    private final Map<String, TrajectorySimulator.Metrics> cache = new ConcurrentHashMap<>();
+    private final Queue<TrajectorySimulator> simulators = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<TrajectorySimulator> simulator;
+
+    /**
+     * Creates an evaluator.
+     *
+     * @param steps The number of frames simulated per template.
+     */
+    public FitnessEvaluator(int steps) {
+        this.steps = steps;
+        this.simulator = ThreadLocal.withInitial(() -> {
+            TrajectorySimulator created = new TrajectorySimulator(steps);
+            simulators.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Returns the fitness of a template, simulating it if no template with
+     * the same trajectory parameters has been simulated before.
+     *
+     * @param template The attack template.
+     * @return The fitness, zero or more.
+     */
+    public float evaluate(NecromancerAttackTemplate template) {
+        String key = TrajectorySimulator.keyOf(template);
+        TrajectorySimulator.Metrics metrics = cache.get(key);
+        if (metrics == null) {
+            metrics = simulate(template);
+            cache.put(key, metrics);
+        }
+        if (metrics.getFrames() == 0) {
+            return 0f;
+        }
+        return template.getDamage() * ((float) metrics.getFrames() / steps) * (1f + metrics.getVerticalSpread());
+    }
+
+    /**
+     * Scores a list of templates in parallel.
+     *
+     * @param templates The attack templates.
+     * @param pool      The pool to evaluate on.
+     * @return The fitness of every template, in list order.
+     */
+    public float[] evaluateAll(List<NecromancerAttackTemplate> templates, ForkJoinPool pool) {
+        float[] fitness = new float[templates.size()];
+        pool.submit(() -> IntStream.range(0, templates.size()).parallel()
+            .forEach(i -> fitness[i] = evaluate(templates.get(i)))).join();
+        return fitness;
+    }
+
+    /**
+     * Accessor for the number of distinct trajectories simulated so far.
+     *
+     * @return The cache size.
+     */
+    public int getEvaluatedCount() {
+        return cache.size();
+    }
+
+    private TrajectorySimulator.Metrics simulate(NecromancerAttackTemplate template) {
+        try {
+            return simulator.get().simulate(template);
+        } catch (IllegalStateException e) {
+            return REJECTED;
+        }
+    }
+
+    /**
+     * Disposes the worlds of every thread that evaluated templates.
+     */
+    @Override
+    public void close() {
+        TrajectorySimulator created;
+        while ((created = simulators.poll()) != null) {
+            created.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mygdx.platformer.analysistool;
+
+import java.util.Map;
+
+/**
+ * Class loader that defines generated attack classes from bytecode held in
+ * memory.
+ * <p>
+ * Every compilation gets its own loader, so the classes of one generation are
+ * isolated from those of any other and can be garbage collected together
+ * with the loader once they are no longer needed. Classes that are not part
+ * of the generated set (e.g., {@link com.mygdx.platformer.attacks.BaseAttack}
+ * or libGDX types) are delegated to the parent loader.
+ * </p>
+ *
+ * @see InMemoryCompiler
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class GeneratedClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Map<String, byte[]> classBytes;
+
+    /**
+     * Creates a loader for the given compiled classes.
+     *
+     * @param classBytes Bytecode indexed by binary class name.
+     * @param parent     The loader used for all other classes.
+     */
+    public GeneratedClassLoader(Map<String, byte[]> classBytes, ClassLoader parent) {
+        super(parent);
+        this.classBytes = classBytes;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classBytes.get(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
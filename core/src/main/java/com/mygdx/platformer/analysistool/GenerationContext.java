@@ -0,0 +1,287 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+/**
+ * What a {@link GenerationStrategy} sees of the run it takes part in.
+ * <p>
+ * Every strategy of a run has a context of its own. The contexts share the
+ * engine's work-stealing pool, the generation 0 population and the sink, so
+ * strategies that run concurrently compete for the same worker threads
+ * rather than each bringing their own.
+ * </p>
+ * <p>
+ * In a run with a {@link RunCheckpoint}, every emitted generation is recorded
+ * in the checkpoint once the sink has consumed it, and the generations a
+ * resumed run already completed are not emitted again. A strategy can skip
+ * them altogether by starting after {@link #getCompletedGenerations()}.
+ * </p>
+ *
+ * @see GenerationEngine
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class GenerationContext {
+
+    private final GenerationEngine engine;
+    private final String method;
+    private final AttackPopulation origin;
+    private final GenerationSink sink;
+    private final LineageWriter lineage;
+    private final RunCheckpoint checkpoint;
+    private final Deque<CompletableFuture<Void>> inFlight = new ArrayDeque<>();
+    /** Emitted generations that are not recorded in the checkpoint yet, oldest first. */
+    private final Deque<PendingGeneration> unrecorded = new ArrayDeque<>();
+
+    GenerationContext(GenerationEngine engine, String method, AttackPopulation origin, GenerationSink sink,
+                      LineageWriter lineage) {
+        this(engine, method, origin, sink, lineage, null);
+    }
+
+    GenerationContext(GenerationEngine engine, String method, AttackPopulation origin, GenerationSink sink,
+                      LineageWriter lineage, RunCheckpoint checkpoint) {
+        this.engine = engine;
+        this.method = method;
+        this.origin = origin;
+        this.sink = sink;
+        this.lineage = lineage;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Accessor for the method the generations are exported as.
+     *
+     * @return The name of the strategy.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Accessor for the number of compounds per generation.
+     *
+     * @return The compound count.
+     */
+    public int getCompoundCount() {
+        return engine.getCompoundCount();
+    }
+
+    /**
+     * Accessor for the number of attacks per compound.
+     *
+     * @return The attacks per compound.
+     */
+    public int getAttacksPerCompound() {
+        return engine.getAttacksPerCompound();
+    }
+
+    /**
+     * Accessor for the selection mode of the run.
+     *
+     * @return How recombining strategies pick parents.
+     */
+    public GenerationEngine.Selection getSelection() {
+        return engine.getSelection();
+    }
+
+    /**
+     * Accessor for the shared PCG generation 0.
+     *
+     * @return The generation 0 population. It must not be modified.
+     */
+    public AttackPopulation getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Accessor for the lineage writer of the run.
+     *
+     * @return The writer, or {@code null} if this strategy's lineage is not
+     *         recorded. Only the RCG chain is recorded.
+     */
+    public LineageWriter getLineage() {
+        return lineage;
+    }
+
+    /**
+     * Accessor for how far a previous run of this strategy got.
+     *
+     * @return The last generation up to which every generation was
+     *         completed by the interrupted run this run resumes, or 0 for a
+     *         new run.
+     */
+    public int getCompletedGenerations() {
+        return checkpoint == null ? 0 : checkpoint.getResumeGeneration(method);
+    }
+
+    /**
+     * Accessor for the generation a resumed strategy continues from.
+     *
+     * @return The population of generation {@link #getCompletedGenerations()},
+     *         which is the shared generation 0 for a new run. It must not be
+     *         modified.
+     * @throws IOException If the population cannot be read from the
+     *                     checkpoint.
+     */
+    public AttackPopulation getResumePopulation() throws IOException {
+        int completed = getCompletedGenerations();
+        return completed == 0 ? origin : checkpoint.restore(method, completed);
+    }
+
+    /**
+     * Derives the random stream of a compound of this strategy.
+     *
+     * @param generation The generation number.
+     * @param compoundId The compound index.
+     * @return A new random stream, determined by the run seed and the
+     *         arguments.
+     */
+    public SplittableRandom streamFor(int generation, int compoundId) {
+        return engine.streamFor(method, generation, compoundId);
+    }
+
+    /**
+     * Runs an action for every compound index on the shared pool and waits
+     * for all of them.
+     *
+     * @param action The action, called concurrently.
+     */
+    public void forEachCompound(IntConsumer action) {
+        engine.forEachCompound(action);
+    }
+
+    /**
+     * Scores every attack of generation 0 with the {@link FitnessEvaluator}.
+     * The scores are computed once per run and shared by all strategies.
+     *
+     * @return The fitness of every generation 0 attack, by flat attack index.
+     *         It must not be modified.
+     */
+    public float[] getOriginFitness() {
+        return engine.evaluateOrigins(origin, checkpoint);
+    }
+
+    /**
+     * Streams a finished generation to the sink in chunks.
+     * <p>
+     * The call returns as soon as the last chunk is queued, so the strategy
+     * can create its next generation while the sink consumes this one. The
+     * population must not be modified afterwards. A generation the resumed
+     * run already completed is skipped.
+     * </p>
+     *
+     * @param population The generation.
+     * @param generation The generation number.
+     * @throws UncheckedIOException If an earlier generation cannot be
+     *                              recorded in the checkpoint.
+     */
+    public void emit(AttackPopulation population, int generation) {
+        if (checkpoint == null) {
+            emit(population, generation, sink);
+            return;
+        }
+        if (checkpoint.isComplete(method, generation)) {
+            return;
+        }
+        record(false);
+        List<CompletableFuture<Void>> chunks = emit(population, generation, sink);
+        unrecorded.add(new PendingGeneration(generation, population,
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture<?>[]::new))));
+    }
+
+    private List<CompletableFuture<Void>> emit(AttackPopulation population, int generation, GenerationSink target) {
+        int chunkSize = engine.getChunkSize();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < population.getCompoundCount(); from += chunkSize) {
+            int to = Math.min(population.getCompoundCount(), from + chunkSize);
+            chunks.add(engine.emit(inFlight, engine.generateCompounds(from, to, population::toCompound), from,
+                generation, method, target));
+        }
+        return chunks;
+    }
+
+    /**
+     * Hands the completed generations of a resumed run in a range to the
+     * replay sink of the checkpoint, if it has one.
+     *
+     * @param first The first generation, inclusive.
+     * @param last  The last generation, inclusive.
+     * @throws IOException If a population cannot be read from the checkpoint.
+     */
+    void replayCompleted(int first, int last) throws IOException {
+        GenerationSink replay = checkpoint != null ? checkpoint.getReplay() : null;
+        if (replay == null) {
+            return;
+        }
+        SortedSet<Integer> completed = checkpoint.getCompletedGenerations().get(method);
+        if (completed == null) {
+            return;
+        }
+        for (int generation : completed.subSet(first, last + 1)) {
+            emit(checkpoint.restore(method, generation), generation, replay);
+        }
+    }
+
+    /**
+     * Records the emitted generations the sink has consumed in the
+     * checkpoint, in generation order, up to the first generation the sink
+     * failed on.
+     *
+     * @param wait Whether to wait for the sink to consume every emitted
+     *             generation.
+     */
+    private void record(boolean wait) {
+        try {
+            while (!unrecorded.isEmpty() && (wait || unrecorded.peek().consumed.isDone())) {
+                PendingGeneration next = unrecorded.peek();
+                if (next.consumed.isCompletedExceptionally()) {
+                    return;
+                }
+                next.consumed.join();
+                checkpoint.complete(method, next.generation, next.population);
+                unrecorded.poll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Waits until the sink has consumed every emitted chunk, and records the
+     * emitted generations in the checkpoint. If the sink failed, the
+     * generations before the failure are still recorded.
+     *
+     * @throws UncheckedIOException If a generation cannot be recorded.
+     */
+    void drain() {
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture<?>[]::new)).join();
+        } finally {
+            record(true);
+        }
+    }
+
+    /**
+     * A generation whose chunks were handed to the sink.
+     */
+    private static final class PendingGeneration {
+        final int generation;
+        final AttackPopulation population;
+        final CompletableFuture<Void> consumed;
+
+        PendingGeneration(int generation, AttackPopulation population, CompletableFuture<Void> consumed) {
+            this.generation = generation;
+            this.population = population;
+            this.consumed = consumed;
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.AttackGenome;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel, seed-reproducible runner of attack {@link GenerationStrategy
+ * generation strategies}.
+ * <p>
+ * Every compound of every generation draws from its own
+ * {@link SplittableRandom}, derived from the run seed, the generation method,
+ * the generation number and the compound index. The output of a run is
+ * therefore fully determined by its seed, regardless of how many threads take
+ * part or in which order the work is scheduled.
+ * </p>
+ * <p>
+ * A run draws the shared PCG generation 0 and then runs every selected
+ * strategy on it concurrently, {@link PcgStrategy} and {@link RcgStrategy}
+ * by default. Each strategy is driven by a thread of its own, but all
+ * per-compound work is done on the engine's single work-stealing pool, so
+ * comparing several strategies takes about as long as the slowest of them
+ * when there are enough processors, rather than the sum of all of them.
+ * </p>
+ * <p>
+ * Generations are kept as an {@link AttackPopulation} of packed
+ * {@link AttackGenome}s, so recombination only copies ranges of a
+ * {@code long[]}. Templates are created from the genomes a chunk at a time,
+ * when the chunk is handed to the sink.
+ * </p>
+ * <p>
+ * A run streams every generation to a {@link GenerationSink} in chunks of
+ * compounds. Compounds within a chunk are generated in parallel on a
+ * work-stealing pool, and the next chunk is generated while the sink
+ * consumes the previous one. Only a bounded number of chunks is alive at a
+ * time, so heap use stays flat no matter how many compounds a generation
+ * has.
+ * </p>
+ * <p>
+ * A run can keep a {@link RunCheckpoint}, which records every generation
+ * once the sink has consumed it. Resuming an interrupted run with the same
+ * checkpoint skips the recorded generations, and gives the same output as a
+ * run that was never interrupted.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (GenerationEngine engine = new GenerationEngine(seed, 20, 5)) {
+ *     engine.run(10, exporter::export);
+ * }
+ * </pre>
+ *
+ * @see AttackGenerationExporter
+ * @see GenerationStrategy
+ * @see GenerationSink
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class GenerationEngine implements AutoCloseable {
+
+    /** Name of the procedural content generation method. */
+    public static final String PCG = "PCG";
+
+    /** Name of the reuse-based content generation method. */
+    public static final String RCG = "RCG";
+
+    /** The default number of compounds handed to the sink at a time. */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Chunks generated or being consumed at the same time. */
+    private static final int MAX_CHUNKS_IN_FLIGHT = 3;
+
+    /**
+     * How RCG picks the host and donor compounds of every new compound.
+     */
+    public enum Selection {
+        /**
+         * Every compound is its own host and donors are drawn uniformly at
+         * random.
+         */
+        UNIFORM,
+        /**
+         * Hosts and donors are the fittest of three compounds drawn uniformly
+         * at random.
+         */
+        TOURNAMENT,
+        /** Hosts and donors are drawn with a probability proportional to their fitness. */
+        ROULETTE
+    }
+
+    private final long seed;
+    private final int compoundCount;
+    private final int attacksPerCompound;
+    private final int chunkSize;
+    private final Selection selection;
+    private final ForkJoinPool pool;
+    private FitnessEvaluator evaluator;
+    private AttackPopulation evaluatedOrigin;
+    private float[] originFitness;
+
+    /**
+     * Creates an engine that uses all available processors.
+     *
+     * @param seed               The run seed all random streams are derived from.
+     * @param compoundCount      The number of compounds per generation.
+     * @param attacksPerCompound The number of attacks per compound.
+     */
+    public GenerationEngine(long seed, int compoundCount, int attacksPerCompound) {
+        this(seed, compoundCount, attacksPerCompound, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine with an explicit degree of parallelism.
+     *
+     * @param seed               The run seed all random streams are derived from.
+     * @param compoundCount      The number of compounds per generation.
+     * @param attacksPerCompound The number of attacks per compound.
+     * @param parallelism        The number of worker threads.
+     */
+    public GenerationEngine(long seed, int compoundCount, int attacksPerCompound, int parallelism) {
+        this(seed, compoundCount, attacksPerCompound, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an engine with an explicit degree of parallelism and chunk size.
+     *
+     * @param seed               The run seed all random streams are derived from.
+     * @param compoundCount      The number of compounds per generation.
+     * @param attacksPerCompound The number of attacks per compound.
+     * @param parallelism        The number of worker threads.
+     * @param chunkSize          The number of compounds handed to the sink at a
+     *                           time.
+     */
+    public GenerationEngine(long seed, int compoundCount, int attacksPerCompound, int parallelism, int chunkSize) {
+        this(seed, compoundCount, attacksPerCompound, parallelism, chunkSize, Selection.UNIFORM);
+    }
+
+    /**
+     * Creates an engine with an explicit degree of parallelism, chunk size
+     * and RCG selection mode.
+     *
+     * @param seed               The run seed all random streams are derived from.
+     * @param compoundCount      The number of compounds per generation.
+     * @param attacksPerCompound The number of attacks per compound.
+     * @param parallelism        The number of worker threads.
+     * @param chunkSize          The number of compounds handed to the sink at a
+     *                           time.
+     * @param selection          How RCG picks hosts and donors.
+     */
+    public GenerationEngine(long seed, int compoundCount, int attacksPerCompound, int parallelism, int chunkSize,
+                            Selection selection) {
+        if ((long) compoundCount * attacksPerCompound > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many attacks per generation: " + compoundCount + " x "
+                + attacksPerCompound);
+        }
+        this.seed = seed;
+        this.compoundCount = compoundCount;
+        this.attacksPerCompound = attacksPerCompound;
+        this.chunkSize = chunkSize;
+        this.selection = selection;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Creates an engine for an analysis run.
+     *
+     * @param config The configuration of the run.
+     */
+    public GenerationEngine(AnalysisConfig config) {
+        this(config.getSeed(), config.getCompoundCount(), config.getAttacksPerCompound(), config.getParallelism(),
+            config.getChunkSize(), config.getSelection());
+    }
+
+    /**
+     * Runs a full analysis generation sequence: the shared PCG generation 0,
+     * {@code generations} RCG generations recombined from it, and
+     * {@code generations} standalone PCG generations for comparison.
+     *
+     * @param generations The number of RCG and standalone PCG generations.
+     * @param sink        The consumer of every finished chunk.
+     * @see #run(int, Set, GenerationSink)
+     */
+    public void run(int generations, GenerationSink sink) {
+        run(generations, Set.of(PCG, RCG), sink);
+    }
+
+    /**
+     * Runs an analysis generation sequence: the shared PCG generation 0,
+     * followed by {@code generations} generations of each of the named
+     * strategies, run concurrently.
+     * <p>
+     * Generations are streamed to the sink in chunks of compounds, and each
+     * chunk is released once the sink has consumed it. At most
+     * {@value #MAX_CHUNKS_IN_FLIGHT} chunks per strategy exist at a time, so
+     * heap use does not depend on the compound count beyond the packed
+     * genomes, eight bytes per attack, of the generations being created.
+     * </p>
+     * <p>
+     * The method returns once every chunk has been passed to the sink. If the
+     * sink fails, the failure is rethrown.
+     * </p>
+     *
+     * @param generations The number of generations per strategy.
+     * @param methods     The names of the strategies to run after generation
+     *                    0, see {@link GenerationStrategy#available()}.
+     * @param sink        The consumer of every finished chunk.
+     * @throws IllegalArgumentException If a strategy is unknown.
+     */
+    public void run(int generations, Set<String> methods, GenerationSink sink) {
+        run(generations, methods, sink, null);
+    }
+
+    /**
+     * Runs an analysis generation sequence and records the parent pointers
+     * of every RCG generation.
+     *
+     * @param generations The number of generations per strategy.
+     * @param methods     The names of the strategies to run after generation 0.
+     * @param sink        The consumer of every finished chunk.
+     * @param lineage     The writer of the RCG lineage, or {@code null} to not
+     *                    record it.
+     * @throws IllegalArgumentException If a strategy is unknown.
+     * @throws UncheckedIOException     If the lineage cannot be written.
+     * @see #run(int, Set, GenerationSink)
+     */
+    public void run(int generations, Set<String> methods, GenerationSink sink, LineageWriter lineage) {
+        run(generations, methods, sink, lineage, null);
+    }
+
+    /**
+     * Runs or resumes an analysis generation sequence, recording every
+     * generation in a checkpoint.
+     *
+     * @param generations The number of generations per strategy.
+     * @param methods     The names of the strategies to run after generation 0.
+     * @param sink        The consumer of every finished chunk.
+     * @param lineage     The writer of the RCG lineage, or {@code null} to not
+     *                    record it. A resumed run must reopen it with
+     *                    {@link LineageWriter#resume(java.nio.file.Path, int, int, int)}.
+     * @param checkpoint  The checkpoint of the run, or {@code null} to not
+     *                    keep one.
+     * @throws IllegalArgumentException If a strategy is unknown.
+     * @throws UncheckedIOException     If the lineage or checkpoint cannot be
+     *                                  written.
+     * @see #run(int, List, GenerationSink, LineageWriter, RunCheckpoint)
+     */
+    public void run(int generations, Set<String> methods, GenerationSink sink, LineageWriter lineage,
+                    RunCheckpoint checkpoint) {
+        Map<String, GenerationStrategy> available = GenerationStrategy.available();
+        List<GenerationStrategy> strategies = new ArrayList<>();
+        for (String method : methods) {
+            GenerationStrategy strategy = available.get(method);
+            if (strategy == null) {
+                throw new IllegalArgumentException("Unknown generation method: " + method);
+            }
+            strategies.add(strategy);
+        }
+        run(generations, strategies, sink, lineage, checkpoint);
+    }
+
+    /**
+     * Runs the shared PCG generation 0 and then every strategy concurrently.
+     * <p>
+     * Each strategy is driven by a virtual thread of its own and does its
+     * per-compound work on the engine's pool, so strategies that wait for
+     * the sink leave the workers to the others. Every strategy draws from
+     * random streams derived from its own name, so its output does not depend
+     * on which other strategies run alongside it.
+     * </p>
+     *
+     * @param generations The number of generations per strategy.
+     * @param strategies  The strategies to run after generation 0, with
+     *                    distinct names.
+     * @param sink        The consumer of every finished chunk.
+     * @param lineage     The writer of the RCG lineage, or {@code null} to not
+     *                    record it.
+     * @throws IllegalArgumentException If two strategies have the same name.
+     * @throws UncheckedIOException     If the lineage cannot be written.
+     */
+    public void run(int generations, List<GenerationStrategy> strategies, GenerationSink sink,
+                    LineageWriter lineage) {
+        run(generations, strategies, sink, lineage, null);
+    }
+
+    /**
+     * Runs or resumes the shared PCG generation 0 and then every strategy
+     * concurrently, recording every generation in a checkpoint.
+     * <p>
+     * Generation 0 is emitted by a driver of its own, alongside the
+     * strategies. When resuming, the generations the checkpoint records are
+     * not emitted to the sink again; they are handed to the replay sink of
+     * the checkpoint instead, if it has one.
+     * </p>
+     *
+     * @param generations The number of generations per strategy.
+     * @param strategies  The strategies to run after generation 0, with
+     *                    distinct names.
+     * @param sink        The consumer of every finished chunk.
+     * @param lineage     The writer of the RCG lineage, or {@code null} to not
+     *                    record it.
+     * @param checkpoint  The checkpoint of the run, or {@code null} to not
+     *                    keep one.
+     * @throws IllegalArgumentException If two strategies have the same name.
+     * @throws UncheckedIOException     If the lineage or checkpoint cannot be
+     *                                  written.
+     * @see #run(int, List, GenerationSink, LineageWriter)
+     */
+    public void run(int generations, List<GenerationStrategy> strategies, GenerationSink sink,
+                    LineageWriter lineage, RunCheckpoint checkpoint) {
+        Set<String> names = new HashSet<>();
+        for (GenerationStrategy strategy : strategies) {
+            if (!names.add(strategy.getName())) {
+                throw new IllegalArgumentException("Duplicate generation method: " + strategy.getName());
+            }
+        }
+        AttackPopulation origin;
+        try {
+            origin = checkpoint != null && checkpoint.isComplete(PCG, 0) ? checkpoint.restore(PCG, 0) : populatePCG(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        try (ExecutorService drivers = Executors.newVirtualThreadPerTaskExecutor()) {
+            GenerationContext first = new GenerationContext(this, PCG, origin, sink, null, checkpoint);
+            runs.add(CompletableFuture.runAsync(() -> {
+                try {
+                    first.replayCompleted(0, 0);
+                    first.emit(origin, 0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    first.drain();
+                }
+            }, drivers));
+            for (GenerationStrategy strategy : strategies) {
+                GenerationContext context = new GenerationContext(this, strategy.getName(), origin, sink,
+                    strategy.getName().equals(RCG) ? lineage : null, checkpoint);
+                runs.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        context.replayCompleted(1, generations);
+                        strategy.generate(context, generations);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        context.drain();
+                    }
+                }, drivers));
+            }
+        }
+        for (CompletableFuture<Void> run : runs) {
+            try {
+                run.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Hands a chunk to the sink on the pool, after waiting for the oldest
+     * chunk if too many are in flight.
+     *
+     * @return Completes when the sink has consumed the chunk.
+     */
+    CompletableFuture<Void> emit(Deque<CompletableFuture<Void>> inFlight,
+                                 List<List<NecromancerAttackTemplate>> compounds, int firstCompound, int generation,
+                                 String method, GenerationSink sink) {
+        CompletableFuture<Void> consumed = CompletableFuture.runAsync(
+            () -> sink.accept(compounds, firstCompound, generation, method), pool);
+        inFlight.add(consumed);
+        while (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+            inFlight.poll().join();
+        }
+        return consumed;
+    }
+
+    /**
+     * Generates a list of attack compounds using Procedural Content Generation
+     * (PCG).
+     * <p>
+     * Each compound is a list of randomly created {@link NecromancerAttackTemplate}
+     * objects, representing a unique attack pattern. Compounds are generated
+     * in parallel.
+     * </p>
+     *
+     * @param generation The generation number, used to derive the random streams.
+     * @return A list of PCG-generated attack compounds.
+     */
+    public List<List<NecromancerAttackTemplate>> generatePCG(int generation) {
+        return generatePCG(generation, 0, compoundCount);
+    }
+
+    /**
+     * Generates a range of the compounds of a PCG generation.
+     *
+     * @param generation The generation number.
+     * @param from       The first compound, inclusive.
+     * @param to         The last compound, exclusive.
+     * @return The compounds of the range, in index order.
+     */
+    private List<List<NecromancerAttackTemplate>> generatePCG(int generation, int from, int to) {
+        return generateCompounds(from, to, compoundId -> generatePCGCompound(generation, compoundId));
+    }
+
+    /**
+     * Generates a PCG generation as packed genomes.
+     * <p>
+     * The genomes describe the same attacks as {@link #generatePCG(int)}
+     * creates, without creating a template.
+     * </p>
+     *
+     * @param generation The generation number, used to derive the random streams.
+     * @return The generation.
+     */
+    public AttackPopulation populatePCG(int generation) {
+        return PcgStrategy.populate(new GenerationContext(this, PCG, null, null, null), generation);
+    }
+
+    private List<NecromancerAttackTemplate> generatePCGCompound(int generation, int compoundId) {
+        SplittableRandom random = streamFor(PCG, generation, compoundId);
+        List<NecromancerAttackTemplate> attacks = new ArrayList<>(attacksPerCompound);
+        for (int j = 0; j < attacksPerCompound; j++) {
+            attacks.add(createRandomAttack(random));
+        }
+        return attacks;
+    }
+
+    /**
+     * Generates a new generation of attack compounds using Reuse-based
+     * Content Generation (RCG).
+     * <p>
+     * Each new compound is created by copying a host compound from the previous
+     * generation and replacing one of its attacks with a randomly selected
+     * attack from a donor compound.
+     * </p>
+     *
+     * @param previousGeneration The previous generation of attack compounds to
+     *                           recombine.
+     * @param generation         The number of the generation being created.
+     * @return A new list of RCG-generated attack compounds.
+     */
+    public List<List<NecromancerAttackTemplate>> generateRCG(
+            List<List<NecromancerAttackTemplate>> previousGeneration, int generation) {
+        return generateCompounds(0, compoundCount, compoundId -> {
+            SplittableRandom random = streamFor(RCG, generation, compoundId);
+
+            // select the host and make a copy of its attack list
+            List<NecromancerAttackTemplate> host = previousGeneration.get(compoundId);
+            List<NecromancerAttackTemplate> newCompound = new ArrayList<>(host);
+
+            // Choose which attack to replace with a new attack from the donor
+            int indexToReplace = random.nextInt(attacksPerCompound);
+
+            // select random donor and random attack from that donor
+            List<NecromancerAttackTemplate> donorCompound =
+                previousGeneration.get(random.nextInt(previousGeneration.size()));
+            NecromancerAttackTemplate donorAttack = donorCompound.get(random.nextInt(donorCompound.size()));
+
+            newCompound.set(indexToReplace, cloneAttack(donorAttack));
+            return newCompound;
+        });
+    }
+
+    /**
+     * Generates a new RCG generation from packed genomes, with uniform
+     * selection.
+     * <p>
+     * This draws exactly what {@link #generateRCG(List, int)} draws, so the
+     * result describes the same generation.
+     * </p>
+     *
+     * @param previous   The previous generation.
+     * @param generation The number of the generation being created.
+     * @return The new generation.
+     */
+    public AttackPopulation generateRCG(AttackPopulation previous, int generation) {
+        return RcgStrategy.recombine(new GenerationContext(this, RCG, previous, null, null), previous, null, null,
+            generation, null, null);
+    }
+
+    /**
+     * Scores every attack of generation 0 with the {@link FitnessEvaluator}.
+     * Every RCG attack is a copy of one of them, so these are the only
+     * templates that are ever simulated. The scores of the last evaluated
+     * generation 0 are kept, so strategies of the same run share them. A
+     * checkpoint stores them, so that a resumed run does not simulate
+     * generation 0 again.
+     *
+     * @param origin     The generation 0 population.
+     * @param checkpoint The checkpoint of the run, or {@code null}.
+     * @return The fitness of every generation 0 attack, by flat attack index.
+     * @throws UncheckedIOException If the checkpoint cannot be read or
+     *                              written.
+     */
+    synchronized float[] evaluateOrigins(AttackPopulation origin, RunCheckpoint checkpoint) {
+        if (origin == evaluatedOrigin) {
+            return originFitness;
+        }
+        if (checkpoint != null) {
+            try {
+                float[] restored = checkpoint.restoreOriginFitness();
+                if (restored == null) {
+                    checkpoint.saveOriginFitness(evaluateOrigins(origin, null));
+                } else {
+                    evaluatedOrigin = origin;
+                    originFitness = restored;
+                }
+                return originFitness;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (evaluator == null) {
+            evaluator = new FitnessEvaluator(FitnessEvaluator.DEFAULT_STEPS);
+        }
+        long start = System.nanoTime();
+        float[] fitness = new float[compoundCount * attacksPerCompound];
+        forEachCompound(compoundId -> {
+            List<NecromancerAttackTemplate> compound = origin.toCompound(compoundId);
+            for (int j = 0; j < attacksPerCompound; j++) {
+                fitness[compoundId * attacksPerCompound + j] = evaluator.evaluate(compound.get(j));
+            }
+        });
+        System.out.println("Evaluated the fitness of " + evaluator.getEvaluatedCount() + " attack templates in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+        evaluatedOrigin = origin;
+        originFitness = fitness;
+        return fitness;
+    }
+
+    /**
+     * Derives the random stream of a single compound.
+     * <p>
+     * The derivation only depends on its arguments and the run seed, so the
+     * same compound always receives the same stream.
+     * </p>
+     *
+     * @param method     The generation method.
+     * @param generation The generation number.
+     * @param compoundId The compound index.
+     * @return A new random stream for the compound.
+     */
+    SplittableRandom streamFor(String method, int generation, int compoundId) {
+        long state = mix(seed ^ method.hashCode());
+        state = mix(state + GOLDEN_GAMMA * (generation + 1L));
+        state = mix(state + GOLDEN_GAMMA * (compoundId + 1L));
+        return new SplittableRandom(state);
+    }
+
+    /**
+     * Builds a range of compounds by computing every compound on the pool.
+     *
+     * @param from            The first compound, inclusive.
+     * @param to              The last compound, exclusive.
+     * @param compoundFactory Creates the compound with the given index.
+     * @return The compounds, in index order.
+     */
+    List<List<NecromancerAttackTemplate>> generateCompounds(
+            int from, int to, IntFunction<List<NecromancerAttackTemplate>> compoundFactory) {
+        return pool.submit(() -> IntStream.range(from, to).parallel()
+            .mapToObj(compoundFactory).toList()).join();
+    }
+
+    /**
+     * Runs an action for every compound index on the pool and waits for all
+     * of them.
+     *
+     * @param action The action, called concurrently.
+     */
+    void forEachCompound(IntConsumer action) {
+        pool.submit(() -> IntStream.range(0, compoundCount).parallel().forEach(action)).join();
+    }
+
+    /**
+     * Accessor for the number of compounds per generation.
+     *
+     * @return The compound count.
+     */
+    public int getCompoundCount() {
+        return compoundCount;
+    }
+
+    /**
+     * Accessor for the number of attacks per compound.
+     *
+     * @return The attacks per compound.
+     */
+    public int getAttacksPerCompound() {
+        return attacksPerCompound;
+    }
+
+    /**
+     * Accessor for the number of compounds handed to the sink at a time.
+     *
+     * @return The chunk size.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Accessor for the RCG selection mode.
+     *
+     * @return How RCG picks hosts and donors.
+     */
+    public Selection getSelection() {
+        return selection;
+    }
+
+    /**
+     * Creates a single {@link NecromancerAttackTemplate} with randomized
+     * parameters.
+     * <p>
+     * The attack's damage, speed, movement pattern, and modifier are randomly
+     * selected.
+     * </p>
+     *
+     * @param random The random stream of the compound being generated.
+     * @return A randomly generated attack template.
+     */
+    static NecromancerAttackTemplate createRandomAttack(SplittableRandom random) {
+        return AttackGenome.toTemplate(randomGenome(random));
+    }
+
+    /**
+     * Draws the genome of a single attack with randomized parameters.
+     * <p>
+     * The damage, speed, movement pattern and modifier are drawn in this
+     * order, so a genome and the template of {@link #createRandomAttack}
+     * drawn from equal streams describe the same attack.
+     * </p>
+     *
+     * @param random The random stream of the compound being generated.
+     * @return A randomly generated genome.
+     */
+    static long randomGenome(SplittableRandom random) {
+        int damage = random.nextInt(10, 30);
+        float speed = random.nextFloat(1.0f, 5.0f);
+        int movement = switch (random.nextInt(4)) {
+            case 1 -> AttackGenome.MOVEMENT_ZIGZAG;
+            case 2 -> AttackGenome.MOVEMENT_ACCELERATE;
+            case 3 -> AttackGenome.MOVEMENT_MIXED;
+            default -> AttackGenome.MOVEMENT_STRAIGHT;
+        };
+        float pulseFrequency = random.nextInt(2) == 0 ? 2f : 0f;
+        return AttackGenome.of(45, speed, damage, 5, movement, pulseFrequency);
+    }
+
+    /**
+     * Creates a deep copy of a given {@link NecromancerAttackTemplate}.
+     *
+     * @param original The attack template to clone.
+     * @return A new {@link NecromancerAttackTemplate} with the same properties as
+     *         the original.
+     */
+    static NecromancerAttackTemplate cloneAttack(NecromancerAttackTemplate original) {
+        return new NecromancerAttackTemplate(
+            45,
+            original.getSpeed(),
+            original.getDamage(),
+            5,
+            original.getMovementPattern(), original.getModifier()
+        );
+    }
+
+    /**
+     * SplitMix64 finalizer, used to decorrelate derived seeds.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Shuts down the worker pool and releases the fitness simulations.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        if (evaluator != null) {
+            evaluator.close();
+        }
+    }
+}
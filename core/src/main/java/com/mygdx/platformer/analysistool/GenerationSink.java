@@ -0,0 +1,33 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+
+import java.util.List;
+
+/**
+ * Receives every generation produced by the {@link GenerationEngine}.
+ * <p>
+ * Generations are delivered in chunks of consecutive compounds, so a large
+ * generation never has to be held in memory at once. Implementations may be
+ * called concurrently from several worker threads, each call carrying a
+ * different chunk, and must therefore be thread safe.
+ * {@link AttackExporter#export(List, int, int, String)} is the canonical
+ * sink.
+ * </p>
+ *
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+@FunctionalInterface
+public interface GenerationSink {
+
+    /**
+     * Consumes a chunk of a finished generation of attack compounds.
+     *
+     * @param compounds     The compounds of the chunk.
+     * @param firstCompound The compound ID of the first compound in the chunk.
+     * @param generation    The generation number.
+     * @param method        The generation method (e.g., "PCG" or "RCG").
+     */
+    void accept(List<List<NecromancerAttackTemplate>> compounds, int firstCompound, int generation, String method);
+}
@@ -0,0 +1,90 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * A method of generating attack generations from the shared PCG generation 0.
+ * <p>
+ * The {@link GenerationEngine} runs every selected strategy concurrently.
+ * A strategy creates its generations through its {@link GenerationContext},
+ * which derives its random streams, runs per-compound work on the engine's
+ * shared work-stealing pool and streams each finished generation to the
+ * export and analysis sinks. {@link PcgStrategy} and {@link RcgStrategy} are
+ * the built-in strategies.
+ * </p>
+ * <p>
+ * Strategies are discovered with {@link ServiceLoader}. A new strategy, such
+ * as a crossover or mutation variant, is registered by listing its class in
+ * {@code META-INF/services/com.mygdx.platformer.analysistool.GenerationStrategy}
+ * and selected with {@code --methods}. Its name is used as the method of
+ * every attack it exports.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * List&lt;GenerationStrategy&gt; strategies = List.of(GenerationStrategy.forName("RCG"), new MyStrategy());
+ * engine.run(10, strategies, exporter::export, null);
+ * </pre>
+ *
+ * @see GenerationEngine
+ * @see GenerationContext
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public interface GenerationStrategy {
+
+    /**
+     * Accessor for the name of the strategy.
+     *
+     * @return The method name of the exported attacks, in upper case (e.g.,
+     *         "PCG" or "RCG").
+     */
+    String getName();
+
+    /**
+     * Creates generations 1 to {@code generations} and emits each of them
+     * with {@link GenerationContext#emit(AttackPopulation, int)}.
+     * <p>
+     * The method is called once per run, on a thread of its own, while other
+     * strategies run. Any state of the run is kept in local variables.
+     * </p>
+     *
+     * @param context     The context of the run.
+     * @param generations The number of generations to create.
+     * @throws IOException If the lineage of the run cannot be written.
+     */
+    void generate(GenerationContext context, int generations) throws IOException;
+
+    /**
+     * Loads every registered strategy.
+     *
+     * @return The strategies by name, in registration order.
+     */
+    static Map<String, GenerationStrategy> available() {
+        Map<String, GenerationStrategy> strategies = new LinkedHashMap<>();
+        for (GenerationStrategy strategy : ServiceLoader.load(GenerationStrategy.class)) {
+            strategies.putIfAbsent(strategy.getName(), strategy);
+        }
+        return Collections.unmodifiableMap(strategies);
+    }
+
+    /**
+     * Loads a registered strategy by name.
+     *
+     * @param name The name of the strategy.
+     * @return The strategy.
+     * @throws IllegalArgumentException If no strategy has this name.
+     */
+    static GenerationStrategy forName(String name) {
+        GenerationStrategy strategy = available().get(name);
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown generation method: " + name);
+        }
+        return strategy;
+    }
+}
@@ -0,0 +1,152 @@
+package com.mygdx.platformer.analysistool;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygdx.platformer.attacks.BaseAttack;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.utilities.AppConfig;
+
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * Runs generated attack classes and attack templates in a headless Box2D
+ * world, the way the game runs them.
+ * <p>
+ * The {@code execute} method of an attack class or template is called to
+ * create the attack, after which the world is stepped and the attack updated
+ * once per frame, until the attack leaves the screen or the step limit is
+ * reached.
+ * The attack is removed from the world afterwards, so every run starts from
+ * the same state.
+ * </p>
+ * <p>
+ * If no graphics backend is running, a stub that reports a fixed frame time
+ * is installed, so runs are reproducible. Textures are not loaded; attacks
+ * are created without a sprite image. A runner owns its world and must only
+ * be used by one thread at a time, but any number of runners can be used
+ * concurrently.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (HeadlessAttackRunner runner = new HeadlessAttackRunner()) {
+ *     int steps = runner.run(classes.loadClass("generated.rcg.gen1.compound_0.NecromancerAttack_0"), 120);
+ * }
+ * </pre>
+ *
+ * @see CoverageCollector
+ * @see TrajectorySimulator
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class HeadlessAttackRunner implements AutoCloseable {
+
+    private final World world;
+
+    /**
+     * Creates a runner with its own world.
+     */
+    public HeadlessAttackRunner() {
+        initialize();
+        this.world = new World(new Vector2(0, AppConfig.GRAVITY), true);
+    }
+
+    private static synchronized void initialize() {
+        Box2D.init();
+        if (Gdx.graphics == null) {
+            Gdx.graphics = new FixedStepGraphics();
+        }
+    }
+
+    /**
+     * Creates an attack with the {@code execute} method of a generated class
+     * and simulates it.
+     *
+     * @param attackClass A generated attack class.
+     * @param steps       The maximum number of frames to simulate after the
+     *                    attack is created, {@code 0} to only create it.
+     * @return The number of frames simulated.
+     * @throws ReflectiveOperationException If the class cannot be instantiated
+     *                                      or its {@code execute} method
+     *                                      throws.
+     * @throws IllegalStateException        If the attack leaves the valid
+     *                                      range of the physics engine.
+     */
+    public int run(Class<?> attackClass, int steps) throws ReflectiveOperationException {
+        Method execute = attackClass.getMethod("execute", World.class, Vector2.class, int.class, float.class);
+        Object result = execute.invoke(attackClass.getDeclaredConstructor().newInstance(), world,
+            new Vector2(0, 0), 1, 1.0f);
+        if (!(result instanceof BaseAttack)) {
+            return 0;
+        }
+        return simulate((BaseAttack) result, steps, null);
+    }
+
+    /**
+     * Creates an attack from a template and simulates it, as the game would
+     * when a necromancer casts it.
+     * <p>
+     * The template's movement pattern and modifier are updated by the
+     * simulation. Templates that share them must not be simulated
+     * concurrently.
+     * </p>
+     *
+     * @param template  The attack template.
+     * @param steps     The maximum number of frames to simulate.
+     * @param observer  Receives the attack once when it is created and after
+     *                  every frame, or {@code null}.
+     * @return The number of frames simulated.
+     * @throws IllegalStateException If the attack leaves the valid range of
+     *                               the physics engine.
+     */
+    public int run(NecromancerAttackTemplate template, int steps, Consumer<BaseAttack> observer) {
+        return simulate(template.execute(world, new Vector2(0, 0), 1, 1.0f), steps, observer);
+    }
+
+    private int simulate(BaseAttack attack, int steps, Consumer<BaseAttack> observer) {
+        try {
+            if (observer != null) {
+                observer.accept(attack);
+            }
+            int step = 0;
+            while (step < steps && !attack.shouldRemove()) {
+                world.step(AppConfig.TIME_STEP, AppConfig.VELOCITY_ITERATIONS, AppConfig.POSITION_ITERATIONS);
+                attack.update(0, AppConfig.SCREEN_WIDTH);
+                step++;
+                Vector2 position = attack.getBody().getPosition();
+                if (Float.isNaN(position.x) || Float.isNaN(position.y)) {
+                    throw new IllegalStateException("Attack has no valid position after " + step + " steps");
+                }
+                if (observer != null) {
+                    observer.accept(attack);
+                }
+            }
+            return step;
+        } finally {
+            world.destroyBody(attack.getBody());
+        }
+    }
+
+    /**
+     * Disposes the world.
+     */
+    @Override
+    public void close() {
+        world.dispose();
+    }
+
+    /**
+     * Graphics stub that reports the same frame time for every frame.
+     */
+    private static final class FixedStepGraphics extends MockGraphics {
+        @Override
+        public float getDeltaTime() {
+            return AppConfig.TIME_STEP;
+        }
+    }
+}
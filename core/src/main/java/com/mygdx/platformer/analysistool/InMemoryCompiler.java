@@ -0,0 +1,276 @@
+package com.mygdx.platformer.analysistool;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygdx.platformer.attacks.BaseAttack;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compiles generated attack sources in-process with the system
+ * {@link JavaCompiler}, without touching the file system.
+ * <p>
+ * Sources are handed to the compiler as in-memory file objects, and the
+ * resulting bytecode is captured by a forwarding {@link JavaFileManager}.
+ * The compiled classes are loaded through a fresh
+ * {@link GeneratedClassLoader}, isolated from every other compilation. This
+ * replaces copying the exported sources into {@code core/src/main/java} and
+ * rebuilding the whole module.
+ * </p>
+ * <p>
+ * Generated attack classes never reference each other, so large inputs are
+ * split into batches that are compiled concurrently.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * CompiledClasses classes = new InMemoryCompiler().compileDirectory(Path.of("out/generated"));
+ * Class&lt;?&gt; attack = classes.loadClass("generated.rcg.gen1.compound_0.NecromancerAttack_0");
+ * </pre>
+ *
+ * @see AttackExporter
+ * @see CompiledClasses
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class InMemoryCompiler {
+
+    private static final int MIN_BATCH_SIZE = 256;
+
+    private final JavaCompiler compiler;
+    private final String classPath;
+    private final ClassLoader parent;
+    private final int parallelism;
+
+    /**
+     * Creates a compiler that compiles against the current class path and
+     * uses all available processors.
+     */
+    public InMemoryCompiler() {
+        this(defaultClassPath(), InMemoryCompiler.class.getClassLoader(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a compiler with an explicit class path and parent loader.
+     *
+     * @param classPath   The class path the generated sources are compiled against.
+     * @param parent      The parent loader of the compiled classes.
+     * @param parallelism The maximum number of concurrent compiler tasks.
+     */
+    public InMemoryCompiler(String classPath, ClassLoader parent, int parallelism) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler available, run on a JDK rather than a JRE");
+        }
+        this.classPath = classPath;
+        this.parent = parent;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Compiles every {@code .java} file below an export directory.
+     * <p>
+     * Class names are derived from the file paths relative to the directory,
+     * prefixed with the {@code generated} package used by
+     * {@link AttackExporter}.
+     * </p>
+     *
+     * @param exportDirectory The export root (e.g., {@code out/generated}).
+     * @return The compiled classes.
+     */
+    public CompiledClasses compileDirectory(Path exportDirectory) {
+        Map<String, CharSequence> sources = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.walk(exportDirectory)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".java"))::iterator) {
+                String relative = exportDirectory.relativize(file).toString().replace('\\', '/');
+                String className = "generated." + relative.substring(0, relative.length() - ".java".length())
+                    .replace('/', '.');
+                sources.put(className, Files.readString(file, StandardCharsets.UTF_8));
+            }
+            ContentStore.readSources(exportDirectory).forEach(sources::putIfAbsent);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compile(sources);
+    }
+
+    /**
+     * Compiles a set of sources.
+     *
+     * @param sources Source code indexed by binary class name.
+     * @return The compiled classes.
+     */
+    public CompiledClasses compile(Map<String, ? extends CharSequence> sources) {
+        List<SourceFile> units = sources.entrySet().stream()
+            .map(e -> new SourceFile(e.getKey(), e.getValue()))
+            .collect(Collectors.toList());
+
+        int batchSize = Math.max(MIN_BATCH_SIZE, (units.size() + parallelism - 1) / parallelism);
+        int batches = (units.size() + batchSize - 1) / batchSize;
+
+        Map<String, byte[]> classBytes = new ConcurrentHashMap<>();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        Runnable compileAll = () -> IntStream.range(0, batches).parallel().forEach(b -> {
+            List<SourceFile> batch = units.subList(b * batchSize, Math.min(units.size(), (b + 1) * batchSize));
+            compileBatch(batch, classBytes, errors);
+        });
+        if (batches > 1) {
+            ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, batches));
+            try {
+                pool.submit(compileAll).join();
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            compileAll.run();
+        }
+        return new CompiledClasses(classBytes, errors, parent);
+    }
+
+    /**
+     * Builds the class path the generated sources are compiled against.
+     * <p>
+     * The system class path is not enough on its own when running under a
+     * launcher with its own class loader (e.g., a test runner), so the
+     * locations of the classes the generated code refers to are added
+     * explicitly.
+     * </p>
+     *
+     * @return The class path.
+     */
+    private static String defaultClassPath() {
+        Set<String> entries = new LinkedHashSet<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+        for (Class<?> type : new Class<?>[] {BaseAttack.class, Vector2.class, World.class}) {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                try {
+                    entries.add(Path.of(source.getLocation().toURI()).toString());
+                } catch (URISyntaxException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Runs a single compiler task over one batch of sources.
+     */
+    private void compileBatch(List<SourceFile> batch, Map<String, byte[]> classBytes, List<String> errors) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        List<String> options = List.of("-g", "-proc:none", "-implicit:none", "-nowarn", "-classpath", classPath);
+
+        try (MemoryFileManager fileManager = new MemoryFileManager(standard, classBytes)) {
+            compiler.getTask(null, fileManager, diagnostics, options, null, batch).call();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                String source = diagnostic.getSource() != null ? diagnostic.getSource().getName() : "";
+                errors.add(source + ":" + diagnostic.getLineNumber() + ": " + diagnostic.getMessage(null));
+            }
+        }
+    }
+
+    /**
+     * A compilation unit held in memory.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final CharSequence code;
+
+        SourceFile(String className, CharSequence code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /**
+     * A class file that is written to memory.
+     */
+    private static final class ClassFile extends SimpleJavaFileObject {
+        private final String className;
+        private final Map<String, byte[]> classBytes;
+
+        ClassFile(String className, Map<String, byte[]> classBytes) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.className = className;
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    classBytes.put(className, toByteArray());
+                }
+            };
+        }
+    }
+
+    /**
+     * File manager that redirects all class output into memory.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, byte[]> classBytes;
+
+        MemoryFileManager(StandardJavaFileManager fileManager, Map<String, byte[]> classBytes) {
+            super(fileManager);
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            return new ClassFile(className, classBytes);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.modifiers.AttackModifier;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.AccelerateMovement;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.MovementPatternBehavior;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.util.Map;
+
+/**
+ * The bytecode that movement patterns and modifiers contribute to the
+ * {@code execute} method of classes emitted by {@link AttackClassEmitter}.
+ * <p>
+ * Every contribution emits the same instructions javac produces for the
+ * inline logic code of the behaviour, and marks the source line every
+ * statement has in the generated source file. Classes emitted from
+ * contributions therefore behave like, and have the same line and branch
+ * coverage counters as, the compiled source.
+ * </p>
+ * <p>
+ * The contributions are looked up by the concrete class of the behaviour,
+ * so the gameplay classes do not depend on ASM. A new movement pattern or
+ * modifier needs an entry in {@link #MOVEMENTS} or {@link #MODIFIERS} before
+ * its attacks can be emitted.
+ * </p>
+ *
+ * @see MovementPatternBehavior#getInlineLogicCode(float)
+ * @see AttackModifier#getInlineLogicCode()
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+final class InlineBytecode {
+
+    /** The type of {@link com.mygdx.platformer.attacks.BaseAttack}. */
+    static final Type BASE_ATTACK = Type.getObjectType("com/mygdx/platformer/attacks/BaseAttack");
+    /** The type of a Box2D body. */
+    static final Type BODY = Type.getObjectType("com/badlogic/gdx/physics/box2d/Body");
+    /** The type of a libGDX vector. */
+    static final Type VECTOR2 = Type.getObjectType("com/badlogic/gdx/math/Vector2");
+
+    private static final Type GDX = Type.getObjectType("com/badlogic/gdx/Gdx");
+    private static final Type GRAPHICS = Type.getObjectType("com/badlogic/gdx/Graphics");
+
+    private static final Method GET_BODY = Method.getMethod("com.badlogic.gdx.physics.box2d.Body getBody()");
+    private static final Method GET_POSITION = Method.getMethod("com.badlogic.gdx.math.Vector2 getPosition()");
+    private static final Method GET_LINEAR_VELOCITY =
+        Method.getMethod("com.badlogic.gdx.math.Vector2 getLinearVelocity()");
+    private static final Method SET_LINEAR_VELOCITY = Method.getMethod("void setLinearVelocity(float, float)");
+    private static final Method GET_DELTA_TIME = Method.getMethod("float getDeltaTime()");
+    private static final Method SET_VISUAL_SCALE = Method.getMethod("void setVisualScale(float)");
+    private static final Method RANDOM = Method.getMethod("double random()");
+
+    /**
+     * Emits the inline logic code of a movement pattern.
+     */
+    @FunctionalInterface
+    private interface MovementBytecode {
+        /**
+         * @param code      The method being generated.
+         * @param attack    The local variable that holds the attack.
+         * @param speed     The initial speed of the attack.
+         * @param firstLine The source line the inline logic code starts at.
+         * @return The number of source lines of the inline logic code.
+         */
+        int emit(GeneratorAdapter code, int attack, float speed, int firstLine);
+    }
+
+    /**
+     * Emits the inline logic code of a modifier.
+     */
+    @FunctionalInterface
+    private interface ModifierBytecode {
+        /**
+         * @param code      The method being generated.
+         * @param modifier  The modifier.
+         * @param attack    The local variable that holds the attack.
+         * @param firstLine The source line the inline logic code starts at.
+         * @return The number of source lines of the inline logic code.
+         */
+        int emit(GeneratorAdapter code, AttackModifier modifier, int attack, int firstLine);
+    }
+
+    /** The contribution of every movement pattern, by class. */
+    private static final Map<Class<? extends MovementPatternBehavior>, MovementBytecode> MOVEMENTS = Map.of(
+        StraightMovement.class, InlineBytecode::emitStraight,
+        ZigZagMovement.class, InlineBytecode::emitZigZag,
+        AccelerateMovement.class, InlineBytecode::emitAccelerate,
+        MixedMovement.class, InlineBytecode::emitMixed);
+
+    /** The contribution of every modifier, by class. */
+    private static final Map<Class<? extends AttackModifier>, ModifierBytecode> MODIFIERS = Map.of(
+        PulseModifier.class, (code, modifier, attack, firstLine) ->
+            emitPulse(code, (PulseModifier) modifier, attack, firstLine));
+
+    private InlineBytecode() {
+    }
+
+    /**
+     * Emits the bytecode of the logic of
+     * {@link MovementPatternBehavior#getInlineLogicCode(float)}.
+     *
+     * @param code      The method being generated.
+     * @param movement  The movement pattern.
+     * @param attack    The local variable that holds the attack.
+     * @param speed     The initial speed of the attack.
+     * @param firstLine The source line the inline logic code starts at.
+     * @return The number of source lines of the inline logic code.
+     * @throws IllegalArgumentException If the movement pattern has no
+     *                                  bytecode contribution.
+     */
+    static int emitMovement(GeneratorAdapter code, MovementPatternBehavior movement, int attack, float speed,
+                            int firstLine) {
+        MovementBytecode bytecode = MOVEMENTS.get(movement.getClass());
+        if (bytecode == null) {
+            throw new IllegalArgumentException("No bytecode for movement pattern " + movement.getClass().getName());
+        }
+        return bytecode.emit(code, attack, speed, firstLine);
+    }
+
+    /**
+     * Emits the bytecode of the logic of
+     * {@link AttackModifier#getInlineLogicCode()}.
+     *
+     * @param code      The method being generated.
+     * @param modifier  The modifier.
+     * @param attack    The local variable that holds the attack.
+     * @param firstLine The source line the inline logic code starts at.
+     * @return The number of source lines of the inline logic code.
+     * @throws IllegalArgumentException If the modifier has no bytecode
+     *                                  contribution.
+     */
+    static int emitModifier(GeneratorAdapter code, AttackModifier modifier, int attack, int firstLine) {
+        ModifierBytecode bytecode = MODIFIERS.get(modifier.getClass());
+        if (bytecode == null) {
+            throw new IllegalArgumentException("No bytecode for modifier " + modifier.getClass().getName());
+        }
+        return bytecode.emit(code, modifier, attack, firstLine);
+    }
+
+    /**
+     * Emits the straight movement logic of {@link StraightMovement}.
+     */
+    private static int emitStraight(GeneratorAdapter code, int attack, float speed, int firstLine) {
+        line(code, firstLine);
+        getBody(code, attack);
+        code.push(speed);
+        code.push(0f);
+        setLinearVelocity(code);
+        return 1;
+    }
+
+    /**
+     * Emits the zigzag movement logic of {@link ZigZagMovement}.
+     */
+    private static int emitZigZag(GeneratorAdapter code, int attack, float speed, int firstLine) {
+        int pos = code.newLocal(VECTOR2);
+        int cycleLength = code.newLocal(Type.FLOAT_TYPE);
+        int offsetY = code.newLocal(Type.FLOAT_TYPE);
+        Label otherwise = code.newLabel();
+        Label end = code.newLabel();
+
+        line(code, firstLine);
+        getPosition(code, attack);
+        code.storeLocal(pos);
+        line(code, firstLine + 1);
+        code.push(2.0f);
+        code.storeLocal(cycleLength);
+        line(code, firstLine + 3);
+        code.loadLocal(pos);
+        getVectorField(code, "x");
+        code.loadLocal(cycleLength);
+        code.math(GeneratorAdapter.DIV, Type.FLOAT_TYPE);
+        code.cast(Type.FLOAT_TYPE, Type.INT_TYPE);
+        code.push(2);
+        code.math(GeneratorAdapter.REM, Type.INT_TYPE);
+        code.ifZCmp(GeneratorAdapter.NE, otherwise);
+        line(code, firstLine + 4);
+        code.push(2f);
+        code.storeLocal(offsetY);
+        code.goTo(end);
+        code.mark(otherwise);
+        line(code, firstLine + 6);
+        code.push(-2f);
+        code.storeLocal(offsetY);
+        code.mark(end);
+        line(code, firstLine + 8);
+        getBody(code, attack);
+        code.push(speed);
+        code.loadLocal(offsetY);
+        setLinearVelocity(code);
+        return 9;
+    }
+
+    /**
+     * Emits the accelerating movement logic of {@link AccelerateMovement},
+     * which does not use the initial speed.
+     */
+    private static int emitAccelerate(GeneratorAdapter code, int attack, float speed, int firstLine) {
+        int pos = code.newLocal(VECTOR2);
+        int currentSpeed = code.newLocal(Type.FLOAT_TYPE);
+        int newSpeed = code.newLocal(Type.FLOAT_TYPE);
+        Label notSlow = code.newLabel();
+        Label notLow = code.newLabel();
+        Label notFast = code.newLabel();
+        Label end = code.newLabel();
+
+        line(code, firstLine);
+        getPosition(code, attack);
+        code.storeLocal(pos);
+        line(code, firstLine + 1);
+        getLinearVelocity(code, attack);
+        getVectorField(code, "x");
+        code.storeLocal(currentSpeed);
+
+        // if (currentSpeed < 1.5f)
+        line(code, firstLine + 3);
+        code.loadLocal(currentSpeed);
+        code.push(1.5f);
+        code.visitInsn(Opcodes.FCMPG);
+        code.visitJumpInsn(Opcodes.IFGE, notSlow);
+        line(code, firstLine + 4);
+        scaleSpeed(code, currentSpeed, newSpeed, Opcodes.FADD, 0.2f);
+        code.goTo(end);
+
+        // else if (currentSpeed < 3.0f)
+        code.mark(notSlow);
+        line(code, firstLine + 5);
+        code.loadLocal(currentSpeed);
+        code.push(3.0f);
+        code.visitInsn(Opcodes.FCMPG);
+        code.visitJumpInsn(Opcodes.IFGE, notFast);
+        line(code, firstLine + 6);
+        code.loadLocal(pos);
+        getVectorField(code, "y");
+        code.push(50f);
+        code.visitInsn(Opcodes.FCMPL);
+        code.visitJumpInsn(Opcodes.IFLE, notLow);
+        line(code, firstLine + 7);
+        scaleSpeed(code, currentSpeed, newSpeed, Opcodes.FMUL, 1.1f);
+        code.goTo(end);
+        code.mark(notLow);
+        line(code, firstLine + 9);
+        scaleSpeed(code, currentSpeed, newSpeed, Opcodes.FMUL, 1.05f);
+        code.goTo(end);
+
+        // else if (currentSpeed > 5.0f)
+        code.mark(notFast);
+        line(code, firstLine + 11);
+        code.loadLocal(currentSpeed);
+        code.push(5.0f);
+        code.visitInsn(Opcodes.FCMPL);
+        Label otherwise = code.newLabel();
+        code.visitJumpInsn(Opcodes.IFLE, otherwise);
+        line(code, firstLine + 12);
+        scaleSpeed(code, currentSpeed, newSpeed, Opcodes.FMUL, 0.95f);
+        code.goTo(end);
+        code.mark(otherwise);
+        line(code, firstLine + 14);
+        code.loadLocal(currentSpeed);
+        code.storeLocal(newSpeed);
+
+        code.mark(end);
+        line(code, firstLine + 16);
+        getBody(code, attack);
+        code.loadLocal(newSpeed);
+        code.push(0f);
+        setLinearVelocity(code);
+        return 17;
+    }
+
+    private static void scaleSpeed(GeneratorAdapter code, int currentSpeed, int newSpeed, int opcode, float factor) {
+        code.loadLocal(currentSpeed);
+        code.push(factor);
+        code.visitInsn(opcode);
+        code.storeLocal(newSpeed);
+    }
+
+    /**
+     * Emits the mixed movement logic of {@link MixedMovement}.
+     */
+    private static int emitMixed(GeneratorAdapter code, int attack, float speed, int firstLine) {
+        int timeSinceLastSwitch = code.newLocal(Type.FLOAT_TYPE);
+        int useZigZag = code.newLocal(Type.BOOLEAN_TYPE);
+        int pos = code.newLocal(VECTOR2);
+        int cycleLength = code.newLocal(Type.FLOAT_TYPE);
+        int offsetY = code.newLocal(Type.FLOAT_TYPE);
+        Label noSwitch = code.newLabel();
+        Label straight = code.newLabel();
+        Label end = code.newLabel();
+
+        line(code, firstLine);
+        code.push(0f);
+        code.storeLocal(timeSinceLastSwitch);
+        line(code, firstLine + 1);
+        code.push(false);
+        code.storeLocal(useZigZag);
+        line(code, firstLine + 2);
+        code.loadLocal(timeSinceLastSwitch);
+        getDeltaTime(code);
+        code.math(GeneratorAdapter.ADD, Type.FLOAT_TYPE);
+        code.storeLocal(timeSinceLastSwitch);
+        line(code, firstLine + 3);
+        code.loadLocal(timeSinceLastSwitch);
+        code.push(1.0f);
+        code.visitInsn(Opcodes.FCMPL);
+        code.visitJumpInsn(Opcodes.IFLT, noSwitch);
+
+        // useZigZag = Math.random() < 0.5;
+        line(code, firstLine + 4);
+        Label notBelow = code.newLabel();
+        Label store = code.newLabel();
+        code.invokeStatic(Type.getType(Math.class), RANDOM);
+        code.push(0.5);
+        code.visitInsn(Opcodes.DCMPG);
+        code.visitJumpInsn(Opcodes.IFGE, notBelow);
+        code.push(true);
+        code.goTo(store);
+        code.mark(notBelow);
+        code.push(false);
+        code.mark(store);
+        code.storeLocal(useZigZag);
+        line(code, firstLine + 5);
+        code.push(0f);
+        code.storeLocal(timeSinceLastSwitch);
+
+        code.mark(noSwitch);
+        line(code, firstLine + 7);
+        getPosition(code, attack);
+        code.storeLocal(pos);
+        line(code, firstLine + 8);
+        code.loadLocal(useZigZag);
+        code.ifZCmp(GeneratorAdapter.EQ, straight);
+        line(code, firstLine + 9);
+        code.push(2.0f);
+        code.storeLocal(cycleLength);
+
+        // float offsetY = ((int)(pos.x / cycleLength)) % 2 == 0 ? 2f : -2f;
+        line(code, firstLine + 10);
+        Label odd = code.newLabel();
+        Label assign = code.newLabel();
+        code.loadLocal(pos);
+        getVectorField(code, "x");
+        code.loadLocal(cycleLength);
+        code.math(GeneratorAdapter.DIV, Type.FLOAT_TYPE);
+        code.cast(Type.FLOAT_TYPE, Type.INT_TYPE);
+        code.push(2);
+        code.math(GeneratorAdapter.REM, Type.INT_TYPE);
+        code.ifZCmp(GeneratorAdapter.NE, odd);
+        code.push(2f);
+        code.goTo(assign);
+        code.mark(odd);
+        code.push(-2f);
+        code.mark(assign);
+        code.storeLocal(offsetY);
+        line(code, firstLine + 11);
+        getBody(code, attack);
+        code.push(speed);
+        code.loadLocal(offsetY);
+        setLinearVelocity(code);
+        // javac ends the scope of the block's locals on its closing brace
+        line(code, firstLine + 12);
+        code.goTo(end);
+
+        code.mark(straight);
+        line(code, firstLine + 13);
+        getBody(code, attack);
+        code.push(speed);
+        code.push(0f);
+        setLinearVelocity(code);
+        code.mark(end);
+        return 15;
+    }
+
+    /**
+     * Emits the pulsing logic of {@link PulseModifier}.
+     */
+    private static int emitPulse(GeneratorAdapter code, PulseModifier modifier, int attack, int firstLine) {
+        int interval = code.newLocal(Type.FLOAT_TYPE);
+        int timeSinceLastResize = code.newLocal(Type.FLOAT_TYPE);
+        int shrink = code.newLocal(Type.BOOLEAN_TYPE);
+        int visualScale = code.newLocal(Type.FLOAT_TYPE);
+        Label noResize = code.newLabel();
+        Label grow = code.newLabel();
+        Label end = code.newLabel();
+
+        // javac folds the constant division
+        line(code, firstLine);
+        code.push(1.0f / modifier.getFrequency());
+        code.storeLocal(interval);
+        line(code, firstLine + 1);
+        code.push(0f);
+        code.storeLocal(timeSinceLastResize);
+        line(code, firstLine + 2);
+        code.push(false);
+        code.storeLocal(shrink);
+        line(code, firstLine + 3);
+        code.loadLocal(timeSinceLastResize);
+        getDeltaTime(code);
+        code.math(GeneratorAdapter.ADD, Type.FLOAT_TYPE);
+        code.storeLocal(timeSinceLastResize);
+        line(code, firstLine + 4);
+        code.loadLocal(timeSinceLastResize);
+        code.loadLocal(interval);
+        code.visitInsn(Opcodes.FCMPL);
+        code.visitJumpInsn(Opcodes.IFLT, noResize);
+
+        // shrink = !shrink;
+        line(code, firstLine + 5);
+        Label wasShrinking = code.newLabel();
+        Label store = code.newLabel();
+        code.loadLocal(shrink);
+        code.ifZCmp(GeneratorAdapter.NE, wasShrinking);
+        code.push(true);
+        code.goTo(store);
+        code.mark(wasShrinking);
+        code.push(false);
+        code.mark(store);
+        code.storeLocal(shrink);
+        line(code, firstLine + 6);
+        code.push(0f);
+        code.storeLocal(timeSinceLastResize);
+
+        code.mark(noResize);
+        line(code, firstLine + 9);
+        code.loadLocal(shrink);
+        code.ifZCmp(GeneratorAdapter.EQ, grow);
+        line(code, firstLine + 10);
+        code.push(1.5f);
+        code.storeLocal(visualScale);
+        code.goTo(end);
+        code.mark(grow);
+        line(code, firstLine + 12);
+        code.push(2.0f);
+        code.storeLocal(visualScale);
+        code.mark(end);
+        line(code, firstLine + 14);
+        code.loadLocal(attack, BASE_ATTACK);
+        code.loadLocal(visualScale);
+        code.invokeVirtual(BASE_ATTACK, SET_VISUAL_SCALE);
+        return 16;
+    }
+
+    /**
+     * Marks the start of the statements of a source line.
+     *
+     * @param code The method being generated.
+     * @param line The line number in the generated source file.
+     */
+    static void line(GeneratorAdapter code, int line) {
+        Label start = code.mark();
+        code.visitLineNumber(line, start);
+    }
+
+    /**
+     * Emits {@code attack.getBody()}.
+     *
+     * @param code   The method being generated.
+     * @param attack The local variable that holds the attack.
+     */
+    private static void getBody(GeneratorAdapter code, int attack) {
+        code.loadLocal(attack, BASE_ATTACK);
+        code.invokeVirtual(BASE_ATTACK, GET_BODY);
+    }
+
+    /**
+     * Emits {@code attack.getBody().getPosition()}.
+     *
+     * @param code   The method being generated.
+     * @param attack The local variable that holds the attack.
+     */
+    private static void getPosition(GeneratorAdapter code, int attack) {
+        getBody(code, attack);
+        code.invokeVirtual(BODY, GET_POSITION);
+    }
+
+    /**
+     * Emits {@code attack.getBody().getLinearVelocity()}.
+     *
+     * @param code   The method being generated.
+     * @param attack The local variable that holds the attack.
+     */
+    private static void getLinearVelocity(GeneratorAdapter code, int attack) {
+        getBody(code, attack);
+        code.invokeVirtual(BODY, GET_LINEAR_VELOCITY);
+    }
+
+    /**
+     * Emits the call of {@code setLinearVelocity} on a body and two floats
+     * on the stack.
+     *
+     * @param code The method being generated.
+     */
+    private static void setLinearVelocity(GeneratorAdapter code) {
+        code.invokeVirtual(BODY, SET_LINEAR_VELOCITY);
+    }
+
+    /**
+     * Emits {@code com.badlogic.gdx.Gdx.graphics.getDeltaTime()}.
+     *
+     * @param code The method being generated.
+     */
+    private static void getDeltaTime(GeneratorAdapter code) {
+        code.getStatic(GDX, "graphics", GRAPHICS);
+        code.invokeInterface(GRAPHICS, GET_DELTA_TIME);
+    }
+
+    /**
+     * Emits a read of a float field of a vector on the stack.
+     *
+     * @param code  The method being generated.
+     * @param field {@code "x"} or {@code "y"}.
+     */
+    static void getVectorField(GeneratorAdapter code, String field) {
+        code.getField(VECTOR2, field, Type.FLOAT_TYPE);
+    }
+}
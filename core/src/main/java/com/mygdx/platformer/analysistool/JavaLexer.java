@@ -0,0 +1,173 @@
+package com.mygdx.platformer.analysistool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimal Java tokenizer used by the in-process analysis stages.
+ * <p>
+ * It splits source code into identifiers, keywords, literals and operators,
+ * dropping whitespace and comments, and records the line of every token.
+ * It does not build a syntax tree; this is sufficient for the metrics that
+ * are computed on generated attack classes.
+ * </p>
+ *
+ * @see CodeMetricsAnalyzer
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+final class JavaLexer {
+
+    /** The kinds of tokens produced by the lexer. */
+    enum Kind {
+        IDENTIFIER,
+        KEYWORD,
+        LITERAL,
+        OPERATOR
+    }
+
+    /**
+     * A single token and the line it starts on.
+     */
+    static final class Token {
+        final Kind kind;
+        final String text;
+        final int line;
+
+        Token(Kind kind, String text, int line) {
+            this.kind = kind;
+            this.text = text;
+            this.line = line;
+        }
+
+        boolean is(String value) {
+            return text.equals(value);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+        "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+        "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+        "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+        "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+        "volatile", "while", "true", "false", "null");
+
+    /** Multi-character operators, longest first so that matching is greedy. */
+    private static final String[] OPERATORS = {
+        ">>>=", "<<=", ">>=", ">>>", "...", "->", "::", "++", "--", "&&", "||", "==", "!=", "<=", ">=",
+        "+=", "-=", "*=", "/=", "&=", "|=", "^=", "%=", "<<", ">>"
+    };
+
+    private JavaLexer() {
+    }
+
+    /**
+     * Tokenizes a source file.
+     *
+     * @param source The Java source code.
+     * @return The tokens, in source order.
+     */
+    static List<Token> tokenize(CharSequence source) {
+        List<Token> tokens = new ArrayList<>(source.length() / 4);
+        int length = source.length();
+        int line = 1;
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                i += 2;
+                while (i < length && !(source.charAt(i) == '*' && i + 1 < length && source.charAt(i + 1) == '/')) {
+                    if (source.charAt(i) == '\n') {
+                        line++;
+                    }
+                    i++;
+                }
+                i += 2;
+            } else if (c == '"' || c == '\'') {
+                int start = i;
+                int startLine = line;
+                boolean textBlock = c == '"' && i + 2 < length
+                    && source.charAt(i + 1) == '"' && source.charAt(i + 2) == '"';
+                i += textBlock ? 3 : 1;
+                while (i < length) {
+                    char d = source.charAt(i);
+                    if (d == '\\') {
+                        i += 2;
+                        continue;
+                    }
+                    if (d == '\n') {
+                        line++;
+                    }
+                    if (textBlock ? (d == '"' && i + 2 < length
+                        && source.charAt(i + 1) == '"' && source.charAt(i + 2) == '"') : d == c) {
+                        i += textBlock ? 3 : 1;
+                        break;
+                    }
+                    i++;
+                }
+                tokens.add(new Token(Kind.LITERAL, source.subSequence(start, Math.min(i, length)).toString(),
+                    startLine));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                String word = source.subSequence(start, i).toString();
+                tokens.add(new Token(KEYWORDS.contains(word) ? Kind.KEYWORD : Kind.IDENTIFIER, word, line));
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                int start = i;
+                while (i < length) {
+                    char d = source.charAt(i);
+                    boolean exponentSign = (d == '+' || d == '-')
+                        && (source.charAt(i - 1) == 'e' || source.charAt(i - 1) == 'E');
+                    if (!(Character.isLetterOrDigit(d) || d == '.' || d == '_' || exponentSign)) {
+                        break;
+                    }
+                    i++;
+                }
+                tokens.add(new Token(Kind.LITERAL, source.subSequence(start, i).toString(), line));
+            } else {
+                String operator = String.valueOf(c);
+                for (String candidate : OPERATORS) {
+                    if (startsWith(source, i, candidate)) {
+                        operator = candidate;
+                        break;
+                    }
+                }
+                tokens.add(new Token(Kind.OPERATOR, operator, line));
+                i += operator.length();
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean startsWith(CharSequence source, int offset, String prefix) {
+        if (offset + prefix.length() > source.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (source.charAt(offset + k) != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
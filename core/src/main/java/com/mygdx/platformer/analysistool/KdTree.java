@@ -0,0 +1,296 @@
+package com.mygdx.platformer.analysistool;
+
+/**
+ * Static k-d tree over weighted points for k-nearest-neighbour queries.
+ * <p>
+ * The points are stored in one flat float array and the tree is laid out
+ * implicitly in an index permutation: the median of every range is the node
+ * that splits it, along the dimension in which the range is widest. Building
+ * takes {@code O(n log n)} and a query visits {@code O(log n)} nodes for
+ * well spread, low-dimensional points, instead of the {@code O(n)} of a
+ * linear scan.
+ * </p>
+ * <p>
+ * Every point carries a weight, the number of identical items it stands
+ * for, so that populations with many copies of the same point (as RCG
+ * generations are) are indexed by their distinct points only. A built tree
+ * is immutable and can be queried from any number of threads.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * KdTree tree = new KdTree(points, weights, TrajectorySimulator.DESCRIPTOR_LENGTH);
+ * float novelty = tree.meanNearestDistance(points, i, 15, i);
+ * </pre>
+ *
+ * @see NoveltyArchive
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class KdTree {
+
+    private final float[] points;
+    private final int[] weights;
+    private final int dimensions;
+    private final int[] order;
+    private final byte[] splitDimensions;
+
+    /**
+     * Builds a tree.
+     *
+     * @param points     The coordinates of every point, {@code dimensions}
+     *                   values per point. The array is not copied and must
+     *                   not be changed while the tree is used.
+     * @param weights    The weight of every point, at least 1.
+     * @param dimensions The number of dimensions, at most 127.
+     */
+    public KdTree(float[] points, int[] weights, int dimensions) {
+        if (points.length != weights.length * dimensions) {
+            throw new IllegalArgumentException("Expected " + weights.length * dimensions + " coordinates, got "
+                + points.length);
+        }
+        if (dimensions < 1 || dimensions > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported number of dimensions: " + dimensions);
+        }
+        this.points = points;
+        this.weights = weights;
+        this.dimensions = dimensions;
+        this.order = new int[weights.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        this.splitDimensions = new byte[weights.length];
+        build(0, order.length);
+    }
+
+    /**
+     * Accessor for the number of points.
+     *
+     * @return The point count.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    private void build(int from, int to) {
+        while (to - from > 1) {
+            int dimension = widestDimension(from, to);
+            int median = (from + to) >>> 1;
+            select(from, to, median, dimension);
+            splitDimensions[median] = (byte) dimension;
+            // recurse into the smaller half and loop on the larger one
+            if (median - from < to - median - 1) {
+                build(from, median);
+                from = median + 1;
+            } else {
+                build(median + 1, to);
+                to = median;
+            }
+        }
+    }
+
+    private int widestDimension(int from, int to) {
+        int widest = 0;
+        float widestSpread = -1f;
+        for (int d = 0; d < dimensions; d++) {
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                float value = points[order[i] * dimensions + d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = d;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Moves the point with rank {@code k} along a dimension to position
+     * {@code k} of the range, smaller points before it and larger ones
+     * after it (Hoare's selection).
+     */
+    private void select(int from, int to, int k, int dimension) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            float pivot = coordinate(order[(lo + hi) >>> 1], dimension);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate(order[i], dimension) < pivot) {
+                    i++;
+                }
+                while (coordinate(order[j], dimension) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private float coordinate(int point, int dimension) {
+        return points[point * dimensions + dimension];
+    }
+
+    /**
+     * Returns the mean Euclidean distance from a query point to its
+     * {@code k} nearest neighbours, counting every point as many times as
+     * its weight.
+     *
+     * @param query  The coordinates of the query point.
+     * @param offset The index of the first coordinate in {@code query}.
+     * @param k      The number of neighbours.
+     * @param self   The index of a point whose weight is reduced by one for
+     *               this query, so that an indexed point is not its own
+     *               neighbour, or {@code -1}.
+     * @return The mean distance, over fewer neighbours if the tree holds
+     *         fewer than {@code k}, or 0 if it holds none.
+     */
+    public float meanNearestDistance(float[] query, int offset, int k, int self) {
+        Neighbours neighbours = new Neighbours(k);
+        if (order.length > 0) {
+            search(0, order.length, query, offset, self, neighbours);
+        }
+        return neighbours.meanDistance();
+    }
+
+    private void search(int from, int to, float[] query, int offset, int self, Neighbours neighbours) {
+        if (from >= to) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        int point = order[median];
+        int weight = point == self ? weights[point] - 1 : weights[point];
+        if (weight > 0) {
+            float distance = 0f;
+            int base = point * dimensions;
+            for (int d = 0; d < dimensions; d++) {
+                float delta = points[base + d] - query[offset + d];
+                distance += delta * delta;
+            }
+            neighbours.offer(distance, weight);
+        }
+        if (to - from == 1) {
+            return;
+        }
+        int dimension = splitDimensions[median];
+        float delta = query[offset + dimension] - points[point * dimensions + dimension];
+        boolean lowerFirst = delta < 0;
+        if (lowerFirst) {
+            search(from, median, query, offset, self, neighbours);
+        } else {
+            search(median + 1, to, query, offset, self, neighbours);
+        }
+        if (delta * delta <= neighbours.bound()) {
+            if (lowerFirst) {
+                search(median + 1, to, query, offset, self, neighbours);
+            } else {
+                search(from, median, query, offset, self, neighbours);
+            }
+        }
+    }
+
+    /**
+     * The nearest points found so far, in a max-heap on squared distance
+     * that keeps just enough points to cover {@code k} units of weight.
+     */
+    private static final class Neighbours {
+        private final int k;
+        private final float[] distances;
+        private final int[] weights;
+        private int size;
+        private int totalWeight;
+
+        Neighbours(int k) {
+            this.k = k;
+            this.distances = new float[k + 1];
+            this.weights = new int[k + 1];
+        }
+
+        /** The squared distance a point must not exceed to be a neighbour. */
+        float bound() {
+            return totalWeight >= k ? distances[0] : Float.POSITIVE_INFINITY;
+        }
+
+        void offer(float distance, int weight) {
+            if (totalWeight >= k && distance >= distances[0]) {
+                return;
+            }
+            // sift up
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (distances[parent] >= distance) {
+                    break;
+                }
+                distances[i] = distances[parent];
+                weights[i] = weights[parent];
+                i = parent;
+            }
+            distances[i] = distance;
+            weights[i] = weight;
+            totalWeight += weight;
+            // drop the farthest points while the others still cover k
+            while (totalWeight - weights[0] >= k) {
+                totalWeight -= weights[0];
+                removeTop();
+            }
+        }
+
+        private void removeTop() {
+            size--;
+            float distance = distances[size];
+            int weight = weights[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                distances[i] = distances[child];
+                weights[i] = weights[child];
+                i = child;
+            }
+            distances[i] = distance;
+            weights[i] = weight;
+        }
+
+        float meanDistance() {
+            if (totalWeight == 0) {
+                return 0f;
+            }
+            // only the farthest point can be counted partially
+            int count = Math.min(k, totalWeight);
+            double sum = 0;
+            for (int i = 1; i < size; i++) {
+                sum += weights[i] * Math.sqrt(distances[i]);
+            }
+            sum += (count - (totalWeight - weights[0])) * Math.sqrt(distances[0]);
+            return (float) (sum / count);
+        }
+    }
+}
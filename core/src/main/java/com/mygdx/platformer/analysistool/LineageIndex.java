@@ -0,0 +1,315 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Genealogy queries over a lineage file written by {@link LineageWriter}.
+ * <p>
+ * The parent pointers of every generation are memory-mapped, so only the
+ * generations a query walks through are paged in. Attacks are identified by
+ * {@link AttackKey}; the RCG chain starts from the shared PCG generation 0,
+ * so the ancestry of every RCG attack ends in a generation 0 PCG attack.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (LineageIndex lineage = LineageIndex.open(Path.of("out/generated/lineage.bin"))) {
+ *     List&lt;AttackKey&gt; ancestry = lineage.getAncestry(new AttackKey("RCG", 10, 3, 2));
+ *     int[] copies = lineage.getDescendantCounts(new AttackKey("PCG", 0, 7, 1));
+ * }
+ * </pre>
+ *
+ * @see LineageWriter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class LineageIndex implements AutoCloseable {
+
+    /** Name of the lineage file written into the export directory. */
+    public static final String FILE = "lineage.bin";
+
+    private final FileChannel channel;
+    private final int compoundCount;
+    private final int attacksPerCompound;
+    private final List<IntBuffer[]> generations = new ArrayList<>();
+
+    private LineageIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(LineageWriter.HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Truncated lineage file");
+            }
+        }
+        header.flip();
+        if (header.getInt() != LineageWriter.MAGIC) {
+            throw new IOException("Not a lineage file");
+        }
+        int version = header.getInt();
+        if (version != LineageWriter.VERSION) {
+            throw new IOException("Unsupported lineage version " + version);
+        }
+        this.compoundCount = header.getInt();
+        this.attacksPerCompound = header.getInt();
+        int generationCount = header.getInt();
+
+        long size = (long) compoundCount * Integer.BYTES;
+        long position = LineageWriter.HEADER_SIZE;
+        for (int gen = 1; gen <= generationCount; gen++) {
+            IntBuffer[] pointers = new IntBuffer[4];
+            for (int i = 0; i < pointers.length; i++) {
+                pointers[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, size).asIntBuffer();
+                position += size;
+            }
+            generations.add(pointers);
+        }
+    }
+
+    /**
+     * Opens a lineage file.
+     *
+     * @param file The file written by {@link LineageWriter}.
+     * @return The index.
+     * @throws IOException If the file cannot be read or is not a lineage file.
+     */
+    public static LineageIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new LineageIndex(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Accessor for the number of compounds per generation.
+     *
+     * @return The compound count.
+     */
+    public int getCompoundCount() {
+        return compoundCount;
+    }
+
+    /**
+     * Accessor for the number of attacks per compound.
+     *
+     * @return The attacks per compound.
+     */
+    public int getAttacksPerCompound() {
+        return attacksPerCompound;
+    }
+
+    /**
+     * Accessor for the last RCG generation in the file.
+     *
+     * @return The number of RCG generations.
+     */
+    public int getGenerationCount() {
+        return generations.size();
+    }
+
+    /**
+     * Returns the host compound of an RCG compound.
+     *
+     * @param generation The RCG generation, from 1.
+     * @param compound   The compound ID.
+     * @return The compound of the previous generation it was copied from.
+     */
+    public int getHost(int generation, int compound) {
+        return pointers(generation)[0].get(compound);
+    }
+
+    /**
+     * Returns the donor compound of an RCG compound.
+     *
+     * @param generation The RCG generation, from 1.
+     * @param compound   The compound ID.
+     * @return The compound of the previous generation the new attack came from.
+     */
+    public int getDonor(int generation, int compound) {
+        return pointers(generation)[1].get(compound);
+    }
+
+    /**
+     * Returns the slot of the donated attack in the donor compound.
+     *
+     * @param generation The RCG generation, from 1.
+     * @param compound   The compound ID.
+     * @return The donor slot.
+     */
+    public int getDonorSlot(int generation, int compound) {
+        return pointers(generation)[2].get(compound);
+    }
+
+    /**
+     * Returns the slot of an RCG compound that holds the donated attack.
+     *
+     * @param generation The RCG generation, from 1.
+     * @param compound   The compound ID.
+     * @return The replaced slot.
+     */
+    public int getReplacedSlot(int generation, int compound) {
+        return pointers(generation)[3].get(compound);
+    }
+
+    /**
+     * Returns the attack of the previous generation an attack is a copy of.
+     *
+     * @param key An RCG attack.
+     * @return Its parent, an RCG attack or, for generation 1, a generation 0
+     *         PCG attack.
+     */
+    public AttackKey getParent(AttackKey key) {
+        requireRcg(key);
+        int generation = key.getGeneration();
+        int compound = key.getCompound();
+        IntBuffer[] pointers = pointers(generation);
+        int parentCompound;
+        int parentAttack;
+        if (key.getAttack() == pointers[3].get(compound)) {
+            parentCompound = pointers[1].get(compound);
+            parentAttack = pointers[2].get(compound);
+        } else {
+            parentCompound = pointers[0].get(compound);
+            parentAttack = key.getAttack();
+        }
+        return generation == 1
+            ? new AttackKey(GenerationEngine.PCG, 0, parentCompound, parentAttack)
+            : new AttackKey(GenerationEngine.RCG, generation - 1, parentCompound, parentAttack);
+    }
+
+    /**
+     * Returns the chain of parents of an attack.
+     *
+     * @param key An RCG attack or a generation 0 PCG attack.
+     * @return The attack followed by its parents, ending with the generation 0
+     *         attack it descends from.
+     */
+    public List<AttackKey> getAncestry(AttackKey key) {
+        List<AttackKey> ancestry = new ArrayList<>();
+        ancestry.add(key);
+        while (key.getGeneration() > 0) {
+            key = getParent(key);
+            ancestry.add(key);
+        }
+        return ancestry;
+    }
+
+    /**
+     * Returns the generation 0 origin of every attack of a generation.
+     *
+     * @param generation The RCG generation, or 0.
+     * @return The flat index ({@code compound * attacksPerCompound + attack})
+     *         of the generation 0 attack every attack descends from, indexed
+     *         the same way.
+     */
+    public int[] getOrigins(int generation) {
+        int[] origins = IntStream.range(0, compoundCount * attacksPerCompound).toArray();
+        for (int gen = 1; gen <= generation; gen++) {
+            origins = step(origins, gen);
+        }
+        return origins;
+    }
+
+    /**
+     * Counts the copies of an attack in its own and every later generation.
+     *
+     * @param key An RCG attack or a generation 0 PCG attack.
+     * @return The number of descendants in generation
+     *         {@code key.getGeneration() + i} at index {@code i}; the first
+     *         entry is 1, the attack itself.
+     */
+    public int[] getDescendantCounts(AttackKey key) {
+        if (key.getGeneration() > 0) {
+            requireRcg(key);
+        }
+        int start = key.getGeneration();
+        int[] counts = new int[generations.size() - start + 1];
+        // mark the attack and propagate the mark forward, 1 for a descendant
+        int[] marks = new int[compoundCount * attacksPerCompound];
+        marks[key.getCompound() * attacksPerCompound + key.getAttack()] = 1;
+        counts[0] = 1;
+        for (int gen = start + 1; gen <= generations.size(); gen++) {
+            marks = step(marks, gen);
+            int count = 0;
+            for (int mark : marks) {
+                count += mark;
+            }
+            counts[gen - start] = count;
+            if (count == 0) {
+                break;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the last generation in which an attack still has a copy.
+     *
+     * @param key An RCG attack or a generation 0 PCG attack.
+     * @return The last generation with at least one descendant, or the
+     *         generation of the attack if it is not copied into the next one.
+     */
+    public int getSurvival(AttackKey key) {
+        int[] counts = getDescendantCounts(key);
+        int last = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                last = i;
+            }
+        }
+        return key.getGeneration() + last;
+    }
+
+    /**
+     * Maps a per-attack value of one generation onto the next generation by
+     * following every attack's parent pointer.
+     */
+    private int[] step(int[] previous, int generation) {
+        IntBuffer[] pointers = pointers(generation);
+        int[] next = new int[previous.length];
+        for (int compound = 0; compound < compoundCount; compound++) {
+            int base = compound * attacksPerCompound;
+            System.arraycopy(previous, pointers[0].get(compound) * attacksPerCompound, next, base,
+                attacksPerCompound);
+            next[base + pointers[3].get(compound)] =
+                previous[pointers[1].get(compound) * attacksPerCompound + pointers[2].get(compound)];
+        }
+        return next;
+    }
+
+    private IntBuffer[] pointers(int generation) {
+        if (generation < 1 || generation > generations.size()) {
+            throw new IllegalArgumentException("No RCG generation " + generation + " in the lineage, expected 1 to "
+                + generations.size());
+        }
+        return generations.get(generation - 1);
+    }
+
+    private static void requireRcg(AttackKey key) {
+        if (!key.getMethod().equals(GenerationEngine.RCG)) {
+            throw new IllegalArgumentException("Not an RCG attack: " + key);
+        }
+    }
+
+    /**
+     * Closes the file. The mapped generations stay readable until they are
+     * garbage collected.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
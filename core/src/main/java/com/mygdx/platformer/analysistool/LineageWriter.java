@@ -0,0 +1,173 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the parent pointers of every RCG generation to a compact binary
+ * lineage file.
+ * <p>
+ * Each RCG compound is a copy of a host compound of the previous generation
+ * in which one attack slot is replaced by an attack of a donor compound. For
+ * every compound of a generation the writer stores the host compound, the
+ * donor compound, the donor slot and the replaced slot, as four int arrays
+ * of one entry per compound. Generations are appended as the engine creates
+ * them, so the writer holds no more than the generation being written.
+ * </p>
+ * <p>
+ * A run resumed from a {@link RunCheckpoint} reopens the file with
+ * {@link #resume(Path, int, int, int)}, which drops the generations written
+ * after the last checkpoint and appends from there.
+ * </p>
+ *
+ * <h2>File Layout</h2>
+ * <ol>
+ * <li>Header: magic, version, compound count, attacks per compound and the
+ * number of generations, five ints.</li>
+ * <li>Per RCG generation, starting with generation 1: the host, donor, donor
+ * slot and replaced slot arrays. All values are big endian.</li>
+ * </ol>
+ *
+ * @see LineageIndex
+ * @see GenerationEngine
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class LineageWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x5043474C; // "PCGL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final int compoundCount;
+    private final int attacksPerCompound;
+    private int generations;
+
+    /**
+     * Creates a lineage file, replacing any existing file.
+     *
+     * @param file               The lineage file to write.
+     * @param compoundCount      The number of compounds per generation.
+     * @param attacksPerCompound The number of attacks per compound.
+     * @throws IOException If the file cannot be created.
+     */
+    public LineageWriter(Path file, int compoundCount, int attacksPerCompound) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+        this.compoundCount = compoundCount;
+        this.attacksPerCompound = attacksPerCompound;
+        writeHeader();
+        channel.position(HEADER_SIZE);
+    }
+
+    private LineageWriter(FileChannel channel, int compoundCount, int attacksPerCompound, int generations) {
+        this.channel = channel;
+        this.compoundCount = compoundCount;
+        this.attacksPerCompound = attacksPerCompound;
+        this.generations = generations;
+    }
+
+    /**
+     * Reopens the lineage file of an interrupted run to append to it.
+     *
+     * @param file               The lineage file.
+     * @param compoundCount      The number of compounds per generation.
+     * @param attacksPerCompound The number of attacks per compound.
+     * @param generations        The number of generations to keep; any
+     *                           generation after them is removed.
+     * @return The writer, positioned after the kept generations.
+     * @throws IOException If the file is missing, belongs to a different run
+     *                     or holds fewer generations.
+     */
+    public static LineageWriter resume(Path file, int compoundCount, int attacksPerCompound, int generations)
+            throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Truncated lineage file");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != compoundCount
+                    || header.getInt() != attacksPerCompound) {
+                throw new IOException("Lineage file " + file + " does not belong to this run");
+            }
+            long size = HEADER_SIZE + (long) generations * 4 * compoundCount * Integer.BYTES;
+            if (channel.size() < size) {
+                throw new IOException("Lineage file " + file + " holds fewer than " + generations + " generations");
+            }
+            channel.truncate(size);
+            channel.position(size);
+            LineageWriter writer = new LineageWriter(channel, compoundCount, attacksPerCompound, generations);
+            writer.writeHeader();
+            return writer;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the parent pointers of the next RCG generation.
+     *
+     * @param generation    The generation number, one more than the last
+     *                      generation written.
+     * @param hosts         The host compound of every compound.
+     * @param donors        The donor compound of every compound.
+     * @param donorSlots    The slot of the donated attack in the donor.
+     * @param replacedSlots The slot the donated attack replaces.
+     * @throws IOException If the generation cannot be written.
+     */
+    public void write(int generation, int[] hosts, int[] donors, int[] donorSlots, int[] replacedSlots)
+            throws IOException {
+        if (generation != generations + 1) {
+            throw new IllegalArgumentException("Expected generation " + (generations + 1) + ", got " + generation);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 * compoundCount * Integer.BYTES);
+        for (int[] values : new int[][] {hosts, donors, donorSlots, replacedSlots}) {
+            if (values.length != compoundCount) {
+                throw new IllegalArgumentException("Expected " + compoundCount + " compounds, got " + values.length);
+            }
+            buffer.asIntBuffer().put(values);
+            buffer.position(buffer.position() + compoundCount * Integer.BYTES);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        generations++;
+        writeHeader();
+    }
+
+    /**
+     * Writes the header. It is rewritten after every generation, so that the
+     * file is readable even if the run stops early.
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(compoundCount).putInt(attacksPerCompound).putInt(generations);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,327 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Streaming summary statistics of per-class metrics, by generation method
+ * and generation.
+ * <p>
+ * For every metric of every (method, generation) group the aggregator keeps
+ * a running count, mean and sum of squared deviations (Welford's algorithm)
+ * and a {@link QuantileSketch} for the percentiles. Values are summarized as
+ * they are analysed and the per-class table is never needed, so the
+ * comparison of generations that used to be done on the exported CSV files
+ * is available as soon as the last class has been analysed.
+ * </p>
+ * <p>
+ * An aggregator is not thread safe. Parallel workers each fill their own and
+ * combine them with {@link #merge(MetricsAggregator)}, which fits
+ * {@link java.util.stream.Stream#collect(java.util.function.Supplier,
+ * java.util.function.BiConsumer, java.util.function.BiConsumer)}. Means and
+ * variances of merged aggregators are exact; percentiles carry the error of
+ * the sketch.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * MetricsAggregator summary = classes.parallelStream().collect(
+ *     () -&gt; new MetricsAggregator("LOC", "Complexity"),
+ *     (aggregator, c) -&gt; aggregator.add(c.key(), c.loc(), c.complexity()),
+ *     MetricsAggregator::merge);
+ * double median = summary.summarize("Complexity").get("RCG").get(3).getMedian();
+ * summary.write(Path.of("out/generated/metrics_summary.csv"));
+ * </pre>
+ *
+ * @see QuantileSketch
+ * @see CodeMetricsAnalyzer
+ * @see CoverageCollector
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class MetricsAggregator {
+
+    /** The percentiles written by {@link #write(Path)}. */
+    private static final double[] PERCENTILES = {0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    private final List<String> metrics;
+    private final Map<String, SortedMap<Integer, MetricSummary[]>> groups = new TreeMap<>();
+
+    /**
+     * Creates an empty aggregator.
+     *
+     * @param metrics The names of the metrics, in the order their values are
+     *                passed to {@link #add(AttackKey, double...)}.
+     */
+    public MetricsAggregator(String... metrics) {
+        this.metrics = List.of(metrics);
+    }
+
+    /**
+     * Adds the metrics of one class.
+     *
+     * @param key    The class.
+     * @param values One value per metric. {@code NaN} marks a value that is
+     *               not defined for the class, e.g. the branch coverage of a
+     *               class without branches, and is skipped.
+     */
+    public void add(AttackKey key, double... values) {
+        add(key.getMethod(), key.getGeneration(), 1, values);
+    }
+
+    /**
+     * Adds the metrics of several classes that share them.
+     *
+     * @param method     The generation method.
+     * @param generation The generation number.
+     * @param weight     The number of classes.
+     * @param values     One value per metric, or {@code NaN} to skip it.
+     * @throws IllegalArgumentException If the number of values does not match
+     *                                  the number of metrics.
+     */
+    public void add(String method, int generation, long weight, double... values) {
+        if (values.length != metrics.size()) {
+            throw new IllegalArgumentException("Expected " + metrics.size() + " values, got " + values.length);
+        }
+        MetricSummary[] summaries = group(method, generation);
+        for (int i = 0; i < values.length; i++) {
+            summaries[i].add(values[i], weight);
+        }
+    }
+
+    /**
+     * Adds every value of another aggregator over the same metrics to this
+     * one.
+     *
+     * @param other The other aggregator, which is not modified.
+     * @return This aggregator.
+     * @throws IllegalArgumentException If the metrics differ.
+     */
+    public MetricsAggregator merge(MetricsAggregator other) {
+        if (!metrics.equals(other.metrics)) {
+            throw new IllegalArgumentException("Cannot merge " + other.metrics + " into " + metrics);
+        }
+        for (Map.Entry<String, SortedMap<Integer, MetricSummary[]>> method : other.groups.entrySet()) {
+            for (Map.Entry<Integer, MetricSummary[]> generation : method.getValue().entrySet()) {
+                MetricSummary[] summaries = group(method.getKey(), generation.getKey());
+                for (int i = 0; i < summaries.length; i++) {
+                    summaries[i].merge(generation.getValue()[i]);
+                }
+            }
+        }
+        return this;
+    }
+
+    private MetricSummary[] group(String method, int generation) {
+        return groups.computeIfAbsent(method, m -> new TreeMap<>()).computeIfAbsent(generation, g -> {
+            MetricSummary[] summaries = new MetricSummary[metrics.size()];
+            for (int i = 0; i < summaries.length; i++) {
+                summaries[i] = new MetricSummary();
+            }
+            return summaries;
+        });
+    }
+
+    /**
+     * Accessor for the names of the metrics.
+     *
+     * @return The metric names.
+     */
+    public List<String> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Summarizes one metric by generation method and generation.
+     *
+     * @param metric The name of the metric.
+     * @return The summaries, by method and then by generation. They are
+     *         live views and change as values are added.
+     * @throws IllegalArgumentException If there is no such metric.
+     */
+    public Map<String, SortedMap<Integer, MetricSummary>> summarize(String metric) {
+        int index = metrics.indexOf(metric);
+        if (index < 0) {
+            throw new IllegalArgumentException("No metric " + metric);
+        }
+        Map<String, SortedMap<Integer, MetricSummary>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, SortedMap<Integer, MetricSummary[]>> method : groups.entrySet()) {
+            SortedMap<Integer, MetricSummary> byGeneration = new TreeMap<>();
+            method.getValue().forEach((generation, summaries) -> byGeneration.put(generation, summaries[index]));
+            result.put(method.getKey(), Collections.unmodifiableSortedMap(byGeneration));
+        }
+        return result;
+    }
+
+    /**
+     * Writes one row per method, generation and metric.
+     * <p>
+     * The columns are Method, Generation, Metric, Count, Mean, Variance,
+     * StdDev, Min, P10, P25, Median, P75, P90, P99 and Max. Statistics that
+     * are not defined, such as the variance of a single value, are left
+     * empty.
+     * </p>
+     *
+     * @param file The CSV file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Method;Generation;Metric;Count;Mean;Variance;StdDev;Min;P10;P25;Median;P75;P90;P99;Max\n");
+            StringBuilder row = new StringBuilder(160);
+            for (Map.Entry<String, SortedMap<Integer, MetricSummary[]>> method : groups.entrySet()) {
+                for (Map.Entry<Integer, MetricSummary[]> generation : method.getValue().entrySet()) {
+                    for (int i = 0; i < metrics.size(); i++) {
+                        MetricSummary summary = generation.getValue()[i];
+                        row.setLength(0);
+                        row.append(method.getKey()).append(';').append(generation.getKey()).append(';')
+                            .append(metrics.get(i)).append(';').append(summary.getCount());
+                        appendDecimal(row, summary.getMean());
+                        appendDecimal(row, summary.getVariance());
+                        appendDecimal(row, summary.getStandardDeviation());
+                        appendDecimal(row, summary.getMin());
+                        for (double percentile : PERCENTILES) {
+                            appendDecimal(row, summary.getQuantile(percentile));
+                        }
+                        appendDecimal(row, summary.getMax());
+                        writer.append(row.append('\n'));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void appendDecimal(StringBuilder row, double value) {
+        row.append(';');
+        if (!Double.isNaN(value)) {
+            row.append(String.format(Locale.ROOT, "%.4f", value));
+        }
+    }
+
+    /**
+     * Count, mean, variance, range and quantiles of one metric of one group.
+     */
+    public static final class MetricSummary {
+        private long count;
+        private double mean;
+        private double squaredDeviations;
+        private final QuantileSketch sketch = new QuantileSketch();
+
+        MetricSummary() {
+        }
+
+        void add(double value, long weight) {
+            if (Double.isNaN(value) || weight == 0) {
+                return;
+            }
+            count += weight;
+            double delta = value - mean;
+            mean += delta * weight / count;
+            squaredDeviations += delta * (value - mean) * weight;
+            sketch.add(value, weight);
+        }
+
+        void merge(MetricSummary other) {
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            squaredDeviations += other.squaredDeviations + delta * delta * ((double) count * other.count / total);
+            mean += delta * other.count / total;
+            count = total;
+            sketch.merge(other.sketch);
+        }
+
+        /**
+         * Accessor for the number of values.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Accessor for the mean of the values.
+         *
+         * @return The mean, or {@code NaN} if there are no values.
+         */
+        public double getMean() {
+            return count == 0 ? Double.NaN : mean;
+        }
+
+        /**
+         * Accessor for the sample variance of the values.
+         *
+         * @return The variance with Bessel's correction, or {@code NaN} for
+         *         fewer than two values.
+         */
+        public double getVariance() {
+            return count < 2 ? Double.NaN : squaredDeviations / (count - 1);
+        }
+
+        /**
+         * Accessor for the sample standard deviation of the values.
+         *
+         * @return The square root of {@link #getVariance()}.
+         */
+        public double getStandardDeviation() {
+            return Math.sqrt(getVariance());
+        }
+
+        /**
+         * Accessor for the smallest value.
+         *
+         * @return The minimum, or {@code NaN} if there are no values.
+         */
+        public double getMin() {
+            return sketch.getMin();
+        }
+
+        /**
+         * Accessor for the largest value.
+         *
+         * @return The maximum, or {@code NaN} if there are no values.
+         */
+        public double getMax() {
+            return sketch.getMax();
+        }
+
+        /**
+         * Estimates a quantile of the values.
+         *
+         * @param q The quantile, between 0 and 1.
+         * @return The estimate, or {@code NaN} if there are no values.
+         * @see QuantileSketch#quantile(double)
+         */
+        public double getQuantile(double q) {
+            return sketch.quantile(q);
+        }
+
+        /**
+         * Estimates the median of the values.
+         *
+         * @return The estimate, or {@code NaN} if there are no values.
+         */
+        public double getMedian() {
+            return getQuantile(0.5);
+        }
+
+        @Override
+        public String toString() {
+            return count + ";" + getMean() + ";" + getVariance() + ";" + getMin() + ";" + getMedian() + ";" + getMax();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.mygdx.platformer.analysistool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Novelty scores of successive generations of attacks, measured against an
+ * archive of the behaviours seen before.
+ * <p>
+ * The novelty of an attack is the mean distance of its behaviour descriptor
+ * to its {@code k} nearest neighbours among the archive and the other
+ * attacks of its generation. After a generation is scored, every distinct
+ * behaviour whose novelty exceeds the threshold is added to the archive, so
+ * the archive grows as long as a method keeps producing new behaviours.
+ * </p>
+ * <p>
+ * The neighbours are found in a {@link KdTree} that is rebuilt for every
+ * generation from the archive and the distinct descriptors of the
+ * generation, each weighted by its number of attacks. Scoring a generation
+ * therefore takes {@code O((a + n) log(a + n))} for an archive of {@code a}
+ * and {@code n} distinct behaviours, rather than the {@code O(n²)} of
+ * pairwise comparison. The distinct behaviours are scored in parallel.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * NoveltyArchive archive = new NoveltyArchive(TrajectorySimulator.DESCRIPTOR_LENGTH,
+ *     NoveltyArchive.DEFAULT_NEIGHBOURS, NoveltyArchive.DEFAULT_THRESHOLD);
+ * float[] novelty = archive.score(generation, descriptors, counts);
+ * List&lt;NoveltyArchive.Generation&gt; curve = archive.getCurve();
+ * </pre>
+ *
+ * @see TrajectorySimulator
+ * @see TrajectoryProfiler
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class NoveltyArchive {
+
+    /** The default number of nearest neighbours a novelty is averaged over. */
+    public static final int DEFAULT_NEIGHBOURS = 15;
+
+    /**
+     * The default novelty, in world units, a behaviour needs to enter the
+     * archive; about the width of an attack sprite.
+     */
+    public static final float DEFAULT_THRESHOLD = 0.5f;
+
+    private final int dimensions;
+    private final int neighbours;
+    private final float threshold;
+    private float[] archive = new float[0];
+    private int archiveSize;
+    private final List<Generation> curve = new ArrayList<>();
+
+    /**
+     * Creates an empty archive.
+     *
+     * @param dimensions The length of a behaviour descriptor.
+     * @param neighbours The number of nearest neighbours a novelty is
+     *                   averaged over.
+     * @param threshold  The novelty a behaviour needs to enter the archive.
+     */
+    public NoveltyArchive(int dimensions, int neighbours, float threshold) {
+        this.dimensions = dimensions;
+        this.neighbours = neighbours;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Scores a generation and adds its novel behaviours to the archive.
+     * Generations must be scored in order.
+     *
+     * @param generation  The generation number, recorded in the curve.
+     * @param descriptors The distinct descriptors of the generation, one
+     *                    after the other.
+     * @param counts      The number of attacks with each descriptor.
+     * @return The novelty of every distinct descriptor.
+     */
+    public float[] score(int generation, float[] descriptors, int[] counts) {
+        int distinct = counts.length;
+        if (descriptors.length != distinct * dimensions) {
+            throw new IllegalArgumentException("Expected " + distinct * dimensions + " descriptor values, got "
+                + descriptors.length);
+        }
+        float[] points = Arrays.copyOf(archive, (archiveSize + distinct) * dimensions);
+        System.arraycopy(descriptors, 0, points, archiveSize * dimensions, descriptors.length);
+        int[] weights = new int[archiveSize + distinct];
+        Arrays.fill(weights, 0, archiveSize, 1);
+        System.arraycopy(counts, 0, weights, archiveSize, distinct);
+        KdTree tree = new KdTree(points, weights, dimensions);
+
+        int first = archiveSize;
+        float[] novelty = new float[distinct];
+        IntStream.range(0, distinct).parallel().forEach(i ->
+            novelty[i] = tree.meanNearestDistance(descriptors, i * dimensions, neighbours, first + i));
+
+        long attacks = 0;
+        double sum = 0;
+        float max = 0f;
+        int added = 0;
+        for (int i = 0; i < distinct; i++) {
+            attacks += counts[i];
+            sum += (double) novelty[i] * counts[i];
+            max = Math.max(max, novelty[i]);
+            if (novelty[i] > threshold) {
+                add(descriptors, i * dimensions);
+                added++;
+            }
+        }
+        curve.add(new Generation(generation, attacks, distinct, attacks == 0 ? 0f : (float) (sum / attacks), max,
+            added, archiveSize));
+        return novelty;
+    }
+
+    private void add(float[] descriptors, int offset) {
+        if ((archiveSize + 1) * dimensions > archive.length) {
+            archive = Arrays.copyOf(archive, Math.max(16 * dimensions, archive.length * 2));
+        }
+        System.arraycopy(descriptors, offset, archive, archiveSize * dimensions, dimensions);
+        archiveSize++;
+    }
+
+    /**
+     * Accessor for the number of behaviours in the archive.
+     *
+     * @return The archive size.
+     */
+    public int getArchiveSize() {
+        return archiveSize;
+    }
+
+    /**
+     * Accessor for the novelty and archive growth of every scored
+     * generation.
+     *
+     * @return The generations in the order they were scored.
+     */
+    public List<Generation> getCurve() {
+        return Collections.unmodifiableList(curve);
+    }
+
+    /**
+     * Novelty summary of one scored generation.
+     */
+    public static final class Generation {
+        private final int generation;
+        private final long attacks;
+        private final int distinct;
+        private final float meanNovelty;
+        private final float maxNovelty;
+        private final int added;
+        private final int archiveSize;
+
+        Generation(int generation, long attacks, int distinct, float meanNovelty, float maxNovelty, int added,
+                   int archiveSize) {
+            this.generation = generation;
+            this.attacks = attacks;
+            this.distinct = distinct;
+            this.meanNovelty = meanNovelty;
+            this.maxNovelty = maxNovelty;
+            this.added = added;
+            this.archiveSize = archiveSize;
+        }
+
+        /**
+         * Accessor for the generation number.
+         *
+         * @return The generation.
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Accessor for the number of attacks in the generation.
+         *
+         * @return The attack count.
+         */
+        public long getAttacks() {
+            return attacks;
+        }
+
+        /**
+         * Accessor for the number of distinct behaviours in the generation.
+         *
+         * @return The distinct descriptor count.
+         */
+        public int getDistinct() {
+            return distinct;
+        }
+
+        /**
+         * Accessor for the mean novelty over all attacks of the generation.
+         *
+         * @return The mean novelty.
+         */
+        public float getMeanNovelty() {
+            return meanNovelty;
+        }
+
+        /**
+         * Accessor for the novelty of the most novel attack.
+         *
+         * @return The maximum novelty.
+         */
+        public float getMaxNovelty() {
+            return maxNovelty;
+        }
+
+        /**
+         * Accessor for the number of behaviours the generation added to the
+         * archive.
+         *
+         * @return The number of additions.
+         */
+        public int getAdded() {
+            return added;
+        }
+
+        /**
+         * Accessor for the size of the archive after the generation.
+         *
+         * @return The archive size.
+         */
+        public int getArchiveSize() {
+            return archiveSize;
+        }
+    }
+}
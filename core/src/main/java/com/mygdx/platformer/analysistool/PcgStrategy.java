@@ -0,0 +1,52 @@
+package com.mygdx.platformer.analysistool;
+
+import java.util.SplittableRandom;
+
+/**
+ * Procedural Content Generation (PCG): every generation is drawn from
+ * scratch, independently of generation 0 and of each other.
+ * <p>
+ * The standalone PCG generations are the baseline the other strategies are
+ * compared against. Since no generation depends on another, a resumed run
+ * simply starts after the last completed one.
+ * </p>
+ *
+ * @see GenerationEngine#populatePCG(int)
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class PcgStrategy implements GenerationStrategy {
+
+    @Override
+    public String getName() {
+        return GenerationEngine.PCG;
+    }
+
+    @Override
+    public void generate(GenerationContext context, int generations) {
+        for (int gen = context.getCompletedGenerations() + 1; gen <= generations; gen++) {
+            context.emit(populate(context, gen), gen);
+        }
+    }
+
+    /**
+     * Draws a PCG generation as packed genomes.
+     *
+     * @param context    The context of the run.
+     * @param generation The generation number, used to derive the random streams.
+     * @return The generation.
+     */
+    static AttackPopulation populate(GenerationContext context, int generation) {
+        int attacksPerCompound = context.getAttacksPerCompound();
+        AttackPopulation population = new AttackPopulation(context.getCompoundCount(), attacksPerCompound);
+        long[] genomes = population.genomes();
+        context.forEachCompound(compoundId -> {
+            SplittableRandom random = context.streamFor(generation, compoundId);
+            int base = compoundId * attacksPerCompound;
+            for (int j = 0; j < attacksPerCompound; j++) {
+                genomes[base + j] = GenerationEngine.randomGenome(random);
+            }
+        });
+        return population;
+    }
+}
@@ -0,0 +1,282 @@
+package com.mygdx.platformer.analysistool;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Mergeable quantile sketch after Karnin, Lang and Liberty (KLL).
+ * <p>
+ * The sketch keeps a stack of compactors. Level {@code h} holds items of
+ * weight {@code 2^h}; when a level is full it is sorted and every other item,
+ * starting at a random offset, is promoted to the level above. Lower levels
+ * get geometrically smaller capacities, so the sketch retains at most about
+ * {@code 3k} items no matter how many values it has seen, and the rank of a
+ * returned quantile is off by about {@code 1.7 / k} of the count. With the
+ * default {@code k} of {@value #DEFAULT_K} that is below one percent.
+ * </p>
+ * <p>
+ * The offsets are drawn from a fixed seed, so the same values added and
+ * merged in the same order always give the same estimates.
+ * </p>
+ * <p>
+ * Sketches of disjoint parts of a stream are combined with
+ * {@link #merge(QuantileSketch)}, which is what lets parallel workers
+ * summarize their share of the classes independently. The count, minimum and
+ * maximum are exact. A sketch is not thread safe.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * QuantileSketch sketch = new QuantileSketch();
+ * values.forEach(sketch::add);
+ * double median = sketch.quantile(0.5);
+ * </pre>
+ *
+ * @see MetricsAggregator
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class QuantileSketch {
+
+    /** The default accuracy parameter, the capacity of the top level. */
+    public static final int DEFAULT_K = 200;
+
+    /** How much smaller each level is than the one above it. */
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+    /** The smallest capacity of any level. */
+    private static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private double[][] levels = new double[1][MIN_CAPACITY];
+    private int[] sizes = new int[1];
+    private int[] capacities;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private final SplittableRandom coin = new SplittableRandom(0x4B4C4CL);
+
+    /**
+     * Creates a sketch with the default accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates a sketch with an explicit accuracy.
+     *
+     * @param k The capacity of the top level; larger is more accurate.
+     * @throws IllegalArgumentException If {@code k} is below 8.
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ", was " + k);
+        }
+        this.k = k;
+        this.capacities = new int[] {k};
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value. {@code NaN} is ignored.
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds a value that occurs several times.
+     * <p>
+     * The value is placed once on every level whose weight is a bit of
+     * {@code weight}, so adding it costs at most one item per level rather
+     * than one per occurrence.
+     * </p>
+     *
+     * @param value  The value. {@code NaN} is ignored.
+     * @param weight The number of occurrences.
+     * @throws IllegalArgumentException If the weight is negative.
+     */
+    public void add(double value, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight: " + weight);
+        }
+        if (Double.isNaN(value) || weight == 0) {
+            return;
+        }
+        updateRange(value, value);
+        count += weight;
+        for (int level = 0; weight != 0; level++, weight >>>= 1) {
+            if ((weight & 1) != 0) {
+                append(level, value);
+            }
+        }
+        compress();
+    }
+
+    /**
+     * Adds every value of another sketch to this one.
+     *
+     * @param other The other sketch, which is not modified.
+     * @return This sketch.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return this;
+        }
+        updateRange(other.min, other.max);
+        count += other.count;
+        for (int level = 0; level < other.sizes.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        compress();
+        return this;
+    }
+
+    /**
+     * Estimates a quantile.
+     *
+     * @param q The quantile, between 0 and 1.
+     * @return The smallest retained value whose estimated rank reaches
+     *         {@code q} of the count, the exact minimum for 0 and maximum
+     *         for 1, or {@code NaN} if the sketch is empty.
+     * @throws IllegalArgumentException If {@code q} is not between 0 and 1.
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, was " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+        int retained = getRetainedCount();
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[n] = levels[level][i];
+                weights[n++] = 1L << level;
+            }
+        }
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double target = q * count;
+        long cumulative = 0;
+        for (int i : order) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Accessor for the number of values added.
+     *
+     * @return The count, with multiplicity.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Accessor for the smallest value added.
+     *
+     * @return The minimum, or {@code NaN} if the sketch is empty.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Accessor for the largest value added.
+     *
+     * @return The maximum, or {@code NaN} if the sketch is empty.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Accessor for the number of items the sketch holds.
+     *
+     * @return The retained item count, which stays around {@code 3k}.
+     */
+    public int getRetainedCount() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        return retained;
+    }
+
+    private void updateRange(double low, double high) {
+        if (count == 0) {
+            min = low;
+            max = high;
+        } else {
+            min = Math.min(min, low);
+            max = Math.max(max, high);
+        }
+    }
+
+    private void append(int level, double value) {
+        if (level >= levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            capacities = new int[level + 1];
+            for (int h = 0; h <= level; h++) {
+                if (levels[h] == null) {
+                    levels[h] = new double[MIN_CAPACITY];
+                }
+                capacities[h] = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, level - h)));
+            }
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Compacts full levels from the bottom up until every level fits its
+     * capacity.
+     */
+    private void compress() {
+        for (int level = 0; level < levels.length; level++) {
+            if (sizes[level] >= capacities[level]) {
+                compact(level);
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other item to the level above. With an
+     * odd size the lowest item stays behind, so no weight is lost.
+     */
+    private void compact(int level) {
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        int kept = size % 2;
+        for (int i = kept + (coin.nextBoolean() ? 1 : 0); i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+        sizes[level] = kept;
+    }
+}
@@ -0,0 +1,227 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Reuse-based Content Generation (RCG): every generation is recombined from
+ * the previous one, starting with the shared generation 0.
+ * <p>
+ * Each new compound is a copy of a host compound of the previous generation
+ * in which one attack is replaced by an attack of a donor compound. Hosts
+ * and donors are picked uniformly at random by default. With
+ * {@link GenerationEngine.Selection#TOURNAMENT} or
+ * {@link GenerationEngine.Selection#ROULETTE} selection they are picked by
+ * the fitness of the previous generation's compounds, the sum of the
+ * {@link FitnessEvaluator} scores of their attacks. Every RCG attack is a
+ * copy of a generation 0 attack, so the strategy tracks which one and only
+ * the generation 0 attacks are ever simulated.
+ * </p>
+ * <p>
+ * When the run records a lineage, the host, donor, donor slot and replaced
+ * slot of every compound are written to it.
+ * </p>
+ * <p>
+ * A resumed run continues from the last generation the checkpoint holds.
+ * Equal genomes have equal fitness, so the generation 0 attack an attack of
+ * that generation copies is looked up by its genome, and the recombination
+ * draws exactly what the interrupted run would have drawn.
+ * </p>
+ *
+ * @see LineageWriter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class RcgStrategy implements GenerationStrategy {
+
+    /** Compounds drawn per tournament in tournament selection. */
+    private static final int TOURNAMENT_SIZE = 3;
+
+    @Override
+    public String getName() {
+        return GenerationEngine.RCG;
+    }
+
+    @Override
+    public void generate(GenerationContext context, int generations) throws IOException {
+        int compoundCount = context.getCompoundCount();
+        LineageWriter lineage = context.getLineage();
+        int completed = context.getCompletedGenerations();
+        AttackPopulation population = context.getResumePopulation();
+        // the generation 0 attack every attack is a copy of, to look up its fitness
+        int[] origins = null;
+        float[] originFitness = null;
+        if (context.getSelection() != GenerationEngine.Selection.UNIFORM) {
+            origins = completed == 0
+                ? IntStream.range(0, population.size()).toArray()
+                : originsOf(population, context.getOrigin());
+            originFitness = context.getOriginFitness();
+        }
+        for (int gen = completed + 1; gen <= generations; gen++) {
+            int[][] parents = lineage != null ? new int[4][compoundCount] : null;
+            float[] fitness = originFitness != null
+                ? compoundFitness(origins, originFitness, context.getAttacksPerCompound(), compoundCount)
+                : null;
+            int[] nextOrigins = origins != null ? new int[origins.length] : null;
+            population = recombine(context, population, origins, nextOrigins, gen, parents, fitness);
+            origins = nextOrigins;
+            if (parents != null) {
+                lineage.write(gen, parents[0], parents[1], parents[2], parents[3]);
+            }
+            context.emit(population, gen);
+        }
+    }
+
+    /**
+     * Applies one RCG step to a generation of packed genomes.
+     * <p>
+     * With uniform selection this draws exactly what
+     * {@link GenerationEngine#generateRCG(java.util.List, int)} draws, so the
+     * recombined genomes describe the same generation. The other modes pick
+     * the host and donor by the fitness of the previous generation's
+     * compounds.
+     * </p>
+     *
+     * @param context     The context of the run.
+     * @param previous    The previous generation.
+     * @param origins     The generation 0 attack index of every attack of the
+     *                    previous generation, or {@code null}.
+     * @param nextOrigins Receives the generation 0 attack index of every
+     *                    attack of the new generation, or {@code null}.
+     * @param generation  The number of the generation being created.
+     * @param parents     Receives the host, donor, donor slot and replaced
+     *                    slot of every compound, or {@code null}.
+     * @param fitness     The fitness of every compound of the previous
+     *                    generation, or {@code null} for uniform selection.
+     * @return The new generation.
+     */
+    static AttackPopulation recombine(GenerationContext context, AttackPopulation previous, int[] origins,
+                                      int[] nextOrigins, int generation, int[][] parents, float[] fitness) {
+        int compoundCount = context.getCompoundCount();
+        int attacksPerCompound = context.getAttacksPerCompound();
+        long[] genomes = previous.genomes();
+        AttackPopulation population = new AttackPopulation(compoundCount, attacksPerCompound);
+        long[] next = population.genomes();
+        double[] cumulative = fitness != null && context.getSelection() == GenerationEngine.Selection.ROULETTE
+            ? cumulativeFitness(fitness)
+            : null;
+        context.forEachCompound(compoundId -> {
+            SplittableRandom random = context.streamFor(generation, compoundId);
+            int indexToReplace = random.nextInt(attacksPerCompound);
+            int host = compoundId;
+            int donor;
+            if (fitness == null) {
+                donor = random.nextInt(compoundCount);
+            } else {
+                host = select(random, fitness, cumulative);
+                donor = select(random, fitness, cumulative);
+            }
+            int donorAttack = random.nextInt(attacksPerCompound);
+
+            int base = compoundId * attacksPerCompound;
+            System.arraycopy(genomes, host * attacksPerCompound, next, base, attacksPerCompound);
+            next[base + indexToReplace] = genomes[donor * attacksPerCompound + donorAttack];
+            if (origins != null) {
+                System.arraycopy(origins, host * attacksPerCompound, nextOrigins, base, attacksPerCompound);
+                nextOrigins[base + indexToReplace] = origins[donor * attacksPerCompound + donorAttack];
+            }
+            if (parents != null) {
+                parents[0][compoundId] = host;
+                parents[1][compoundId] = donor;
+                parents[2][compoundId] = donorAttack;
+                parents[3][compoundId] = indexToReplace;
+            }
+        });
+        return population;
+    }
+
+    /**
+     * Finds a generation 0 attack with the same genome for every attack of a
+     * restored generation.
+     */
+    private static int[] originsOf(AttackPopulation population, AttackPopulation origin) throws IOException {
+        long[] originGenomes = origin.genomes();
+        int[] order = IntStream.range(0, originGenomes.length).boxed()
+            .sorted(Comparator.comparingLong(i -> originGenomes[i]))
+            .mapToInt(Integer::intValue).toArray();
+        long[] genomes = population.genomes();
+        int[] origins = new int[genomes.length];
+        for (int i = 0; i < genomes.length; i++) {
+            int low = 0;
+            int high = order.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (originGenomes[order[middle]] < genomes[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            if (order.length == 0 || originGenomes[order[low]] != genomes[i]) {
+                throw new IOException("Restored RCG attack " + i + " is not a copy of a generation 0 attack");
+            }
+            origins[i] = order[low];
+        }
+        return origins;
+    }
+
+    /**
+     * Sums the fitness of the attacks of every compound of a generation.
+     */
+    private static float[] compoundFitness(int[] origins, float[] originFitness, int attacksPerCompound,
+                                           int compoundCount) {
+        float[] fitness = new float[compoundCount];
+        for (int i = 0; i < origins.length; i++) {
+            fitness[i / attacksPerCompound] += originFitness[origins[i]];
+        }
+        return fitness;
+    }
+
+    private static double[] cumulativeFitness(float[] fitness) {
+        double[] cumulative = new double[fitness.length];
+        double total = 0;
+        for (int i = 0; i < fitness.length; i++) {
+            total += fitness[i];
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Picks a compound of the previous generation by tournament or roulette
+     * selection. Roulette falls back to a uniform pick if every compound has
+     * zero fitness.
+     */
+    private static int select(SplittableRandom random, float[] fitness, double[] cumulative) {
+        int compoundCount = fitness.length;
+        if (cumulative != null) {
+            double total = cumulative[cumulative.length - 1];
+            if (total <= 0) {
+                return random.nextInt(compoundCount);
+            }
+            // the first compound whose cumulative fitness exceeds the draw
+            double draw = random.nextDouble() * total;
+            int low = 0;
+            int high = compoundCount - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] > draw) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+        int best = random.nextInt(compoundCount);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            int candidate = random.nextInt(compoundCount);
+            if (fitness[candidate] > fitness[best]) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
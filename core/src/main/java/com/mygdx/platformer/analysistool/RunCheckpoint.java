@@ -0,0 +1,463 @@
+package com.mygdx.platformer.analysistool;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checkpoint of an analysis run of {@link AttackGenerationExporter}, from
+ * which an interrupted run is resumed.
+ * <p>
+ * The checkpoint holds the configuration of the run, the population of every
+ * completed generation and the status of every stage. A generation is
+ * complete once the sink has consumed all of its chunks and the export has
+ * been flushed to disk. Its population is then stored as packed genomes,
+ * eight bytes per attack, and recorded in the status file. Every file is
+ * written to a temporary file and moved into place, and a generation or stage
+ * is only recorded after its files are in place, so a run that stops at any
+ * point leaves a consistent checkpoint.
+ * </p>
+ * <p>
+ * A resumed run restores the configuration of the interrupted run, so the
+ * random seed, sizes and strategies cannot drift; only the parallelism and
+ * the worker JVMs may be changed. The export skips the completed generations, and recombining
+ * strategies continue from the last completed population instead of
+ * recombining the earlier generations again. Stages after the export that
+ * completed are skipped as a whole. The fitness of generation 0, which
+ * tournament and roulette selection simulate, is stored as well.
+ * </p>
+ * <p>
+ * A checkpoint is safe to use from the concurrent strategies of a run.
+ * </p>
+ *
+ * <h2>Output Structure</h2>
+ * <ul>
+ * <li>out/generated/checkpoint/run.properties &ndash; the configuration, see
+ * {@link AnalysisConfig}</li>
+ * <li>out/generated/checkpoint/status.csv &ndash; one
+ * {@code Stage;Method;Generation} row per completed generation or stage</li>
+ * <li>out/generated/checkpoint/{method}_gen{generation}.pop &ndash; the
+ * population of a completed generation</li>
+ * <li>out/generated/checkpoint/origin_fitness.bin &ndash; the fitness of
+ * every generation 0 attack</li>
+ * </ul>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * RunCheckpoint checkpoint = config.isResume() ? RunCheckpoint.resume(config) : RunCheckpoint.create(config);
+ * if (!checkpoint.isComplete(RunCheckpoint.ANALYZE)) {
+ *     CodeMetricsAnalyzer.analyzeExport(outputDirectory);
+ *     checkpoint.complete(RunCheckpoint.ANALYZE);
+ * }
+ * </pre>
+ *
+ * @see GenerationEngine#run(int, Set, GenerationSink, LineageWriter, RunCheckpoint)
+ * @see AttackPopulation
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class RunCheckpoint {
+
+    /** Name of the checkpoint directory within the export root. */
+    public static final String DIRECTORY = "checkpoint";
+
+    /** The export of every generation, including the trajectories. */
+    public static final String EXPORT = "export";
+
+    /** The code metrics of {@link CodeMetricsAnalyzer}. */
+    public static final String ANALYZE = "analyze";
+
+    /** The coverage of {@link CoverageCollector}. */
+    public static final String COVERAGE = "coverage";
+
+    /** The similarity of {@link SimilarityAnalyzer}. */
+    public static final String SIMILARITY = "similarity";
+
+    static final String CONFIG_FILE = "run.properties";
+    static final String STATUS_FILE = "status.csv";
+    static final String FITNESS_FILE = "origin_fitness.bin";
+
+    private static final String HEADER = "Stage;Method;Generation";
+    private static final String GENERATION = "generation";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    static final int POPULATION_MAGIC = 0x50434750; // "PCGP"
+    static final int FITNESS_MAGIC = 0x50434746; // "PCGF"
+    static final int VERSION = 1;
+
+    /** Magic, version, compound count, attacks per compound and generation. */
+    private static final int POPULATION_HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final AnalysisConfig config;
+    private final Map<String, BitSet> generations = new TreeMap<>();
+    private final Set<String> stages = new HashSet<>();
+    private volatile Flushable output;
+    private volatile GenerationSink replay;
+
+    private RunCheckpoint(Path directory, AnalysisConfig config) {
+        this.directory = directory;
+        this.config = config;
+    }
+
+    /**
+     * Starts the checkpoint of a new run in its export directory, replacing
+     * any previous checkpoint there.
+     *
+     * @param config The configuration of the run.
+     * @return The empty checkpoint.
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    public static RunCheckpoint create(AnalysisConfig config) throws IOException {
+        Path directory = config.getOutputDirectory().resolve(DIRECTORY);
+        if (Files.isDirectory(directory)) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(directory)) {
+                files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.createDirectories(directory);
+        StringWriter properties = new StringWriter();
+        config.toProperties().store(properties, "Analysis run configuration");
+        writeAtomically(directory.resolve(CONFIG_FILE), properties.toString().getBytes(StandardCharsets.UTF_8));
+        writeAtomically(directory.resolve(STATUS_FILE), (HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+        return new RunCheckpoint(directory, config);
+    }
+
+    /**
+     * Opens the checkpoint of an interrupted run.
+     * <p>
+     * The returned checkpoint carries the configuration of the interrupted
+     * run, with the parallelism and workers of the given configuration and
+     * {@code resume} set.
+     * </p>
+     *
+     * @param config The configuration of the resuming run; only its export
+     *               directory, parallelism and workers are used.
+     * @return The checkpoint.
+     * @throws IOException If there is no checkpoint in the export directory
+     *                     or it cannot be read.
+     */
+    public static RunCheckpoint resume(AnalysisConfig config) throws IOException {
+        Path directory = config.getOutputDirectory().resolve(DIRECTORY);
+        Path statusFile = directory.resolve(STATUS_FILE);
+        if (!Files.exists(statusFile)) {
+            throw new IOException("No checkpoint to resume in " + directory);
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(CONFIG_FILE), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        properties.setProperty("output", config.getOutputDirectory().toString());
+        properties.setProperty("parallelism", Integer.toString(config.getParallelism()));
+        properties.setProperty("workers", Integer.toString(config.getWorkers()));
+        properties.setProperty("workerHeap", config.getWorkerHeap());
+        properties.setProperty("resume", "true");
+        RunCheckpoint checkpoint = new RunCheckpoint(directory, AnalysisConfig.fromProperties(properties));
+
+        String status = Files.readString(statusFile, StandardCharsets.UTF_8);
+        // a row is only complete with its line break, anything after the last one was cut off
+        String complete = status.substring(0, status.lastIndexOf('\n') + 1);
+        String[] rows = complete.split("\n");
+        if (rows.length == 0 || !HEADER.equals(rows[0])) {
+            throw new IOException("Not a checkpoint status file: " + statusFile);
+        }
+        if (complete.length() < status.length()) {
+            // drop the torn row, or the next row would be appended to it
+            writeAtomically(statusFile, complete.getBytes(StandardCharsets.UTF_8));
+        }
+        for (int i = 1; i < rows.length; i++) {
+            String[] values = rows[i].split(";", -1);
+            if (values.length != 3) {
+                throw new IOException("Malformed checkpoint status line in " + statusFile + ": " + rows[i]);
+            }
+            if (GENERATION.equals(values[0])) {
+                checkpoint.generations.computeIfAbsent(values[1], m -> new BitSet())
+                    .set(Integer.parseInt(values[2]));
+            } else {
+                checkpoint.stages.add(values[0]);
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Accessor for the configuration of the run.
+     *
+     * @return The configuration, restored from the checkpoint when resumed.
+     */
+    public AnalysisConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Sets the output that must be flushed before a generation is recorded
+     * as complete, typically the {@link AttackExporter}.
+     *
+     * @param output The output, or {@code null} if the sink writes nothing
+     *               that needs flushing.
+     */
+    public void setOutput(Flushable output) {
+        this.output = output;
+    }
+
+    /**
+     * Sets the sink that receives the generations a resumed run skips.
+     * <p>
+     * Sinks that keep their results in memory until the end of the run, like
+     * the {@link TrajectoryProfiler}, lose them when a run is interrupted.
+     * The engine hands them the stored populations of the completed
+     * generations again, while the export itself skips them.
+     * </p>
+     *
+     * @param replay The sink, or {@code null} to not replay skipped
+     *               generations.
+     */
+    public void setReplay(GenerationSink replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * Accessor for the sink of skipped generations.
+     *
+     * @return The sink, or {@code null}.
+     */
+    public GenerationSink getReplay() {
+        return replay;
+    }
+
+    /**
+     * Checks whether a stage has completed.
+     *
+     * @param stage The stage, e.g. {@link #ANALYZE}.
+     * @return {@code true} if the stage is recorded as complete.
+     */
+    public synchronized boolean isComplete(String stage) {
+        return stages.contains(stage);
+    }
+
+    /**
+     * Records a stage as complete.
+     *
+     * @param stage The stage, e.g. {@link #ANALYZE}.
+     * @throws IOException If the status cannot be written.
+     */
+    public synchronized void complete(String stage) throws IOException {
+        if (stages.add(stage)) {
+            appendStatus(stage + ";;");
+        }
+    }
+
+    /**
+     * Checks whether a generation has been exported.
+     *
+     * @param method     The generation method.
+     * @param generation The generation number.
+     * @return {@code true} if the generation is recorded as complete.
+     */
+    public synchronized boolean isComplete(String method, int generation) {
+        BitSet completed = generations.get(method);
+        return completed != null && completed.get(generation);
+    }
+
+    /**
+     * Returns how far a strategy got without a gap.
+     *
+     * @param method The generation method.
+     * @return The last generation up to which every generation from 1 on is
+     *         complete, or 0 if generation 1 is not.
+     */
+    public synchronized int getResumeGeneration(String method) {
+        BitSet completed = generations.get(method);
+        return completed == null ? 0 : Math.max(0, completed.nextClearBit(1) - 1);
+    }
+
+    /**
+     * Accessor for every completed generation.
+     *
+     * @return The completed generations by method, including the generation
+     *         0 of {@link GenerationEngine#PCG}.
+     */
+    public synchronized SortedMap<String, SortedSet<Integer>> getCompletedGenerations() {
+        SortedMap<String, SortedSet<Integer>> result = new TreeMap<>();
+        generations.forEach((method, completed) -> result.put(method, Collections.unmodifiableSortedSet(
+            completed.stream().boxed().collect(Collectors.toCollection(TreeSet::new)))));
+        return result;
+    }
+
+    /**
+     * Records a generation as complete after flushing the output and storing
+     * its population.
+     *
+     * @param method     The generation method.
+     * @param generation The generation number.
+     * @param population The population of the generation.
+     * @throws IOException If the output cannot be flushed or the checkpoint
+     *                     cannot be written.
+     */
+    public void complete(String method, int generation, AttackPopulation population) throws IOException {
+        Flushable flushable = output;
+        if (flushable != null) {
+            flushable.flush();
+        }
+        writePopulation(populationFile(method, generation), population, generation);
+        synchronized (this) {
+            appendStatus(GENERATION + ";" + method + ";" + generation);
+            generations.computeIfAbsent(method, m -> new BitSet()).set(generation);
+        }
+    }
+
+    /**
+     * Reads the stored population of a completed generation.
+     *
+     * @param method     The generation method.
+     * @param generation The generation number.
+     * @return The population.
+     * @throws IOException If the generation is not stored or does not match
+     *                     the run.
+     */
+    public AttackPopulation restore(String method, int generation) throws IOException {
+        Path file = populationFile(method, generation);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(POPULATION_HEADER_SIZE);
+            readFully(channel, buffer, file);
+            buffer.flip();
+            if (buffer.getInt() != POPULATION_MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != config.getCompoundCount()
+                    || buffer.getInt() != config.getAttacksPerCompound() || buffer.getInt() != generation) {
+                throw new IOException("Population file " + file + " does not belong to this run");
+            }
+            AttackPopulation population = new AttackPopulation(config.getCompoundCount(),
+                config.getAttacksPerCompound());
+            long[] genomes = population.genomes();
+            for (int from = 0; from < genomes.length; ) {
+                int count = Math.min(genomes.length - from, BUFFER_SIZE / Long.BYTES);
+                buffer.clear().limit(count * Long.BYTES);
+                readFully(channel, buffer, file);
+                buffer.flip();
+                buffer.asLongBuffer().get(genomes, from, count);
+                from += count;
+            }
+            return population;
+        }
+    }
+
+    /**
+     * Stores the fitness of every generation 0 attack.
+     *
+     * @param fitness The fitness, by flat attack index.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveOriginFitness(float[] fitness) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + fitness.length * Float.BYTES);
+        buffer.putInt(FITNESS_MAGIC).putInt(VERSION).putInt(fitness.length);
+        buffer.asFloatBuffer().put(fitness);
+        writeAtomically(directory.resolve(FITNESS_FILE), buffer.array());
+    }
+
+    /**
+     * Reads the stored fitness of generation 0.
+     *
+     * @return The fitness by flat attack index, or {@code null} if it was not
+     *         stored.
+     * @throws IOException If the file cannot be read or does not match the
+     *                     run.
+     */
+    public float[] restoreOriginFitness() throws IOException {
+        Path file = directory.resolve(FITNESS_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        int count = config.getCompoundCount() * config.getAttacksPerCompound();
+        if (buffer.remaining() != 3 * Integer.BYTES + count * Float.BYTES || buffer.getInt() != FITNESS_MAGIC
+                || buffer.getInt() != VERSION || buffer.getInt() != count) {
+            throw new IOException("Fitness file " + file + " does not belong to this run");
+        }
+        float[] fitness = new float[count];
+        buffer.asFloatBuffer().get(fitness);
+        return fitness;
+    }
+
+    private Path populationFile(String method, int generation) {
+        return directory.resolve(method.toLowerCase() + "_gen" + generation + ".pop");
+    }
+
+    private void appendStatus(String row) throws IOException {
+        Files.writeString(directory.resolve(STATUS_FILE), row + "\n", StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Writes a population in blocks, so that no second copy of it is held in
+     * memory.
+     */
+    private static void writePopulation(Path file, AttackPopulation population, int generation) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+        long[] genomes = population.genomes();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(POPULATION_MAGIC).putInt(VERSION).putInt(population.getCompoundCount())
+                .putInt(population.getAttacksPerCompound()).putInt(generation);
+            buffer.flip();
+            writeFully(channel, buffer);
+            for (int from = 0; from < genomes.length; ) {
+                int count = Math.min(genomes.length - from, BUFFER_SIZE / Long.BYTES);
+                buffer.clear();
+                buffer.asLongBuffer().put(genomes, from, count);
+                buffer.limit(count * Long.BYTES);
+                writeFully(channel, buffer);
+                from += count;
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+        Files.write(temporary, content);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated population file " + file);
+            }
+        }
+    }
+}
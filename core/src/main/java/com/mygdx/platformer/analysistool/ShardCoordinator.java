@@ -0,0 +1,414 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.analysistool.CoverageCollector.ClassCoverage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Runs the code metrics and coverage stages of an export in several worker
+ * JVMs.
+ * <p>
+ * Compiling, executing and measuring millions of generated classes in one
+ * JVM runs into heap and garbage collection limits long before it runs out
+ * of cores. The coordinator therefore splits the work into shards, launches
+ * {@link ShardWorker} processes with a heap of their own and merges what they
+ * computed into the usual result files.
+ * </p>
+ * <p>
+ * A shard is a run of consecutive compounds of one generation, in the order
+ * of the {@link ExportManifest}. Each unique class body is analysed in the
+ * shard in which it first occurs, so bodies that RCG copies into later
+ * generations are not analysed again, and bodies whose metrics are cached
+ * are left out unless their coverage is needed. The shards are handed out
+ * through a work queue in the file system: every shard is a manifest file in
+ * {@code shards/queue/}, and a worker claims one by atomically moving it to
+ * {@code shards/claimed/}, tagged with the name of the worker. The result of
+ * a shard is moved into {@code shards/results/} before the claim is
+ * released, so a shard is always either queued, claimed or done.
+ * </p>
+ * <p>
+ * The coordinator watches its workers. When one exits with claimed shards,
+ * e.g. because it ran out of memory or was killed, they go back to the queue
+ * and a new worker is started while shards are left. A shard that has been
+ * claimed by {@value #MAX_ATTEMPTS} workers that all died fails the run.
+ * </p>
+ * <p>
+ * The merged metrics are added to the metrics cache and the merged coverage
+ * is handed to {@link CoverageCollector}, so {@link CodeMetricsAnalyzer} and
+ * {@link CoverageCollector} then write the same files as an analysis in one
+ * JVM, summaries included, without analysing a class again.
+ * </p>
+ *
+ * <h2>Output Structure</h2>
+ * <ul>
+ * <li>out/generated/shards/queue/, claimed/ and results/ &ndash; the work
+ * queue, removed when the analysis completes</li>
+ * <li>out/generated/shards/logs/{worker}.log &ndash; the output of every
+ * worker</li>
+ * </ul>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * ShardCoordinator coordinator = new ShardCoordinator(Path.of("out/generated"), 8, "2g",
+ *     ShardCoordinator.DEFAULT_SHARD_SIZE);
+ * coordinator.analyzeExport(true, true);
+ * </pre>
+ *
+ * @see ShardWorker
+ * @see AnalysisConfig#getWorkers()
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class ShardCoordinator {
+
+    /** Name of the work queue directory below the export directory. */
+    public static final String DIRECTORY = "shards";
+
+    /** The default number of unique class bodies per shard. */
+    public static final int DEFAULT_SHARD_SIZE = 1000;
+
+    /** How many workers may die while holding a shard before the run fails. */
+    static final int MAX_ATTEMPTS = 3;
+
+    static final String QUEUE = "queue";
+    static final String CLAIMED = "claimed";
+    static final String RESULTS = "results";
+    static final String LOGS = "logs";
+
+    /** Header of the result file of a shard; the columns of a skipped stage are empty. */
+    static final String RESULT_HEADER =
+        "Hash;LOC;Complexity;CognitiveComplexity;NestingDepth;CoveredLines;MissedLines;CoveredBranches;MissedBranches";
+
+    private static final long POLL_MILLIS = 50;
+
+    private final Path exportDirectory;
+    private final Path directory;
+    private final int workers;
+    private final String heap;
+    private final int shardSize;
+    private String classPath = System.getProperty("java.class.path");
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private int launched;
+    private int reassigned;
+
+    /**
+     * Creates a coordinator for an export.
+     *
+     * @param exportDirectory The export root (e.g., {@code out/generated}).
+     * @param workers         The number of worker JVMs to run at a time.
+     * @param heap            The maximum heap of every worker, as for
+     *                        {@code -Xmx} (e.g., {@code 2g}).
+     * @param shardSize       The number of unique class bodies per shard.
+     * @throws IllegalArgumentException If the worker count or shard size is
+     *                                  not positive.
+     */
+    public ShardCoordinator(Path exportDirectory, int workers, String heap, int shardSize) {
+        if (workers <= 0 || shardSize <= 0) {
+            throw new IllegalArgumentException("Workers and shard size must be positive, were " + workers + " and "
+                + shardSize);
+        }
+        this.exportDirectory = exportDirectory;
+        this.directory = exportDirectory.resolve(DIRECTORY);
+        this.workers = workers;
+        this.heap = heap;
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Sets the class path of the worker JVMs.
+     *
+     * @param classPath The class path; by default the class path of this
+     *                  JVM.
+     */
+    public void setClassPath(String classPath) {
+        this.classPath = classPath;
+    }
+
+    /**
+     * Accessor for the number of worker JVMs started, including the ones
+     * that replaced crashed workers.
+     *
+     * @return The launched worker count.
+     */
+    public int getLaunchedCount() {
+        return launched;
+    }
+
+    /**
+     * Accessor for the number of times a shard was put back into the queue
+     * because its worker died.
+     *
+     * @return The reassigned shard count.
+     */
+    public int getReassignedCount() {
+        return reassigned;
+    }
+
+    /**
+     * Analyses an export in the worker JVMs and writes the results next to
+     * the export, like {@link CodeMetricsAnalyzer#analyzeExport(Path)} and
+     * {@link CoverageCollector#collectExport(Path)}.
+     *
+     * @param metrics  Whether to compute the code metrics.
+     * @param coverage Whether to collect the coverage.
+     * @throws IOException If the export has no manifest, a shard fails in
+     *                     every attempt or the results cannot be written.
+     */
+    public void analyzeExport(boolean metrics, boolean coverage) throws IOException {
+        if (!ExportManifest.exists(exportDirectory)) {
+            throw new IOException("Sharded analysis needs the export manifest in " + exportDirectory);
+        }
+        int shards = plan(metrics, coverage);
+        if (shards > 0) {
+            run(shards, metrics, coverage);
+        }
+
+        Map<String, CodeMetrics> metricsByHash = new HashMap<>();
+        Map<String, ClassCoverage> coverageByHash = new HashMap<>();
+        readResults(metricsByHash, coverageByHash);
+        if (metrics) {
+            CodeMetricsAnalyzer.addToCache(exportDirectory, metricsByHash);
+            CodeMetricsAnalyzer.analyzeExport(exportDirectory);
+        }
+        if (coverage) {
+            CoverageCollector.collectExport(exportDirectory, coverageByHash);
+        }
+        for (String queue : List.of(QUEUE, CLAIMED, RESULTS)) {
+            deleteTree(directory.resolve(queue));
+        }
+    }
+
+    /**
+     * Writes a shard file into the queue for every run of compounds of a
+     * generation that holds {@link #shardSize} unique class bodies. Shards
+     * left over from an earlier run are discarded.
+     *
+     * @return The number of shards.
+     */
+    private int plan(boolean metrics, boolean coverage) throws IOException {
+        deleteTree(directory);
+        for (String queue : List.of(QUEUE, CLAIMED, RESULTS, LOGS)) {
+            Files.createDirectories(directory.resolve(queue));
+        }
+        if (!metrics && !coverage) {
+            return 0;
+        }
+        // without coverage, bodies with cached metrics need no work
+        Set<String> seen = coverage ? new HashSet<>() : new HashSet<>(CodeMetricsAnalyzer.readCache(exportDirectory)
+            .keySet());
+
+        int shards = 0;
+        int total = 0;
+        StringBuilder shard = new StringBuilder();
+        int bodies = 0;
+        AttackKey first = null;
+        AttackKey previous = null;
+        for (Map.Entry<AttackKey, String> entry : ExportManifest.read(exportDirectory).entrySet()) {
+            AttackKey key = entry.getKey();
+            // shards end between compounds, and never span generations
+            if (first != null && (!key.getMethod().equals(first.getMethod())
+                    || key.getGeneration() != first.getGeneration()
+                    || (bodies >= shardSize && key.getCompound() != previous.getCompound()))) {
+                writeShard(first, shard);
+                shards++;
+                shard.setLength(0);
+                bodies = 0;
+                first = null;
+            }
+            if (seen.add(entry.getValue())) {
+                if (first == null) {
+                    first = key;
+                }
+                ExportManifest.appendLine(shard, key, entry.getValue());
+                bodies++;
+                total++;
+            }
+            previous = key;
+        }
+        if (first != null) {
+            writeShard(first, shard);
+            shards++;
+        }
+        System.out.println("Split " + total + " unique class bodies into " + shards + " shards");
+        return shards;
+    }
+
+    private void writeShard(AttackKey first, CharSequence lines) throws IOException {
+        Path name = ExportManifest.fileOf(exportDirectory, first.getGeneration(), first.getMethod(),
+            first.getCompound()).getFileName();
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(QUEUE).resolve(name),
+                StandardCharsets.UTF_8)) {
+            writer.write(ExportManifest.HEADER + "\n");
+            writer.append(lines);
+        }
+    }
+
+    /**
+     * Keeps {@link #workers} workers running until every shard has a
+     * result, putting the shards of workers that die back into the queue.
+     */
+    private void run(int shards, boolean metrics, boolean coverage) throws IOException {
+        Map<String, Process> running = new HashMap<>();
+        int idleFailures = 0;
+        try {
+            while (true) {
+                for (Iterator<Map.Entry<String, Process>> it = running.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Process> worker = it.next();
+                    if (worker.getValue().isAlive()) {
+                        continue;
+                    }
+                    it.remove();
+                    int released = release(worker.getKey());
+                    int exitCode = worker.getValue().exitValue();
+                    if (exitCode != 0) {
+                        System.err.println(worker.getKey() + " exited with code " + exitCode + ", reassigned "
+                            + released + " shards");
+                        if (released == 0 && ++idleFailures >= MAX_ATTEMPTS) {
+                            throw new IOException("Workers exit without analysing a shard, see "
+                                + directory.resolve(LOGS));
+                        }
+                    }
+                }
+                if (count(RESULTS) == shards) {
+                    break;
+                }
+                boolean queued = count(QUEUE) > 0;
+                while (queued && running.size() < workers) {
+                    String worker = "worker" + ++launched;
+                    running.put(worker, launch(worker, metrics, coverage));
+                }
+                if (running.isEmpty()) {
+                    throw new IOException((shards - count(RESULTS)) + " of " + shards + " shards were not analysed");
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the workers");
+        } finally {
+            running.values().forEach(Process::destroyForcibly);
+        }
+        System.out.println("Analysed " + shards + " shards in " + launched + " worker JVMs, reassigned "
+            + reassigned);
+    }
+
+    private Process launch(String worker, boolean metrics, boolean coverage) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + heap);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(ShardWorker.class.getName());
+        command.add(exportDirectory.toAbsolutePath().toString());
+        command.add(worker);
+        command.add(Boolean.toString(metrics));
+        command.add(Boolean.toString(coverage));
+        return new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(directory.resolve(LOGS).resolve(worker + ".log")
+                .toFile()))
+            .start();
+    }
+
+    /**
+     * Puts the shards a dead worker claimed back into the queue.
+     *
+     * @return The number of shards put back.
+     * @throws IOException If a shard has been claimed by too many workers.
+     */
+    private int release(String worker) throws IOException {
+        int released = 0;
+        try (DirectoryStream<Path> claims = Files.newDirectoryStream(directory.resolve(CLAIMED), "*." + worker)) {
+            for (Path claim : claims) {
+                String claimName = claim.getFileName().toString();
+                String shard = claimName.substring(0, claimName.length() - worker.length() - 1);
+                if (Files.exists(directory.resolve(RESULTS).resolve(shard))) {
+                    // the worker died after writing the result
+                    Files.delete(claim);
+                    continue;
+                }
+                int attempt = attempts.merge(shard, 1, Integer::sum);
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new IOException("Shard " + shard + " failed in " + attempt + " workers, see "
+                        + directory.resolve(LOGS));
+                }
+                Files.move(claim, directory.resolve(QUEUE).resolve(shard), StandardCopyOption.ATOMIC_MOVE);
+                released++;
+            }
+        }
+        reassigned += released;
+        return released;
+    }
+
+    private int count(String queue) throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve(queue))) {
+            return (int) files.filter(p -> p.toString().endsWith(".csv")).count();
+        }
+    }
+
+    /**
+     * Reads the result files of every shard.
+     */
+    private void readResults(Map<String, CodeMetrics> metrics, Map<String, ClassCoverage> coverage)
+            throws IOException {
+        Path results = directory.resolve(RESULTS);
+        if (!Files.isDirectory(results)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(results, "*.csv")) {
+            for (Path file : files) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line = reader.readLine();
+                    if (!RESULT_HEADER.equals(line)) {
+                        throw new IOException("Not a shard result file: " + file);
+                    }
+                    while ((line = reader.readLine()) != null) {
+                        String[] values = line.split(";", -1);
+                        if (values.length != 9) {
+                            throw new IOException("Malformed shard result line in " + file + ": " + line);
+                        }
+                        if (!values[1].isEmpty()) {
+                            metrics.put(values[0], new CodeMetrics(Integer.parseInt(values[1]),
+                                Integer.parseInt(values[2]), Integer.parseInt(values[3]),
+                                Integer.parseInt(values[4])));
+                        }
+                        if (!values[5].isEmpty()) {
+                            coverage.put(values[0], new ClassCoverage(Integer.parseInt(values[5]),
+                                Integer.parseInt(values[6]), Integer.parseInt(values[7]),
+                                Integer.parseInt(values[8])));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.analysistool.CoverageCollector.ClassCoverage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Worker process of a {@link ShardCoordinator}.
+ * <p>
+ * A worker claims shards from the work queue of an export until the queue is
+ * empty. For every class body of a shard it computes the code metrics with
+ * {@link CodeMetricsAnalyzer#analyze(CharSequence)} and the coverage with
+ * {@link CoverageCollector#collect(Map)}; the sources of a shard are compiled
+ * together by {@link InMemoryCompiler}, unless their class files were
+ * exported. The results are written to a temporary file and moved into
+ * {@code shards/results/} before the claim is released.
+ * </p>
+ * <p>
+ * Any error ends the worker with exit code 1 and leaves its claim behind,
+ * for the coordinator to hand the shard to another worker.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * java -Xmx2g -cp ... com.mygdx.platformer.analysistool.ShardWorker out/generated worker1 true true
+ * </pre>
+ *
+ * @see ShardCoordinator
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class ShardWorker {
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Analyses shards until the queue is empty.
+     *
+     * @param args The export directory, the name of the worker, and whether
+     *             to compute the metrics and the coverage.
+     */
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: ShardWorker <exportDirectory> <worker> <metrics> <coverage>");
+            System.exit(2);
+        }
+        try {
+            int shards = run(Path.of(args[0]), args[1], Boolean.parseBoolean(args[2]), Boolean.parseBoolean(args[3]));
+            System.out.println(args[1] + " analysed " + shards + " shards");
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static int run(Path exportDirectory, String worker, boolean metrics, boolean coverage)
+            throws IOException {
+        Path directory = exportDirectory.resolve(ShardCoordinator.DIRECTORY);
+        ContentStore store = new ContentStore(exportDirectory);
+        int analysed = 0;
+        Path claim;
+        while ((claim = claim(directory, worker)) != null) {
+            String claimName = claim.getFileName().toString();
+            String shard = claimName.substring(0, claimName.length() - worker.length() - 1);
+            long start = System.nanoTime();
+            Map<String, AttackKey> bodies = readShard(claim);
+            List<String> rows = analyze(exportDirectory, store, bodies, metrics, coverage);
+
+            Path temporary = directory.resolve(ShardCoordinator.CLAIMED).resolve(claimName + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(ShardCoordinator.RESULT_HEADER + "\n");
+                for (String row : rows) {
+                    writer.write(row);
+                    writer.write('\n');
+                }
+            }
+            Files.move(temporary, directory.resolve(ShardCoordinator.RESULTS).resolve(shard),
+                StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(claim);
+            analysed++;
+            System.out.println(worker + " analysed " + bodies.size() + " class bodies of " + shard + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return analysed;
+    }
+
+    /**
+     * Claims the first queued shard another worker has not claimed first.
+     *
+     * @return The claimed shard file, or {@code null} if the queue is empty.
+     */
+    private static Path claim(Path directory, String worker) throws IOException {
+        List<Path> queued;
+        try (Stream<Path> files = Files.list(directory.resolve(ShardCoordinator.QUEUE))) {
+            queued = files.sorted().collect(Collectors.toList());
+        }
+        for (Path shard : queued) {
+            Path claim = directory.resolve(ShardCoordinator.CLAIMED).resolve(shard.getFileName() + "." + worker);
+            try {
+                Files.move(shard, claim, StandardCopyOption.ATOMIC_MOVE);
+                return claim;
+            } catch (NoSuchFileException e) {
+                // claimed by another worker
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the class bodies of a shard.
+     *
+     * @return The first attack of every body, by hash.
+     */
+    private static Map<String, AttackKey> readShard(Path file) throws IOException {
+        Map<String, AttackKey> bodies = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!ExportManifest.HEADER.equals(line)) {
+                throw new IOException("Not a shard file: " + file);
+            }
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(";");
+                if (values.length != 5) {
+                    throw new IOException("Malformed shard line in " + file + ": " + line);
+                }
+                bodies.put(values[4], new AttackKey(values[0], Integer.parseInt(values[1]),
+                    Integer.parseInt(values[2]), Integer.parseInt(values[3])));
+            }
+        }
+        return bodies;
+    }
+
+    /**
+     * Analyses the class bodies of a shard.
+     *
+     * @return One result row per body, in the format of
+     *         {@link ShardCoordinator#RESULT_HEADER}.
+     */
+    private static List<String> analyze(Path exportDirectory, ContentStore store, Map<String, AttackKey> bodies,
+                                        boolean metrics, boolean coverage) throws IOException {
+        Map<String, CodeMetrics> metricsByHash = new HashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        Map<String, byte[]> classBytes = new HashMap<>();
+        for (Map.Entry<String, AttackKey> body : bodies.entrySet()) {
+            String hash = body.getKey();
+            AttackKey key = body.getValue();
+            boolean emitted = coverage && CoverageCollector.readClassFile(exportDirectory, key, classBytes);
+            if (!metrics && emitted) {
+                continue;
+            }
+            String source = Files.exists(store.pathOf(hash))
+                ? store.readSource(hash, key)
+                : Files.readString(exportDirectory.resolve(key.toPath()), StandardCharsets.UTF_8);
+            if (metrics) {
+                metricsByHash.put(hash, CodeMetricsAnalyzer.analyze(source));
+            }
+            if (coverage && !emitted) {
+                sources.put(key.toClassName(), source);
+            }
+        }
+
+        Map<String, ClassCoverage> coverageByClass = Map.of();
+        if (coverage) {
+            if (!sources.isEmpty()) {
+                CompiledClasses compiled = new InMemoryCompiler().compile(sources);
+                if (!compiled.isSuccess()) {
+                    throw new IOException("Generated attacks do not compile:\n"
+                        + String.join("\n", compiled.getErrors()));
+                }
+                classBytes.putAll(compiled.getClassBytes());
+            }
+            coverageByClass = CoverageCollector.collect(classBytes);
+        }
+
+        List<String> rows = new ArrayList<>(bodies.size());
+        for (Map.Entry<String, AttackKey> body : bodies.entrySet()) {
+            CodeMetrics codeMetrics = metricsByHash.get(body.getKey());
+            ClassCoverage classCoverage = coverageByClass.get(body.getValue().toClassName());
+            rows.add(body.getKey() + ";" + (codeMetrics != null ? codeMetrics : ";;;") + ";"
+                + (classCoverage != null ? classCoverage : ";;;"));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,532 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.analysistool.JavaLexer.Token;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures how similar the attack classes within each generation are, to
+ * compare how quickly RCG generations converge with fresh PCG generations.
+ * <p>
+ * Comparing every pair of classes is quadratic in the size of a generation.
+ * Instead, every class is reduced to a MinHash signature: its source is
+ * tokenized with the lexer of {@link CodeMetricsAnalyzer}, starting at the
+ * class body so that package and class names do not count, and every run of
+ * {@value #SHINGLE_SIZE} consecutive tokens is one shingle. The fraction of
+ * equal entries of two signatures estimates the Jaccard similarity of their
+ * shingle sets.
+ * </p>
+ * <p>
+ * The distribution that is measured is that of the similarity of every
+ * attack to its closest sibling in the same generation. Candidates come from
+ * locality-sensitive hashing: each signature is cut into {@value #BANDS}
+ * bands, and a class is only compared with classes that agree on all rows of
+ * at least one band, which finds the siblings with a similarity above about
+ * 0.4. Large buckets are sampled, so the work stays linear in the size of a
+ * generation even when most of its classes are alike. Classes with equal
+ * signatures are collapsed first. Signatures are computed in parallel, and
+ * generations are bucketed in parallel.
+ * </p>
+ * <p>
+ * An attack without a candidate has a closest similarity of 0. The results
+ * are written into the export directory as {@code similarity.csv}, one row
+ * per generation with the number of attacks, unique signatures and
+ * comparisons, the share of attacks with a near duplicate (similarity of at
+ * least {@value #SIMILAR_THRESHOLD}), the mean closest similarity and a
+ * histogram of it in ten bins of 0.1. Per class, {@code similarity.col}
+ * records the closest similarity in permille.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * SimilarityAnalyzer.analyzeExport(Path.of("out/generated"));
+ * </pre>
+ *
+ * @see CodeMetricsAnalyzer
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class SimilarityAnalyzer {
+
+    /** Name of the per-generation similarity file written into the export directory. */
+    public static final String SIMILARITY_FILE = "similarity.csv";
+
+    /**
+     * Name of the per-class similarity file in the columnar format of
+     * {@link ColumnarResultWriter}, written next to {@link #SIMILARITY_FILE}.
+     */
+    public static final String SIMILARITY_COLUMNS_FILE = "similarity.col";
+
+    /** The number of consecutive tokens in a shingle. */
+    public static final int SHINGLE_SIZE = 5;
+
+    /** The number of hash functions, and entries, of a signature. */
+    public static final int SIGNATURE_LENGTH = 128;
+
+    /** The number of LSH bands a signature is cut into. */
+    public static final int BANDS = 32;
+
+    /** The similarity from which two classes count as near duplicates. */
+    public static final double SIMILAR_THRESHOLD = 0.8;
+
+    private static final int ROWS = SIGNATURE_LENGTH / BANDS;
+    private static final int BINS = 10;
+    /** The number of bucket mates every signature is compared with per band. */
+    private static final int WINDOW = 8;
+
+    /** The multipliers (odd) and increments of the hash functions. */
+    private static final long[] MULTIPLIERS = new long[SIGNATURE_LENGTH];
+    private static final long[] INCREMENTS = new long[SIGNATURE_LENGTH];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_CAFEL);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1L;
+            INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    private SimilarityAnalyzer() {
+    }
+
+    /**
+     * Computes the similarity distributions of every generation below an
+     * export directory and writes the results next to the export.
+     *
+     * @param exportDirectory The export root (e.g., {@code out/generated}).
+     * @return The similarity of every generation, ordered by method and
+     *         generation.
+     * @throws IOException If the export cannot be read or the results cannot
+     *                     be written.
+     */
+    public static List<GenerationSimilarity> analyzeExport(Path exportDirectory) throws IOException {
+        SortedMap<AttackKey, int[]> signatures = ExportManifest.exists(exportDirectory)
+            ? signManifest(exportDirectory)
+            : signTree(exportDirectory);
+
+        Map<String, List<AttackKey>> generations = new LinkedHashMap<>();
+        for (AttackKey key : signatures.keySet()) {
+            generations.computeIfAbsent(key.getMethod() + ";" + key.getGeneration(), k -> new ArrayList<>())
+                .add(key);
+        }
+        SortedMap<AttackKey, Integer> nearest = new ConcurrentSkipListMap<>();
+        List<GenerationSimilarity> results = generations.values().parallelStream()
+            .map(keys -> analyzeGeneration(keys, signatures, nearest))
+            .collect(Collectors.toList());
+        writeResults(exportDirectory, results, nearest);
+        return results;
+    }
+
+    private static SortedMap<AttackKey, int[]> signTree(Path exportDirectory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(exportDirectory)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+        }
+        SortedMap<AttackKey, int[]> signatures = new ConcurrentSkipListMap<>();
+        try {
+            files.parallelStream().forEach(file -> {
+                AttackKey key = AttackKey.fromPath(exportDirectory.relativize(file));
+                try {
+                    signatures.put(key, signature(Files.readString(file, StandardCharsets.UTF_8)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return signatures;
+    }
+
+    /**
+     * Signs each unique class body of an export once. Classes that share a
+     * hash differ only in their package and class name, which are not part
+     * of the signature.
+     */
+    private static SortedMap<AttackKey, int[]> signManifest(Path exportDirectory) throws IOException {
+        Map<String, List<AttackKey>> keysByHash = ExportManifest.read(exportDirectory).entrySet().stream()
+            .collect(Collectors.groupingBy(Map.Entry::getValue, LinkedHashMap::new,
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        ContentStore store = new ContentStore(exportDirectory);
+        SortedMap<AttackKey, int[]> signatures = new ConcurrentSkipListMap<>();
+        try {
+            keysByHash.entrySet().parallelStream().forEach(entry -> {
+                AttackKey first = entry.getValue().get(0);
+                try {
+                    String source = Files.exists(store.pathOf(entry.getKey()))
+                        ? store.readSource(entry.getKey(), first)
+                        : Files.readString(exportDirectory.resolve(first.toPath()), StandardCharsets.UTF_8);
+                    int[] signature = signature(source);
+                    for (AttackKey key : entry.getValue()) {
+                        signatures.put(key, signature);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return signatures;
+    }
+
+    /**
+     * Computes the MinHash signature of a class.
+     *
+     * @param source The Java source code of the class.
+     * @return The signature, {@link #SIGNATURE_LENGTH} entries long.
+     */
+    public static int[] signature(CharSequence source) {
+        List<Token> tokens = JavaLexer.tokenize(source);
+        // the package and class declaration name the attack, not its logic
+        int body = 0;
+        while (body < tokens.size() && !tokens.get(body).is("{")) {
+            body++;
+        }
+        // a body shorter than a shingle is one shingle
+        int last = Math.max(Math.min(body + 2, tokens.size()), tokens.size() - SHINGLE_SIZE + 1);
+        long[] shingles = new long[Math.max(0, last - body - 1)];
+        for (int start = body + 1; start < last; start++) {
+            long shingle = 0;
+            for (int i = start; i < Math.min(start + SHINGLE_SIZE, tokens.size()); i++) {
+                shingle = shingle * 31 + tokens.get(i).text.hashCode();
+            }
+            shingles[start - body - 1] = mix(shingle);
+        }
+        // generated code repeats itself, and a set only needs each shingle once
+        Arrays.sort(shingles);
+        int count = 0;
+        for (int i = 0; i < shingles.length; i++) {
+            if (count == 0 || shingles[i] != shingles[count - 1]) {
+                shingles[count++] = shingles[i];
+            }
+        }
+
+        int[] signature = new int[SIGNATURE_LENGTH];
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            long multiplier = MULTIPLIERS[i];
+            long increment = INCREMENTS[i];
+            int min = Integer.MAX_VALUE;
+            for (int j = 0; j < count; j++) {
+                min = Math.min(min, (int) ((multiplier * shingles[j] + increment) >>> 32));
+            }
+            signature[i] = min;
+        }
+        return signature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the shingle sets of two classes.
+     *
+     * @param a The signature of the first class.
+     * @param b The signature of the second class.
+     * @return The share of equal signature entries, between 0 and 1.
+     */
+    public static double estimateSimilarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_LENGTH;
+    }
+
+    /** The finalizer of SplitMix64, to spread the bits of a shingle hash. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Finds the closest sibling of every attack of one generation and
+     * summarizes how close they are.
+     */
+    private static GenerationSimilarity analyzeGeneration(List<AttackKey> keys, Map<AttackKey, int[]> signatures,
+                                                          Map<AttackKey, Integer> nearest) {
+        // collapse equal signatures, remembering which attacks share each
+        Map<Signature, List<AttackKey>> unique = new LinkedHashMap<>();
+        for (AttackKey key : keys) {
+            unique.computeIfAbsent(new Signature(signatures.get(key)), s -> new ArrayList<>()).add(key);
+        }
+        List<int[]> distinct = new ArrayList<>(unique.size());
+        double[] best = new double[unique.size()];
+        for (Map.Entry<Signature, List<AttackKey>> entry : unique.entrySet()) {
+            best[distinct.size()] = entry.getValue().size() > 1 ? 1.0 : 0.0;
+            distinct.add(entry.getKey().values);
+        }
+        long comparisons = compareBucketMates(distinct, best);
+
+        long[] histogram = new long[BINS];
+        long nearDuplicates = 0;
+        double sum = 0;
+        int index = 0;
+        for (List<AttackKey> group : unique.values()) {
+            double similarity = best[index++];
+            int permille = (int) Math.round(similarity * 1000);
+            for (AttackKey key : group) {
+                nearest.put(key, permille);
+            }
+            histogram[Math.min(BINS - 1, (int) (similarity * BINS))] += group.size();
+            sum += similarity * group.size();
+            if (similarity >= SIMILAR_THRESHOLD) {
+                nearDuplicates += group.size();
+            }
+        }
+        AttackKey first = keys.get(0);
+        return new GenerationSimilarity(first.getMethod(), first.getGeneration(), keys.size(), distinct.size(),
+            comparisons, (double) nearDuplicates / keys.size(), sum / keys.size(), histogram);
+    }
+
+    /**
+     * Compares every signature with the members of the buckets it falls into
+     * and records the best similarity of each. In a bucket of more than
+     * {@value #WINDOW} + 1 members, every member is only compared with the
+     * next {@value #WINDOW} members; buckets are in random order, so that is
+     * an even sample, and a bucket that large is similar throughout anyway.
+     *
+     * @return The number of comparisons.
+     */
+    private static long compareBucketMates(List<int[]> signatures, double[] best) {
+        int n = signatures.size();
+        int[] order = new int[n];
+        SplittableRandom random = new SplittableRandom(n);
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        long[] buckets = new long[n];
+        long comparisons = 0;
+        for (int band = 0; band < BANDS; band++) {
+            for (int rank = 0; rank < n; rank++) {
+                int[] signature = signatures.get(order[rank]);
+                int hash = 1;
+                for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+                    hash = hash * 0x9E3779B1 + signature[row];
+                }
+                // sorting by the band hash brings the members of a bucket together
+                buckets[rank] = ((long) hash << 32) | rank;
+            }
+            Arrays.sort(buckets);
+            for (int start = 0; start < n; ) {
+                int end = start + 1;
+                while (end < n && (buckets[end] >>> 32) == (buckets[start] >>> 32)) {
+                    end++;
+                }
+                int size = end - start;
+                boolean sampled = size - 1 > WINDOW;
+                for (int a = 0; a < size; a++) {
+                    int i = order[(int) buckets[start + a]];
+                    for (int b = a + 1; b < (sampled ? a + 1 + WINDOW : size); b++) {
+                        int j = order[(int) buckets[start + b % size]];
+                        double similarity = estimateSimilarity(signatures.get(i), signatures.get(j));
+                        best[i] = Math.max(best[i], similarity);
+                        best[j] = Math.max(best[j], similarity);
+                        comparisons++;
+                    }
+                }
+                start = end;
+            }
+        }
+        return comparisons;
+    }
+
+    private static void writeResults(Path exportDirectory, List<GenerationSimilarity> results,
+                                     SortedMap<AttackKey, Integer> nearest) throws IOException {
+        List<GenerationSimilarity> ordered = new ArrayList<>(results);
+        ordered.sort((a, b) -> a.method.equals(b.method)
+            ? Integer.compare(a.generation, b.generation)
+            : a.method.compareTo(b.method));
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(SIMILARITY_FILE),
+                StandardCharsets.UTF_8)) {
+            StringBuilder header = new StringBuilder(
+                "Method;Generation;Attacks;UniqueSignatures;Comparisons;NearDuplicateShare;MeanNearestSimilarity");
+            for (int bin = 0; bin < BINS; bin++) {
+                header.append(";Bin").append(bin);
+            }
+            writer.write(header + "\n");
+            for (GenerationSimilarity result : ordered) {
+                writer.write(result + "\n");
+            }
+        }
+        try (ColumnarResultWriter writer = new ColumnarResultWriter(
+                exportDirectory.resolve(SIMILARITY_COLUMNS_FILE), "NearestSimilarityPermille")) {
+            for (Map.Entry<AttackKey, Integer> entry : nearest.entrySet()) {
+                writer.addRow(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Command line entry point that analyses an existing export.
+     *
+     * @param args An optional export directory.
+     */
+    public static void main(String[] args) {
+        Path exportDirectory = Path.of(args.length > 0 ? args[0] : AttackExporter.OUTPUT_DIR);
+        long start = System.nanoTime();
+        try {
+            List<GenerationSimilarity> results = analyzeExport(exportDirectory);
+            System.out.println("Compared " + results.size() + " generations in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A signature as a map key.
+     */
+    private static final class Signature {
+        final int[] values;
+        final int hash;
+
+        Signature(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && Arrays.equals(values, ((Signature) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The similarity distribution of one generation.
+     */
+    public static final class GenerationSimilarity {
+        private final String method;
+        private final int generation;
+        private final int attackCount;
+        private final int uniqueSignatures;
+        private final long comparisons;
+        private final double nearDuplicateShare;
+        private final double meanNearestSimilarity;
+        private final long[] histogram;
+
+        GenerationSimilarity(String method, int generation, int attackCount, int uniqueSignatures, long comparisons,
+                             double nearDuplicateShare, double meanNearestSimilarity, long[] histogram) {
+            this.method = method;
+            this.generation = generation;
+            this.attackCount = attackCount;
+            this.uniqueSignatures = uniqueSignatures;
+            this.comparisons = comparisons;
+            this.nearDuplicateShare = nearDuplicateShare;
+            this.meanNearestSimilarity = meanNearestSimilarity;
+            this.histogram = histogram;
+        }
+
+        /**
+         * Accessor for the generation method.
+         *
+         * @return The generation method (e.g., "PCG" or "RCG").
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Accessor for the generation number.
+         *
+         * @return The generation.
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Accessor for the number of attacks in the generation.
+         *
+         * @return The attack count.
+         */
+        public int getAttackCount() {
+            return attackCount;
+        }
+
+        /**
+         * Accessor for the number of distinct signatures in the generation.
+         *
+         * @return The unique signature count.
+         */
+        public int getUniqueSignatures() {
+            return uniqueSignatures;
+        }
+
+        /**
+         * Accessor for the number of signature comparisons made.
+         *
+         * @return The comparison count.
+         */
+        public long getComparisons() {
+            return comparisons;
+        }
+
+        /**
+         * Accessor for the share of attacks that have a sibling with a
+         * similarity of at least {@link #SIMILAR_THRESHOLD}, the convergence
+         * measure.
+         *
+         * @return The share, between 0 and 1.
+         */
+        public double getNearDuplicateShare() {
+            return nearDuplicateShare;
+        }
+
+        /**
+         * Accessor for the mean similarity of the attacks to their closest
+         * sibling.
+         *
+         * @return The mean similarity, between 0 and 1.
+         */
+        public double getMeanNearestSimilarity() {
+            return meanNearestSimilarity;
+        }
+
+        /**
+         * Accessor for the histogram of the similarity of the attacks to
+         * their closest sibling.
+         *
+         * @return The attack count of each bin of 0.1, the last including 1.
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder row = new StringBuilder();
+            row.append(method).append(';').append(generation).append(';').append(attackCount).append(';')
+                .append(uniqueSignatures).append(';').append(comparisons).append(';')
+                .append(String.format(Locale.ROOT, "%.4f;%.4f", nearDuplicateShare, meanNearestSimilarity));
+            for (long count : histogram) {
+                row.append(';').append(count);
+            }
+            return row.toString();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.mygdx.platformer.analysistool;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads the measures SonarQube computed for an exported generation.
+ * <p>
+ * This replaces the {@code csvconverter.py} script. The file components of
+ * the project are read from the {@code /api/measures/component_tree} Web API
+ * page by page. The first page tells how many pages there are; the others
+ * are then requested concurrently with {@link HttpClient#sendAsync}, with at
+ * most {@code parallelism} requests in flight. A request that fails with an
+ * I/O error or a status that signals an overloaded server (429, 502, 503,
+ * 504) is retried with exponential back-off.
+ * </p>
+ * <p>
+ * Every component is identified by {@link AttackKey#fromPath(Path)} from its
+ * path, so files that are not exported attacks are skipped without regular
+ * expressions over folder names. The rows of every page are streamed to
+ * {@code sonar_metrics.csv} and {@code sonar_metrics.col} as soon as the page
+ * arrives, in the format of the metrics of {@link CodeMetricsAnalyzer}; rows
+ * are therefore in arrival order, not in key order. Measures SonarQube did
+ * not compute are written as an empty CSV field and as {@code -1} in the
+ * columnar file.
+ * </p>
+ * <p>
+ * {@link SonarStubServer} replays recorded responses, so the fetcher can be
+ * tested and benchmarked without a SonarQube server.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(URI.create("http://localhost:9000"),
+ *         token, "attack-generation", SonarMeasuresFetcher.MAX_PAGE_SIZE, 8, 3)) {
+ *     fetcher.fetch(Path.of("out/generated"));
+ * }
+ * </pre>
+ *
+ * @see SonarStubServer
+ * @see ColumnarResultWriter
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class SonarMeasuresFetcher implements AutoCloseable {
+
+    /** The path of the Web API endpoint the measures are read from. */
+    public static final String COMPONENT_TREE = "/api/measures/component_tree";
+
+    /** The largest page size SonarQube accepts. */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** Name of the per-class measures file written into the output directory. */
+    public static final String SONAR_METRICS_FILE = "sonar_metrics.csv";
+
+    /**
+     * Name of the per-class measures file in the columnar format of
+     * {@link ColumnarResultWriter}, written next to {@link #SONAR_METRICS_FILE}.
+     */
+    public static final String SONAR_METRICS_COLUMNS_FILE = "sonar_metrics.col";
+
+    /** The SonarQube metric keys that are fetched, in column order. */
+    static final List<String> METRIC_KEYS = List.of("ncloc", "complexity", "cognitive_complexity");
+
+    private static final String[] COLUMNS = {"LOC", "Complexity", "CognitiveComplexity"};
+    private static final long INITIAL_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 8000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final URI server;
+    private final String token;
+    private final String projectKey;
+    private final int pageSize;
+    private final int parallelism;
+    private final int maxRetries;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private Path recordDirectory;
+
+    /**
+     * Creates a fetcher.
+     *
+     * @param server      The address of the SonarQube server.
+     * @param token       A user token, or {@code null} for an anonymous
+     *                    server.
+     * @param projectKey  The key of the analysed project.
+     * @param pageSize    The number of components per page, at most
+     *                    {@link #MAX_PAGE_SIZE}.
+     * @param parallelism The maximum number of requests in flight.
+     * @param maxRetries  The number of times a failed request is retried.
+     */
+    public SonarMeasuresFetcher(URI server, String token, String projectKey, int pageSize, int parallelism,
+                                int maxRetries) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        this.server = server;
+        this.token = token;
+        this.projectKey = projectKey;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Makes {@link #fetch} save the raw response of every page, so that
+     * {@link SonarStubServer#replay} can serve it later.
+     *
+     * @param recordDirectory The directory to write {@code page_N.json}
+     *                        files into, or {@code null} to not record.
+     * @throws IOException If the directory cannot be created.
+     */
+    public void setRecordDirectory(Path recordDirectory) throws IOException {
+        if (recordDirectory != null) {
+            Files.createDirectories(recordDirectory);
+        }
+        this.recordDirectory = recordDirectory;
+    }
+
+    /**
+     * Fetches the measures of every exported attack of the project and writes
+     * them into a directory.
+     *
+     * @param outputDirectory The directory to write
+     *                        {@link #SONAR_METRICS_FILE} and
+     *                        {@link #SONAR_METRICS_COLUMNS_FILE} into.
+     * @return The number of attacks written.
+     * @throws IOException If a page cannot be fetched after all retries, the
+     *                     server rejects a request or the results cannot be
+     *                     written.
+     */
+    public int fetch(Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        try (Output output = new Output(outputDirectory)) {
+            Page first = await(fetchPage(1));
+            output.write(first);
+            int pages = (int) Math.min(Integer.MAX_VALUE, (first.total + pageSize - 1) / pageSize);
+
+            Semaphore permits = new Semaphore(parallelism);
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (int page = 2; page <= pages; page++) {
+                permits.acquireUninterruptibly();
+                if (requests.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    // the result is incomplete anyway, do not keep loading the server
+                    permits.release();
+                    break;
+                }
+                requests.add(fetchPage(page)
+                    .thenAccept(output::write)
+                    .whenComplete((result, failure) -> permits.release()));
+            }
+            await(CompletableFuture.allOf(requests.toArray(CompletableFuture<?>[]::new)));
+            return output.rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Requests a page and retries it until it succeeds or the retries are
+     * used up.
+     */
+    private CompletableFuture<Page> fetchPage(int page) {
+        return send(page, 0).thenApply(body -> {
+            if (recordDirectory != null) {
+                try {
+                    Files.writeString(recordDirectory.resolve(String.format(SonarStubServer.PAGE_FILE, page)), body,
+                        StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return parse(page, body);
+        });
+    }
+
+    private CompletableFuture<String> send(int page, int attempt) {
+        requestCount.incrementAndGet();
+        return client.sendAsync(request(page), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+            .handle((response, failure) -> {
+                if (failure == null && response.statusCode() == 200) {
+                    return CompletableFuture.completedFuture(response.body());
+                }
+                boolean retryable = failure != null || isRetryable(response.statusCode());
+                if (!retryable || attempt >= maxRetries) {
+                    return CompletableFuture.<String>failedFuture(failure != null
+                        ? new IOException("Request for page " + page + " failed after " + (attempt + 1)
+                            + " attempts", unwrap(failure))
+                        : new IOException("SonarQube answered " + response.statusCode() + " for page " + page
+                            + ": " + response.body()));
+                }
+                retryCount.incrementAndGet();
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << attempt);
+                return CompletableFuture.supplyAsync(() -> page,
+                        CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                    .thenCompose(p -> send(p, attempt + 1));
+            })
+            .thenCompose(future -> future);
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    private HttpRequest request(int page) {
+        String query = "component=" + encode(projectKey)
+            + "&qualifiers=FIL"
+            + "&metricKeys=" + encode(String.join(",", METRIC_KEYS))
+            + "&ps=" + pageSize
+            + "&p=" + page;
+        HttpRequest.Builder builder = HttpRequest.newBuilder(server.resolve(COMPONENT_TREE + "?" + query))
+            .timeout(REQUEST_TIMEOUT)
+            .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a page of the component tree into the measures of the exported
+     * attacks on it.
+     */
+    static Page parse(int page, String body) {
+        JsonValue root = new JsonReader().parse(body);
+        JsonValue paging = root.get("paging");
+        if (paging == null) {
+            throw new IllegalArgumentException("Page " + page + " has no paging information");
+        }
+        Page result = new Page(paging.getLong("total"));
+        JsonValue components = root.get("components");
+        if (components == null) {
+            return result;
+        }
+        for (JsonValue component = components.child; component != null; component = component.next) {
+            String path = component.getString("path", null);
+            if (path == null || !path.endsWith(".java")) {
+                continue;
+            }
+            AttackKey key;
+            try {
+                key = AttackKey.fromPath(Path.of(path));
+            } catch (IllegalArgumentException e) {
+                // a source file that is not an exported attack
+                continue;
+            }
+            int[] values = new int[METRIC_KEYS.size()];
+            Arrays.fill(values, -1);
+            JsonValue measures = component.get("measures");
+            for (JsonValue measure = measures != null ? measures.child : null; measure != null;
+                    measure = measure.next) {
+                int index = METRIC_KEYS.indexOf(measure.getString("metric", ""));
+                String value = measure.getString("value", null);
+                if (index >= 0 && value != null) {
+                    values[index] = (int) Math.round(Double.parseDouble(value));
+                }
+            }
+            result.keys.add(key);
+            result.values.add(values);
+        }
+        return result;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Could not fetch the SonarQube measures", cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    /**
+     * Accessor for the number of HTTP requests sent, including retries.
+     *
+     * @return The request count.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Accessor for the number of requests that were retried.
+     *
+     * @return The retry count.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Releases the HTTP client.
+     */
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    /**
+     * Fetches the measures of {@code out/generated} from a local SonarQube
+     * server, with the user token in the {@code API_KEY} environment
+     * variable.
+     *
+     * @param args Optional server address and project key.
+     */
+    public static void main(String[] args) {
+        URI server = URI.create(args.length > 0 ? args[0] : "http://localhost:9000");
+        String projectKey = args.length > 1 ? args[1] : "attack-generation";
+        String token = System.getenv("API_KEY");
+        if (token == null) {
+            System.err.println("API_KEY is not set, querying " + server + " anonymously");
+        }
+        Path outputDirectory = Path.of(AttackExporter.OUTPUT_DIR);
+        long start = System.nanoTime();
+        try (SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(server, token, projectKey, MAX_PAGE_SIZE,
+                Runtime.getRuntime().availableProcessors(), 3)) {
+            int rows = fetcher.fetch(outputDirectory);
+            System.out.println("Fetched the measures of " + rows + " attacks in " + fetcher.getRequestCount()
+                + " requests (" + fetcher.getRetryCount() + " retried) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The exported attacks on one page of the component tree.
+     */
+    static final class Page {
+        final long total;
+        final List<AttackKey> keys = new ArrayList<>();
+        final List<int[]> values = new ArrayList<>();
+
+        Page(long total) {
+            this.total = total;
+        }
+    }
+
+    /**
+     * The result files, written by whichever thread completes a page.
+     */
+    private static final class Output implements AutoCloseable {
+        private final BufferedWriter csv;
+        private final ColumnarResultWriter columns;
+        private int rows;
+
+        Output(Path outputDirectory) throws IOException {
+            this.columns = new ColumnarResultWriter(outputDirectory.resolve(SONAR_METRICS_COLUMNS_FILE), COLUMNS);
+            this.csv = Files.newBufferedWriter(outputDirectory.resolve(SONAR_METRICS_FILE), StandardCharsets.UTF_8);
+            csv.write("Method;Generation;Compound;Attack;" + String.join(";", COLUMNS) + "\n");
+        }
+
+        synchronized void write(Page page) {
+            try {
+                StringBuilder row = new StringBuilder(64);
+                for (int i = 0; i < page.keys.size(); i++) {
+                    int[] values = page.values.get(i);
+                    row.setLength(0);
+                    row.append(page.keys.get(i));
+                    for (int value : values) {
+                        row.append(';');
+                        if (value >= 0) {
+                            row.append(value);
+                        }
+                    }
+                    csv.append(row).append('\n');
+                    columns.addRow(page.keys.get(i), values);
+                }
+                rows += page.keys.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try (columns) {
+                csv.close();
+            }
+        }
+    }
+}
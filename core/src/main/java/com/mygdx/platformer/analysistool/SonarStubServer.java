@@ -0,0 +1,289 @@
+package com.mygdx.platformer.analysistool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the SonarQube Web API that replays recorded
+ * {@code /api/measures/component_tree} pages.
+ * <p>
+ * The server runs in the JVM on an ephemeral loopback port and answers every
+ * request for page {@code p} with the {@code p}-th recorded response, so
+ * {@link SonarMeasuresFetcher} can be tested and benchmarked without a
+ * SonarQube installation. Pages are either read from a directory the fetcher
+ * recorded them into (see {@link SonarMeasuresFetcher#setRecordDirectory})
+ * or synthesized from the metrics of {@link CodeMetricsAnalyzer} with
+ * {@link #toPages}.
+ * </p>
+ * <p>
+ * To exercise the client, the server can delay every response and fail
+ * every n-th request with {@code 503 Service Unavailable}. It also counts
+ * requests and the largest number it served at the same time.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (SonarStubServer stub = SonarStubServer.replay(Path.of("sonar-recording"), 500, null)) {
+ *     stub.setFailEvery(5);
+ *     try (SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(stub.getUri(), null,
+ *             "attack-generation", 500, 4, 3)) {
+ *         fetcher.fetch(outputDirectory);
+ *     }
+ * }
+ * </pre>
+ *
+ * @see SonarMeasuresFetcher
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class SonarStubServer implements AutoCloseable {
+
+    /** The file name of a recorded page, by page number. */
+    static final String PAGE_FILE = "page_%d.json";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<String> pages;
+    private final int pageSize;
+    private final String token;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int failEvery;
+    private volatile long latencyMillis;
+
+    /**
+     * Starts a server that replays the given pages.
+     *
+     * @param pages    The response bodies, the first for page 1.
+     * @param pageSize The page size the pages were recorded with; requests
+     *                 for another size are rejected.
+     * @param token    The token requests must carry, or {@code null} to
+     *                 accept any.
+     * @throws IOException If the server cannot be started.
+     */
+    public SonarStubServer(List<String> pages, int pageSize, String token) throws IOException {
+        this.pages = List.copyOf(pages);
+        this.pageSize = pageSize;
+        this.token = token;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sonar-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(SonarMeasuresFetcher.COMPONENT_TREE, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a server that replays the pages recorded in a directory.
+     *
+     * @param directory The directory with {@code page_1.json},
+     *                  {@code page_2.json} and so on.
+     * @param pageSize  The page size the pages were recorded with.
+     * @param token     The token requests must carry, or {@code null} to
+     *                  accept any.
+     * @return The started server.
+     * @throws IOException If no page is recorded or the server cannot be
+     *                     started.
+     */
+    public static SonarStubServer replay(Path directory, int pageSize, String token) throws IOException {
+        List<String> pages = new ArrayList<>();
+        Path page;
+        while (Files.exists(page = directory.resolve(String.format(PAGE_FILE, pages.size() + 1)))) {
+            pages.add(Files.readString(page, StandardCharsets.UTF_8));
+        }
+        if (pages.isEmpty()) {
+            throw new IOException("No recorded pages in " + directory);
+        }
+        return new SonarStubServer(pages, pageSize, token);
+    }
+
+    /**
+     * Synthesizes the component tree pages SonarQube would return for a set
+     * of exported attacks.
+     *
+     * @param projectKey The key of the analysed project.
+     * @param metrics    The measures of every attack.
+     * @param pageSize   The number of components per page.
+     * @return The response bodies, at least one.
+     */
+    public static List<String> toPages(String projectKey, Map<AttackKey, CodeMetrics> metrics, int pageSize) {
+        List<String> pages = new ArrayList<>();
+        List<Map.Entry<AttackKey, CodeMetrics>> entries = new ArrayList<>(metrics.entrySet());
+        int pageCount = Math.max(1, (entries.size() + pageSize - 1) / pageSize);
+        for (int page = 0; page < pageCount; page++) {
+            StringBuilder json = new StringBuilder(256 + pageSize * 320);
+            json.append("{\"paging\":{\"pageIndex\":").append(page + 1)
+                .append(",\"pageSize\":").append(pageSize)
+                .append(",\"total\":").append(entries.size()).append("},")
+                .append("\"baseComponent\":{\"key\":\"").append(projectKey).append("\",\"qualifier\":\"TRK\"},")
+                .append("\"components\":[");
+            int end = Math.min(entries.size(), (page + 1) * pageSize);
+            for (int i = page * pageSize; i < end; i++) {
+                String path = entries.get(i).getKey().toPath().toString().replace('\\', '/');
+                CodeMetrics measures = entries.get(i).getValue();
+                if (i > page * pageSize) {
+                    json.append(',');
+                }
+                json.append("{\"key\":\"").append(projectKey).append(':').append(path)
+                    .append("\",\"qualifier\":\"FIL\",\"path\":\"").append(path)
+                    .append("\",\"language\":\"java\",\"measures\":[");
+                appendMeasure(json, "ncloc", measures.getLinesOfCode()).append(',');
+                appendMeasure(json, "complexity", measures.getComplexity()).append(',');
+                appendMeasure(json, "cognitive_complexity", measures.getCognitiveComplexity());
+                json.append("]}");
+            }
+            json.append("]}");
+            pages.add(json.toString());
+        }
+        return pages;
+    }
+
+    private static StringBuilder appendMeasure(StringBuilder json, String metric, int value) {
+        return json.append("{\"metric\":\"").append(metric).append("\",\"value\":\"").append(value)
+            .append("\",\"bestValue\":false}");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int request = requestCount.incrementAndGet();
+        int concurrent = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(concurrent, Math::max);
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            int every = failEvery;
+            if (every > 0 && request % every == 0) {
+                respond(exchange, 503, "{\"errors\":[{\"msg\":\"Service unavailable\"}]}");
+                return;
+            }
+            if (token != null && !("Bearer " + token).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, "{\"errors\":[{\"msg\":\"Authentication required\"}]}");
+                return;
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            int size = intParameter(query, "ps", 100);
+            int page = intParameter(query, "p", 1);
+            if (size != pageSize) {
+                respond(exchange, 400, "{\"errors\":[{\"msg\":\"Recorded with page size " + pageSize + "\"}]}");
+            } else if (page < 1 || page > pages.size()) {
+                respond(exchange, 404, "{\"errors\":[{\"msg\":\"Page " + page + " was not recorded\"}]}");
+            } else {
+                respond(exchange, 200, pages.get(page - 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"errors\":[{\"msg\":\"Shutting down\"}]}");
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static int intParameter(String query, String name, int defaultValue) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    try {
+                        return Integer.parseInt(parameter.substring(name.length() + 1));
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Accessor for the address of the server.
+     *
+     * @return The base URI, without a path.
+     */
+    public URI getUri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    /**
+     * Makes every n-th request fail with {@code 503 Service Unavailable}.
+     *
+     * @param n The failure interval, or 0 to never fail.
+     */
+    public void setFailEvery(int n) {
+        this.failEvery = n;
+    }
+
+    /**
+     * Delays every response, to simulate a remote server.
+     *
+     * @param latency The delay.
+     */
+    public void setLatency(Duration latency) {
+        this.latencyMillis = latency.toMillis();
+    }
+
+    /**
+     * Accessor for the number of requests received.
+     *
+     * @return The request count.
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Accessor for the largest number of requests served at the same time.
+     *
+     * @return The peak concurrency.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * Accessor for the number of recorded pages.
+     *
+     * @return The page count.
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
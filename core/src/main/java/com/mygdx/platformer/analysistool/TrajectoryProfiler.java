@@ -0,0 +1,329 @@
+package com.mygdx.platformer.analysistool;
+
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generation sink that profiles the behaviour of every generated attack with
+ * a {@link TrajectorySimulator}.
+ * <p>
+ * Chunks are profiled on the thread that delivers them, each thread with its
+ * own simulator, so profiling runs in parallel with generation on the
+ * engine's pool. Trajectories are cached by the parameters that shape them;
+ * as RCG attacks are copies of generation 0 attacks, later RCG generations
+ * are profiled without simulating.
+ * </p>
+ * <p>
+ * When the profiler is closed, the novelty of every attack is scored
+ * generation by generation with a {@link NoveltyArchive} per method, which
+ * both start from the shared generation 0. The metrics and novelty of every
+ * attack are written as {@code trajectory_metrics.csv} into the export
+ * directory, ordered by {@link AttackKey}, and the novelty and archive
+ * growth of every generation as {@code novelty_curve.csv}. Attacks the
+ * physics engine rejects are left out and counted.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (TrajectoryProfiler profiler = new TrajectoryProfiler(Path.of("out/generated"),
+ *         TrajectorySimulator.DEFAULT_STEPS)) {
+ *     engine.run(generations, methods, profiler, null);
+ * }
+ * </pre>
+ *
+ * @see TrajectorySimulator
+ * @see NoveltyArchive
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class TrajectoryProfiler implements GenerationSink, AutoCloseable {
+
+    /** Name of the per-attack trajectory file written into the export directory. */
+    public static final String TRAJECTORY_FILE = "trajectory_metrics.csv";
+
+    /** Name of the per-generation novelty file written into the export directory. */
+    public static final String NOVELTY_FILE = "novelty_curve.csv";
+
+    private final Path exportDirectory;
+    private final float threshold;
+    private final Map<String, TrajectorySimulator.Metrics> cache = new ConcurrentHashMap<>();
+    private final Map<AttackKey, TrajectorySimulator.Metrics[][]> chunks = new ConcurrentSkipListMap<>();
+    private final Queue<TrajectorySimulator> simulators = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<TrajectorySimulator> simulator;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong simulatedFrames = new AtomicLong();
+
+    /**
+     * Creates a profiler.
+     *
+     * @param exportDirectory The directory the metrics are written into.
+     * @param steps           The maximum number of frames simulated per
+     *                        attack.
+     */
+    public TrajectoryProfiler(Path exportDirectory, int steps) {
+        this(exportDirectory, steps, NoveltyArchive.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a profiler with an explicit novelty threshold.
+     *
+     * @param exportDirectory The directory the results are written into.
+     * @param steps           The maximum number of frames simulated per
+     *                        attack.
+     * @param threshold       The novelty a behaviour needs to enter the
+     *                        archive of its method.
+     */
+    public TrajectoryProfiler(Path exportDirectory, int steps, float threshold) {
+        this.exportDirectory = exportDirectory;
+        this.threshold = threshold;
+        this.simulator = ThreadLocal.withInitial(() -> {
+            TrajectorySimulator created = new TrajectorySimulator(steps);
+            simulators.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Profiles every attack of a chunk.
+     *
+     * @param compounds     The compounds of the chunk.
+     * @param firstCompound The compound ID of the first compound in the chunk.
+     * @param generation    The generation number.
+     * @param method        The generation method (e.g., "PCG" or "RCG").
+     */
+    @Override
+    public void accept(List<List<NecromancerAttackTemplate>> compounds, int firstCompound, int generation,
+                       String method) {
+        TrajectorySimulator.Metrics[][] metrics = new TrajectorySimulator.Metrics[compounds.size()][];
+        for (int c = 0; c < compounds.size(); c++) {
+            List<NecromancerAttackTemplate> compound = compounds.get(c);
+            metrics[c] = new TrajectorySimulator.Metrics[compound.size()];
+            for (int a = 0; a < compound.size(); a++) {
+                metrics[c][a] = profile(compound.get(a));
+            }
+        }
+        chunks.put(new AttackKey(method, generation, firstCompound, 0), metrics);
+    }
+
+    private TrajectorySimulator.Metrics profile(NecromancerAttackTemplate template) {
+        String key = TrajectorySimulator.keyOf(template);
+        TrajectorySimulator.Metrics metrics = cache.get(key);
+        if (metrics == null) {
+            try {
+                metrics = simulator.get().simulate(template);
+                // keep one instance per trajectory, novelty counts distinct behaviours by identity
+                TrajectorySimulator.Metrics previous = cache.putIfAbsent(key, metrics);
+                if (previous != null) {
+                    metrics = previous;
+                } else {
+                    simulatedFrames.addAndGet(metrics.getFrames());
+                }
+            } catch (IllegalStateException e) {
+                failures.incrementAndGet();
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Accessor for the number of distinct trajectories simulated so far.
+     *
+     * @return The number of simulated templates.
+     */
+    public int getSimulatedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Accessor for the number of frames simulated so far.
+     *
+     * @return The frame count over all simulated templates.
+     */
+    public long getSimulatedFrames() {
+        return simulatedFrames.get();
+    }
+
+    /**
+     * Accessor for the number of attacks the physics engine rejected.
+     *
+     * @return The failure count.
+     */
+    public int getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Scores the novelty of every profiled attack, writes the metrics and the
+     * novelty curves, and disposes the worlds of every thread that profiled
+     * chunks.
+     *
+     * @throws IOException If the results cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        TrajectorySimulator created;
+        while ((created = simulators.poll()) != null) {
+            created.close();
+        }
+        // generation 0 is the common origin of the PCG and RCG lines
+        Map<String, NoveltyArchive> archives = new TreeMap<>();
+        for (AttackKey key : chunks.keySet()) {
+            archives.computeIfAbsent(key.getMethod(), method -> new NoveltyArchive(
+                TrajectorySimulator.DESCRIPTOR_LENGTH, NoveltyArchive.DEFAULT_NEIGHBOURS, threshold));
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(TRAJECTORY_FILE),
+                StandardCharsets.UTF_8)) {
+            writer.write("Class;Frames;TimeOnScreen;PathLength;VerticalSpread;MinScale;MaxScale;Novelty\n");
+            StringBuilder row = new StringBuilder(128);
+            List<Map.Entry<AttackKey, TrajectorySimulator.Metrics[][]>> generation = new ArrayList<>();
+            Iterator<Map.Entry<AttackKey, TrajectorySimulator.Metrics[][]>> entries = chunks.entrySet().iterator();
+            while (entries.hasNext() || !generation.isEmpty()) {
+                Map.Entry<AttackKey, TrajectorySimulator.Metrics[][]> next = entries.hasNext() ? entries.next() : null;
+                if (next != null
+                        && (generation.isEmpty() || sameGeneration(generation.get(0).getKey(), next.getKey()))) {
+                    generation.add(next);
+                    continue;
+                }
+                writeGeneration(writer, row, generation, archives);
+                generation.clear();
+                if (next != null) {
+                    generation.add(next);
+                }
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(exportDirectory.resolve(NOVELTY_FILE),
+                StandardCharsets.UTF_8)) {
+            writer.write("Method;Generation;Attacks;Distinct;MeanNovelty;MaxNovelty;Added;ArchiveSize\n");
+            StringBuilder row = new StringBuilder(128);
+            for (Map.Entry<String, NoveltyArchive> archive : archives.entrySet()) {
+                for (NoveltyArchive.Generation generation : archive.getValue().getCurve()) {
+                    row.setLength(0);
+                    row.append(archive.getKey()).append(';').append(generation.getGeneration()).append(';')
+                        .append(generation.getAttacks()).append(';').append(generation.getDistinct());
+                    appendDecimal(row.append(';'), generation.getMeanNovelty());
+                    appendDecimal(row.append(';'), generation.getMaxNovelty());
+                    row.append(';').append(generation.getAdded()).append(';').append(generation.getArchiveSize())
+                        .append('\n');
+                    writer.append(row);
+                }
+            }
+        }
+        if (failures.get() > 0) {
+            System.err.println(failures.get() + " attacks could not be simulated");
+        }
+    }
+
+    private static boolean sameGeneration(AttackKey a, AttackKey b) {
+        return a.getMethod().equals(b.getMethod()) && a.getGeneration() == b.getGeneration();
+    }
+
+    /**
+     * Scores the chunks of one generation and writes a row per attack. The
+     * distinct behaviours of the generation are the distinct metrics
+     * instances, since equal trajectories share one through the cache.
+     */
+    private void writeGeneration(BufferedWriter writer, StringBuilder row,
+                                 List<Map.Entry<AttackKey, TrajectorySimulator.Metrics[][]>> chunkEntries,
+                                 Map<String, NoveltyArchive> archives) throws IOException {
+        Map<TrajectorySimulator.Metrics, Integer> distinct = new IdentityHashMap<>();
+        List<TrajectorySimulator.Metrics> behaviours = new ArrayList<>();
+        int[] counts = new int[16];
+        for (Map.Entry<AttackKey, TrajectorySimulator.Metrics[][]> chunk : chunkEntries) {
+            for (TrajectorySimulator.Metrics[] compound : chunk.getValue()) {
+                for (TrajectorySimulator.Metrics attack : compound) {
+                    if (attack == null) {
+                        continue;
+                    }
+                    int index = distinct.computeIfAbsent(attack, metrics -> {
+                        behaviours.add(metrics);
+                        return behaviours.size() - 1;
+                    });
+                    if (index == counts.length) {
+                        counts = Arrays.copyOf(counts, counts.length * 2);
+                    }
+                    counts[index]++;
+                }
+            }
+        }
+        counts = Arrays.copyOf(counts, behaviours.size());
+        float[] descriptors = new float[behaviours.size() * TrajectorySimulator.DESCRIPTOR_LENGTH];
+        for (int i = 0; i < behaviours.size(); i++) {
+            for (int d = 0; d < TrajectorySimulator.DESCRIPTOR_LENGTH; d++) {
+                descriptors[i * TrajectorySimulator.DESCRIPTOR_LENGTH + d] = behaviours.get(i).getDescriptor(d);
+            }
+        }
+
+        AttackKey first = chunkEntries.get(0).getKey();
+        float[] novelty = archives.get(first.getMethod()).score(first.getGeneration(), descriptors, counts);
+        if (first.getGeneration() == 0) {
+            for (Map.Entry<String, NoveltyArchive> archive : archives.entrySet()) {
+                if (!archive.getKey().equals(first.getMethod())) {
+                    archive.getValue().score(0, descriptors, counts);
+                }
+            }
+        }
+
+        for (Map.Entry<AttackKey, TrajectorySimulator.Metrics[][]> chunk : chunkEntries) {
+            AttackKey chunkKey = chunk.getKey();
+            TrajectorySimulator.Metrics[][] metrics = chunk.getValue();
+            for (int c = 0; c < metrics.length; c++) {
+                for (int a = 0; a < metrics[c].length; a++) {
+                    TrajectorySimulator.Metrics attack = metrics[c][a];
+                    if (attack == null) {
+                        continue;
+                    }
+                    AttackKey key = new AttackKey(chunkKey.getMethod(), chunkKey.getGeneration(),
+                        chunkKey.getCompound() + c, a);
+                    row.setLength(0);
+                    row.append(key.toClassName().replace('.', '/')).append(';').append(attack.getFrames());
+                    appendDecimal(row.append(';'), attack.getTimeOnScreen());
+                    appendDecimal(row.append(';'), attack.getPathLength());
+                    appendDecimal(row.append(';'), attack.getVerticalSpread());
+                    appendDecimal(row.append(';'), attack.getMinScale());
+                    appendDecimal(row.append(';'), attack.getMaxScale());
+                    appendDecimal(row.append(';'), novelty[distinct.get(attack)]);
+                    row.append('\n');
+                    writer.append(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a non-negative value with three decimals, rounded half up,
+     * without creating a formatter per row.
+     */
+    private static void appendDecimal(StringBuilder row, float value) {
+        long thousandths = Math.round(value * 1000.0);
+        long fraction = thousandths % 1000;
+        row.append(thousandths / 1000).append('.');
+        if (fraction < 100) {
+            row.append('0');
+        }
+        if (fraction < 10) {
+            row.append('0');
+        }
+        row.append(fraction);
+    }
+}
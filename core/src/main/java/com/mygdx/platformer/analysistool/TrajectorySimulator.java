@@ -0,0 +1,358 @@
+package com.mygdx.platformer.analysistool;
+
+import com.badlogic.gdx.math.Vector2;
+import com.mygdx.platformer.attacks.BaseAttack;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.AttackModifier;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.MovementPatternBehavior;
+import com.mygdx.platformer.utilities.AppConfig;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Records how attack templates behave when they are cast, as opposed to what
+ * their generated code looks like.
+ * <p>
+ * Every template is cast from the origin in the isolated world of a
+ * {@link HeadlessAttackRunner} and simulated with the game's fixed time step
+ * until it leaves the screen or the step limit is reached. The position and
+ * visual scale after every frame are recorded into primitive float buffers
+ * that are allocated once and reused for every template, so a simulation
+ * does not allocate per frame. The path length, vertical spread, time on
+ * screen and scale envelope are computed from the buffers afterwards; the
+ * spawn point counts towards the path and the spread, but not towards the
+ * scale envelope, since it is never drawn.
+ * </p>
+ * <p>
+ * Every trajectory is also summarised as a fixed-length behaviour descriptor
+ * of {@link #DESCRIPTOR_LENGTH} values in world units, which
+ * {@link NoveltyArchive} compares attacks by.
+ * </p>
+ * <p>
+ * Templates are simulated with fresh copies of their movement pattern and
+ * modifier, since templates cloned by the generator share these stateful
+ * objects. Mixed movements draw their mode switches from a generator seeded
+ * by the parameters of the template, so equal templates always produce the
+ * same trajectory. A simulator must only be used by one thread at a time.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * try (TrajectorySimulator simulator = new TrajectorySimulator(TrajectorySimulator.DEFAULT_STEPS)) {
+ *     TrajectorySimulator.Metrics metrics = simulator.simulate(template);
+ *     float y = simulator.getY(simulator.getFrameCount());
+ * }
+ * </pre>
+ *
+ * @see TrajectoryProfiler
+ * @see FitnessEvaluator
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public class TrajectorySimulator implements AutoCloseable {
+
+    /** The default number of frames simulated per template, three seconds. */
+    public static final int DEFAULT_STEPS = 180;
+
+    /** The number of evenly spaced positions in a behaviour descriptor. */
+    public static final int DESCRIPTOR_SAMPLES = 5;
+
+    /**
+     * The length of a behaviour descriptor: the x and y of every sampled
+     * position, followed by the minimum and maximum scale.
+     */
+    public static final int DESCRIPTOR_LENGTH = 2 * DESCRIPTOR_SAMPLES + 2;
+
+    private final HeadlessAttackRunner runner = new HeadlessAttackRunner();
+    private final int steps;
+    private final float[] xs;
+    private final float[] ys;
+    private final float[] scales;
+    private final Consumer<BaseAttack> recorder = this::record;
+    private int samples;
+
+    /**
+     * Creates a simulator with its own world.
+     *
+     * @param steps The maximum number of frames simulated per template.
+     */
+    public TrajectorySimulator(int steps) {
+        this.steps = steps;
+        // sample 0 is the spawn point, followed by one sample per frame
+        this.xs = new float[steps + 1];
+        this.ys = new float[steps + 1];
+        this.scales = new float[steps + 1];
+    }
+
+    /**
+     * Simulates a template and records its trajectory.
+     *
+     * @param template The attack template.
+     * @return The metrics of the trajectory.
+     * @throws IllegalStateException If the attack leaves the valid range of
+     *                               the physics engine.
+     */
+    public Metrics simulate(NecromancerAttackTemplate template) {
+        String key = keyOf(template);
+        NecromancerAttackTemplate copy = new NecromancerAttackTemplate(45, template.getSpeed(),
+            template.getDamage(), 5, copyOf(template.getMovementPattern(), key.hashCode()),
+            copyOf(template.getModifier()));
+        samples = 0;
+        runner.run(copy, steps, recorder);
+        return measure();
+    }
+
+    private void record(BaseAttack attack) {
+        Vector2 position = attack.getBody().getPosition();
+        xs[samples] = position.x;
+        ys[samples] = position.y;
+        scales[samples] = attack.getVisualScale();
+        samples++;
+    }
+
+    private Metrics measure() {
+        float pathLength = 0f;
+        float minY = ys[0];
+        float maxY = ys[0];
+        // the spawn scale is never drawn, modifiers apply before the first frame is rendered
+        float minScale = scales[samples > 1 ? 1 : 0];
+        float maxScale = minScale;
+        for (int i = 1; i < samples; i++) {
+            float dx = xs[i] - xs[i - 1];
+            float dy = ys[i] - ys[i - 1];
+            pathLength += (float) Math.sqrt(dx * dx + dy * dy);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+            minScale = Math.min(minScale, scales[i]);
+            maxScale = Math.max(maxScale, scales[i]);
+        }
+        float[] descriptor = new float[DESCRIPTOR_LENGTH];
+        for (int i = 0; i < DESCRIPTOR_SAMPLES; i++) {
+            // an attack that left the screen stays where it left
+            int frame = Math.min((i + 1) * steps / DESCRIPTOR_SAMPLES, samples - 1);
+            descriptor[2 * i] = xs[frame];
+            descriptor[2 * i + 1] = ys[frame];
+        }
+        descriptor[DESCRIPTOR_LENGTH - 2] = minScale;
+        descriptor[DESCRIPTOR_LENGTH - 1] = maxScale;
+        return new Metrics(samples - 1, pathLength, minY, maxY, minScale, maxScale, descriptor);
+    }
+
+    /**
+     * Accessor for the number of frames of the last trajectory.
+     *
+     * @return The frame count; the trajectory has one sample more, the spawn
+     *         point.
+     */
+    public int getFrameCount() {
+        return samples - 1;
+    }
+
+    /**
+     * Returns the horizontal position of the last trajectory after a frame.
+     *
+     * @param frame The frame, {@code 0} for the spawn point.
+     * @return The x-coordinate in world units.
+     */
+    public float getX(int frame) {
+        return xs[checkFrame(frame)];
+    }
+
+    /**
+     * Returns the vertical position of the last trajectory after a frame.
+     *
+     * @param frame The frame, {@code 0} for the spawn point.
+     * @return The y-coordinate in world units.
+     */
+    public float getY(int frame) {
+        return ys[checkFrame(frame)];
+    }
+
+    /**
+     * Returns the visual scale of the last trajectory after a frame.
+     *
+     * @param frame The frame, {@code 0} for the spawn point.
+     * @return The sprite size relative to its original size.
+     */
+    public float getScale(int frame) {
+        return scales[checkFrame(frame)];
+    }
+
+    private int checkFrame(int frame) {
+        if (frame < 0 || frame >= samples) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of a trajectory with " + (samples - 1)
+                + " frames");
+        }
+        return frame;
+    }
+
+    /**
+     * Builds a key from every parameter of a template that affects its
+     * trajectory. Templates with equal keys have equal trajectories.
+     *
+     * @param template The attack template.
+     * @return The key.
+     */
+    static String keyOf(NecromancerAttackTemplate template) {
+        StringBuilder key = new StringBuilder(64);
+        key.append(Float.floatToIntBits(template.getSpeed())).append(';');
+        MovementPatternBehavior movement = template.getMovementPattern();
+        key.append(movement != null ? movement.getClass().getName() : "none").append(';');
+        AttackModifier modifier = template.getModifier();
+        if (modifier instanceof PulseModifier pulse) {
+            key.append("pulse:").append(Float.floatToIntBits(pulse.getFrequency())).append(':')
+                .append(Float.floatToIntBits(pulse.getAmplitude()));
+        } else {
+            key.append(modifier != null ? modifier.getClass().getName() : "none");
+        }
+        return key.toString();
+    }
+
+    private static MovementPatternBehavior copyOf(MovementPatternBehavior movement, long seed) {
+        if (movement == null) {
+            return null;
+        }
+        if (movement instanceof MixedMovement) {
+            return new MixedMovement(new Random(seed));
+        }
+        try {
+            return movement.getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot copy movement " + movement.getClass().getName(), e);
+        }
+    }
+
+    private static AttackModifier copyOf(AttackModifier modifier) {
+        if (modifier == null) {
+            return null;
+        }
+        if (modifier instanceof PulseModifier pulse) {
+            return new PulseModifier(pulse.getFrequency(), pulse.getAmplitude());
+        }
+        throw new IllegalArgumentException("Cannot copy modifier " + modifier.getClass().getName());
+    }
+
+    /**
+     * Disposes the world.
+     */
+    @Override
+    public void close() {
+        runner.close();
+    }
+
+    /**
+     * Behavioural metrics of one trajectory.
+     */
+    public static final class Metrics {
+        private final int frames;
+        private final float pathLength;
+        private final float minY;
+        private final float maxY;
+        private final float minScale;
+        private final float maxScale;
+        private final float[] descriptor;
+
+        Metrics(int frames, float pathLength, float minY, float maxY, float minScale, float maxScale,
+                float[] descriptor) {
+            this.frames = frames;
+            this.pathLength = pathLength;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.minScale = minScale;
+            this.maxScale = maxScale;
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * Accessor for the number of frames simulated before the attack left
+         * the screen or the step limit was reached.
+         *
+         * @return The frame count.
+         */
+        public int getFrames() {
+            return frames;
+        }
+
+        /**
+         * Accessor for the time the attack was on screen.
+         *
+         * @return The time on screen in seconds.
+         */
+        public float getTimeOnScreen() {
+            return frames * AppConfig.TIME_STEP;
+        }
+
+        /**
+         * Accessor for the distance travelled by the attack.
+         *
+         * @return The path length in world units.
+         */
+        public float getPathLength() {
+            return pathLength;
+        }
+
+        /**
+         * Accessor for the lowest position of the attack.
+         *
+         * @return The minimum y-coordinate in world units.
+         */
+        public float getMinY() {
+            return minY;
+        }
+
+        /**
+         * Accessor for the highest position of the attack.
+         *
+         * @return The maximum y-coordinate in world units.
+         */
+        public float getMaxY() {
+            return maxY;
+        }
+
+        /**
+         * Accessor for the height of the band the attack sweeps.
+         *
+         * @return The vertical spread in world units.
+         */
+        public float getVerticalSpread() {
+            return maxY - minY;
+        }
+
+        /**
+         * Accessor for the smallest visual scale of the attack.
+         *
+         * @return The minimum scale.
+         */
+        public float getMinScale() {
+            return minScale;
+        }
+
+        /**
+         * Accessor for the largest visual scale of the attack.
+         *
+         * @return The maximum scale.
+         */
+        public float getMaxScale() {
+            return maxScale;
+        }
+
+        /**
+         * Returns a value of the behaviour descriptor of the trajectory.
+         *
+         * @param index The index, below {@link #DESCRIPTOR_LENGTH}.
+         * @return The value; positions in world units, then scales.
+         */
+        public float getDescriptor(int index) {
+            return descriptor[index];
+        }
+
+        @Override
+        public String toString() {
+            return frames + ";" + pathLength + ";" + getVerticalSpread() + ";" + minScale + ";" + maxScale;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.mygdx.platformer.attacks;
+
+import com.mygdx.platformer.attacks.modifiers.AttackModifier;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.AccelerateMovement;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.MovementPatternBehavior;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+
+/**
+ * Packs the parameters of a {@link NecromancerAttackTemplate} into a single
+ * {@code long}.
+ * <p>
+ * A template is an object with references to behaviour objects, so a
+ * population of millions of templates is mostly object headers and pointers.
+ * A genome holds the same information in eight bytes, which lets a
+ * generation live in one flat {@code long[]} and be recombined by copying
+ * array ranges. Templates are only created from genomes when they are
+ * needed, with {@link #toTemplate(long)}.
+ * </p>
+ * <p>
+ * The layout, from the lowest bit:
+ * </p>
+ * <ul>
+ * <li>32 bits &ndash; the speed, as {@link Float#floatToRawIntBits(float)}</li>
+ * <li>9 bits &ndash; the arc, 0 to 511</li>
+ * <li>10 bits &ndash; the damage, 0 to 1023</li>
+ * <li>5 bits &ndash; the projectile count, 0 to 31</li>
+ * <li>3 bits &ndash; the movement pattern, one of the {@code MOVEMENT_}
+ * constants</li>
+ * <li>5 bits &ndash; the pulse frequency in steps of 0.5 Hz, or 0 for no
+ * modifier</li>
+ * </ul>
+ * <p>
+ * The layout covers every attack the generator creates. The amplitude of a
+ * pulse is not part of it, as it does not affect the attack; it is always
+ * {@value #PULSE_AMPLITUDE}.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * long genome = AttackGenome.encode(template);
+ * float speed = AttackGenome.getSpeed(genome);
+ * NecromancerAttackTemplate copy = AttackGenome.toTemplate(genome);
+ * </pre>
+ *
+ * @see NecromancerAttackTemplate
+ * @see com.mygdx.platformer.analysistool.AttackPopulation
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class AttackGenome {
+
+    /** The movement pattern of an attack without one. */
+    public static final int MOVEMENT_NONE = 0;
+    /** The movement pattern of {@link StraightMovement}. */
+    public static final int MOVEMENT_STRAIGHT = 1;
+    /** The movement pattern of {@link ZigZagMovement}. */
+    public static final int MOVEMENT_ZIGZAG = 2;
+    /** The movement pattern of {@link AccelerateMovement}. */
+    public static final int MOVEMENT_ACCELERATE = 3;
+    /** The movement pattern of {@link MixedMovement}. */
+    public static final int MOVEMENT_MIXED = 4;
+
+    /** The amplitude of every encoded {@link PulseModifier}. */
+    public static final float PULSE_AMPLITUDE = 0.5f;
+
+    private static final int ARC_SHIFT = 32;
+    private static final int DAMAGE_SHIFT = 41;
+    private static final int PROJECTILE_SHIFT = 51;
+    private static final int MOVEMENT_SHIFT = 56;
+    private static final int PULSE_SHIFT = 59;
+
+    private static final int ARC_MASK = (1 << 9) - 1;
+    private static final int DAMAGE_MASK = (1 << 10) - 1;
+    private static final int PROJECTILE_MASK = (1 << 5) - 1;
+    private static final int MOVEMENT_MASK = (1 << 3) - 1;
+    private static final int PULSE_MASK = (1 << 5) - 1;
+
+    private AttackGenome() {
+    }
+
+    /**
+     * Packs attack parameters into a genome.
+     *
+     * @param arc             The arc, 0 to 511.
+     * @param speed           The speed.
+     * @param damage          The damage, 0 to 1023.
+     * @param projectileCount The projectile count, 0 to 31.
+     * @param movement        The movement pattern, one of the
+     *                        {@code MOVEMENT_} constants.
+     * @param pulseFrequency  The pulse frequency, a multiple of 0.5 Hz from
+     *                        0.5 to 15.5, or 0 for no modifier.
+     * @return The genome.
+     * @throws IllegalArgumentException If a parameter is out of range.
+     */
+    public static long of(int arc, float speed, int damage, int projectileCount, int movement,
+                          float pulseFrequency) {
+        float halfHertz = pulseFrequency * 2;
+        int pulse = (int) halfHertz;
+        if (arc < 0 || arc > ARC_MASK || damage < 0 || damage > DAMAGE_MASK || projectileCount < 0
+                || projectileCount > PROJECTILE_MASK || movement < MOVEMENT_NONE || movement > MOVEMENT_MIXED
+                || pulse != halfHertz || pulse < 0 || pulse > PULSE_MASK) {
+            throw new IllegalArgumentException("Attack cannot be encoded: arc=" + arc + ", damage=" + damage
+                + ", projectiles=" + projectileCount + ", movement=" + movement + ", pulse=" + pulseFrequency);
+        }
+        return (Float.floatToRawIntBits(speed) & 0xFFFFFFFFL)
+            | (long) arc << ARC_SHIFT
+            | (long) damage << DAMAGE_SHIFT
+            | (long) projectileCount << PROJECTILE_SHIFT
+            | (long) movement << MOVEMENT_SHIFT
+            | (long) pulse << PULSE_SHIFT;
+    }
+
+    /**
+     * Packs a template into a genome.
+     *
+     * @param template The template.
+     * @return The genome.
+     * @throws IllegalArgumentException If the template has a parameter,
+     *                                  behaviour or modifier the layout does
+     *                                  not cover.
+     */
+    public static long encode(NecromancerAttackTemplate template) {
+        AttackModifier modifier = template.getModifier();
+        float frequency = 0;
+        if (modifier != null) {
+            if (!(modifier instanceof PulseModifier pulse) || pulse.getAmplitude() != PULSE_AMPLITUDE) {
+                throw new IllegalArgumentException("Modifier cannot be encoded: " + modifier);
+            }
+            frequency = pulse.getFrequency();
+        }
+        return of(template.getArc(), template.getSpeed(), template.getDamage(), template.getProjectileCount(),
+            movementOf(template.getMovementPattern()), frequency);
+    }
+
+    private static int movementOf(MovementPatternBehavior movement) {
+        if (movement == null) {
+            return MOVEMENT_NONE;
+        }
+        Class<?> type = movement.getClass();
+        if (type == StraightMovement.class) {
+            return MOVEMENT_STRAIGHT;
+        } else if (type == ZigZagMovement.class) {
+            return MOVEMENT_ZIGZAG;
+        } else if (type == AccelerateMovement.class) {
+            return MOVEMENT_ACCELERATE;
+        } else if (type == MixedMovement.class) {
+            return MOVEMENT_MIXED;
+        }
+        throw new IllegalArgumentException("Movement pattern cannot be encoded: " + type.getName());
+    }
+
+    /**
+     * Creates the template a genome describes, with new behaviour objects.
+     *
+     * @param genome The genome.
+     * @return The template.
+     */
+    public static NecromancerAttackTemplate toTemplate(long genome) {
+        MovementPatternBehavior movement = switch (getMovement(genome)) {
+            case MOVEMENT_STRAIGHT -> new StraightMovement();
+            case MOVEMENT_ZIGZAG -> new ZigZagMovement();
+            case MOVEMENT_ACCELERATE -> new AccelerateMovement();
+            case MOVEMENT_MIXED -> new MixedMovement();
+            default -> null;
+        };
+        float frequency = getPulseFrequency(genome);
+        AttackModifier modifier = frequency > 0 ? new PulseModifier(frequency, PULSE_AMPLITUDE) : null;
+        return new NecromancerAttackTemplate(getArc(genome), getSpeed(genome), getDamage(genome),
+            getProjectileCount(genome), movement, modifier);
+    }
+
+    /**
+     * Accessor for the speed of a genome.
+     *
+     * @param genome The genome.
+     * @return The speed.
+     */
+    public static float getSpeed(long genome) {
+        return Float.intBitsToFloat((int) genome);
+    }
+
+    /**
+     * Accessor for the arc of a genome.
+     *
+     * @param genome The genome.
+     * @return The arc.
+     */
+    public static int getArc(long genome) {
+        return (int) (genome >>> ARC_SHIFT) & ARC_MASK;
+    }
+
+    /**
+     * Accessor for the damage of a genome.
+     *
+     * @param genome The genome.
+     * @return The damage.
+     */
+    public static int getDamage(long genome) {
+        return (int) (genome >>> DAMAGE_SHIFT) & DAMAGE_MASK;
+    }
+
+    /**
+     * Accessor for the projectile count of a genome.
+     *
+     * @param genome The genome.
+     * @return The projectile count.
+     */
+    public static int getProjectileCount(long genome) {
+        return (int) (genome >>> PROJECTILE_SHIFT) & PROJECTILE_MASK;
+    }
+
+    /**
+     * Accessor for the movement pattern of a genome.
+     *
+     * @param genome The genome.
+     * @return One of the {@code MOVEMENT_} constants.
+     */
+    public static int getMovement(long genome) {
+        return (int) (genome >>> MOVEMENT_SHIFT) & MOVEMENT_MASK;
+    }
+
+    /**
+     * Accessor for the pulse frequency of a genome.
+     *
+     * @param genome The genome.
+     * @return The frequency in Hz, or 0 if the attack has no modifier.
+     */
+    public static float getPulseFrequency(long genome) {
+        return ((int) (genome >>> PULSE_SHIFT) & PULSE_MASK) * 0.5f;
+    }
+}
@@ -57,7 +57,8 @@ public abstract class BaseAttack {
      * @param speed The speed at which the attack moves.
      * @param x The initial x-coordinate of the attack.
      * @param y The initial y-coordinate of the attack.
-     * @param texture The texture used for the attack's sprite.
+     * @param texture The texture used for the attack's sprite, or {@code null}
+     *                for an attack without an image.
      * @param isPlayerAttack Whether the attack is a player attack.
      */
     public BaseAttack(World world, int damage, float speed, float x, float y,
@@ -68,7 +69,8 @@ public abstract class BaseAttack {
         this.speed = speed;
         this.x = x;
         this.y = y;
-        this.sprite = new Sprite(texture);
+        // texture-less attacks are created by headless runs (e.g., coverage)
+        this.sprite = texture != null ? new Sprite(texture) : new Sprite();
 
         sprite.setSize(AppConfig.ATTACK_SPRITE_WIDTH, AppConfig.ATTACK_SPRITE_HEIGHT);
         originalWidth = sprite.getWidth();
@@ -234,4 +236,12 @@ public abstract class BaseAttack {
         float newHeight = originalHeight * visualScale;
         sprite.setSize(newWidth, newHeight);
     }
+
+    /**
+     * Accessor for the visual scale of the attack.
+     * @return The sprite size relative to its original size.
+     */
+    public float getVisualScale() {
+        return sprite.getWidth() / originalWidth;
+    }
 }
@@ -0,0 +1,188 @@
+package com.mygdx.platformer.attacks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A piece of generated Java code with named parameters, parsed once and
+ * rendered many times.
+ * <p>
+ * Parameters are written as {@code ${name}} in the template text. Compiling a
+ * template splits the text into literal segments and parameter references,
+ * so rendering only appends the segments and the parameter values to a
+ * caller supplied {@link StringBuilder}. Nothing is allocated per render
+ * unless the builder has to grow, which makes templates suitable for the
+ * hot path of the export, where the same code is rendered for millions of
+ * attacks.
+ * </p>
+ * <p>
+ * Templates are immutable and can be rendered from any number of threads.
+ * </p>
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>
+ * private static final CodeTemplate TEMPLATE =
+ *     CodeTemplate.compile("attack.getBody().setLinearVelocity(${speed}f, 0);", "speed");
+ *
+ * TEMPLATE.appendTo(out, speed);
+ * </pre>
+ *
+ * @see com.mygdx.platformer.attacks.movement.MovementPatternBehavior#appendInlineLogicCode
+ * @see com.mygdx.platformer.attacks.modifiers.AttackModifier#appendInlineLogicCode
+ * @author Daniel Jönsson
+ * @author Robert Kullman
+ */
+public final class CodeTemplate {
+
+    private static final String OPEN = "${";
+    private static final char CLOSE = '}';
+
+    /** The literal before every parameter, and the one after the last. */
+    private final String[] literals;
+    /** The index of the parameter after every literal but the last. */
+    private final int[] parameters;
+    private final int parameterCount;
+    private final int literalLength;
+
+    private CodeTemplate(String[] literals, int[] parameters, int parameterCount) {
+        this.literals = literals;
+        this.parameters = parameters;
+        this.parameterCount = parameterCount;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param text           The template text.
+     * @param parameterNames The names of the parameters, in the order their
+     *                       values are numbered when rendering.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If the text refers to an undeclared
+     *                                  parameter or has an unclosed
+     *                                  reference.
+     */
+    public static CodeTemplate compile(String text, String... parameterNames) {
+        List<String> names = Arrays.asList(parameterNames);
+        List<String> literals = new ArrayList<>();
+        List<Integer> parameters = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = text.indexOf(OPEN, start)) >= 0) {
+            int close = text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed parameter at " + open + " in template: " + text);
+            }
+            String name = text.substring(open + OPEN.length(), close);
+            int parameter = names.indexOf(name);
+            if (parameter < 0) {
+                throw new IllegalArgumentException("Undeclared parameter " + name + " in template: " + text);
+            }
+            literals.add(text.substring(start, open));
+            parameters.add(parameter);
+            start = close + 1;
+        }
+        literals.add(text.substring(start));
+        return new CodeTemplate(literals.toArray(new String[0]),
+            parameters.stream().mapToInt(Integer::intValue).toArray(), parameterNames.length);
+    }
+
+    /**
+     * Accessor for the number of declared parameters.
+     *
+     * @return The parameter count.
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Renders a template without parameters.
+     *
+     * @param out The builder to append the code to.
+     */
+    public void appendTo(StringBuilder out) {
+        checkParameterCount(0);
+        out.append(literals[0]);
+    }
+
+    /**
+     * Renders a template with a single float parameter, formatted like
+     * {@link Float#toString(float)}.
+     *
+     * @param out   The builder to append the code to.
+     * @param value The value of the parameter.
+     */
+    public void appendTo(StringBuilder out, float value) {
+        checkParameterCount(1);
+        out.ensureCapacity(out.length() + literalLength + parameters.length * 16);
+        for (int i = 0; i < parameters.length; i++) {
+            out.append(literals[i]).append(value);
+        }
+        out.append(literals[parameters.length]);
+    }
+
+    /**
+     * Renders a template with any parameters.
+     *
+     * @param out       The builder to append the code to.
+     * @param arguments Appends the value of a parameter when asked for it.
+     */
+    public void appendTo(StringBuilder out, Arguments arguments) {
+        out.ensureCapacity(out.length() + literalLength);
+        for (int i = 0; i < parameters.length; i++) {
+            out.append(literals[i]);
+            arguments.appendTo(out, parameters[i]);
+        }
+        out.append(literals[parameters.length]);
+    }
+
+    /**
+     * Renders a template without parameters into a new string.
+     *
+     * @return The code.
+     */
+    public String render() {
+        checkParameterCount(0);
+        return literals[0];
+    }
+
+    /**
+     * Renders a template with a single float parameter into a new string.
+     *
+     * @param value The value of the parameter.
+     * @return The code.
+     */
+    public String render(float value) {
+        StringBuilder out = new StringBuilder(literalLength + parameters.length * 16);
+        appendTo(out, value);
+        return out.toString();
+    }
+
+    private void checkParameterCount(int expected) {
+        if (parameterCount != expected) {
+            throw new IllegalStateException("Template has " + parameterCount + " parameters, got " + expected);
+        }
+    }
+
+    /**
+     * Supplies the parameter values of one render.
+     */
+    @FunctionalInterface
+    public interface Arguments {
+
+        /**
+         * Appends the value of a parameter.
+         *
+         * @param out       The builder to append the value to.
+         * @param parameter The index of the parameter in the declared names.
+         */
+        void appendTo(StringBuilder out, int parameter);
+    }
+}
@@ -1,5 +1,6 @@
 package com.mygdx.platformer.attacks;
 
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.physics.box2d.World;
 import com.mygdx.platformer.utilities.AppConfig;
 import com.mygdx.platformer.utilities.Assets;
@@ -27,7 +28,8 @@ public class NecromancerAttack extends BaseAttack {
     public NecromancerAttack(World world, int dmg, float speed, float x,
                              float y, int directionModifier) {
         super(world, dmg, speed * directionModifier, x, y,
-            Assets.assetManager.get(Assets.DEATH_BOLT), false);
+            Assets.assetManager.isLoaded(Assets.DEATH_BOLT)
+                ? Assets.assetManager.get(Assets.DEATH_BOLT, Texture.class) : null, false);
         sprite.setSize(sprite.getWidth() * AppConfig.NECROMANCER_ATTACK_SCALE,
             sprite.getHeight() * AppConfig.NECROMANCER_ATTACK_SCALE);
         super.body.setUserData(this);
@@ -66,6 +66,24 @@ public class NecromancerAttackTemplate {
         return attack;
     }
 
+    /**
+     * Accessor for the arc of the attack.
+     *
+     * @return The arc of the attack.
+     */
+    public int getArc() {
+        return arc;
+    }
+
+    /**
+     * Accessor for the number of projectiles in the attack.
+     *
+     * @return The number of projectiles in the attack.
+     */
+    public int getProjectileCount() {
+        return projectileCount;
+    }
+
     /**
      * Accessor for the damage of the attack.
      *
@@ -119,4 +137,26 @@ public class NecromancerAttackTemplate {
     public String getModifierLogicCode() {
         return modifier != null ? modifier.getInlineLogicCode() : "";
     }
+
+    /**
+     * Appends the movement logic code of the attack to a builder.
+     *
+     * @param out The builder to append the code to.
+     */
+    public void appendMovementLogicCode(StringBuilder out) {
+        if (movementPattern != null) {
+            movementPattern.appendInlineLogicCode(out, speed);
+        }
+    }
+
+    /**
+     * Appends the modifier logic code of the attack to a builder.
+     *
+     * @param out The builder to append the code to.
+     */
+    public void appendModifierLogicCode(StringBuilder out) {
+        if (modifier != null) {
+            modifier.appendInlineLogicCode(out);
+        }
+    }
 }
@@ -23,4 +23,15 @@ import com.mygdx.platformer.attacks.BaseAttack;
 public interface AttackModifier {
     abstract void update(BaseAttack attack);
     String getInlineLogicCode();
+
+    /**
+     * Appends the code of {@link #getInlineLogicCode()} to a builder, without
+     * building an intermediate string.
+     *
+     * @param out The builder to append the code to.
+     * @see com.mygdx.platformer.attacks.CodeTemplate
+     */
+    default void appendInlineLogicCode(StringBuilder out) {
+        out.append(getInlineLogicCode());
+    }
 }
@@ -1,5 +1,6 @@
 package com.mygdx.platformer.attacks.modifiers;
 
+import com.mygdx.platformer.attacks.CodeTemplate;
 import com.badlogic.gdx.Gdx;
 import com.mygdx.platformer.attacks.BaseAttack;
 
@@ -32,6 +33,24 @@ import com.mygdx.platformer.attacks.BaseAttack;
  * @see com.mygdx.platformer.attacks.BaseAttack
  */
 public class PulseModifier implements AttackModifier {
+
+    private static final CodeTemplate CODE = CodeTemplate.compile(
+        "        float interval = 1.0f / ${frequency}f;\n" +
+        "float timeSinceLastResize = 0f;\n" +
+        "boolean shrink = false;\n" +
+        "        timeSinceLastResize += com.badlogic.gdx.Gdx.graphics.getDeltaTime();\n" +
+        "        if (timeSinceLastResize >= interval) {\n" +
+        "            shrink = !shrink;\n" +
+        "            timeSinceLastResize = 0f;\n" +
+        "        }\n" +
+        "        float visualScale;\n" +
+        "        if (shrink) {\n" +
+        "            visualScale = 1.5f;\n" +
+        "        } else {\n" +
+        "            visualScale = 2.0f;\n" +
+        "        }\n" +
+        "        attack.setVisualScale(visualScale);\n", "frequency");
+
     private final float frequency;
     private final float amplitude;
 
@@ -43,6 +62,24 @@ public class PulseModifier implements AttackModifier {
         this.amplitude = amplitude;
     }
 
+    /**
+     * Accessor for the pulse frequency.
+     *
+     * @return The number of scale changes per second.
+     */
+    public float getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Accessor for the pulse amplitude.
+     *
+     * @return The amplitude.
+     */
+    public float getAmplitude() {
+        return amplitude;
+    }
+
     /**
      * Updates the attack's visual scale to create a pulsing effect.
      * <p>
@@ -80,21 +117,16 @@ public class PulseModifier implements AttackModifier {
      * @return Java code implementing the pulsing effect.
      */
     public String getInlineLogicCode() {
-        return
-            "        float interval = 1.0f / " + frequency + "f;\n" +
-                "float timeSinceLastResize = 0f;" + "\n" +
-                "boolean shrink = false;" + "\n" +
-                "        timeSinceLastResize += com.badlogic.gdx.Gdx.graphics.getDeltaTime();\n" +
-                "        if (timeSinceLastResize >= interval) {\n" +
-                "            shrink = !shrink;\n" +
-                "            timeSinceLastResize = 0f;\n" +
-                "        }\n" +
-                "        float visualScale;\n" +
-                "        if (shrink) {\n" +
-                "            visualScale = 1.5f;\n" +
-                "        } else {\n" +
-                "            visualScale = 2.0f;\n" +
-                "        }\n" +
-                "        attack.setVisualScale(visualScale);\n";
+        return CODE.render(frequency);
+    }
+
+    /**
+     * Appends the code of {@link #getInlineLogicCode()} to a builder.
+     *
+     * @param out The builder to append the code to.
+     */
+    @Override
+    public void appendInlineLogicCode(StringBuilder out) {
+        CODE.appendTo(out, frequency);
     }
 }
@@ -1,5 +1,6 @@
 package com.mygdx.platformer.attacks.movement;
 
+import com.mygdx.platformer.attacks.CodeTemplate;
 import com.mygdx.platformer.attacks.BaseAttack;
 import com.badlogic.gdx.math.Vector2;
 
@@ -27,6 +28,26 @@ import com.badlogic.gdx.math.Vector2;
  * @see com.mygdx.platformer.attacks.BaseAttack
  */
 public class AccelerateMovement implements MovementPatternBehavior {
+
+    private static final CodeTemplate CODE = CodeTemplate.compile(
+        "        Vector2 pos = attack.getBody().getPosition();\n" +
+        "        float currentSpeed = attack.getBody().getLinearVelocity().x;\n" +
+        "        float newSpeed;\n" +
+        "        if (currentSpeed < 1.5f) {\n" +
+        "            newSpeed = currentSpeed + 0.2f;\n" +
+        "        } else if (currentSpeed < 3.0f) {\n" +
+        "            if (pos.y > 50) {\n" +
+        "                newSpeed = currentSpeed * 1.1f;\n" +
+        "            } else {\n" +
+        "                newSpeed = currentSpeed * 1.05f;\n" +
+        "            }\n" +
+        "        } else if (currentSpeed > 5.0f) {\n" +
+        "            newSpeed = currentSpeed * 0.95f;\n" +
+        "        } else {\n" +
+        "            newSpeed = currentSpeed;\n" +
+        "        }\n" +
+        "        attack.getBody().setLinearVelocity(newSpeed, 0);");
+
     @Override
     public void update(BaseAttack attack) {
         Vector2 pos = attack.getBody().getPosition();
@@ -53,23 +74,17 @@ public class AccelerateMovement implements MovementPatternBehavior {
 
     @Override
     public String getInlineLogicCode(float speed) {
-        return
-            "        Vector2 pos = attack.getBody().getPosition();\n" +
-                "        float currentSpeed = attack.getBody().getLinearVelocity().x;\n" +
-                "        float newSpeed;\n" +
-                "        if (currentSpeed < 1.5f) {\n" +
-                "            newSpeed = currentSpeed + 0.2f;\n" +
-                "        } else if (currentSpeed < 3.0f) {\n" +
-                "            if (pos.y > 50) {\n" +
-                "                newSpeed = currentSpeed * 1.1f;\n" +
-                "            } else {\n" +
-                "                newSpeed = currentSpeed * 1.05f;\n" +
-                "            }\n" +
-                "        } else if (currentSpeed > 5.0f) {\n" +
-                "            newSpeed = currentSpeed * 0.95f;\n" +
-                "        } else {\n" +
-                "            newSpeed = currentSpeed;\n" +
-                "        }\n" +
-                "        attack.getBody().setLinearVelocity(newSpeed, 0);";
+        return CODE.render();
+    }
+
+    /**
+     * Appends the code of {@link #getInlineLogicCode(float)} to a builder.
+     *
+     * @param out   The builder to append the code to.
+     * @param speed The initial speed of the attack (unused).
+     */
+    @Override
+    public void appendInlineLogicCode(StringBuilder out, float speed) {
+        CODE.appendTo(out);
     }
 }
@@ -1,8 +1,11 @@
 package com.mygdx.platformer.attacks.movement;
 
+import com.mygdx.platformer.attacks.CodeTemplate;
 import com.badlogic.gdx.math.Vector2;
 import com.mygdx.platformer.attacks.BaseAttack;
 
+import java.util.Random;
+
 /**
  * A {@link MovementPatternBehavior} that alternates an attack's movement
  * between straight and zigzag patterns.
@@ -30,9 +33,45 @@ import com.mygdx.platformer.attacks.BaseAttack;
  */
 public class MixedMovement implements MovementPatternBehavior {
 
+    private static final CodeTemplate CODE = CodeTemplate.compile(
+        "float timeSinceLastSwitch = 0f;\n" +
+        "boolean useZigZag = false;\n" +
+        "timeSinceLastSwitch += com.badlogic.gdx.Gdx.graphics.getDeltaTime();\n" +
+        "if (timeSinceLastSwitch >= 1.0f) {\n" +
+        "    useZigZag = Math.random() < 0.5;\n" +
+        "    timeSinceLastSwitch = 0f;\n" +
+        "}\n" +
+        "Vector2 pos = attack.getBody().getPosition();\n" +
+        "if (useZigZag) {\n" +
+        "    float cycleLength = 2.0f;\n" +
+        "    float offsetY = ((int)(pos.x / cycleLength)) % 2 == 0 ? 2f : -2f;\n" +
+        "    attack.getBody().setLinearVelocity(speed, offsetY);\n" +
+        "} else {\n" +
+        "    attack.getBody().setLinearVelocity(speed, 0f);\n" +
+        "}");
+
+    private final Random random;
     private float timeSinceLastSwitch = 0f;
     private boolean useZigZag = false;
 
+    /**
+     * Creates a mixed movement that switches modes at random.
+     */
+    public MixedMovement() {
+        this(null);
+    }
+
+    /**
+     * Creates a mixed movement that draws its mode switches from the given
+     * random generator, so that the movement can be reproduced.
+     *
+     * @param random The random generator, or {@code null} to use
+     *               {@link Math#random()}.
+     */
+    public MixedMovement(Random random) {
+        this.random = random;
+    }
+
     /**
      * Updates the attack's movement pattern, alternating between straight and
      * zigzag modes.
@@ -53,7 +92,7 @@ public class MixedMovement implements MovementPatternBehavior {
         timeSinceLastSwitch += com.badlogic.gdx.Gdx.graphics.getDeltaTime();
 
         if (timeSinceLastSwitch >= 1.0f) {
-            useZigZag = Math.random() < 0.5;
+            useZigZag = (random != null ? random.nextDouble() : Math.random()) < 0.5;
             timeSinceLastSwitch = 0f;
         }
 
@@ -81,22 +120,17 @@ public class MixedMovement implements MovementPatternBehavior {
      */
     @Override
     public String getInlineLogicCode(float speed) {
-        return
-            "float timeSinceLastSwitch = 0f;\n" +
-                "boolean useZigZag = false;\n" +
-                "timeSinceLastSwitch += com.badlogic.gdx.Gdx.graphics.getDeltaTime();\n" +
-                "if (timeSinceLastSwitch >= 1.0f) {\n" +
-                "    useZigZag = Math.random() < 0.5;\n" +
-                "    timeSinceLastSwitch = 0f;\n" +
-                "}\n" +
-                "Vector2 pos = attack.getBody().getPosition();\n" +
-                "if (useZigZag) {\n" +
-                "    float cycleLength = 2.0f;\n" +
-                "    float offsetY = ((int)(pos.x / cycleLength)) % 2 == 0 ? 2f : -2f;\n" +
-                "    attack.getBody().setLinearVelocity(" + "speed, offsetY);\n" +
-                "} else {\n" +
-                "    attack.getBody().setLinearVelocity(" + "speed, 0f);\n" +
-                "}";
+        return CODE.render();
     }
-}
 
+    /**
+     * Appends the code of {@link #getInlineLogicCode(float)} to a builder.
+     *
+     * @param out   The builder to append the code to.
+     * @param speed The speed of the attack (read from the generated code).
+     */
+    @Override
+    public void appendInlineLogicCode(StringBuilder out, float speed) {
+        CODE.appendTo(out);
+    }
+}
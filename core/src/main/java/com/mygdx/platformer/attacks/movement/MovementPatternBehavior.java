@@ -44,4 +44,16 @@ public interface MovementPatternBehavior {
      */
     String getInlineLogicCode(float speed);
 
+    /**
+     * Appends the code of {@link #getInlineLogicCode(float)} to a builder,
+     * without building an intermediate string.
+     *
+     * @param out   The builder to append the code to.
+     * @param speed The initial speed of the attack (may be used in the
+     *              generated code).
+     * @see com.mygdx.platformer.attacks.CodeTemplate
+     */
+    default void appendInlineLogicCode(StringBuilder out, float speed) {
+        out.append(getInlineLogicCode(speed));
+    }
 }
@@ -1,5 +1,6 @@
 package com.mygdx.platformer.attacks.movement;
 
+import com.mygdx.platformer.attacks.CodeTemplate;
 import com.mygdx.platformer.attacks.BaseAttack;
 import com.badlogic.gdx.math.Vector2;
 
@@ -28,6 +29,9 @@ import com.badlogic.gdx.math.Vector2;
  */
 public class StraightMovement implements MovementPatternBehavior {
 
+    private static final CodeTemplate CODE =
+        CodeTemplate.compile("        attack.getBody().setLinearVelocity(${speed}f, 0);", "speed");
+
     /**
      * Updates the attack's velocity to maintain straight horizontal movement.
      *
@@ -49,6 +53,17 @@ public class StraightMovement implements MovementPatternBehavior {
      */
     @Override
     public String getInlineLogicCode(float speed) {
-        return "        attack.getBody().setLinearVelocity(" + speed + "f, 0);";
+        return CODE.render(speed);
+    }
+
+    /**
+     * Appends the code of {@link #getInlineLogicCode(float)} to a builder.
+     *
+     * @param out   The builder to append the code to.
+     * @param speed The speed to use for the attack's horizontal movement.
+     */
+    @Override
+    public void appendInlineLogicCode(StringBuilder out, float speed) {
+        CODE.appendTo(out, speed);
     }
 }
@@ -1,5 +1,6 @@
 package com.mygdx.platformer.attacks.movement;
 
+import com.mygdx.platformer.attacks.CodeTemplate;
 import com.mygdx.platformer.attacks.BaseAttack;
 import com.badlogic.gdx.math.Vector2;
 
@@ -23,6 +24,18 @@ import com.badlogic.gdx.math.Vector2;
  * @see com.mygdx.platformer.attacks.BaseAttack
  */
 public class ZigZagMovement implements MovementPatternBehavior {
+
+    private static final CodeTemplate CODE = CodeTemplate.compile(
+        "        Vector2 pos = attack.getBody().getPosition();\n" +
+        "        float cycleLength = 2.0f;\n" +
+        "        float offsetY;\n" +
+        "        if (((int)(pos.x / cycleLength)) % 2 == 0) {\n" +
+        "            offsetY = 2f;\n" +
+        "        } else {\n" +
+        "            offsetY = -2f;\n" +
+        "        }\n" +
+        "        attack.getBody().setLinearVelocity(${speed}f, offsetY);", "speed");
+
     /**
      * Updates the attack's velocity to create a zigzag movement pattern.
      * <p>
@@ -65,15 +78,17 @@ public class ZigZagMovement implements MovementPatternBehavior {
      */
     @Override
     public String getInlineLogicCode(float speed) {
-        return
-            "        Vector2 pos = attack.getBody().getPosition();\n" +
-                "        float cycleLength = 2.0f;\n" +
-                "        float offsetY;\n" +
-                "        if (((int)(pos.x / cycleLength)) % 2 == 0) {\n" +
-                "            offsetY = 2f;\n" +
-                "        } else {\n" +
-                "            offsetY = -2f;\n" +
-                "        }\n" +
-                "        attack.getBody().setLinearVelocity(" + speed + "f, offsetY);";
+        return CODE.render(speed);
+    }
+
+    /**
+     * Appends the code of {@link #getInlineLogicCode(float)} to a builder.
+     *
+     * @param out   The builder to append the code to.
+     * @param speed The speed to use for the attack's horizontal movement.
+     */
+    @Override
+    public void appendInlineLogicCode(StringBuilder out, float speed) {
+        CODE.appendTo(out, speed);
     }
 }
@@ -0,0 +1,78 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AsyncFileWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Path file(Path directory, int i) {
+        return directory.resolve("gen" + i % 7).resolve("file" + i + ".java");
+    }
+
+    @Test
+    void testFlushAndClose_makeEveryQueuedWriteVisible() throws Exception {
+        AsyncFileWriter writer = new AsyncFileWriter(3, 16);
+        for (int i = 0; i < 300; i++) {
+            writer.write(file(tempDir, i), "class File" + i + " {}");
+        }
+        writer.flush();
+        for (int i = 0; i < 300; i++) {
+            assertEquals("class File" + i + " {}", Files.readString(file(tempDir, i), StandardCharsets.UTF_8));
+        }
+        assertEquals(300, writer.getWrittenCount());
+
+        // the writer stays open after a flush
+        writer.write(tempDir.resolve("last.bin"), new byte[] {1, 2, 3});
+        writer.close();
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(tempDir.resolve("last.bin")));
+        assertEquals(301, writer.getWrittenCount());
+        assertThrows(IllegalStateException.class, () -> writer.write(tempDir.resolve("late.java"), ""));
+    }
+
+    @Test
+    void testFailedWrite_surfacesFromFlushAndClose() throws Exception {
+        // a regular file where a directory is needed
+        Path blocker = tempDir.resolve("blocker");
+        Files.writeString(blocker, "");
+        AsyncFileWriter writer = new AsyncFileWriter(2, 16);
+        writer.write(blocker.resolve("a.java"), "class A {}");
+        writer.write(tempDir.resolve("b.java"), "class B {}");
+
+        IOException flushed = assertThrows(IOException.class, writer::flush);
+        assertTrue(flushed.getMessage().startsWith("1 files"), flushed.getMessage());
+        IOException closed = assertThrows(IOException.class, writer::close);
+        assertTrue(closed.getMessage().startsWith("1 of 2 files"), closed.getMessage());
+        assertEquals(1, closed.getSuppressed().length);
+        // the failure does not stop the other files
+        assertEquals("class B {}", Files.readString(tempDir.resolve("b.java"), StandardCharsets.UTF_8));
+        assertEquals(1, writer.getWrittenCount());
+    }
+
+    @Test
+    void testBoundedQueue_appliesBackpressureWithoutLosingWrites() throws Exception {
+        int capacity = 4;
+        int count = 3000;
+        try (AsyncFileWriter writer = new AsyncFileWriter(1, capacity)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(file(tempDir, i), "class File" + i + " {}");
+                // at most a full queue and the batch taken from it wait for the writer
+                assertTrue(i + 1 - writer.getWrittenCount() <= 2 * capacity + 1,
+                    "writer fell behind by " + (i + 1 - writer.getWrittenCount()));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals("class File" + i + " {}", Files.readString(file(tempDir, i), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackClassEmitter;
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.CompiledClasses;
+import com.mygdx.platformer.analysistool.CoverageCollector;
+import com.mygdx.platformer.analysistool.CoverageCollector.ClassCoverage;
+import com.mygdx.platformer.analysistool.InMemoryCompiler;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.AttackModifier;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.AccelerateMovement;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.MovementPatternBehavior;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackClassEmitterTest {
+
+    private static List<List<NecromancerAttackTemplate>> everyCombination() {
+        MovementPatternBehavior[] movements = {null, new StraightMovement(), new ZigZagMovement(),
+            new AccelerateMovement(), new MixedMovement()};
+        AttackModifier[] modifiers = {null, new PulseModifier(2.5f, 0.5f)};
+        List<List<NecromancerAttackTemplate>> compounds = new ArrayList<>();
+        for (MovementPatternBehavior movement : movements) {
+            List<NecromancerAttackTemplate> compound = new ArrayList<>();
+            for (AttackModifier modifier : modifiers) {
+                compound.add(new NecromancerAttackTemplate(45, 1.75f, 12, 5, movement, modifier));
+            }
+            compounds.add(compound);
+        }
+        return compounds;
+    }
+
+    @Test
+    void testToClasses_matchesCompiledLinesAndCoverage() throws Exception {
+        List<List<NecromancerAttackTemplate>> compounds = everyCombination();
+        CompiledClasses compiled = new InMemoryCompiler().compile(AttackExporter.toSources(compounds, 3, "RCG"));
+        assertTrue(compiled.isSuccess(), () -> String.join("\n", compiled.getErrors()));
+        CompiledClasses emitted = AttackClassEmitter.toClasses(compounds, 3, "RCG");
+        assertEquals(compiled.getClassBytes().keySet(), emitted.getClassBytes().keySet());
+
+        for (Map.Entry<String, byte[]> entry : compiled.getClassBytes().entrySet()) {
+            assertEquals(lineNumbers(entry.getValue()), lineNumbers(emitted.getClassBytes().get(entry.getKey())),
+                entry.getKey());
+        }
+
+        Map<String, ClassCoverage> compiledCoverage = CoverageCollector.collect(compiled.getClassBytes());
+        Map<String, ClassCoverage> emittedCoverage = CoverageCollector.collect(emitted.getClassBytes());
+        for (String className : compiled.getClassBytes().keySet()) {
+            assertEquals(compiledCoverage.get(className).toString(), emittedCoverage.get(className).toString(),
+                className);
+        }
+    }
+
+    @Test
+    void testToClasses_emittedClassesExecute() throws Exception {
+        CompiledClasses emitted = AttackClassEmitter.toClasses(everyCombination(), 0, "PCG");
+        Map<String, ClassCoverage> coverage = CoverageCollector.collect(emitted.getClassBytes());
+        for (Map.Entry<String, ClassCoverage> entry : coverage.entrySet()) {
+            // the execute method ran to its return
+            assertTrue(entry.getValue().getCoveredLines() >= 5, entry.getKey() + " " + entry.getValue());
+        }
+    }
+
+    /** The source lines of every method, in declaration order. */
+    private static List<SortedSet<Integer>> lineNumbers(byte[] classFile) {
+        List<SortedSet<Integer>> methods = new ArrayList<>();
+        new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                             String[] exceptions) {
+                SortedSet<Integer> lines = new TreeSet<>();
+                methods.add(lines);
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitLineNumber(int line, Label start) {
+                        lines.add(line);
+                    }
+                };
+            }
+        }, 0);
+        return methods;
+    }
+}
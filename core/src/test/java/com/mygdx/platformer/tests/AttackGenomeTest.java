@@ -0,0 +1,76 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.AttackPopulation;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.attacks.AttackGenome;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackGenomeTest {
+
+    @Test
+    void testEncode_roundTripsEveryField() {
+        NecromancerAttackTemplate template = new NecromancerAttackTemplate(45, 3.1415927f, 29, 5,
+            new ZigZagMovement(), new PulseModifier(2f, 0.5f));
+        long genome = AttackGenome.encode(template);
+        assertEquals(45, AttackGenome.getArc(genome));
+        assertEquals(3.1415927f, AttackGenome.getSpeed(genome));
+        assertEquals(29, AttackGenome.getDamage(genome));
+        assertEquals(5, AttackGenome.getProjectileCount(genome));
+        assertEquals(AttackGenome.MOVEMENT_ZIGZAG, AttackGenome.getMovement(genome));
+        assertEquals(2f, AttackGenome.getPulseFrequency(genome));
+
+        NecromancerAttackTemplate copy = AttackGenome.toTemplate(genome);
+        assertEquals(genome, AttackGenome.encode(copy));
+        assertInstanceOf(ZigZagMovement.class, copy.getMovementPattern());
+        assertEquals(template.getMovementLogicCode(), copy.getMovementLogicCode());
+        assertEquals(template.getModifierLogicCode(), copy.getModifierLogicCode());
+
+        long bare = AttackGenome.of(511, -0.0f, 1023, 31, AttackGenome.MOVEMENT_MIXED, 15.5f);
+        assertEquals(511, AttackGenome.getArc(bare));
+        assertEquals(Float.floatToRawIntBits(-0.0f), Float.floatToRawIntBits(AttackGenome.getSpeed(bare)));
+        assertEquals(15.5f, AttackGenome.getPulseFrequency(bare));
+        assertInstanceOf(MixedMovement.class, AttackGenome.toTemplate(bare).getMovementPattern());
+        assertNull(AttackGenome.toTemplate(AttackGenome.of(45, 1f, 10, 5, AttackGenome.MOVEMENT_NONE, 0))
+            .getModifier());
+    }
+
+    @Test
+    void testEncode_rejectsAttacksOutsideTheLayout() {
+        assertThrows(IllegalArgumentException.class,
+            () -> AttackGenome.of(512, 1f, 10, 5, AttackGenome.MOVEMENT_NONE, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> AttackGenome.of(45, 1f, 10, 5, AttackGenome.MOVEMENT_NONE, 2.25f));
+        assertThrows(IllegalArgumentException.class, () -> AttackGenome.encode(
+            new NecromancerAttackTemplate(45, 1f, 10, 5, null, new PulseModifier(2f, 0.75f))));
+    }
+
+    @Test
+    void testPopulation_matchesTemplateGeneration() {
+        try (GenerationEngine engine = new GenerationEngine(7L, 50, 4, 2)) {
+            List<List<NecromancerAttackTemplate>> pcg = engine.generatePCG(0);
+            AttackPopulation population = engine.populatePCG(0);
+            assertEquals(200, population.size());
+            assertEquals(AttackExporter.toSources(pcg, 0, "PCG"),
+                AttackExporter.toSources(population.toTemplates(0, 50), 0, "PCG"));
+
+            List<List<NecromancerAttackTemplate>> rcg = engine.generateRCG(pcg, 1);
+            AttackPopulation recombined = engine.generateRCG(population, 1);
+            assertEquals(AttackExporter.toSources(rcg, 1, "RCG"),
+                AttackExporter.toSources(recombined.toTemplates(0, 50), 1, "RCG"));
+            for (int i = 0; i < 50; i++) {
+                for (int j = 0; j < 4; j++) {
+                    assertEquals(AttackGenome.encode(rcg.get(i).get(j)), recombined.get(i, j));
+                }
+            }
+        }
+    }
+}
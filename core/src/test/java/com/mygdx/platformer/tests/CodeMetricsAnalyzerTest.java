@@ -0,0 +1,93 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.CodeMetrics;
+import com.mygdx.platformer.analysistool.CodeMetricsAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeMetricsAnalyzerTest {
+
+    @Test
+    void testAnalyze_nestedIfElseChain() {
+        String source = """
+            package generated.rcg.gen3.compound_2;
+
+            import com.badlogic.gdx.math.Vector2;
+
+            public class NecromancerAttack_1 {
+
+                // movement logic
+                public BaseAttack execute(World world, Vector2 initialPos, int directionModifier, float multiplier) {
+                    float currentSpeed = attack.getBody().getLinearVelocity().x;
+                    float newSpeed;
+                    if (currentSpeed < 1.5f) {
+                        newSpeed = currentSpeed + 0.2f;
+                    } else if (currentSpeed < 3.0f) {
+                        if (pos.y > 50) {
+                            newSpeed = currentSpeed * 1.1f;
+                        } else {
+                            newSpeed = currentSpeed * 1.05f;
+                        }
+                    } else {
+                        newSpeed = currentSpeed;
+                    }
+                    return attack;
+                }
+            }
+            """;
+
+        CodeMetrics metrics = CodeMetricsAnalyzer.analyze(source);
+
+        assertEquals(20, metrics.getLinesOfCode());
+        assertEquals(4, metrics.getComplexity());
+        // if (1) + else if (1) + nested if (2) + inner else (1) + else (1)
+        assertEquals(6, metrics.getCognitiveComplexity());
+        assertEquals(2, metrics.getNestingDepth());
+    }
+
+    @Test
+    void testAnalyze_ternaryAndLogicalOperators() {
+        String source = """
+            class A {
+                float offset(Vector2 pos, boolean a, boolean b, boolean c) {
+                    if (a && b || c) {
+                        return ((int) (pos.x / 2.0f)) % 2 == 0 ? 2f : -2f;
+                    }
+                    return "{ if (x) }".length();
+                }
+            }
+            """;
+
+        CodeMetrics metrics = CodeMetricsAnalyzer.analyze(source);
+
+        assertEquals(4 + 1, metrics.getComplexity());
+        // if (1) + && (1) + || (1) + nested ternary (2)
+        assertEquals(5, metrics.getCognitiveComplexity());
+        assertEquals(1, metrics.getNestingDepth());
+    }
+
+    @Test
+    void testAnalyze_loopsAndLambdas() {
+        String source = """
+            class A {
+                void run(java.util.List<String> items) {
+                    do {
+                        items.forEach(item -> {
+                            for (int i = 0; i < 3; i++) {
+                                System.out.println(item);
+                            }
+                        });
+                    } while (items.isEmpty());
+                }
+            }
+            """;
+
+        CodeMetrics metrics = CodeMetricsAnalyzer.analyze(source);
+
+        assertEquals(3, metrics.getComplexity());
+        // do (1) + for nested in do and lambda (3)
+        assertEquals(4, metrics.getCognitiveComplexity());
+        assertEquals(2, metrics.getNestingDepth());
+    }
+}
@@ -0,0 +1,57 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.attacks.CodeTemplate;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.AccelerateMovement;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeTemplateTest {
+
+    @Test
+    void testAppendTo_rendersLiteralsAndParameters() {
+        CodeTemplate template = CodeTemplate.compile("int ${name} = ${value}; // ${name}", "value", "name");
+        assertEquals(2, template.getParameterCount());
+
+        StringBuilder out = new StringBuilder("> ");
+        template.appendTo(out, (builder, parameter) -> builder.append(parameter == 0 ? "42" : "damage"));
+        assertEquals("> int damage = 42; // damage", out.toString());
+
+        assertEquals("speed(1.25f, 1.25f)", CodeTemplate.compile("speed(${s}f, ${s}f)", "s").render(1.25f));
+        assertEquals("no parameters", CodeTemplate.compile("no parameters").render());
+        assertThrows(IllegalStateException.class, () -> template.render(1f));
+    }
+
+    @Test
+    void testCompile_rejectsMalformedReferences() {
+        assertThrows(IllegalArgumentException.class, () -> CodeTemplate.compile("${speed", "speed"));
+        assertThrows(IllegalArgumentException.class, () -> CodeTemplate.compile("${speed}", "damage"));
+    }
+
+    @Test
+    void testAppendLogicCode_matchesInlineLogicCode() {
+        NecromancerAttackTemplate[] attacks = {
+            new NecromancerAttackTemplate(45, 1.3f, 10, 5, new StraightMovement(), null),
+            new NecromancerAttackTemplate(45, 2.7f, 10, 5, new ZigZagMovement(), new PulseModifier(1.7f, 0.5f)),
+            new NecromancerAttackTemplate(45, 0.1f, 10, 5, new AccelerateMovement(), null),
+            new NecromancerAttackTemplate(45, 3f, 10, 5, new MixedMovement(), new PulseModifier(3f, 0.5f)),
+            new NecromancerAttackTemplate(45, 3f, 10, 5, null, null),
+        };
+        StringBuilder out = new StringBuilder();
+        for (NecromancerAttackTemplate attack : attacks) {
+            out.setLength(0);
+            attack.appendMovementLogicCode(out);
+            assertEquals(attack.getMovementLogicCode(), out.toString());
+            out.setLength(0);
+            attack.appendModifierLogicCode(out);
+            assertEquals(attack.getModifierLogicCode(), out.toString());
+        }
+        assertTrue(attacks[1].getMovementLogicCode().endsWith("setLinearVelocity(2.7f, offsetY);"));
+        assertTrue(attacks[1].getModifierLogicCode().startsWith("        float interval = 1.0f / 1.7f;\n"));
+    }
+}
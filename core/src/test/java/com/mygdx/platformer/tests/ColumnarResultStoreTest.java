@@ -0,0 +1,54 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.ColumnarResultReader;
+import com.mygdx.platformer.analysistool.ColumnarResultReader.ColumnStats;
+import com.mygdx.platformer.analysistool.ColumnarResultWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarResultStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTrip_columnsAndAggregates() throws Exception {
+        Path file = tempDir.resolve("metrics.col");
+        try (ColumnarResultWriter writer = new ColumnarResultWriter(file, "LOC", "Complexity")) {
+            writer.addRow("PCG", 0, 0, 0, 20, 1);
+            writer.addRow("RCG", 1, 0, 0, 24, 3);
+            writer.addRow("RCG", 1, 0, 1, 30, 5);
+            writer.addRow("PCG", 1, 0, 0, 18, 2);
+        }
+
+        try (ColumnarResultReader reader = ColumnarResultReader.open(file)) {
+            assertEquals(4, reader.getRowCount());
+            assertEquals(List.of("PCG", "RCG"), reader.getMethods());
+            assertEquals(List.of("Method", "Generation", "Compound", "Attack", "LOC", "Complexity"),
+                reader.getColumns());
+            assertEquals("RCG", reader.getMethod(2));
+
+            IntBuffer loc = reader.getIntColumn("LOC");
+            assertEquals(30, loc.get(2));
+            assertEquals(1, reader.getIntColumn("Attack").get(2));
+
+            Map<String, SortedMap<Integer, ColumnStats>> complexity = reader.aggregate("Complexity");
+            ColumnStats rcg = complexity.get("RCG").get(1);
+            assertEquals(2, rcg.getCount());
+            assertEquals(8, rcg.getSum());
+            assertEquals(3, rcg.getMin());
+            assertEquals(5, rcg.getMax());
+            assertEquals(4.0, rcg.getMean());
+            assertEquals(List.of(0, 1), List.copyOf(complexity.get("PCG").keySet()));
+            assertFalse(complexity.get("RCG").containsKey(0));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.ContentStore;
+import com.mygdx.platformer.analysistool.ExportManifest;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void export(Path output, boolean deduplicate) throws IOException {
+        try (GenerationEngine engine = new GenerationEngine(5L, 20, 3, 2);
+             AttackExporter exporter = new AttackExporter(output, deduplicate, false)) {
+            engine.run(3, exporter::export);
+            exporter.finish();
+        }
+    }
+
+    private static Set<Path> files(Path directory, String extension) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(p -> p.toString().endsWith(extension)).map(directory::relativize)
+                .collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    void testDeduplicatedExport_roundTripsThroughTheStore() throws Exception {
+        Path tree = tempDir.resolve("tree");
+        Path deduplicated = tempDir.resolve("deduplicated");
+        export(tree, false);
+        export(deduplicated, true);
+
+        // every exported path is in the manifest, under the hash of its normalized body
+        SortedMap<AttackKey, String> manifest = ExportManifest.read(deduplicated);
+        assertEquals(ExportManifest.read(tree), manifest);
+        assertEquals(files(tree, ".java"),
+            manifest.keySet().stream().map(AttackKey::toPath).collect(Collectors.toSet()));
+        Map<String, String> sources = new HashMap<>();
+        for (Map.Entry<AttackKey, String> entry : manifest.entrySet()) {
+            AttackKey key = entry.getKey();
+            String source = Files.readString(tree.resolve(key.toPath()), StandardCharsets.UTF_8);
+            assertEquals(ContentStore.hash(ContentStore.normalize(source, key.getAttack())), entry.getValue());
+            sources.put(key.toClassName(), source);
+        }
+
+        // identical bodies are stored once, and no tree is written
+        Set<String> hashes = new HashSet<>(manifest.values());
+        assertTrue(hashes.size() < manifest.size());
+        assertEquals(hashes.size(), files(deduplicated, ".src").size());
+        assertTrue(files(deduplicated, ".java").isEmpty());
+        ContentStore store = new ContentStore(deduplicated);
+        for (String hash : hashes) {
+            assertEquals(hash, ContentStore.hash(store.read(hash)));
+        }
+
+        // the store restores every file of the tree
+        assertEquals(sources, ContentStore.readSources(deduplicated));
+        AttackKey first = manifest.firstKey();
+        assertEquals(sources.get(first.toClassName()), store.readSource(manifest.get(first), first));
+        assertTrue(ContentStore.readSources(tree).isEmpty());
+    }
+}
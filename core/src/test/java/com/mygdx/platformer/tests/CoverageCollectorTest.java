@@ -0,0 +1,63 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.CoverageCollector;
+import com.mygdx.platformer.analysistool.CoverageCollector.ClassCoverage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoverageCollectorTest {
+
+    @TempDir
+    Path exportDir;
+
+    @Test
+    void testCollectExport_countsExecutedLinesAndBranches() throws Exception {
+        String source = """
+            package generated.rcg.gen1.compound_0;
+
+            import com.badlogic.gdx.math.Vector2;
+            import com.badlogic.gdx.physics.box2d.World;
+            import com.mygdx.platformer.attacks.BaseAttack;
+            import com.mygdx.platformer.attacks.NecromancerAttack;
+
+            public class NecromancerAttack_0 {
+
+                public BaseAttack execute(World world, Vector2 initialPos, int directionModifier, float multiplier) {
+                    BaseAttack attack = new NecromancerAttack(world, 10, 4f, initialPos.x, initialPos.y, directionModifier);
+                    float offsetY;
+                    if (directionModifier > 0) {
+                        offsetY = 2f;
+                    } else {
+                        offsetY = -2f;
+                    }
+                    attack.getBody().setLinearVelocity(4f, offsetY);
+                    return attack;
+                }
+            }
+            """;
+        Path file = exportDir.resolve("rcg/gen1/compound_0/NecromancerAttack_0.java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+
+        SortedMap<AttackKey, ClassCoverage> results = CoverageCollector.collectExport(exportDir);
+
+        ClassCoverage coverage = results.get(new AttackKey("RCG", 1, 0, 0));
+        assertEquals(1, coverage.getCoveredBranches());
+        assertEquals(1, coverage.getMissedBranches());
+        assertEquals(1, coverage.getMissedLines());
+        assertEquals(List.of(
+            "Class;LineCoverage;BranchCoverage",
+            "generated/rcg/gen1/compound_0/NecromancerAttack_0;"
+                + String.format(Locale.ROOT, "%.2f", 100.0 * coverage.getCoveredLines() / (coverage.getCoveredLines() + 1))
+                + ";50.00"), Files.readAllLines(exportDir.resolve(CoverageCollector.COVERAGE_FILE)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.CoverageParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoverageParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testExtractCoverageToCSV_onlyGeneratedClassCounters() throws Exception {
+        String report = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <!DOCTYPE report PUBLIC "-//JACOCO//DTD Report 1.1//EN" "report.dtd">
+            <report name="core">
+              <package name="com/mygdx/platformer/attacks">
+                <class name="com/mygdx/platformer/attacks/BaseAttack">
+                  <counter type="LINE" missed="1" covered="1"/>
+                </class>
+              </package>
+              <package name="generated/rcg/gen1/compound_0">
+                <class name="generated/rcg/gen1/compound_0/NecromancerAttack_0">
+                  <method name="execute" desc="()V" line="11">
+                    <counter type="LINE" missed="9" covered="0"/>
+                  </method>
+                  <counter type="LINE" missed="1" covered="2"/>
+                  <counter type="BRANCH" missed="1" covered="7"/>
+                </class>
+                <class name="generated/rcg/gen1/compound_0/NecromancerAttack_1">
+                  <counter type="LINE" missed="0" covered="4"/>
+                </class>
+                <sourcefile name="NecromancerAttack_0.java">
+                  <counter type="LINE" missed="1" covered="6"/>
+                </sourcefile>
+              </package>
+            </report>
+            """;
+        Path xml = tempDir.resolve("jacocoTestReport.xml");
+        Path csv = tempDir.resolve("coverage_report.csv");
+        Files.writeString(xml, report);
+
+        int rows = CoverageParser.extractCoverageToCSV(xml, csv);
+
+        assertEquals(2, rows);
+        assertEquals(List.of(
+            "Class;LineCoverage;BranchCoverage",
+            "generated/rcg/gen1/compound_0/NecromancerAttack_0;66.67;87.50",
+            "generated/rcg/gen1/compound_0/NecromancerAttack_1;100.00;0.00"), Files.readAllLines(csv));
+    }
+}
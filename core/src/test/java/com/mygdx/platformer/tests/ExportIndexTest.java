@@ -0,0 +1,142 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.ExportIndex;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    // exports generation 0 and two generations of each strategy, failing in the given generation
+    private static void export(Path output, long seed, int failingGeneration) throws IOException {
+        try (GenerationEngine engine = new GenerationEngine(seed, 12, 3, 1);
+             AttackExporter exporter = new AttackExporter(output, false, true)) {
+            engine.run(2, (compounds, firstCompound, generation, method) -> {
+                if (generation == failingGeneration) {
+                    throw new IllegalStateException("Simulated crash");
+                }
+                exporter.export(compounds, firstCompound, generation, method);
+            });
+            exporter.finish();
+        }
+    }
+
+    private static Map<String, String> tree(Path output) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        try (Stream<Path> walk = Files.walk(output)) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                files.put(output.relativize(file).toString(), Files.readString(file, StandardCharsets.UTF_8));
+            }
+        }
+        return files;
+    }
+
+    // writes a file the way the exporter does, if the index says it has to be written
+    private static boolean write(ExportIndex index, Path file, String content) throws IOException {
+        if (!index.update(file, Integer.toHexString(content.hashCode()))) {
+            return false;
+        }
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return true;
+    }
+
+    @Test
+    void testUpdate_countsAddedChangedAndUnchangedFilesAcrossExports() throws Exception {
+        Path output = tempDir.resolve("export");
+        Path a = output.resolve("pcg/gen0/a.java");
+        Path b = output.resolve("pcg/gen0/b.java");
+        Path c = output.resolve("rcg/gen1/c.java");
+        ExportIndex first = ExportIndex.load(output);
+        assertTrue(write(first, a, "class A {}"));
+        assertTrue(write(first, b, "class B {}"));
+        assertTrue(write(first, c, "class C {}"));
+        // a path is only written and counted once per export
+        assertFalse(write(first, a, "class A {}"));
+        first.removeStale();
+        first.save();
+        assertEquals("3 added, 0 changed, 0 unchanged, 0 removed", first.toString());
+
+        long modified = Files.getLastModifiedTime(a).toMillis();
+        Files.delete(c);
+        Path d = output.resolve("rcg/gen2/d.java");
+        ExportIndex second = ExportIndex.load(output);
+        assertFalse(write(second, a, "class A {}"));
+        assertTrue(write(second, b, "class B { int x; }"));
+        // a file deleted from disk is written again, although its hash is unchanged
+        assertTrue(write(second, c, "class C {}"));
+        assertTrue(write(second, d, "class D {}"));
+        assertEquals(1, second.getAddedCount());
+        assertEquals(2, second.getChangedCount());
+        assertEquals(1, second.getUnchangedCount());
+        assertEquals(modified, Files.getLastModifiedTime(a).toMillis());
+        assertEquals("class B { int x; }", Files.readString(b, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRemoveStale_removesOnlyFilesOfThePreviousExport() throws Exception {
+        Path output = tempDir.resolve("export");
+        Path kept = output.resolve("pcg/gen0/a.java");
+        Path stale = output.resolve("rcg/gen1/b.java");
+        Path staleSibling = output.resolve("pcg/gen0/c.java");
+        Path foreign = output.resolve("notes/readme.txt");
+        ExportIndex first = ExportIndex.load(output);
+        write(first, kept, "class A {}");
+        write(first, stale, "class B {}");
+        write(first, staleSibling, "class C {}");
+        first.save();
+        Files.createDirectories(foreign.getParent());
+        Files.writeString(foreign, "not exported", StandardCharsets.UTF_8);
+
+        ExportIndex second = ExportIndex.load(output);
+        write(second, kept, "class A {}");
+        second.removeStale();
+        second.save();
+        assertEquals(2, second.getRemovedCount());
+        assertTrue(Files.exists(kept));
+        assertFalse(Files.exists(stale));
+        assertFalse(Files.exists(staleSibling));
+        // directories left empty are removed, the export root and unknown files are not
+        assertFalse(Files.exists(output.resolve("rcg")));
+        assertTrue(Files.exists(foreign));
+
+        // the saved index only holds the current export, so nothing is removed twice
+        ExportIndex third = ExportIndex.load(output);
+        write(third, kept, "class A {}");
+        third.removeStale();
+        assertEquals(0, third.getRemovedCount());
+        assertEquals(1, third.getUnchangedCount());
+    }
+
+    @Test
+    void testFailedExport_removesNothingAndKeepsTheIndex() throws Exception {
+        Path output = tempDir.resolve("export");
+        export(output, 3L, -1);
+        Map<String, String> complete = tree(output);
+
+        // a crash before the last generations must not remove them as stale
+        assertThrows(RuntimeException.class, () -> export(output, 3L, 2));
+        assertEquals(complete, tree(output));
+
+        // a crashed run of another seed rewrites files, and the index must know it did
+        assertThrows(RuntimeException.class, () -> export(output, 4L, 2));
+        assertNotEquals(complete, tree(output));
+        export(output, 3L, -1);
+        assertEquals(complete, tree(output));
+        assertTrue(Files.exists(output.resolve(ExportIndex.FILE)));
+    }
+}
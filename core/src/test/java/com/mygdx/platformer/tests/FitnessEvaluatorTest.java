@@ -0,0 +1,30 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.FitnessEvaluator;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FitnessEvaluatorTest {
+
+    @Test
+    void testEvaluate_rewardsVerticalSweepAndCachesByParameters() {
+        try (FitnessEvaluator evaluator = new FitnessEvaluator(FitnessEvaluator.DEFAULT_STEPS)) {
+            float straight = evaluator.evaluate(
+                new NecromancerAttackTemplate(45, 2f, 10, 5, new StraightMovement(), null));
+            float zigZag = evaluator.evaluate(
+                new NecromancerAttackTemplate(45, 2f, 10, 5, new ZigZagMovement(), null));
+
+            assertEquals(10f, straight, 1e-4f);
+            assertTrue(zigZag > straight, () -> zigZag + " <= " + straight);
+
+            float again = evaluator.evaluate(
+                new NecromancerAttackTemplate(45, 2f, 10, 5, new ZigZagMovement(), null));
+            assertEquals(zigZag, again);
+            assertEquals(2, evaluator.getEvaluatedCount());
+        }
+    }
+}
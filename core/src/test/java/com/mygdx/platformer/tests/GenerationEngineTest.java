@@ -0,0 +1,73 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.GenerationEngine.Selection;
+import com.mygdx.platformer.attacks.AttackGenome;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenerationEngineTest {
+
+    // the genomes of every chunk of a run, by method and generation and then by first compound ID
+    private static Map<String, SortedMap<Integer, List<List<Long>>>> run(int parallelism, int chunkSize,
+                                                                         Selection selection) {
+        Map<String, SortedMap<Integer, List<List<Long>>>> chunks = new ConcurrentHashMap<>();
+        try (GenerationEngine engine = new GenerationEngine(17L, 50, 3, parallelism, chunkSize, selection)) {
+            engine.run(3, (compounds, firstCompound, generation, method) -> {
+                List<List<Long>> genomes = compounds.stream()
+                    .map(compound -> compound.stream().map(AttackGenome::encode).toList())
+                    .toList();
+                assertNull(chunks.computeIfAbsent(method + generation, key -> new ConcurrentSkipListMap<>())
+                    .put(firstCompound, genomes), "chunk emitted twice");
+            });
+        }
+        return chunks;
+    }
+
+    // joins the chunks of a generation, checking that they are contiguous and no larger than the chunk size
+    private static List<List<Long>> join(SortedMap<Integer, List<List<Long>>> chunks, int chunkSize) {
+        List<List<Long>> compounds = new ArrayList<>();
+        for (Map.Entry<Integer, List<List<Long>>> chunk : chunks.entrySet()) {
+            assertEquals(compounds.size(), chunk.getKey());
+            assertTrue(chunk.getValue().size() <= chunkSize);
+            compounds.addAll(chunk.getValue());
+        }
+        return compounds;
+    }
+
+    @Test
+    void testRun_sameGenomesForAnyParallelism() {
+        for (Selection selection : Selection.values()) {
+            Map<String, SortedMap<Integer, List<List<Long>>>> sequential = run(1, 16, selection);
+            assertEquals(7, sequential.size());
+            assertEquals(sequential, run(6, 16, selection), selection.name());
+        }
+    }
+
+    @Test
+    void testRun_chunksJoinToTheSingleChunkGenerations() {
+        Map<String, SortedMap<Integer, List<List<Long>>>> single = run(4, 64, Selection.UNIFORM);
+        for (SortedMap<Integer, List<List<Long>>> generation : single.values()) {
+            assertEquals(List.of(0), List.copyOf(generation.keySet()));
+            assertEquals(50, generation.get(0).size());
+        }
+        // none of the chunk sizes divides the 50 compounds
+        for (int chunkSize : new int[] {1, 7, 16}) {
+            Map<String, SortedMap<Integer, List<List<Long>>>> chunked = run(4, chunkSize, Selection.UNIFORM);
+            assertEquals(single.keySet(), chunked.keySet());
+            for (Map.Entry<String, SortedMap<Integer, List<List<Long>>>> generation : chunked.entrySet()) {
+                assertEquals((50 + chunkSize - 1) / chunkSize, generation.getValue().size());
+                assertEquals(single.get(generation.getKey()).get(0), join(generation.getValue(), chunkSize),
+                    generation.getKey() + " in chunks of " + chunkSize);
+            }
+        }
+    }
+}
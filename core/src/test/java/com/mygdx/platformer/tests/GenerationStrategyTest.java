@@ -0,0 +1,97 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AnalysisConfig;
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.AttackPopulation;
+import com.mygdx.platformer.analysistool.GenerationContext;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.GenerationStrategy;
+import com.mygdx.platformer.analysistool.PcgStrategy;
+import com.mygdx.platformer.analysistool.RcgStrategy;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenerationStrategyTest {
+
+    // copies generation 0 once the other copy strategy has started too, which only happens if both run at once
+    private record MeetingStrategy(String name, CountDownLatch started) implements GenerationStrategy {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void generate(GenerationContext context, int generations) {
+            started.countDown();
+            try {
+                assertTrue(started.await(10, TimeUnit.SECONDS), name + " ran alone");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            AttackPopulation origin = context.getOrigin();
+            for (int gen = 1; gen <= generations; gen++) {
+                AttackPopulation copy = new AttackPopulation(context.getCompoundCount(),
+                    context.getAttacksPerCompound());
+                context.forEachCompound(compoundId -> {
+                    for (int j = 0; j < context.getAttacksPerCompound(); j++) {
+                        copy.set(compoundId, j, origin.get(compoundId, j));
+                    }
+                });
+                context.emit(copy, gen);
+            }
+        }
+    }
+
+    @Test
+    void testAvailable_loadsBuiltInStrategies() {
+        Map<String, GenerationStrategy> available = GenerationStrategy.available();
+        assertInstanceOf(PcgStrategy.class, available.get(GenerationEngine.PCG));
+        assertInstanceOf(RcgStrategy.class, available.get(GenerationEngine.RCG));
+        assertThrows(IllegalArgumentException.class, () -> GenerationStrategy.forName("GA"));
+
+        Properties properties = new Properties();
+        properties.setProperty("methods", "rcg");
+        assertEquals(List.of(GenerationEngine.RCG),
+            List.copyOf(AnalysisConfig.fromProperties(properties).getMethods()));
+        properties.setProperty("methods", "PCG,GA");
+        assertThrows(IllegalArgumentException.class, () -> AnalysisConfig.fromProperties(properties));
+    }
+
+    @Test
+    void testRun_drivesStrategiesConcurrently() {
+        Map<String, String> sources = new ConcurrentHashMap<>();
+        CountDownLatch started = new CountDownLatch(2);
+        List<GenerationStrategy> strategies = List.of(new MeetingStrategy("COPYA", started),
+            GenerationStrategy.forName(GenerationEngine.RCG), new MeetingStrategy("COPYB", started));
+        // a single chunk per generation, so the sources carry the global compound IDs
+        try (GenerationEngine engine = new GenerationEngine(11L, 40, 3, 2, 64)) {
+            engine.run(2, strategies, (compounds, firstCompound, generation, method) ->
+                sources.putAll(AttackExporter.toSources(compounds, generation, method)), null);
+
+            List<List<NecromancerAttackTemplate>> previous = engine.generatePCG(0);
+            for (int gen = 1; gen <= 2; gen++) {
+                previous = engine.generateRCG(previous, gen);
+                AttackExporter.toSources(previous, gen, GenerationEngine.RCG)
+                    .forEach((name, source) -> assertEquals(source, sources.get(name), name));
+            }
+        }
+        // generation 0 plus two generations of each strategy
+        assertEquals(7 * 40 * 3, sources.size());
+        assertEquals(0, started.getCount());
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (GenerationEngine engine = new GenerationEngine(11L, 4, 3, 1)) {
+                engine.run(1, List.of(new PcgStrategy(), new PcgStrategy()), (c, f, g, m) -> { }, null);
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.mygdx.platformer.tests;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.CompiledClasses;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.InMemoryCompiler;
+import com.mygdx.platformer.attacks.BaseAttack;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryCompilerTest {
+
+    @Test
+    void testCompile_loadsRenderedAttacks() throws Exception {
+        Map<String, String> sources;
+        try (GenerationEngine engine = new GenerationEngine(7L, 4, 3, 1)) {
+            sources = AttackExporter.toSources(engine.generatePCG(0), 0, GenerationEngine.PCG);
+        }
+        CompiledClasses compiled = new InMemoryCompiler().compile(sources);
+        assertTrue(compiled.isSuccess(), () -> String.join("\n", compiled.getErrors()));
+        assertEquals(sources.keySet(), compiled.getClassBytes().keySet());
+
+        for (String className : sources.keySet()) {
+            Class<?> attack = compiled.loadClass(className);
+            assertEquals(className, attack.getName());
+            // every compilation gets a loader of its own
+            assertSame(compiled.getClassLoader(), attack.getClassLoader());
+            Method execute = attack.getMethod("execute", World.class, Vector2.class, int.class, float.class);
+            assertEquals(BaseAttack.class, execute.getReturnType());
+        }
+        assertThrows(ClassNotFoundException.class, () -> compiled.loadClass("generated.Missing"));
+    }
+
+    @Test
+    void testCompile_reportsDiagnosticsOfABrokenSource() {
+        String good = new AttackKey(GenerationEngine.PCG, 0, 0, 0).toClassName();
+        String broken = new AttackKey(GenerationEngine.PCG, 0, 0, 1).toClassName();
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(good, "package " + good.substring(0, good.lastIndexOf('.')) + ";\n"
+            + "public class NecromancerAttack_0 {\n}\n");
+        sources.put(broken, "package " + broken.substring(0, broken.lastIndexOf('.')) + ";\n"
+            + "public class NecromancerAttack_1 {\n"
+            + "    int damage = ;\n"
+            + "}\n");
+
+        CompiledClasses compiled = new InMemoryCompiler().compile(sources);
+        assertFalse(compiled.isSuccess());
+        assertEquals(1, compiled.getErrors().size(), () -> String.join("\n", compiled.getErrors()));
+        String error = compiled.getErrors().get(0);
+        assertTrue(error.contains("NecromancerAttack_1.java:3: "), error);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.LineageIndex;
+import com.mygdx.platformer.analysistool.LineageWriter;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineageIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLineage_tracesEveryRcgAttackToItsOrigin() throws Exception {
+        int compounds = 12;
+        int attacks = 5;
+        int generations = 6;
+        Map<AttackKey, NecromancerAttackTemplate> templates = new ConcurrentHashMap<>();
+        Path file = tempDir.resolve(LineageIndex.FILE);
+
+        try (LineageWriter writer = new LineageWriter(file, compounds, attacks);
+             GenerationEngine engine = new GenerationEngine(42L, compounds, attacks, 2, 5)) {
+            engine.run(generations, Set.of(GenerationEngine.RCG), (chunk, first, gen, method) -> {
+                for (int c = 0; c < chunk.size(); c++) {
+                    for (int a = 0; a < attacks; a++) {
+                        templates.put(new AttackKey(method, gen, first + c, a), chunk.get(c).get(a));
+                    }
+                }
+            }, writer);
+        }
+
+        try (LineageIndex lineage = LineageIndex.open(file)) {
+            assertEquals(generations, lineage.getGenerationCount());
+            for (int gen = 1; gen <= generations; gen++) {
+                int[] origins = lineage.getOrigins(gen);
+                for (int c = 0; c < compounds; c++) {
+                    for (int a = 0; a < attacks; a++) {
+                        AttackKey key = new AttackKey(GenerationEngine.RCG, gen, c, a);
+                        List<AttackKey> ancestry = lineage.getAncestry(key);
+                        AttackKey origin = ancestry.get(ancestry.size() - 1);
+
+                        assertEquals(gen + 1, ancestry.size());
+                        assertEquals(new AttackKey(GenerationEngine.PCG, 0, origins[c * attacks + a] / attacks,
+                            origins[c * attacks + a] % attacks), origin);
+                        assertSameAttack(templates.get(origin), templates.get(key));
+                        assertSameAttack(templates.get(lineage.getParent(key)), templates.get(key));
+                    }
+                }
+            }
+
+            int[] total = new int[generations + 1];
+            for (int c = 0; c < compounds; c++) {
+                for (int a = 0; a < attacks; a++) {
+                    AttackKey origin = new AttackKey(GenerationEngine.PCG, 0, c, a);
+                    int[] counts = lineage.getDescendantCounts(origin);
+                    for (int i = 0; i < counts.length; i++) {
+                        total[i] += counts[i];
+                    }
+                    assertTrue(lineage.getSurvival(origin) == generations || counts[counts.length - 1] == 0);
+                }
+            }
+            for (int count : total) {
+                assertEquals(compounds * attacks, count);
+            }
+        }
+    }
+
+    private static void assertSameAttack(NecromancerAttackTemplate expected, NecromancerAttackTemplate actual) {
+        assertEquals(expected.getDamage(), actual.getDamage());
+        assertEquals(expected.getSpeed(), actual.getSpeed());
+        assertEquals(expected.getMovementPattern().getClass(), actual.getMovementPattern().getClass());
+    }
+}
@@ -0,0 +1,122 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.CodeMetrics;
+import com.mygdx.platformer.analysistool.CodeMetricsAnalyzer;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.MetricsAggregator;
+import com.mygdx.platformer.analysistool.MetricsAggregator.MetricSummary;
+import com.mygdx.platformer.analysistool.QuantileSketch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsAggregatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSketch_mergedQuantilesStayWithinRankError() {
+        int n = 1_000_000;
+        double[] values = new SplittableRandom(3).doubles(n).map(v -> v * v).toArray();
+        QuantileSketch merged = IntStream.range(0, 8).parallel()
+            .mapToObj(part -> {
+                QuantileSketch sketch = new QuantileSketch();
+                for (int i = part; i < n; i += 8) {
+                    sketch.add(values[i]);
+                }
+                return sketch;
+            })
+            .reduce(QuantileSketch::merge).get();
+
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(n, merged.getCount());
+        assertEquals(sorted[0], merged.getMin());
+        assertEquals(sorted[n - 1], merged.getMax());
+        assertTrue(merged.getRetainedCount() < 4 * QuantileSketch.DEFAULT_K, "retained " + merged.getRetainedCount());
+        for (double q : new double[] {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            double rank = (double) Math.abs(Arrays.binarySearch(sorted, merged.quantile(q))) / n;
+            assertEquals(q, rank, 0.01, "quantile " + q);
+        }
+
+        QuantileSketch weighted = new QuantileSketch();
+        weighted.add(1, 1_000_000_000L);
+        weighted.add(2, 3_000_000_000L);
+        assertEquals(4_000_000_000L, weighted.getCount());
+        assertEquals(1, weighted.quantile(0.2));
+        assertEquals(2, weighted.quantile(0.3));
+        assertTrue(weighted.getRetainedCount() <= 64);
+    }
+
+    @Test
+    void testAggregator_mergedPartialsMatchExactStatistics() throws Exception {
+        int[] loc = new SplittableRandom(5).ints(200_000, 10, 90).toArray();
+        MetricsAggregator summary = IntStream.range(0, loc.length).parallel().collect(
+            () -> new MetricsAggregator("LOC", "Half"),
+            (aggregator, i) -> aggregator.add(i % 2 == 0 ? "PCG" : "RCG", i % 3, 1, loc[i],
+                i % 4 == 0 ? Double.NaN : loc[i] / 2.0),
+            MetricsAggregator::merge);
+
+        MetricSummary rcg = summary.summarize("LOC").get("RCG").get(2);
+        int[] group = IntStream.range(0, loc.length).filter(i -> i % 2 == 1 && i % 3 == 2).map(i -> loc[i]).toArray();
+        double mean = Arrays.stream(group).average().getAsDouble();
+        double variance = Arrays.stream(group).mapToDouble(v -> (v - mean) * (v - mean)).sum() / (group.length - 1);
+        assertEquals(group.length, rcg.getCount());
+        assertEquals(mean, rcg.getMean(), 1e-9);
+        assertEquals(variance, rcg.getVariance(), 1e-6);
+        assertEquals(Arrays.stream(group).min().getAsInt(), rcg.getMin());
+        assertEquals(Arrays.stream(group).max().getAsInt(), rcg.getMax());
+        assertEquals(50, rcg.getMedian(), 1.5);
+        // NaN values are skipped: every other PCG row of the Half metric
+        assertEquals(summary.summarize("LOC").get("PCG").get(0).getCount() / 2,
+            summary.summarize("Half").get("PCG").get(0).getCount());
+
+        Path file = tempDir.resolve("summary.csv");
+        summary.write(file);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("Method;Generation;Metric;Count;Mean;Variance;StdDev;Min;P10;P25;Median;P75;P90;P99;Max",
+            lines.get(0));
+        assertEquals(1 + 2 * 3 * 2, lines.size());
+        assertTrue(lines.get(1).startsWith("PCG;0;LOC;"), lines.get(1));
+    }
+
+    @Test
+    void testAnalyzeExport_summaryIsIndependentOfDeduplication() throws Exception {
+        Path plain = tempDir.resolve("plain");
+        Path deduplicated = tempDir.resolve("deduplicated");
+        try (GenerationEngine engine = new GenerationEngine(9L, 30, 4, 1);
+             AttackExporter plainExporter = new AttackExporter(plain, false, false);
+             AttackExporter deduplicatedExporter = new AttackExporter(deduplicated, true, false)) {
+            engine.run(2, (compounds, firstCompound, generation, method) -> {
+                plainExporter.export(compounds, firstCompound, generation, method);
+                deduplicatedExporter.export(compounds, firstCompound, generation, method);
+            });
+        }
+
+        SortedMap<?, CodeMetrics> results = CodeMetricsAnalyzer.analyzeExport(plain);
+        CodeMetricsAnalyzer.analyzeExport(deduplicated);
+        List<String> summary = Files.readAllLines(plain.resolve(CodeMetricsAnalyzer.METRICS_SUMMARY_FILE));
+        assertEquals(summary, Files.readAllLines(deduplicated.resolve(CodeMetricsAnalyzer.METRICS_SUMMARY_FILE)));
+
+        // generation 0 plus two generations of PCG and RCG, four metrics each
+        assertEquals(1 + 5 * 4, summary.size());
+        long complexity = results.values().stream().mapToLong(CodeMetrics::getComplexity).sum();
+        long summarized = summary.stream().skip(1).filter(row -> row.split(";")[2].equals("Complexity"))
+            .mapToLong(row -> Math.round(Long.parseLong(row.split(";")[3]) * Double.parseDouble(row.split(";")[4])))
+            .sum();
+        assertEquals(complexity, summarized);
+        assertEquals(results.size(), summary.stream().skip(1).filter(row -> row.split(";")[2].equals("LOC"))
+            .mapToLong(row -> Long.parseLong(row.split(";")[3])).sum());
+    }
+}
@@ -1,32 +1,84 @@
 package com.mygdx.platformer.tests;
 
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.World;
-import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.MethodSource;
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.CompiledClasses;
+import com.mygdx.platformer.analysistool.ExportManifest;
+import com.mygdx.platformer.analysistool.HeadlessAttackRunner;
+import com.mygdx.platformer.analysistool.InMemoryCompiler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 
-import java.lang.reflect.Method;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+@Execution(ExecutionMode.CONCURRENT)
 public class NecromancerAttackTest {
 
-    static Stream<String> attackClassNames() {
-        return Stream.of(
-            "generated.rcg.gen1.compound_0.NecromancerAttack_0"
-        );
+    private static final Path EXPORT_DIR = Path.of(System.getProperty("attacks.exportDir", "../out/generated"));
+    private static final int STEPS = Integer.getInteger("attacks.steps", 120);
+    private static final Path REPORT_FILE = Path.of("build/reports/attacks/attack_runs.csv");
+
+    private static final Queue<HeadlessAttackRunner> runners = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<HeadlessAttackRunner> runner = ThreadLocal.withInitial(() -> {
+        HeadlessAttackRunner created = new HeadlessAttackRunner();
+        runners.add(created);
+        return created;
+    });
+    private static final SortedMap<AttackKey, String> runs = new ConcurrentSkipListMap<>();
+
+    @TestFactory
+    Stream<DynamicTest> testExecute_everyExportedAttack() throws IOException {
+        assumeTrue(ExportManifest.exists(EXPORT_DIR), "No export manifest in " + EXPORT_DIR);
+        CompiledClasses generatedAttacks = new InMemoryCompiler().compileDirectory(EXPORT_DIR);
+        assertTrue(generatedAttacks.isSuccess(), () -> String.join("\n", generatedAttacks.getErrors()));
+
+        return ExportManifest.read(EXPORT_DIR).keySet().stream().map(key -> DynamicTest.dynamicTest(
+            key.toClassName(), () -> {
+                long start = System.nanoTime();
+                int steps = 0;
+                String failure = "";
+                try {
+                    steps = runner.get().run(generatedAttacks.loadClass(key.toClassName()), STEPS);
+                } catch (Throwable e) {
+                    failure = String.valueOf(e instanceof InvocationTargetException
+                        ? e.getCause() : e).replace(';', ',');
+                    throw e;
+                } finally {
+                    runs.put(key, steps + ";" + (System.nanoTime() - start) / 1000 + ";" + failure);
+                }
+            }));
     }
 
-    @ParameterizedTest
-    @MethodSource("attackClassNames")
-    void testExecute_doesNotCrash(String className) throws Exception {
-        Class<?> attackClass = Class.forName(className);
-        Object instance = attackClass.getDeclaredConstructor().newInstance();
-        Method method = attackClass.getMethod("execute", World.class, Vector2.class, int.class, float.class);
-        try {
-            method.invoke(instance, null, new Vector2(0, 0), 1, 1.0f);
-        } catch (Exception e) {
+    @AfterAll
+    static void writeReport() throws IOException {
+        for (HeadlessAttackRunner created : runners) {
+            created.close();
+        }
+        if (runs.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(REPORT_FILE.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(REPORT_FILE, StandardCharsets.UTF_8)) {
+            writer.write("Method;Generation;Compound;Attack;Steps;Micros;Failure\n");
+            for (Map.Entry<AttackKey, String> entry : runs.entrySet()) {
+                writer.write(entry.getKey() + ";" + entry.getValue() + "\n");
+            }
         }
     }
 }
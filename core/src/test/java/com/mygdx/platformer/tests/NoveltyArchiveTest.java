@@ -0,0 +1,93 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.KdTree;
+import com.mygdx.platformer.analysistool.NoveltyArchive;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoveltyArchiveTest {
+
+    @Test
+    void testKdTree_matchesBruteForce() {
+        Random random = new Random(7);
+        int dimensions = 12;
+        int size = 2000;
+        float[] points = new float[size * dimensions];
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int d = 0; d < dimensions; d++) {
+                // clustered and duplicated points, as behaviour descriptors are
+                points[i * dimensions + d] = random.nextInt(4) + (i % 3 == 0 ? 0f : random.nextFloat());
+            }
+            weights[i] = 1 + random.nextInt(3);
+        }
+        KdTree tree = new KdTree(points, weights, dimensions);
+
+        for (int k : new int[] {1, 5, 15}) {
+            for (int i = 0; i < size; i += 37) {
+                assertEquals(bruteForce(points, weights, dimensions, points, i * dimensions, k, i),
+                    tree.meanNearestDistance(points, i * dimensions, k, i), 1e-4f, "point " + i + ", k " + k);
+            }
+            float[] query = new float[dimensions];
+            Arrays.fill(query, 1.5f);
+            assertEquals(bruteForce(points, weights, dimensions, query, 0, k, -1),
+                tree.meanNearestDistance(query, 0, k, -1), 1e-4f);
+        }
+    }
+
+    @Test
+    void testScore_archiveOnlyGrowsWithNewBehaviour() {
+        NoveltyArchive archive = new NoveltyArchive(2, 2, 0.5f);
+        float[] spread = {0f, 0f, 3f, 0f, 0f, 3f, 3f, 3f};
+
+        float[] first = archive.score(0, spread, new int[] {1, 1, 1, 1});
+        assertEquals(3f, first[0], 1e-6f);
+        assertEquals(4, archive.getArchiveSize());
+
+        float[] copies = archive.score(1, spread, new int[] {10, 10, 10, 10});
+        assertEquals(0f, copies[0], 1e-6f);
+        assertEquals(4, archive.getArchiveSize());
+
+        float[] shifted = archive.score(2, new float[] {1.5f, 1.5f}, new int[] {1});
+        assertEquals((float) Math.sqrt(4.5), shifted[0], 1e-6f);
+        assertEquals(5, archive.getArchiveSize());
+
+        assertEquals(3, archive.getCurve().size());
+        assertEquals(40, archive.getCurve().get(1).getAttacks());
+        assertEquals(0, archive.getCurve().get(1).getAdded());
+        assertEquals(5, archive.getCurve().get(2).getArchiveSize());
+    }
+
+    private static float bruteForce(float[] points, int[] weights, int dimensions, float[] query, int offset, int k,
+                                    int self) {
+        int size = weights.length;
+        Integer[] byDistance = new Integer[size];
+        double[] distances = new double[size];
+        for (int i = 0; i < size; i++) {
+            byDistance[i] = i;
+            double sum = 0;
+            for (int d = 0; d < dimensions; d++) {
+                double delta = points[i * dimensions + d] - query[offset + d];
+                sum += delta * delta;
+            }
+            distances[i] = Math.sqrt(sum);
+        }
+        Arrays.sort(byDistance, (a, b) -> Double.compare(distances[a], distances[b]));
+        double sum = 0;
+        int count = 0;
+        for (int i : byDistance) {
+            int weight = i == self ? weights[i] - 1 : weights[i];
+            int taken = Math.min(weight, k - count);
+            sum += taken * distances[i];
+            count += taken;
+            if (count == k) {
+                break;
+            }
+        }
+        return count == 0 ? 0f : (float) (sum / count);
+    }
+}
@@ -0,0 +1,148 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AnalysisConfig;
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.ExportManifest;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.GenerationSink;
+import com.mygdx.platformer.analysistool.LineageIndex;
+import com.mygdx.platformer.analysistool.LineageWriter;
+import com.mygdx.platformer.analysistool.RunCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static AnalysisConfig config(Path output) {
+        Properties properties = new Properties();
+        properties.setProperty("seed", "21");
+        properties.setProperty("compounds", "40");
+        properties.setProperty("attacksPerCompound", "3");
+        properties.setProperty("generations", "4");
+        properties.setProperty("chunkSize", "16");
+        properties.setProperty("parallelism", "2");
+        properties.setProperty("selection", "tournament");
+        properties.setProperty("output", output.toString());
+        return AnalysisConfig.fromProperties(properties);
+    }
+
+    // exports a run like AttackGenerationExporter does, failing in the given RCG generation
+    private static void export(RunCheckpoint checkpoint, Map<String, Integer> emitted, int failingGeneration)
+            throws IOException {
+        AnalysisConfig config = checkpoint.getConfig();
+        Path output = config.getOutputDirectory();
+        int completed = checkpoint.getResumeGeneration(GenerationEngine.RCG);
+        try (AttackExporter exporter = new AttackExporter(output, false, true);
+             LineageWriter lineage = completed > 0
+                 ? LineageWriter.resume(output.resolve(LineageIndex.FILE), 40, 3, completed)
+                 : new LineageWriter(output.resolve(LineageIndex.FILE), 40, 3);
+             GenerationEngine engine = new GenerationEngine(config)) {
+            for (Map.Entry<String, SortedSet<Integer>> method : checkpoint.getCompletedGenerations().entrySet()) {
+                for (int generation : method.getValue()) {
+                    exporter.retain(generation, method.getKey());
+                }
+            }
+            checkpoint.setOutput(exporter);
+            GenerationSink sink = (compounds, firstCompound, generation, method) -> {
+                if (method.equals(GenerationEngine.RCG) && generation == failingGeneration && firstCompound > 0) {
+                    throw new IllegalStateException("Simulated crash");
+                }
+                exporter.export(compounds, firstCompound, generation, method);
+                emitted.merge(method + generation, compounds.size(), Integer::sum);
+            };
+            engine.run(config.getGenerations(), config.getMethods(), sink, lineage, checkpoint);
+            exporter.finish();
+        }
+    }
+
+    private static Set<Path> sourceFiles(Path output) throws IOException {
+        try (Stream<Path> files = Files.walk(output)) {
+            return files.filter(p -> p.toString().endsWith(".java")).map(output::relativize)
+                .collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    void testResume_continuesInterruptedRunExactly() throws Exception {
+        Path reference = tempDir.resolve("reference");
+        export(RunCheckpoint.create(config(reference)), new ConcurrentHashMap<>(), -1);
+
+        Path interrupted = tempDir.resolve("interrupted");
+        Map<String, Integer> first = new ConcurrentHashMap<>();
+        assertThrows(IllegalStateException.class,
+            () -> export(RunCheckpoint.create(config(interrupted)), first, 3));
+
+        // only the parallelism may differ, everything else comes from the checkpoint
+        Properties properties = new Properties();
+        properties.setProperty("output", interrupted.toString());
+        properties.setProperty("parallelism", "1");
+        RunCheckpoint checkpoint = RunCheckpoint.resume(AnalysisConfig.fromProperties(properties));
+        assertEquals(21, checkpoint.getConfig().getSeed());
+        assertEquals(GenerationEngine.Selection.TOURNAMENT, checkpoint.getConfig().getSelection());
+        assertEquals(1, checkpoint.getConfig().getParallelism());
+        assertTrue(checkpoint.getConfig().isResume());
+        assertEquals(2, checkpoint.getResumeGeneration(GenerationEngine.RCG));
+        assertTrue(checkpoint.isComplete(GenerationEngine.PCG, 0));
+
+        Map<String, Integer> second = new ConcurrentHashMap<>();
+        export(checkpoint, second, -1);
+        // completed generations are not exported again
+        assertNull(second.get("PCG0"));
+        assertNull(second.get("RCG1"));
+        assertNull(second.get("RCG2"));
+        assertEquals(40, second.get("RCG3"));
+        assertEquals(40, second.get("RCG4"));
+
+        assertEquals(ExportManifest.read(reference), ExportManifest.read(interrupted));
+        assertEquals(sourceFiles(reference), sourceFiles(interrupted));
+        assertArrayEquals(Files.readAllBytes(reference.resolve(LineageIndex.FILE)),
+            Files.readAllBytes(interrupted.resolve(LineageIndex.FILE)));
+        assertEquals(4, RunCheckpoint.resume(config(interrupted)).getResumeGeneration(GenerationEngine.PCG));
+    }
+
+    @Test
+    void testStages_surviveATornStatusLine() throws Exception {
+        Path output = tempDir.resolve("stages");
+        RunCheckpoint checkpoint = RunCheckpoint.create(config(output));
+        checkpoint.complete(RunCheckpoint.EXPORT);
+        checkpoint.complete(RunCheckpoint.ANALYZE);
+        Files.writeString(output.resolve(RunCheckpoint.DIRECTORY).resolve("status.csv"), "coverage;",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        RunCheckpoint resumed = RunCheckpoint.resume(config(output));
+        assertTrue(resumed.isComplete(RunCheckpoint.EXPORT));
+        assertTrue(resumed.isComplete(RunCheckpoint.ANALYZE));
+        assertFalse(resumed.isComplete(RunCheckpoint.COVERAGE));
+        assertEquals(List.copyOf(config(output).getMethods()), List.copyOf(resumed.getConfig().getMethods()));
+
+        // the torn row is gone, so stages completed after the resume can be resumed again
+        resumed.complete(RunCheckpoint.COVERAGE);
+        RunCheckpoint again = RunCheckpoint.resume(config(output));
+        assertTrue(again.isComplete(RunCheckpoint.ANALYZE));
+        assertTrue(again.isComplete(RunCheckpoint.COVERAGE));
+        assertFalse(again.isComplete(RunCheckpoint.SIMILARITY));
+
+        // a new run starts over
+        assertFalse(RunCheckpoint.create(config(output)).isComplete(RunCheckpoint.EXPORT));
+        assertThrows(IOException.class, () -> RunCheckpoint.resume(config(tempDir.resolve("missing"))));
+    }
+}
@@ -0,0 +1,100 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.CodeMetricsAnalyzer;
+import com.mygdx.platformer.analysistool.CoverageCollector;
+import com.mygdx.platformer.analysistool.GenerationEngine;
+import com.mygdx.platformer.analysistool.ShardCoordinator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardCoordinatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void export(Path output, boolean bytecode) throws IOException {
+        try (GenerationEngine engine = new GenerationEngine(13L, 24, 3, 1);
+             AttackExporter exporter = new AttackExporter(output, false, false, bytecode)) {
+            engine.run(2, exporter::export);
+        }
+    }
+
+    private static boolean hasClaims(Path claimed) {
+        if (!Files.isDirectory(claimed)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.list(claimed)) {
+            return files.findAny().isPresent();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void testAnalyzeExport_matchesSingleJvmAnalysisAfterWorkerCrash() throws Exception {
+        Path reference = tempDir.resolve("reference");
+        Path sharded = tempDir.resolve("sharded");
+        // class files spare every worker a cold compiler
+        export(reference, true);
+        export(sharded, true);
+        CodeMetricsAnalyzer.analyzeExport(reference);
+        CoverageCollector.collectExport(reference);
+
+        // kill every worker once while it holds a shard, as an out of memory error would
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean killed = new AtomicBoolean();
+        Path claimed = sharded.resolve(ShardCoordinator.DIRECTORY).resolve("claimed");
+        Thread killer = Thread.ofVirtual().start(() -> {
+            while (!done.get() && !killed.get()) {
+                if (hasClaims(claimed)) {
+                    ProcessHandle.current().children().forEach(ProcessHandle::destroyForcibly);
+                    killed.set(true);
+                }
+                Thread.onSpinWait();
+            }
+        });
+        ShardCoordinator coordinator = new ShardCoordinator(sharded, 2, "256m", 40);
+        try {
+            coordinator.analyzeExport(true, true);
+        } finally {
+            done.set(true);
+            killer.join();
+        }
+
+        assertTrue(killed.get());
+        assertTrue(coordinator.getReassignedCount() > 0);
+        assertTrue(coordinator.getLaunchedCount() > 2);
+        for (String file : List.of(CodeMetricsAnalyzer.METRICS_FILE, CodeMetricsAnalyzer.COMPOUND_METRICS_FILE,
+                CodeMetricsAnalyzer.METRICS_SUMMARY_FILE, CoverageCollector.COVERAGE_FILE,
+                CoverageCollector.COVERAGE_SUMMARY_FILE)) {
+            assertEquals(Files.readAllLines(reference.resolve(file)), Files.readAllLines(sharded.resolve(file)), file);
+        }
+        assertFalse(Files.exists(claimed));
+    }
+
+    @Test
+    void testAnalyzeExport_failsAShardThatCrashesEveryWorker() throws Exception {
+        Path output = tempDir.resolve("broken");
+        export(output, false);
+        // the first attack of the export is always analysed
+        Files.writeString(output.resolve(new AttackKey(GenerationEngine.PCG, 0, 0, 0).toPath()), "class Broken {",
+            StandardCharsets.UTF_8);
+
+        ShardCoordinator coordinator = new ShardCoordinator(output, 1, "256m", 100);
+        IOException e = assertThrows(IOException.class, () -> coordinator.analyzeExport(false, true));
+        assertTrue(e.getMessage().contains("failed in 3 workers"), e.getMessage());
+        assertEquals(3, coordinator.getLaunchedCount());
+    }
+}
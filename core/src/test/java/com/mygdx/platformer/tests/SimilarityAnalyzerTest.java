@@ -0,0 +1,95 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackExporter;
+import com.mygdx.platformer.analysistool.ColumnarResultReader;
+import com.mygdx.platformer.analysistool.SimilarityAnalyzer;
+import com.mygdx.platformer.analysistool.SimilarityAnalyzer.GenerationSimilarity;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.AccelerateMovement;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimilarityAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String source(NecromancerAttackTemplate attack, int generation, String method) {
+        Map<String, String> sources = AttackExporter.toSources(List.of(List.of(attack)), generation, method);
+        return sources.values().iterator().next();
+    }
+
+    @Test
+    void testSignature_estimatesSimilarityOfClassBodies() {
+        NecromancerAttackTemplate zigZag = new NecromancerAttackTemplate(45, 1.5f, 12, 5, new ZigZagMovement(),
+            new PulseModifier(2f, 0.5f));
+        NecromancerAttackTemplate fasterZigZag = new NecromancerAttackTemplate(45, 2.5f, 12, 5,
+            new ZigZagMovement(), new PulseModifier(2f, 0.5f));
+        NecromancerAttackTemplate straight = new NecromancerAttackTemplate(45, 1.5f, 12, 5, new StraightMovement(),
+            null);
+
+        // the package and class name are not part of the signature
+        assertArrayEquals(SimilarityAnalyzer.signature(source(zigZag, 0, "PCG")),
+            SimilarityAnalyzer.signature(source(zigZag, 7, "RCG")));
+        int[] base = SimilarityAnalyzer.signature(source(zigZag, 0, "PCG"));
+        double close = SimilarityAnalyzer.estimateSimilarity(base,
+            SimilarityAnalyzer.signature(source(fasterZigZag, 0, "PCG")));
+        double far = SimilarityAnalyzer.estimateSimilarity(base,
+            SimilarityAnalyzer.signature(source(straight, 0, "PCG")));
+        assertTrue(close > 0.6 && close < 1.0, "close " + close);
+        assertTrue(far < 0.4, "far " + far);
+    }
+
+    @Test
+    void testAnalyzeExport_convergedGenerationIsSimilar() throws Exception {
+        NecromancerAttackTemplate template = new NecromancerAttackTemplate(45, 1.5f, 12, 5, new MixedMovement(),
+            new PulseModifier(2f, 0.5f));
+        List<List<NecromancerAttackTemplate>> converged = new ArrayList<>();
+        List<List<NecromancerAttackTemplate>> diverse = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            converged.add(List.of(template, template));
+            diverse.add(List.of(
+                new NecromancerAttackTemplate(45, 1f + i, 12, 5, new AccelerateMovement(), null),
+                new NecromancerAttackTemplate(45, 1f + i, 12, 5, i % 2 == 0 ? new StraightMovement() : null,
+                    new PulseModifier(1f + i, 0.5f))));
+        }
+        try (AttackExporter exporter = new AttackExporter(tempDir, false, false)) {
+            exporter.export(converged, 1, "RCG");
+            exporter.export(diverse, 0, "PCG");
+        }
+
+        List<GenerationSimilarity> results = SimilarityAnalyzer.analyzeExport(tempDir);
+        assertEquals(2, results.size());
+        GenerationSimilarity rcg = results.stream().filter(r -> r.getMethod().equals("RCG")).findFirst().get();
+        GenerationSimilarity pcg = results.stream().filter(r -> r.getMethod().equals("PCG")).findFirst().get();
+        assertEquals(8, rcg.getAttackCount());
+        assertEquals(1, rcg.getUniqueSignatures());
+        assertEquals(1.0, rcg.getNearDuplicateShare());
+        assertEquals(8, rcg.getHistogram()[9]);
+        assertTrue(pcg.getMeanNearestSimilarity() < rcg.getMeanNearestSimilarity());
+        assertTrue(pcg.getNearDuplicateShare() < 1.0);
+        assertEquals(8, pcg.getUniqueSignatures());
+
+        List<String> lines = Files.readAllLines(tempDir.resolve(SimilarityAnalyzer.SIMILARITY_FILE));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("Method;Generation;Attacks;UniqueSignatures;"));
+        assertTrue(lines.get(2).startsWith("RCG;1;8;1;0;1.0000;1.0000;"), lines.get(2));
+        try (ColumnarResultReader reader = ColumnarResultReader.open(
+                tempDir.resolve(SimilarityAnalyzer.SIMILARITY_COLUMNS_FILE))) {
+            assertEquals(16, reader.getRowCount());
+            assertEquals(1000, reader.getIntColumn("NearestSimilarityPermille").get(15));
+        }
+    }
+}
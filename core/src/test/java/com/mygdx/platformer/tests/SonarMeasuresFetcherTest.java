@@ -0,0 +1,111 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.AttackKey;
+import com.mygdx.platformer.analysistool.CodeMetrics;
+import com.mygdx.platformer.analysistool.ColumnarResultReader;
+import com.mygdx.platformer.analysistool.SonarMeasuresFetcher;
+import com.mygdx.platformer.analysistool.SonarStubServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SonarMeasuresFetcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static SortedMap<AttackKey, CodeMetrics> metrics(int count) {
+        SortedMap<AttackKey, CodeMetrics> metrics = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            metrics.put(new AttackKey("RCG", i % 3, i / 6, i % 2), new CodeMetrics(10 + i, 1 + i % 4, i % 5, 1));
+        }
+        return metrics;
+    }
+
+    @Test
+    void testFetch_pagesConcurrentlyAndRetries() throws Exception {
+        SortedMap<AttackKey, CodeMetrics> metrics = metrics(23);
+        List<String> pages = SonarStubServer.toPages("attack-generation", metrics, 5);
+        Path recording = tempDir.resolve("recording");
+        try (SonarStubServer stub = new SonarStubServer(pages, 5, "secret")) {
+            stub.setLatency(Duration.ofMillis(20));
+            stub.setFailEvery(3);
+            try (SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(stub.getUri(), "secret",
+                    "attack-generation", 5, 2, 3)) {
+                fetcher.setRecordDirectory(recording);
+                assertEquals(metrics.size(), fetcher.fetch(tempDir));
+                assertTrue(fetcher.getRetryCount() > 0);
+                assertEquals(stub.getRequestCount(), fetcher.getRequestCount());
+            }
+            assertEquals(5, stub.getPageCount());
+            assertTrue(stub.getMaxConcurrentRequests() <= 2, "at most two requests in flight");
+        }
+
+        List<String> lines = Files.readAllLines(tempDir.resolve(SonarMeasuresFetcher.SONAR_METRICS_FILE));
+        assertEquals("Method;Generation;Compound;Attack;LOC;Complexity;CognitiveComplexity", lines.get(0));
+        TreeSet<String> rows = new TreeSet<>(lines.subList(1, lines.size()));
+        assertEquals(metrics.size(), rows.size());
+        CodeMetrics last = metrics.get(metrics.lastKey());
+        assertTrue(rows.contains(metrics.lastKey() + ";" + last.getLinesOfCode() + ";" + last.getComplexity()
+            + ";" + last.getCognitiveComplexity()));
+
+        try (ColumnarResultReader reader = ColumnarResultReader.open(
+                tempDir.resolve(SonarMeasuresFetcher.SONAR_METRICS_COLUMNS_FILE))) {
+            assertEquals(metrics.size(), reader.getRowCount());
+            long loc = 0;
+            for (int row = 0; row < reader.getRowCount(); row++) {
+                loc += reader.getIntColumn("LOC").get(row);
+            }
+            assertEquals(metrics.values().stream().mapToLong(CodeMetrics::getLinesOfCode).sum(), loc);
+        }
+
+        // the recorded responses replay to the same result
+        Path replayed = tempDir.resolve("replayed");
+        try (SonarStubServer stub = SonarStubServer.replay(recording, 5, null);
+             SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(stub.getUri(), null,
+                 "attack-generation", 5, 4, 0)) {
+            assertEquals(metrics.size(), fetcher.fetch(replayed));
+        }
+        List<String> replayedLines = Files.readAllLines(replayed.resolve(SonarMeasuresFetcher.SONAR_METRICS_FILE));
+        assertEquals(rows, new TreeSet<>(replayedLines.subList(1, replayedLines.size())));
+    }
+
+    @Test
+    void testFetch_skipsOtherFilesAndMissingMeasures() throws Exception {
+        String page = "{\"paging\":{\"pageIndex\":1,\"pageSize\":100,\"total\":2},\"components\":["
+            + "{\"key\":\"p:Main.java\",\"qualifier\":\"FIL\",\"path\":\"Main.java\",\"measures\":["
+            + "{\"metric\":\"ncloc\",\"value\":\"40\"}]},"
+            + "{\"key\":\"p:pcg/gen2/compound_1/NecromancerAttack_0.java\",\"qualifier\":\"FIL\","
+            + "\"path\":\"pcg/gen2/compound_1/NecromancerAttack_0.java\",\"measures\":["
+            + "{\"metric\":\"ncloc\",\"value\":\"14\"},{\"metric\":\"complexity\",\"value\":\"3\"}]}]}";
+        try (SonarStubServer stub = new SonarStubServer(List.of(page), 100, null);
+             SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(stub.getUri(), null, "p", 100, 1, 0)) {
+            assertEquals(1, fetcher.fetch(tempDir));
+        }
+        assertEquals(List.of("Method;Generation;Compound;Attack;LOC;Complexity;CognitiveComplexity",
+                "PCG;2;1;0;14;3;"),
+            Files.readAllLines(tempDir.resolve(SonarMeasuresFetcher.SONAR_METRICS_FILE)));
+    }
+
+    @Test
+    void testFetch_rejectedRequestIsNotRetried() throws Exception {
+        List<String> pages = SonarStubServer.toPages("attack-generation", metrics(3), 10);
+        try (SonarStubServer stub = new SonarStubServer(pages, 10, "secret");
+             SonarMeasuresFetcher fetcher = new SonarMeasuresFetcher(stub.getUri(), "wrong",
+                 "attack-generation", 10, 1, 3)) {
+            IOException e = assertThrows(IOException.class, () -> fetcher.fetch(tempDir));
+            assertTrue(e.getMessage().contains("401"), e.getMessage());
+            assertEquals(1, stub.getRequestCount());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mygdx.platformer.tests;
+
+import com.mygdx.platformer.analysistool.TrajectorySimulator;
+import com.mygdx.platformer.attacks.NecromancerAttackTemplate;
+import com.mygdx.platformer.attacks.modifiers.PulseModifier;
+import com.mygdx.platformer.attacks.movement.MixedMovement;
+import com.mygdx.platformer.attacks.movement.StraightMovement;
+import com.mygdx.platformer.attacks.movement.ZigZagMovement;
+import com.mygdx.platformer.utilities.AppConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrajectorySimulatorTest {
+
+    @Test
+    void testSimulate_recordsPathSpreadAndScaleEnvelope() {
+        try (TrajectorySimulator simulator = new TrajectorySimulator(TrajectorySimulator.DEFAULT_STEPS)) {
+            TrajectorySimulator.Metrics straight = simulator.simulate(
+                new NecromancerAttackTemplate(45, 2f, 10, 5, new StraightMovement(), null));
+            assertEquals(TrajectorySimulator.DEFAULT_STEPS, straight.getFrames());
+            assertEquals(TrajectorySimulator.DEFAULT_STEPS * AppConfig.TIME_STEP, straight.getTimeOnScreen(), 1e-4f);
+            assertEquals(2f * straight.getTimeOnScreen(), straight.getPathLength(), 1e-2f);
+            assertEquals(simulator.getX(simulator.getFrameCount()), straight.getPathLength(), 1e-4f);
+            assertEquals(0f, straight.getVerticalSpread());
+            assertEquals(AppConfig.NECROMANCER_ATTACK_SCALE, straight.getMinScale());
+            assertEquals(AppConfig.NECROMANCER_ATTACK_SCALE, straight.getMaxScale());
+
+            TrajectorySimulator.Metrics zigZag = simulator.simulate(
+                new NecromancerAttackTemplate(45, 2f, 10, 5, new ZigZagMovement(), new PulseModifier(2f, 0.5f)));
+            assertTrue(zigZag.getVerticalSpread() > 0.5f, () -> "spread " + zigZag.getVerticalSpread());
+            assertTrue(zigZag.getPathLength() > straight.getPathLength());
+            assertEquals(1.5f, zigZag.getMinScale());
+            assertEquals(2f, zigZag.getMaxScale());
+
+            TrajectorySimulator.Metrics fast = simulator.simulate(
+                new NecromancerAttackTemplate(45, 20f, 10, 5, new StraightMovement(), null));
+            assertTrue(fast.getFrames() < TrajectorySimulator.DEFAULT_STEPS, "a fast attack leaves the screen");
+            assertThrows(IndexOutOfBoundsException.class, () -> simulator.getY(fast.getFrames() + 1));
+        }
+    }
+
+    @Test
+    void testSimulate_mixedMovementIsReproducible() {
+        try (TrajectorySimulator simulator = new TrajectorySimulator(TrajectorySimulator.DEFAULT_STEPS)) {
+            MixedMovement shared = new MixedMovement();
+            float first = simulator.simulate(new NecromancerAttackTemplate(45, 1f, 10, 5, shared, null))
+                .getVerticalSpread();
+            float second = simulator.simulate(new NecromancerAttackTemplate(45, 1f, 10, 5, shared, null))
+                .getVerticalSpread();
+            assertEquals(first, second);
+        }
+    }
+}